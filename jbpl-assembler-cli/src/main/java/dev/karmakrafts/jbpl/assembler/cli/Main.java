@@ -17,6 +17,7 @@
 package dev.karmakrafts.jbpl.assembler.cli;
 
 import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.cache.ModelCache;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import joptsimple.OptionParser;
 import org.jetbrains.annotations.NotNull;
@@ -24,6 +25,7 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -31,7 +33,7 @@ import java.nio.file.StandardOpenOption;
 
 public final class Main {
     private static @NotNull ReadableByteChannel readFile(final @NotNull String path) throws IOException {
-        return Files.newByteChannel(Path.of(path));
+        return FileChannel.open(Path.of(path)); // File channels get memory-mapped by the assembler
     }
 
     public static void main(final @NotNull String[] args) {
@@ -52,6 +54,12 @@ public final class Main {
             .withOptionalArg()
             .ofType(String.class)
             .defaultsTo("");
+        final var cacheSpec = optionParser.accepts("cache", "A path to a directory for caching parsed input files")
+            .availableUnless(helpSpec)
+            .withRequiredArg()
+            .ofType(String.class);
+        final var lazySpec = optionParser.accepts("lazy", "Only parse macro, function and injector bodies when they are used")
+            .availableUnless(helpSpec);
         // @formatter:on
         final var options = optionParser.parse(args);
         if (options.has(helpSpec)) {
@@ -64,9 +72,12 @@ public final class Main {
             return;
         }
         try {
+            final var modelCache = options.has(cacheSpec) ? new ModelCache(Path.of(options.valueOf(cacheSpec))) : null;
             final var assembler = new Assembler(ExceptionUtils.unsafeFunction(Main::readFile),
                 System.out::println,
-                System.err::println);
+                System.err::println,
+                modelCache);
+            assembler.setLazyParsing(options.has(lazySpec));
             final var context = assembler.lowerAndCreateContext(options.valueOf(inputSpec), name -> new ClassNode());
             context.eval();
             final var output = context.output.values();
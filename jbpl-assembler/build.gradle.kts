@@ -25,6 +25,26 @@ dependencies {
     testRuntimeOnly(libs.junit.platform.launcher)
 }
 
+val generateLibraryImage = tasks.register("generateLibraryImage", JavaExec::class) {
+    val librarySources = layout.projectDirectory.dir("src/main/resources/jbpl")
+    val outputDirectory = layout.buildDirectory.dir("generated/libraryImage")
+    inputs.dir(librarySources)
+    outputs.dir(outputDirectory)
+    // Resources are left out of the classpath, since they depend on the output of this task
+    classpath(sourceSets.main.map { it.output.classesDirs }, configurations.runtimeClasspath)
+    mainClass = "dev.karmakrafts.jbpl.assembler.cache.LibraryImage"
+    argumentProviders += CommandLineArgumentProvider {
+        listOf(
+            librarySources.asFile.absolutePath,
+            outputDirectory.get().file("jbpl/libraries.jbplc").asFile.absolutePath
+        )
+    }
+}
+
+sourceSets.main {
+    resources.srcDir(generateLibraryImage)
+}
+
 dokka {
     moduleName = project.name
     pluginsConfiguration {
@@ -16,22 +16,49 @@
 
 package dev.karmakrafts.jbpl.assembler;
 
+import dev.karmakrafts.jbpl.assembler.cache.LibraryImage;
+import dev.karmakrafts.jbpl.assembler.cache.ModelCache;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationEngine;
+import dev.karmakrafts.jbpl.assembler.eval.MacroJit;
+import dev.karmakrafts.jbpl.assembler.eval.MacroMemoizer;
+import dev.karmakrafts.jbpl.assembler.lower.BranchPruningLowering;
 import dev.karmakrafts.jbpl.assembler.lower.CompoundLowering;
+import dev.karmakrafts.jbpl.assembler.lower.ConstantFoldingLowering;
 import dev.karmakrafts.jbpl.assembler.lower.IncludeLowering;
+import dev.karmakrafts.jbpl.assembler.lower.LoopUnrollingLowering;
+import dev.karmakrafts.jbpl.assembler.lower.MacroSpecializationLowering;
 import dev.karmakrafts.jbpl.assembler.lower.NoopRemovalLowering;
 import dev.karmakrafts.jbpl.assembler.lower.ScopeReceiverLowering;
+import dev.karmakrafts.jbpl.assembler.lower.StaticBindingLowering;
+import dev.karmakrafts.jbpl.assembler.lower.TypeInferenceLowering;
 import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
-import dev.karmakrafts.jbpl.assembler.parser.ElementParser;
+import dev.karmakrafts.jbpl.assembler.model.decl.FunctionDecl;
+import dev.karmakrafts.jbpl.assembler.model.decl.InjectorDecl;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.statement.IncludeStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ByteBufferCharStream;
+import dev.karmakrafts.jbpl.assembler.parser.FileLexer;
+import dev.karmakrafts.jbpl.assembler.parser.FileParser;
+import dev.karmakrafts.jbpl.assembler.parser.LazyBody;
 import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.scope.Scope;
+import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
+import dev.karmakrafts.jbpl.assembler.source.TextEdit;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import dev.karmakrafts.jbpl.assembler.source.TokenTable;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import dev.karmakrafts.jbpl.assembler.validation.*;
-import dev.karmakrafts.jbpl.frontend.JBPLLexer;
-import dev.karmakrafts.jbpl.frontend.JBPLParser;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.fusesource.jansi.AnsiConsole;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -39,12 +66,13 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.CodingErrorAction;
-import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -90,71 +118,500 @@ public final class Assembler {
     private final Function<String, ReadableByteChannel> resourceProvider;
     private final Consumer<String> infoConsumer;
     private final Consumer<String> errorConsumer;
-    private final HashMap<String, AssemblyFile> files = new HashMap<>();
+    private final @Nullable ModelCache modelCache;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<AssemblyFile>> files = new ConcurrentHashMap<>();
+    private volatile boolean isLazyParsing;
+    private volatile boolean isConstantFolding = true;
+    private volatile int loopUnrollLimit;
+    private volatile boolean isUsingLibraryImage;
+    private volatile int macroCompileThreshold = MacroJit.DEFAULT_COMPILE_THRESHOLD;
+    private volatile int macroMemoCapacity = MacroMemoizer.DEFAULT_CAPACITY;
 
     public Assembler(final @NotNull Function<String, ReadableByteChannel> resourceProvider,
                      final @NotNull Consumer<String> infoConsumer,
-                     final @NotNull Consumer<String> errorConsumer) {
+                     final @NotNull Consumer<String> errorConsumer,
+                     final @Nullable ModelCache modelCache,
+                     final @NotNull Executor executor) {
         this.resourceProvider = resourceProvider;
         this.infoConsumer = infoConsumer;
         this.errorConsumer = errorConsumer;
+        this.modelCache = modelCache;
+        this.executor = executor;
+    }
+
+    public Assembler(final @NotNull Function<String, ReadableByteChannel> resourceProvider,
+                     final @NotNull Consumer<String> infoConsumer,
+                     final @NotNull Consumer<String> errorConsumer,
+                     final @Nullable ModelCache modelCache) {
+        this(resourceProvider, infoConsumer, errorConsumer, modelCache, ForkJoinPool.commonPool());
+    }
+
+    public Assembler(final @NotNull Function<String, ReadableByteChannel> resourceProvider,
+                     final @NotNull Consumer<String> infoConsumer,
+                     final @NotNull Consumer<String> errorConsumer) {
+        this(resourceProvider, infoConsumer, errorConsumer, null);
     }
 
     @SuppressWarnings("all")
     public static Assembler createFromResources(final @NotNull String basePath,
                                                 final @NotNull Consumer<String> infoConsumer,
-                                                final @NotNull Consumer<String> errorConsumer) {
+                                                final @NotNull Consumer<String> errorConsumer,
+                                                final @Nullable ModelCache modelCache) {
         return new Assembler(path -> {
             final var stream = Assembler.class.getResourceAsStream(String.format("/%s/%s", basePath, path));
             return Channels.newChannel(stream);
-        }, infoConsumer, errorConsumer);
+        }, infoConsumer, errorConsumer, modelCache);
+    }
+
+    public static Assembler createFromResources(final @NotNull String basePath,
+                                                final @NotNull Consumer<String> infoConsumer,
+                                                final @NotNull Consumer<String> errorConsumer) {
+        return createFromResources(basePath, infoConsumer, errorConsumer, null);
     }
 
     public static Assembler createFromResources(final @NotNull String basePath) {
         return createFromResources(basePath, System.out::println, System.err::println);
     }
 
+    public boolean isLazyParsing() {
+        return isLazyParsing;
+    }
+
+    /**
+     * Enables or disables lazy parsing for all files parsed after this call.
+     * When enabled, the bodies of top level macros, functions and injectors are only parsed
+     * the first time they are evaluated or visited, so bodies which are never used are never parsed.
+     * Syntax errors inside such bodies are only reported once the body is parsed.
+     *
+     * @param isLazyParsing True if bodies should be parsed lazily.
+     */
+    public void setLazyParsing(final boolean isLazyParsing) {
+        this.isLazyParsing = isLazyParsing;
+    }
+
+    public boolean isConstantFolding() {
+        return isConstantFolding;
+    }
+
+    /**
+     * Enables or disables constant folding for all files lowered after this call.
+     * When enabled, side effect free expressions whose operands are all constant
+     * are replaced with their value before evaluation, see {@link ConstantFoldingLowering}.
+     * Branches whose condition becomes constant that way are pruned, see {@link BranchPruningLowering}.
+     * Macros called with constant arguments are specialized for them, so branches depending on
+     * the arguments are pruned as well, see {@link MacroSpecializationLowering}.
+     * Enabled by default.
+     *
+     * @param isConstantFolding True if constant expressions should be folded.
+     */
+    public void setConstantFolding(final boolean isConstantFolding) {
+        this.isConstantFolding = isConstantFolding;
+    }
+
+    public boolean isUsingLibraryImage() {
+        return isUsingLibraryImage;
+    }
+
+    /**
+     * Enables or disables including the bundled libraries from the image embedded in the assembler jar,
+     * see {@link LibraryImage}. When enabled, includes of a path the image contains, like
+     * {@code include "jbpl/math.jbpl"}, load the precompiled model instead of asking the resource provider.
+     * Disabled by default, since the image would shadow files of the same path served by the resource provider.
+     *
+     * @param isUsingLibraryImage True if bundled libraries should be included from the embedded image.
+     */
+    public void setUsingLibraryImage(final boolean isUsingLibraryImage) {
+        this.isUsingLibraryImage = isUsingLibraryImage;
+    }
+
+    /**
+     * @param path The path of an included file.
+     * @return The model of the bundled library with the given path if {@link #isUsingLibraryImage()}
+     *     and the embedded image contains it, otherwise null.
+     */
+    public @Nullable AssemblyFile loadBundledLibrary(final @NotNull String path) {
+        if (!isUsingLibraryImage || !LibraryImage.isBundledPath(path)) {
+            return null;
+        }
+        final var image = LibraryImage.getBundled();
+        return image != null ? image.load(path) : null; // Falls back to the resource provider if null
+    }
+
+    public int getLoopUnrollLimit() {
+        return loopUnrollLimit;
+    }
+
+    /**
+     * Sets the maximum number of elements a single for loop may expand to when being unrolled
+     * for all files lowered after this call, see {@link LoopUnrollingLowering}.
+     * Unrolled loops are evaluated without a frame per iteration and can be specialized
+     * by constant folding for every iteration. Disabled by default.
+     *
+     * @param loopUnrollLimit The maximum number of elements per unrolled loop, or 0 to disable unrolling.
+     */
+    public void setLoopUnrollLimit(final int loopUnrollLimit) {
+        this.loopUnrollLimit = loopUnrollLimit;
+    }
+
+    public int getMacroCompileThreshold() {
+        return macroCompileThreshold;
+    }
+
+    /**
+     * Sets the number of calls after which the {@link EvaluationEngine#TIERED} engine compiles a macro
+     * for all contexts created after this call, see {@link MacroJit}.
+     * Defaults to {@link MacroJit#DEFAULT_COMPILE_THRESHOLD}.
+     *
+     * @param macroCompileThreshold The number of interpreted calls before a macro is compiled.
+     */
+    public void setMacroCompileThreshold(final int macroCompileThreshold) {
+        this.macroCompileThreshold = macroCompileThreshold;
+    }
+
+    public int getMacroMemoCapacity() {
+        return macroMemoCapacity;
+    }
+
+    /**
+     * Sets the number of results the evaluation caches per pure macro
+     * for all contexts created after this call, see {@link MacroMemoizer}.
+     * Defaults to {@link MacroMemoizer#DEFAULT_CAPACITY}.
+     *
+     * @param macroMemoCapacity The maximum number of cached results per macro, or 0 to disable memoization.
+     */
+    public void setMacroMemoCapacity(final int macroMemoCapacity) {
+        this.macroMemoCapacity = macroMemoCapacity;
+    }
+
     public @NotNull AssemblyFile getOrParseFile(final @NotNull String path) throws ParserException {
+        final var future = new CompletableFuture<AssemblyFile>();
+        final var existingFuture = files.putIfAbsent(path, future);
+        if (existingFuture != null) {
+            return awaitFile(existingFuture); // Another caller is already loading this file, wait for its result
+        }
+        loadFile(path, future);
+        return awaitFile(future);
+    }
+
+    private @NotNull CompletableFuture<AssemblyFile> getOrParseFileAsync(final @NotNull String path) {
+        final var future = new CompletableFuture<AssemblyFile>();
+        final var existingFuture = files.putIfAbsent(path, future);
+        if (existingFuture != null) {
+            return existingFuture;
+        }
+        executor.execute(() -> loadFile(path, future));
+        return future;
+    }
+
+    /**
+     * Parses the entire include graph of the given file in parallel,
+     * so the include lowering only has to pick up already loaded files.
+     * Failures are ignored here; they resurface when the include lowering requests the file.
+     */
+    private void prefetchIncludes(final @NotNull AssemblyFile file) {
+        final var visitedPaths = new HashSet<String>();
+        visitedPaths.add(file.path);
+        final var pendingFiles = new ArrayDeque<CompletableFuture<AssemblyFile>>();
+        prefetchIncludes(file, visitedPaths, pendingFiles);
+        while (!pendingFiles.isEmpty()) {
+            final var future = pendingFiles.poll();
+            try {
+                prefetchIncludes(future.join(), visitedPaths, pendingFiles);
+            }
+            catch (CompletionException error) {
+                // Ignored, see above
+            }
+        }
+    }
+
+    private void prefetchIncludes(final @NotNull AssemblyFile file,
+                                  final @NotNull HashSet<String> visitedPaths,
+                                  final @NotNull ArrayDeque<CompletableFuture<AssemblyFile>> pendingFiles) {
+        for (final var element : file.getElements()) { // Includes may only appear at the top level
+            if (!(element instanceof IncludeStatement includeStatement) || !visitedPaths.add(includeStatement.path)) {
+                continue;
+            }
+            if (isBundledInImage(includeStatement.path)) {
+                continue; // Loaded from the image by IncludeLowering, see loadBundledLibrary
+            }
+            pendingFiles.add(getOrParseFileAsync(includeStatement.path));
+        }
+    }
+
+    private boolean isBundledInImage(final @NotNull String path) {
+        if (!isUsingLibraryImage || !LibraryImage.isBundledPath(path)) {
+            return false;
+        }
+        final var image = LibraryImage.getBundled();
+        return image != null && image.getPaths().contains(path);
+    }
+
+    private void loadFile(final @NotNull String path, final @NotNull CompletableFuture<AssemblyFile> future) {
+        try {
+            future.complete(readFile(path));
+        }
+        catch (Throwable error) {
+            files.remove(path, future); // Don't cache failures, the next request for this path retries
+            future.completeExceptionally(error);
+        }
+    }
+
+    private static @NotNull AssemblyFile awaitFile(final @NotNull CompletableFuture<AssemblyFile> future) throws ParserException {
         try {
-            return files.computeIfAbsent(path, p -> {
-                try (final var channel = resourceProvider.apply(path)) {
-                    final var file = new AssemblyFile(p);
-                    file.path = path;
-                    final var errorListener = new ErrorListener(file);
-                    final var charStream = CharStreams.fromChannel(channel, 4096, CodingErrorAction.REPLACE, path);
-                    final var lexer = new JBPLLexer(charStream);
-                    lexer.removeErrorListeners();
-                    lexer.addErrorListener(errorListener);
-                    final var tokenStream = new CommonTokenStream(lexer);
-                    tokenStream.fill();
-                    file.source.addAll(tokenStream.getTokens());
-                    final var parser = new JBPLParser(tokenStream);
-                    parser.removeErrorListeners();
-                    parser.addErrorListener(errorListener);
-                    // @formatter:off
-                    file.addElements(parser.file().bodyElement().stream()
-                        .map(ExceptionUtils.unsafeFunction(ElementParser::parse))
-                        .toList());
-                    // @formatter:on
-                    lowerPerFile(file);
-                    validateFile(file);
-                    return file;
+            return future.join();
+        }
+        catch (CompletionException error) {
+            final var cause = error.getCause();
+            if (cause instanceof SyntaxError syntaxError) {
+                throw syntaxError.cause; // Syntax errors get unwrapped and rethrown as ParserException
+            }
+            if (cause instanceof ParserException parserException) {
+                throw parserException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error otherError) {
+                throw otherError;
+            }
+            throw error;
+        }
+    }
+
+    private @NotNull AssemblyFile readFile(final @NotNull String path) {
+        try (final var channel = resourceProvider.apply(path)) {
+            if (modelCache == null && !(channel instanceof FileChannel)) {
+                return parseFile(path, CharStreams.fromChannel(channel, 4096, CodingErrorAction.REPLACE, path));
+            }
+            final var source = readSource(channel);
+            if (modelCache == null) {
+                return parseFile(path, ByteBufferCharStream.fromBuffer(source, path));
+            }
+            final var cachedFile = modelCache.load(path, source);
+            if (cachedFile != null) {
+                return cachedFile; // Cached models were already lowered and validated
+            }
+            final var file = parseFile(path, ByteBufferCharStream.fromBuffer(source, path));
+            modelCache.store(source, file);
+            return file;
+        }
+        catch (IOException error) {
+            throw new RuntimeException(error);
+        }
+    }
+
+    private static @NotNull ByteBuffer readSource(final @NotNull ReadableByteChannel channel) throws IOException {
+        if (channel instanceof FileChannel fileChannel) {
+            return ByteBufferCharStream.map(fileChannel); // Zero-copy fast path for files on disk
+        }
+        return ByteBuffer.wrap(Channels.newInputStream(channel).readAllBytes());
+    }
+
+    /**
+     * Applies the given edit to an already parsed file and re-parses only the top level elements it touches.
+     * The new elements are lowered like a freshly parsed file and spliced into the given file in-place.
+     * When the edit can't be handled incrementally, the entire file is re-parsed instead,
+     * so the returned file always reflects the edited source.
+     */
+    public @NotNull AssemblyFile reparseFile(final @NotNull AssemblyFile file,
+                                             final @NotNull TextEdit edit) throws ParserException {
+        final var newSource = edit.apply(file.source.getSourceText());
+        try {
+            if (reparseIncrementally(file, edit, newSource)) {
+                return file;
+            }
+        }
+        catch (ParseCancellationException | ParserException error) {
+            // Fall back to a full re-parse, which reports errors with proper diagnostics
+        }
+        try {
+            final var newFile = parseFile(file.path, CharStreams.fromString(newSource, file.path));
+            files.put(file.path, CompletableFuture.completedFuture(newFile));
+            return newFile;
+        }
+        catch (SyntaxError error) {
+            throw error.cause;
+        }
+    }
+
+    private boolean reparseIncrementally(final @NotNull AssemblyFile file,
+                                         final @NotNull TextEdit edit,
+                                         final @NotNull String newSource) throws ParserException {
+        final var oldTable = file.source;
+        if (oldTable.isEmpty()) {
+            return false;
+        }
+        // Find the closest elements before and after the edit which are guaranteed to be unaffected by it
+        final var elements = file.getElements();
+        var previousIndex = -1;
+        var nextIndex = elements.size();
+        for (var index = 0; index < elements.size(); index++) {
+            final var range = elements.get(index).getTokenRange();
+            if (range.isUndefined() || range.isSynthetic()) {
+                continue;
+            }
+            if (oldTable.getEndOffset(range.end()) < edit.offset()) {
+                previousIndex = index;
+            }
+            else if (oldTable.getOffset(range.start()) > edit.end()) {
+                nextIndex = index;
+                break;
+            }
+        }
+        final var startToken = previousIndex == -1 ? 0 : elements.get(previousIndex).getTokenRange().end() + 1;
+        final var oldEndToken = nextIndex == elements.size() // The EOF token terminates the last region
+            ? oldTable.size() - 1
+            : elements.get(nextIndex).getTokenRange().start();
+
+        final var tokenStream = new CommonTokenStream(new FileLexer(CharStreams.fromString(newSource, file.path)));
+        tokenStream.fill();
+        final var newTokens = tokenStream.getTokens();
+        final var newTable = TokenTable.of(newTokens);
+        final var tokenDelta = newTable.size() - oldTable.size();
+        final var newEndToken = oldEndToken + tokenDelta;
+        // Make sure the tokens around the edited region were lexed the same way as before
+        if (newEndToken < startToken || newEndToken >= newTable.size()) {
+            return false;
+        }
+        if (newTable.getType(newEndToken) != oldTable.getType(oldEndToken)
+            || newTable.getOffset(newEndToken) != oldTable.getOffset(oldEndToken) + edit.getLengthDelta()) {
+            return false;
+        }
+        if (startToken > 0 && (newTable.getType(startToken - 1) != oldTable.getType(startToken - 1)
+            || newTable.getEndOffset(startToken - 1) != oldTable.getEndOffset(startToken - 1))) {
+            return false;
+        }
+
+        final var regionStream = FileParser.createRegionStream(newTokens.subList(startToken, newEndToken),
+            startToken,
+            file.path);
+        final var newElements = new ArrayList<Element>();
+        final var lowering = new ScopeReceiverLowering();
+        final var scopeStack = new Stack<Scope>();
+        scopeStack.push(new Scope(null, file));
+        lowering.restoreFrom(scopeStack);
+        for (final var element : FileParser.parseElements(regionStream, null)) {
+            element.setParent(file);
+            newElements.add(element.transform(lowering));
+        }
+
+        file.replaceElements(previousIndex + 1, nextIndex, newElements);
+        if (tokenDelta != 0) {
+            final var shifter = new TokenRangeShifter(tokenDelta);
+            final var trailingElements = elements.subList(previousIndex + 1 + newElements.size(), elements.size());
+            for (final var element : trailingElements) {
+                element.accept(shifter);
+            }
+        }
+        file.setSource(newTable);
+        validateFile(file);
+        return true;
+    }
+
+    private @NotNull AssemblyFile parseFile(final @NotNull String path, final @NotNull CharStream charStream) {
+        final var file = new AssemblyFile(path);
+        final var errorListener = new ErrorListener(file);
+        // The lexer never reports errors, anything it doesn't recognize becomes an ERROR token
+        final var tokenStream = new CommonTokenStream(new FileLexer(charStream));
+        tokenStream.fill();
+        file.source = TokenTable.of(tokenStream.getTokens());
+        if (!isLazyParsing || !parseLazily(file, tokenStream, errorListener)) {
+            file.addElements(ExceptionUtils.rethrowUnchecked(() -> FileParser.parseElements(tokenStream, errorListener)));
+        }
+        lowerPerFile(file);
+        validateFile(file);
+        return file;
+    }
+
+    private boolean parseLazily(final @NotNull AssemblyFile file,
+                                final @NotNull CommonTokenStream tokenStream,
+                                final @NotNull ErrorListener errorListener) {
+        final var tokens = tokenStream.getTokens();
+        final var bodies = LazyBody.hideBodies(tokens);
+        if (bodies.isEmpty()) {
+            return false;
+        }
+        final var bodiesByEnd = new HashMap<Integer, TokenRange>();
+        for (final var body : bodies) {
+            bodiesByEnd.put(body.end(), body);
+        }
+        try {
+            final var elements = ExceptionUtils.rethrowUnchecked(() -> FileParser.parseElements(tokenStream, null));
+            for (final var element : elements) {
+                if (!(element instanceof MacroDecl) && !(element instanceof FunctionDecl)
+                    && !(element instanceof InjectorDecl)) {
+                    continue;
                 }
-                catch (IOException error) {
-                    throw new RuntimeException(error);
+                final var body = bodiesByEnd.remove(element.getTokenRange().end());
+                if (body == null) {
+                    continue;
                 }
-            });
+                ((AbstractElementContainer) element).setLazyElements(new LazyBody(file.source,
+                    file.path,
+                    body,
+                    !(element instanceof MacroDecl),
+                    errorListener,
+                    this::lowerLazyBody));
+            }
+            // Braces are matched without knowing the grammar, so every hidden body must belong to a declaration
+            if (bodiesByEnd.isEmpty()) {
+                file.addElements(elements);
+                return true;
+            }
         }
-        catch (SyntaxError error) {
-            throw error.cause; // Syntax errors get unwrapped and rethrown as ParserException
+        catch (ParseCancellationException error) {
+            // Parse the entire file eagerly, which reports the error with proper diagnostics
         }
+        LazyBody.restoreBodies(tokens, file.source);
+        tokenStream.seek(0);
+        return false;
+    }
+
+    private void lowerLazyBody(final @NotNull ElementContainer container) {
+        // Bodies skipped all lowerings and validations which they would have gone through when parsed eagerly
+        final var owners = new ArrayDeque<ScopeOwner>();
+        for (var parent = container.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof ScopeOwner owner) {
+                owners.push(owner);
+            }
+            if (parent.getParent() == parent) {
+                break;
+            }
+        }
+        final var scopeStack = new Stack<Scope>();
+        for (final var owner : owners) {
+            scopeStack.push(new Scope(scopeStack.isEmpty() ? null : scopeStack.peek(), owner));
+        }
+        final var lowering = new ScopeReceiverLowering();
+        lowering.restoreFrom(scopeStack);
+        container.transform(lowering);
+        validate(container, scopeStack);
+        container.transform(NoopRemovalLowering.INSTANCE);
+        final var loopUnrollLimit = this.loopUnrollLimit;
+        if (loopUnrollLimit > 0) {
+            container.transform(new LoopUnrollingLowering(loopUnrollLimit));
+        }
+        if (isConstantFolding) {
+            container.transform(new ConstantFoldingLowering());
+            container.transform(BranchPruningLowering.INSTANCE);
+        }
+        container.transform(TypeInferenceLowering.INSTANCE);
     }
 
     private void validateFile(final @NotNull AssemblyFile file) {
-        file.accept(VersionValidationVisitor.INSTANCE);
-        file.accept(ReturnValidationVisitor.INSTANCE);
-        file.accept(VisibilityValidationVisitor.INSTANCE);
-        file.accept(IncludeValidationVisitor.INSTANCE);
+        validate(file, new Stack<>());
+    }
+
+    private static void validate(final @NotNull Element element, final @NotNull Stack<Scope> scopeStack) {
+        element.accept(new VersionValidationVisitor());
+        final var visitors = List.of(new ReturnValidationVisitor(),
+            new VisibilityValidationVisitor(),
+            new IncludeValidationVisitor());
+        for (final var visitor : visitors) {
+            visitor.restoreFrom(scopeStack);
+            element.accept(visitor);
+        }
     }
 
     private void validateBytecodeVersion(final @NotNull EvaluationContext context) throws ValidationException {
@@ -166,26 +623,86 @@ public final class Assembler {
     }
 
     private void lowerPerFile(final @NotNull AssemblyFile file) {
-        file.transform(ScopeReceiverLowering.INSTANCE);
+        file.transform(new ScopeReceiverLowering());
     }
 
     private @NotNull AssemblyFile lowerFinal(final @NotNull AssemblyFile file) {
+        prefetchIncludes(file);
         file.transform(new IncludeLowering(this));
         file.transform(CompoundLowering.INSTANCE);
         file.transform(NoopRemovalLowering.INSTANCE);
+        final var loopUnrollLimit = this.loopUnrollLimit;
+        if (loopUnrollLimit > 0) {
+            file.transform(new LoopUnrollingLowering(loopUnrollLimit)); // Copies of loop bodies are bound below
+        }
+        file.transform(new StaticBindingLowering());
+        if (isConstantFolding) {
+            file.transform(new ConstantFoldingLowering());
+            file.transform(BranchPruningLowering.INSTANCE);
+            file.transform(new MacroSpecializationLowering());
+        }
+        file.transform(TypeInferenceLowering.INSTANCE);
         return file;
     }
 
     private @NotNull EvaluationContext lowerAndCreateContext(final @NotNull AssemblyFile file,
-                                                             final @NotNull Function<String, ClassNode> classResolver) throws ValidationException {
-        final var context = new EvaluationContext(lowerFinal(file), classResolver, infoConsumer, errorConsumer);
+                                                             final @NotNull Function<String, ClassNode> classResolver,
+                                                             final @NotNull EvaluationEngine engine) throws ValidationException {
+        final var context = new EvaluationContext(lowerFinal(file),
+            classResolver,
+            infoConsumer,
+            errorConsumer,
+            engine,
+            macroCompileThreshold,
+            macroMemoCapacity);
         validateBytecodeVersion(context);
         return context;
     }
 
+    public @NotNull EvaluationContext lowerAndCreateContext(final @NotNull String path,
+                                                            final @NotNull Function<String, ClassNode> classResolver,
+                                                            final @NotNull EvaluationEngine engine) throws ValidationException, ParserException {
+        return lowerAndCreateContext(getOrParseFile(path), classResolver, engine);
+    }
+
     public @NotNull EvaluationContext lowerAndCreateContext(final @NotNull String path,
                                                             final @NotNull Function<String, ClassNode> classResolver) throws ValidationException, ParserException {
-        return lowerAndCreateContext(getOrParseFile(path), classResolver);
+        return lowerAndCreateContext(path, classResolver, EvaluationEngine.INTERPRETER);
+    }
+
+    /**
+     * Moves the token ranges of all elements in a tree by a fixed number of tokens.
+     */
+    private static final class TokenRangeShifter implements ElementVisitor {
+        private final Set<Element> shiftedElements = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final int tokenDelta;
+
+        public TokenRangeShifter(final int tokenDelta) {
+            this.tokenDelta = tokenDelta;
+        }
+
+        private void shift(final @NotNull Element element) {
+            if (!shiftedElements.add(element)) {
+                return;
+            }
+            final var range = element.getTokenRange();
+            if (range.isUndefined() || range.isSynthetic() || element instanceof AssemblyFile) {
+                return;
+            }
+            element.setTokenRange(new TokenRange(range.start() + tokenDelta, range.end() + tokenDelta));
+        }
+
+        @Override
+        public @NotNull Element visitElement(final @NotNull Element element) {
+            shift(element);
+            return ElementVisitor.super.visitElement(element);
+        }
+
+        @Override
+        public @NotNull Expr visitExpr(final @NotNull Expr expr) {
+            shift(expr); // Some expressions, like macro names, are visited directly
+            return ElementVisitor.super.visitExpr(expr);
+        }
     }
 
     private static final class SyntaxError extends RuntimeException {
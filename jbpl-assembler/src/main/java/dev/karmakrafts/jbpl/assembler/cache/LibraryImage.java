@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.cache;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.statement.IncludeStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Parsed, lowered and validated models of the libraries bundled with the assembler.
+ * The image is generated while building the assembler and embedded in its jar,
+ * so including a bundled library never runs the lexer, parser, per-file lowerings or validators.
+ * Bundled libraries are included using their path inside the jar, like {@code include "jbpl/math.jbpl"},
+ * if the assembler is set up to use the image, see {@link Assembler#setUsingLibraryImage(boolean)}.
+ */
+public final class LibraryImage {
+    public static final String PATH_PREFIX = "jbpl/";
+    public static final String RESOURCE_PATH = "/jbpl/libraries.jbplc";
+    private static final int MAGIC = 0x4A42504C; // JBPL
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".jbpl";
+
+    private final Map<String, byte[]> entries;
+
+    private LibraryImage(final @NotNull Map<String, byte[]> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return The image embedded in the assembler jar, or null if the assembler was built without one.
+     */
+    public static @Nullable LibraryImage getBundled() {
+        return BundledImageHolder.IMAGE;
+    }
+
+    public static boolean isBundledPath(final @NotNull String path) {
+        return path.startsWith(PATH_PREFIX);
+    }
+
+    public static @NotNull LibraryImage read(final @NotNull InputStream stream) throws IOException {
+        final var in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new InvalidObjectException("Unsupported library image format");
+        }
+        final var count = in.readInt();
+        final var entries = new LinkedHashMap<String, byte[]>(count);
+        for (var i = 0; i < count; i++) {
+            final var path = in.readUTF();
+            final var entry = new byte[in.readInt()];
+            in.readFully(entry);
+            entries.put(path, entry);
+        }
+        return new LibraryImage(entries);
+    }
+
+    /**
+     * Parses all libraries in the given directory and writes their models into a single image.
+     * Includes between the libraries are rewritten to use the path of the included library
+     * inside the jar, so bundled libraries always include each other from the image.
+     *
+     * @param directory The directory containing the library sources.
+     * @param out       The stream to write the image to.
+     * @throws ParserException If any of the libraries can't be assembled.
+     */
+    public static void write(final @NotNull Path directory,
+                             final @NotNull OutputStream out) throws IOException, ParserException {
+        final var names = new TreeSet<String>();
+        try (final var files = Files.list(directory)) {
+            // @formatter:off
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(EXTENSION))
+                .forEach(names::add);
+            // @formatter:on
+        }
+        final var assembler = new Assembler(path -> {
+            try {
+                return FileChannel.open(directory.resolve(path));
+            }
+            catch (IOException error) {
+                throw new UncheckedIOException(error);
+            }
+        }, System.out::println, System.err::println);
+        final var files = new ArrayList<AssemblyFile>();
+        for (final var name : names) {
+            files.add(assembler.getOrParseFile(name)); // A library missing from the image has to fail the build
+        }
+        final var dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(FORMAT_VERSION);
+        dataOut.writeInt(files.size());
+        for (final var file : files) {
+            for (final var element : file.getElements()) { // Includes may only appear at the top level
+                if (element instanceof IncludeStatement includeStatement && names.contains(includeStatement.path)) {
+                    includeStatement.path = PATH_PREFIX + includeStatement.path;
+                }
+            }
+            final var entry = new ByteArrayOutputStream();
+            try (final var entryOut = new DataOutputStream(entry)) {
+                ModelCache.writeModel(entryOut, file);
+            }
+            dataOut.writeUTF(PATH_PREFIX + file.path);
+            dataOut.writeInt(entry.size());
+            entry.writeTo(dataOut);
+        }
+        dataOut.flush();
+    }
+
+    public @NotNull Set<String> getPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Deserializes a fresh copy of a bundled library, so callers are free to modify it.
+     *
+     * @param path The path of the library inside the jar.
+     * @return The model of the library, or null if there is no library with the given path.
+     */
+    public @Nullable AssemblyFile load(final @NotNull String path) {
+        final var entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        try (final var in = new DataInputStream(new ByteArrayInputStream(entry))) {
+            return ModelCache.readModel(in, path);
+        }
+        catch (IOException | ClassNotFoundException error) {
+            throw new IllegalStateException(String.format("Could not load bundled library %s", path), error);
+        }
+    }
+
+    /**
+     * Generates the image during the build, see the generateLibraryImage task.
+     *
+     * @param args The directory containing the library sources and the path of the image to write.
+     */
+    public static void main(final @NotNull String @NotNull [] args) throws IOException, ParserException {
+        if (args.length != 2) {
+            System.err.println("Usage: LibraryImage <source directory> <image path>");
+            System.exit(1);
+        }
+        final var imagePath = Path.of(args[1]);
+        Files.createDirectories(imagePath.toAbsolutePath().getParent());
+        try (final var out = Files.newOutputStream(imagePath)) {
+            write(Path.of(args[0]), out);
+        }
+    }
+
+    private static final class BundledImageHolder {
+        private static final LibraryImage IMAGE = readBundled();
+
+        private static @Nullable LibraryImage readBundled() {
+            try (final var stream = LibraryImage.class.getResourceAsStream(RESOURCE_PATH)) {
+                if (stream == null) {
+                    return null;
+                }
+                return read(stream);
+            }
+            catch (IOException error) {
+                return null; // A broken image is treated like a missing one, bundled includes are read from source instead
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.cache;
+
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.source.TokenTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent cache of parsed, lowered and validated {@link AssemblyFile}s.
+ * Entries are keyed by the SHA-256 hash of the raw source bytes, so an unchanged
+ * file can be loaded without running the lexer, parser, per-file lowerings or validators.
+ * Each entry stores the token table needed for diagnostics followed by the serialized element tree.
+ * The header of every entry holds a fingerprint of the assembler build which wrote it,
+ * so entries written by a different build, which may have lowered or validated the file differently,
+ * are never loaded. Entries which can't be read for any reason (corruption, outdated format,
+ * build or model classes) are discarded and treated as a cache miss.
+ */
+public final class ModelCache {
+    private static final int MAGIC = 0x4A42504C; // JBPL
+    private static final int FORMAT_VERSION = 3;
+    private static final int FINGERPRINT_LENGTH = 32; // SHA-256
+    private static final String EXTENSION = ".jbplc";
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+        "dev.karmakrafts.jbpl.**;java.base/*;!*");
+
+    private final Path directory;
+    private final byte[] fingerprint;
+
+    ModelCache(final @NotNull Path directory, final byte @NotNull [] fingerprint) {
+        if (fingerprint.length != FINGERPRINT_LENGTH) {
+            throw new IllegalArgumentException("Fingerprint must be a SHA-256 hash");
+        }
+        this.directory = directory;
+        this.fingerprint = fingerprint.clone();
+    }
+
+    public ModelCache(final @NotNull Path directory) {
+        this(directory, FingerprintHolder.FINGERPRINT);
+    }
+
+    private static @NotNull MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException error) {
+            throw new IllegalStateException(error); // Every JVM is required to support SHA-256
+        }
+    }
+
+    public static @NotNull String hash(final @NotNull ByteBuffer source) {
+        final var digest = createDigest();
+        digest.update(source.duplicate()); // Don't move the position of the caller's buffer
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the fingerprint of the running assembler build by hashing the jar or class directory
+     * the assembler was loaded from, so any change to the assembler invalidates all cache entries.
+     * If the location can't be read, entries are only valid for the lifetime of the current process.
+     *
+     * @return The SHA-256 hash identifying the running assembler build.
+     */
+    private static byte @NotNull [] computeFingerprint() {
+        final var digest = createDigest();
+        try {
+            final var codeSource = ModelCache.class.getProtectionDomain().getCodeSource();
+            if (codeSource != null) {
+                final var location = Path.of(codeSource.getLocation().toURI());
+                if (Files.isRegularFile(location)) {
+                    digest.update(Files.readAllBytes(location));
+                    return digest.digest();
+                }
+                if (Files.isDirectory(location)) {
+                    try (final var files = Files.walk(location)) {
+                        // @formatter:off
+                        final var classFiles = files.filter(path -> path.toString().endsWith(".class"))
+                            .sorted()
+                            .toList();
+                        // @formatter:on
+                        for (final var classFile : classFiles) {
+                            digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                            digest.update(Files.readAllBytes(classFile));
+                        }
+                    }
+                    return digest.digest();
+                }
+            }
+        }
+        catch (IOException | URISyntaxException | RuntimeException error) {
+            digest.reset(); // Fall through to a fingerprint unique to this process
+        }
+        digest.update(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    public @NotNull Path getDirectory() {
+        return directory;
+    }
+
+    public @NotNull Path getEntryPath(final @NotNull ByteBuffer source) {
+        return directory.resolve(hash(source) + EXTENSION);
+    }
+
+    public @Nullable AssemblyFile load(final @NotNull String path, final @NotNull ByteBuffer source) {
+        final var entryPath = getEntryPath(source);
+        if (!Files.isRegularFile(entryPath)) {
+            return null;
+        }
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new InvalidObjectException("Unsupported cache entry format");
+            }
+            final var entryFingerprint = new byte[FINGERPRINT_LENGTH];
+            in.readFully(entryFingerprint);
+            if (!Arrays.equals(entryFingerprint, fingerprint)) {
+                throw new InvalidObjectException("Cache entry was written by a different assembler build");
+            }
+            return readModel(in, path);
+        }
+        catch (IOException | ClassNotFoundException | RuntimeException error) {
+            deleteQuietly(entryPath);
+            return null;
+        }
+    }
+
+    public boolean store(final @NotNull ByteBuffer source, final @NotNull AssemblyFile file) {
+        final var entryPath = getEntryPath(source);
+        Path tempPath = null;
+        try {
+            Files.createDirectories(directory);
+            tempPath = Files.createTempFile(directory, "entry", ".tmp");
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(fingerprint);
+                writeModel(out, file);
+            }
+            Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+        catch (IOException | RuntimeException error) {
+            if (tempPath != null) {
+                deleteQuietly(tempPath);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads a file which was written using {@link #writeModel(DataOutputStream, AssemblyFile)}.
+     *
+     * @param in   The stream to read the token table and element tree from.
+     * @param path The path of the returned file.
+     * @return A new file containing the deserialized elements.
+     */
+    static @NotNull AssemblyFile readModel(final @NotNull DataInputStream in,
+                                           final @NotNull String path) throws IOException, ClassNotFoundException {
+        final var file = new AssemblyFile(path);
+        file.source = TokenTable.read(in);
+        final var objectIn = new ModelInputStream(in, file);
+        final var elements = (List<?>) objectIn.readObject();
+        for (final var element : elements) {
+            file.addElementVerbatim((Element) element); // Parent links are restored by the stream
+        }
+        return file;
+    }
+
+    static void writeModel(final @NotNull DataOutputStream out, final @NotNull AssemblyFile file) throws IOException {
+        file.source.write(out);
+        final var objectOut = new ModelOutputStream(out, file);
+        objectOut.writeObject(new ArrayList<>(file.getElements()));
+        objectOut.flush();
+    }
+
+    private static void deleteQuietly(final @NotNull Path path) {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException error) {
+            // Ignored, a stale entry is simply missed again next time
+        }
+    }
+
+    private static final class FingerprintHolder {
+        private static final byte[] FINGERPRINT = computeFingerprint();
+    }
+
+    /**
+     * Stands in for the owning {@link AssemblyFile} in the serialized element tree,
+     * which can't be serialized itself since it holds on to the token table.
+     */
+    private enum FileReference {
+        INSTANCE
+    }
+
+    private static final class ModelOutputStream extends ObjectOutputStream {
+        private final AssemblyFile file;
+
+        public ModelOutputStream(final @NotNull OutputStream out, final @NotNull AssemblyFile file) throws IOException {
+            super(out);
+            this.file = file;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected @Nullable Object replaceObject(final @Nullable Object obj) {
+            return obj == file ? FileReference.INSTANCE : obj;
+        }
+    }
+
+    private static final class ModelInputStream extends ObjectInputStream {
+        private final AssemblyFile file;
+
+        public ModelInputStream(final @NotNull InputStream in, final @NotNull AssemblyFile file) throws IOException {
+            super(in);
+            this.file = file;
+            setObjectInputFilter(FILTER);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected @Nullable Object resolveObject(final @Nullable Object obj) {
+            return obj == FileReference.INSTANCE ? file : obj;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr;
+import dev.karmakrafts.jbpl.assembler.model.statement.ForStatement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles every expression of a lowered {@link AssemblyFile} into a {@link CompiledExpr}
+ * for the {@link EvaluationEngine#CLOSURE} engine.
+ * Closures of nested expressions are shared with their parents, so every expression is only compiled once.
+ */
+public final class ClosureCompiler {
+    private final IdentityHashMap<Expr, CompiledExpr> closures = new IdentityHashMap<>();
+
+    private ClosureCompiler() {
+    }
+
+    public static @NotNull Map<Expr, CompiledExpr> compile(final @NotNull AssemblyFile file) {
+        final var compiler = new ClosureCompiler();
+        compiler.compileElement(file);
+        return compiler.closures;
+    }
+
+    public @NotNull CompiledExpr compile(final @NotNull Expr expr) {
+        var closure = closures.get(expr);
+        if (closure == null) {
+            closure = expr.compile(this);
+            closures.put(expr, closure);
+        }
+        return closure;
+    }
+
+    public @NotNull List<CompiledExpr> compile(final @NotNull List<? extends Expr> expressions) {
+        final var result = new ArrayList<CompiledExpr>(expressions.size());
+        for (final var expr : expressions) {
+            result.add(compile(expr));
+        }
+        return result;
+    }
+
+    private void compileElement(final @NotNull Element element) {
+        if (element instanceof Expr expr) {
+            compile(expr);
+        }
+        // Some expressions are not part of the children of their parent
+        if (element instanceof IfExpr ifExpr) {
+            compileElement(ifExpr.getCondition());
+        }
+        else if (element instanceof IfExpr.ElseIfBranch elseIfBranch) {
+            compileElement(elseIfBranch.getCondition());
+        }
+        else if (element instanceof ForStatement forStatement) {
+            compileElement(forStatement.getValue());
+        }
+        if (element instanceof ElementContainer container) {
+            for (final var child : container.getElements()) {
+                compileElement(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * An expression compiled by the {@link ClosureCompiler}.
+ */
+@FunctionalInterface
+public interface CompiledExpr {
+    @NotNull ConstExpr evaluate(final @NotNull EvaluationContext context) throws EvaluationException;
+
+    default <T> @NotNull T evaluateAs(final @NotNull EvaluationContext context,
+                                      final @NotNull Class<T> type) throws EvaluationException {
+        return type.cast(Objects.requireNonNull(evaluate(context).getConstValue()));
+    }
+}
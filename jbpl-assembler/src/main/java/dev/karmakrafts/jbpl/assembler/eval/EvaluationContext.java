@@ -22,6 +22,7 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.Scope;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
+import dev.karmakrafts.jbpl.assembler.scope.ScopeResolver;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -42,33 +43,77 @@ public final class EvaluationContext {
     public final InsnList instructionBuffer = new InsnList();
     public final IntrinsicsHandler intrinsicsHandler = new IntrinsicsHandler(this);
     public final ControlFlowState controlFlowState = new ControlFlowState();
-    private final Stack<StackFrame> frameStack = new Stack<>();
+    public final EvaluationEngine engine;
+    public final @Nullable MacroJit macroJit;
+    public final MacroMemoizer macroMemoizer;
+    private final @Nullable Map<Expr, CompiledExpr> compiledExprs;
+    private final HashSet<String> boundValueNames = new HashSet<>(); // Names bound by any frame, see StackFrame
+    private StackFrame currentFrame;
     public int bytecodeVersion = Opcodes.V17;
     public int bytecodeApi = Opcodes.ASM9;
 
     public EvaluationContext(final @NotNull AssemblyFile file,
                              final @NotNull Function<String, ClassNode> classResolver,
                              final @NotNull Consumer<String> infoConsumer,
-                             final @NotNull Consumer<String> errorConsumer) {
+                             final @NotNull Consumer<String> errorConsumer,
+                             final @NotNull EvaluationEngine engine,
+                             final int compileThreshold,
+                             final int memoCapacity) {
         this.file = file;
         this.classResolver = classResolver;
         this.infoConsumer = infoConsumer;
         this.errorConsumer = errorConsumer;
+        this.engine = engine;
+        compiledExprs = engine == EvaluationEngine.CLOSURE ? ClosureCompiler.compile(file) : null;
+        macroJit = engine == EvaluationEngine.TIERED ? new MacroJit(compileThreshold) : null;
+        macroMemoizer = new MacroMemoizer(memoCapacity);
+    }
+
+    public EvaluationContext(final @NotNull AssemblyFile file,
+                             final @NotNull Function<String, ClassNode> classResolver,
+                             final @NotNull Consumer<String> infoConsumer,
+                             final @NotNull Consumer<String> errorConsumer,
+                             final @NotNull EvaluationEngine engine) {
+        this(file,
+            classResolver,
+            infoConsumer,
+            errorConsumer,
+            engine,
+            MacroJit.DEFAULT_COMPILE_THRESHOLD,
+            MacroMemoizer.DEFAULT_CAPACITY);
+    }
+
+    public EvaluationContext(final @NotNull AssemblyFile file,
+                             final @NotNull Function<String, ClassNode> classResolver,
+                             final @NotNull Consumer<String> infoConsumer,
+                             final @NotNull Consumer<String> errorConsumer) {
+        this(file, classResolver, infoConsumer, errorConsumer, EvaluationEngine.INTERPRETER);
     }
 
     public void eval() throws EvaluationException {
         file.evaluate(this);
     }
 
+    public @Nullable CompiledExpr getCompiledExpr(final @NotNull Expr expr) {
+        if (compiledExprs == null) {
+            return null;
+        }
+        return compiledExprs.get(expr);
+    }
+
     public @NotNull StackTrace createStackTrace() {
-        return new StackTrace(frameStack.stream().map(StackFrame::copy).toList());
+        final var frames = new ArrayList<StackFrame>();
+        for (var frame = currentFrame; frame != null; frame = frame.parent) {
+            frames.add(frame.copy());
+        }
+        Collections.reverse(frames); // Stack traces list the outermost frame first
+        return new StackTrace(frames);
     }
 
     public <E extends NamedElement> @Nullable E resolveByName(final @NotNull Class<E> type,
                                                               final @NotNull String name,
                                                               final @NotNull Predicate<E> filter) {
-        return peekFrame().scopeResolver.resolve(type,
-            filter.and(ExceptionUtils.unsafePredicate(element -> element.getName(this).equals(name))));
+        return ScopeResolver.resolve(getScope(), type, name, this, filter);
     }
 
     public <E extends NamedElement> @Nullable E resolveByName(final @NotNull Class<E> type,
@@ -79,8 +124,7 @@ public final class EvaluationContext {
     public <E extends NamedElement> @Nullable E resolveLocallyByName(final @NotNull Class<E> type,
                                                                      final @NotNull String name,
                                                                      final @NotNull Predicate<E> filter) {
-        return peekFrame().scopeResolver.resolveLocally(type,
-            filter.and(ExceptionUtils.unsafePredicate(element -> element.getName(this).equals(name))));
+        return ScopeResolver.resolveLocally(getScope(), type, name, this, filter);
     }
 
     public <E extends NamedElement> @Nullable E resolveLocallyByName(final @NotNull Class<E> type,
@@ -90,14 +134,12 @@ public final class EvaluationContext {
 
     public <E extends NamedElement> @NotNull List<E> resolveAllByName(final @NotNull Class<E> type,
                                                                       final @NotNull String name) {
-        return peekFrame().scopeResolver.resolveAll(type,
-            ExceptionUtils.unsafePredicate(element -> element.getName(this).equals(name)));
+        return ScopeResolver.resolveAll(getScope(), type, name, this, element -> true);
     }
 
     public <E extends NamedElement> @NotNull List<E> resolveAllLocallyByName(final @NotNull Class<E> type,
                                                                              final @NotNull String name) {
-        return peekFrame().scopeResolver.resolveAllLocally(type,
-            ExceptionUtils.unsafePredicate(element -> element.getName(this).equals(name)));
+        return ScopeResolver.resolveAllLocally(getScope(), type, name, this, element -> true);
     }
 
     public void clearStack() {
@@ -232,28 +274,28 @@ public final class EvaluationContext {
     }
 
     public @NotNull StackFrame peekFrame() {
-        return frameStack.peek();
+        final var frame = currentFrame;
+        if (frame == null) {
+            throw new IllegalStateException("No stack frame present");
+        }
+        return frame;
     }
 
     public void pushFrame(final @NotNull ScopeOwner owner) {
-        final var parentScope = frameStack.empty() ? null : frameStack.peek().scope;
-        final var newFrame = new StackFrame(new Scope(parentScope, owner));
-        if (!frameStack.empty()) {
-            // If we currently already have a frame, propagate named values scope-inwards
-            newFrame.namedLocalValues.putAll(peekFrame().namedLocalValues);
-        }
-        frameStack.push(newFrame);
-        intrinsicsHandler.initGlobal(); // Global intrinsics are injected into every new frame
+        final var parentFrame = currentFrame;
+        final var parentScope = parentFrame == null ? null : parentFrame.scope;
+        // Named values are propagated scope-inwards through the parent link of the new frame
+        currentFrame = new StackFrame(parentFrame, new Scope(parentScope, owner), boundValueNames);
     }
 
     public void popFrame() {
-        final var lastFrame = frameStack.pop();
+        final var lastFrame = peekFrame();
+        currentFrame = lastFrame.parent;
         // If the popped frames owner doesn't request frame data to be merged, we return early
-        if (!lastFrame.scope.owner().mergeFrameDataOnFrameExit()) {
+        if (currentFrame == null || !lastFrame.scope.owner().mergeFrameDataOnFrameExit()) {
             return;
         }
         // Otherwise we merge the value stack and instruction buffer; locals and labels are never merged
-        final var currentFrame = frameStack.peek();
         currentFrame.valueStack.addAll(lastFrame.valueStack);
     }
 
@@ -262,7 +304,7 @@ public final class EvaluationContext {
     }
 
     public void pushValue(final @NotNull Expr value) {
-        peekFrame().valueStack.push(value);
+        peekFrame().valueStack.add(value);
     }
 
     public void pushValues(final @NotNull Collection<Expr> values) {
@@ -272,7 +314,11 @@ public final class EvaluationContext {
     }
 
     public @NotNull Expr popValue() {
-        return peekFrame().valueStack.pop();
+        final var valueStack = peekFrame().valueStack;
+        if (valueStack.isEmpty()) {
+            throw new EmptyStackException();
+        }
+        return valueStack.remove(valueStack.size() - 1);
     }
 
     public @NotNull List<Expr> popValues(final int count) {
@@ -285,6 +331,10 @@ public final class EvaluationContext {
     }
 
     public @NotNull Expr peekValue() {
-        return peekFrame().valueStack.peek();
+        final var valueStack = peekFrame().valueStack;
+        if (valueStack.isEmpty()) {
+            throw new EmptyStackException();
+        }
+        return valueStack.get(valueStack.size() - 1);
     }
 }
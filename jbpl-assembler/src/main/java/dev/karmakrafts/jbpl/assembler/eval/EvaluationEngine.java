@@ -0,0 +1,38 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+/**
+ * The strategy an {@link EvaluationContext} uses to evaluate expressions.
+ */
+public enum EvaluationEngine {
+    /**
+     * Walks the tree and passes intermediate values over the value stack of the current frame.
+     * This is the reference implementation every other engine has to agree with.
+     */
+    INTERPRETER,
+    /**
+     * Compiles all expressions of the lowered file into closures once
+     * which return their values directly instead of going through the value stack.
+     */
+    CLOSURE,
+    /**
+     * Interprets like {@link #INTERPRETER}, but compiles frequently called macros
+     * into JVM bytecode using the {@link MacroJit}.
+     */
+    TIERED
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.util.XBiConsumer;
+import dev.karmakrafts.jbpl.assembler.util.XFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of intrinsics which are visible in every stack frame.
+ * Embedders may register their own intrinsics once at startup and unregister them again
+ * when they are unloaded; lookups always operate on an immutable snapshot, so they never have to synchronize.
+ * Intrinsics specific to a single frame are added through the {@link IntrinsicsHandler}.
+ */
+public final class IntrinsicRegistry {
+    private static final Object LOCK = new Object();
+    private static volatile Map<String, IntrinsicDefine> defines = Map.of();
+    private static volatile Map<String, IntrinsicMacro> macros = Map.of();
+
+    static {
+        registerMacro(new IntrinsicMacroSignature("info", BuiltinType.VOID, Map.of("message", BuiltinType.STRING)),
+            (ctx, args) -> {
+                final var message = args.arguments().get(0).evaluateAs(ctx, String.class);
+                ctx.infoConsumer.accept(message);
+            });
+        registerMacro(new IntrinsicMacroSignature("error", BuiltinType.VOID, Map.of("message", BuiltinType.STRING)),
+            (ctx, args) -> {
+                final var message = args.arguments().get(0).evaluateAs(ctx, String.class);
+                ctx.errorConsumer.accept(message);
+            });
+    }
+
+    private IntrinsicRegistry() {
+    }
+
+    public static @NotNull IntrinsicDefine registerDefine(final @NotNull String name,
+                                                          final @NotNull XFunction<EvaluationContext, Expr, EvaluationException> getter,
+                                                          final @Nullable XBiConsumer<EvaluationContext, Expr, EvaluationException> setter) {
+        final var define = new IntrinsicDefine(name, getter, setter);
+        synchronized (LOCK) {
+            final var newDefines = new HashMap<>(defines);
+            newDefines.put(name, define);
+            defines = Map.copyOf(newDefines);
+        }
+        return define;
+    }
+
+    public static @NotNull IntrinsicDefine registerDefine(final @NotNull String name,
+                                                          final @NotNull XFunction<EvaluationContext, Expr, EvaluationException> getter) {
+        return registerDefine(name, getter, null);
+    }
+
+    public static @NotNull IntrinsicMacro registerMacro(final @NotNull IntrinsicMacroSignature signature,
+                                                        final @NotNull XBiConsumer<EvaluationContext, IntrinsicMacroArguments, EvaluationException> callback) {
+        final var macro = new IntrinsicMacro(signature, callback);
+        synchronized (LOCK) {
+            final var newMacros = new HashMap<>(macros);
+            newMacros.put(signature.name(), macro);
+            macros = Map.copyOf(newMacros);
+        }
+        return macro;
+    }
+
+    /**
+     * Removes a define previously returned by {@link #registerDefine}.
+     * Nothing is removed if the name has since been registered again.
+     *
+     * @param define The registered define.
+     * @return True if the define was removed.
+     */
+    public static boolean unregisterDefine(final @NotNull IntrinsicDefine define) {
+        synchronized (LOCK) {
+            if (defines.get(define.name()) != define) {
+                return false;
+            }
+            final var newDefines = new HashMap<>(defines);
+            newDefines.remove(define.name());
+            defines = Map.copyOf(newDefines);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a macro previously returned by {@link #registerMacro}.
+     * Nothing is removed if the name has since been registered again.
+     *
+     * @param macro The registered macro.
+     * @return True if the macro was removed.
+     */
+    public static boolean unregisterMacro(final @NotNull IntrinsicMacro macro) {
+        final var name = macro.signature().name();
+        synchronized (LOCK) {
+            if (macros.get(name) != macro) {
+                return false;
+            }
+            final var newMacros = new HashMap<>(macros);
+            newMacros.remove(name);
+            macros = Map.copyOf(newMacros);
+        }
+        return true;
+    }
+
+    public static @Nullable IntrinsicDefine getDefine(final @NotNull String name) {
+        return defines.get(name);
+    }
+
+    public static @Nullable IntrinsicMacro getMacro(final @NotNull String name) {
+        return macros.get(name);
+    }
+}
@@ -19,7 +19,6 @@ package dev.karmakrafts.jbpl.assembler.eval;
 import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.instruction.Instruction;
-import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import dev.karmakrafts.jbpl.assembler.util.XBiConsumer;
 import dev.karmakrafts.jbpl.assembler.util.XFunction;
 import org.jetbrains.annotations.NotNull;
@@ -28,9 +27,15 @@ import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public final class IntrinsicsHandler {
+    /**
+     * The names of all intrinsic defines added by {@link #initForField(FieldNode)}
+     * and {@link #initForFunction(MethodNode)}.
+     */
+    public static final Set<String> FRAME_DEFINE_NAMES = Set.of("access", "instructions", "exceptions");
+
     private final EvaluationContext context;
 
     IntrinsicsHandler(final @NotNull EvaluationContext context) {
@@ -41,7 +46,7 @@ public final class IntrinsicsHandler {
                                                        final @NotNull XFunction<EvaluationContext, Expr, EvaluationException> getter,
                                                        final @Nullable XBiConsumer<EvaluationContext, Expr, EvaluationException> setter) {
         final var define = new IntrinsicDefine(name, getter, setter);
-        context.peekFrame().intrinsicDefines.put(name, define);
+        context.peekFrame().putIntrinsicDefine(define);
         return define;
     }
 
@@ -54,26 +59,37 @@ public final class IntrinsicsHandler {
         return addIntrinsicDefine(name, ctx -> value, null);
     }
 
+    /**
+     * Looks up an intrinsic define in the current frame, falling back to the {@link IntrinsicRegistry}.
+     *
+     * @param name The name of the intrinsic define.
+     * @return The intrinsic define if present, otherwise null.
+     */
     public @Nullable IntrinsicDefine getIntrinsicDefine(final @NotNull String name) {
-        return context.peekFrame().intrinsicDefines.get(name);
+        final var define = context.peekFrame().getIntrinsicDefine(name);
+        if (define != null) {
+            return define;
+        }
+        return IntrinsicRegistry.getDefine(name);
     }
 
     public void addIntrinsicMacro(final @NotNull IntrinsicMacroSignature signature,
                                   final @NotNull XBiConsumer<EvaluationContext, IntrinsicMacroArguments, EvaluationException> callback) {
-        context.peekFrame().intrinsicMacros.put(signature, new IntrinsicMacro(signature, callback));
+        context.peekFrame().putIntrinsicMacro(new IntrinsicMacro(signature, callback));
     }
 
-    public void initGlobal() {
-        addIntrinsicMacro(new IntrinsicMacroSignature("info", BuiltinType.VOID, Map.of("message", BuiltinType.STRING)),
-            (ctx, args) -> {
-                final var message = args.arguments().get(0).evaluateAs(context, String.class);
-                ctx.infoConsumer.accept(message);
-            });
-        addIntrinsicMacro(new IntrinsicMacroSignature("error", BuiltinType.VOID, Map.of("message", BuiltinType.STRING)),
-            (ctx, args) -> {
-                final var message = args.arguments().get(0).evaluateAs(context, String.class);
-                ctx.errorConsumer.accept(message);
-            });
+    /**
+     * Looks up an intrinsic macro in the current frame, falling back to the {@link IntrinsicRegistry}.
+     *
+     * @param name The name of the intrinsic macro.
+     * @return The intrinsic macro if present, otherwise null.
+     */
+    public @Nullable IntrinsicMacro getIntrinsicMacro(final @NotNull String name) {
+        final var macro = context.peekFrame().getIntrinsicMacro(name);
+        if (macro != null) {
+            return macro;
+        }
+        return IntrinsicRegistry.getMacro(name);
     }
 
     public void initForField(final @NotNull FieldNode node) {
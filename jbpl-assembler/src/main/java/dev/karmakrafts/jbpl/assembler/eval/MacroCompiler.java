@@ -0,0 +1,461 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Comment;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.statement.ReturnStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.model.type.Type;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiles macros into static methods of hidden classes for the {@link EvaluationEngine#TIERED} engine.
+ * Only macros which return a single arithmetic or logic expression over their parameters and literals are supported,
+ * everything else keeps being interpreted.
+ * The generated code is specialized for the parameter types observed when compiling,
+ * so every call has to be checked against them using {@link CompiledMacro#accepts(List)}.
+ */
+final class MacroCompiler {
+    private static final String CLASS_NAME = "dev/karmakrafts/jbpl/assembler/eval/CompiledMacro";
+    private static final String METHOD_NAME = "invoke";
+    private static final MethodType METHOD_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final String NUMBER_CLASS = "java/lang/Number";
+    private static final String BOOLEAN_CLASS = "java/lang/Boolean";
+
+    private final List<String> parameterNames;
+    private final List<Expr> arguments;
+    private final BuiltinType[] parameterTypes;
+
+    private MacroCompiler(final @NotNull List<String> parameterNames, final @NotNull List<Expr> arguments) {
+        this.parameterNames = parameterNames;
+        this.arguments = arguments;
+        parameterTypes = new BuiltinType[parameterNames.size()];
+    }
+
+    /**
+     * Attempts to compile the given macro for the types of the given arguments.
+     *
+     * @param macro     The macro to compile.
+     * @param arguments The arguments of the call which triggered compilation, in parameter order.
+     * @return The compiled macro, or null if the macro uses constructs which are not supported.
+     */
+    public static @Nullable CompiledMacro compile(final @NotNull MacroDecl macro,
+                                                  final @NotNull List<Expr> arguments) {
+        final var parameters = macro.getConstParameters();
+        if (parameters == null || !macro.getTypeParameters().isEmpty() || parameters.size() != arguments.size()) {
+            return null;
+        }
+        ReturnStatement returnStatement = null;
+        for (final var element : macro.getElements()) {
+            if (element instanceof Comment) {
+                continue;
+            }
+            if (returnStatement != null || !(element instanceof ReturnStatement statement)) {
+                return null;
+            }
+            returnStatement = statement;
+        }
+        if (returnStatement == null) {
+            return null;
+        }
+        final var compiler = new MacroCompiler(new ArrayList<>(parameters.keySet()), arguments);
+        final var value = returnStatement.getValue();
+        final var returnKind = compiler.getKind(value);
+        if (returnKind == null) {
+            return null;
+        }
+        final var writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17,
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC,
+            CLASS_NAME,
+            null,
+            "java/lang/Object",
+            null);
+        final var method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+            METHOD_NAME,
+            METHOD_TYPE.toMethodDescriptorString(),
+            null,
+            null);
+        method.visitCode();
+        compiler.emit(method, value);
+        returnKind.emitBox(method);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        try {
+            final var lookup = MethodHandles.lookup().defineHiddenClass(writer.toByteArray(), true);
+            final var handle = lookup.findStatic(lookup.lookupClass(), METHOD_NAME, METHOD_TYPE);
+            return new CompiledMacro(handle, compiler.parameterNames, compiler.parameterTypes, value.getTokenRange());
+        }
+        catch (IllegalAccessException | NoSuchMethodException error) {
+            return null;
+        }
+    }
+
+    private static @Nullable Kind getKind(final @NotNull Type type) {
+        if (!(type instanceof BuiltinType builtinType)) {
+            return null;
+        }
+        return switch (builtinType) {
+            case I32 -> Kind.INT;
+            case I64 -> Kind.LONG;
+            case F32 -> Kind.FLOAT;
+            case F64 -> Kind.DOUBLE;
+            case BOOL -> Kind.BOOL;
+            default -> null;
+        };
+    }
+
+    private int getParameterIndex(final @NotNull ReferenceExpr reference) {
+        // Scope receivers only come into play when no argument matches the name
+        final var receiver = reference.getReceiver();
+        if (!receiver.isUnit() && !(receiver instanceof ScopeReceiverExpr)) {
+            return -1;
+        }
+        if (!(reference.getName() instanceof LiteralExpr name)) {
+            return -1;
+        }
+        if (!(name.value instanceof String nameValue) || IntrinsicRegistry.getDefine(nameValue) != null) {
+            return -1; // Intrinsic defines shadow parameters
+        }
+        return parameterNames.indexOf(nameValue);
+    }
+
+    // Constants either carry their type statically or are literals holding a matching boxed value
+    private static @Nullable BuiltinType getConstType(final @NotNull Expr expr) {
+        if (expr instanceof PrimitiveValue value) {
+            return getKind(value.getBuiltinType()) != null ? value.getBuiltinType() : null;
+        }
+        if (expr instanceof LiteralExpr literal && literal.type instanceof BuiltinType type) {
+            final var kind = getKind(type);
+            return kind != null && kind.isValue(literal.value) ? type : null;
+        }
+        return null;
+    }
+
+    // Mirrors the type dispatch of the interpreter, returns null for anything we can't compile
+    private @Nullable Kind getKind(final @NotNull Expr expr) {
+        if (expr instanceof ConstExpr) {
+            final var type = getConstType(expr);
+            return type != null ? getKind(type) : null;
+        }
+        if (expr instanceof ReferenceExpr reference) {
+            final var index = getParameterIndex(reference);
+            if (index < 0) {
+                return null;
+            }
+            final var type = getConstType(arguments.get(index));
+            if (type == null) {
+                return null;
+            }
+            parameterTypes[index] = type;
+            return getKind(type);
+        }
+        if (expr instanceof UnaryExpr unary) {
+            final var kind = getKind(unary.getValue());
+            if (kind == null) {
+                return null;
+            }
+            return switch (unary.op) {
+                case MINUS -> kind.isNumber() ? kind : null;
+                case INVERSE -> kind == Kind.INT || kind == Kind.LONG ? kind : null;
+                case NOT -> kind == Kind.BOOL ? kind : null;
+                default -> null;
+            };
+        }
+        if (expr instanceof BinaryExpr binary) {
+            final var lhsKind = getKind(binary.getLhs());
+            final var rhsKind = getKind(binary.getRhs());
+            if (lhsKind == null || rhsKind == null) {
+                return null;
+            }
+            if (lhsKind == Kind.BOOL) {
+                if (rhsKind != Kind.BOOL) {
+                    return null;
+                }
+                return switch (binary.op) {
+                    case EQ, NE, AND, OR, XOR, SC_AND, SC_OR -> Kind.BOOL;
+                    default -> null;
+                };
+            }
+            if (rhsKind == Kind.BOOL) {
+                return null;
+            }
+            final var isIntegral = lhsKind == Kind.INT || lhsKind == Kind.LONG;
+            return switch (binary.op) {
+                case EQ, NE, LT, LE, GT, GE -> Kind.BOOL;
+                case CMP -> Kind.INT;
+                case ADD, SUB, MUL, DIV, REM -> lhsKind;
+                case LSH, RSH, URSH, AND, OR, XOR -> isIntegral ? lhsKind : null;
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+    private @NotNull Kind emit(final @NotNull MethodVisitor method, final @NotNull Expr expr) {
+        final var kind = Objects.requireNonNull(getKind(expr));
+        if (expr instanceof ConstExpr constant) {
+            kind.emitConstant(method, constant.getConstValue());
+        }
+        else if (expr instanceof ReferenceExpr reference) {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitLdcInsn(getParameterIndex(reference));
+            method.visitInsn(Opcodes.AALOAD);
+            kind.emitUnbox(method);
+        }
+        else if (expr instanceof UnaryExpr unary) {
+            emit(method, unary.getValue());
+            switch (unary.op) {
+                case MINUS -> method.visitInsn(kind.opcode(Opcodes.INEG));
+                case INVERSE -> {
+                    kind.emitConstant(method, -1);
+                    method.visitInsn(kind.opcode(Opcodes.IXOR));
+                }
+                default -> { // NOT
+                    method.visitInsn(Opcodes.ICONST_1);
+                    method.visitInsn(Opcodes.IXOR);
+                }
+            }
+        }
+        else if (expr instanceof BinaryExpr binary) {
+            emitBinary(method, binary);
+        }
+        return kind;
+    }
+
+    private void emitBinary(final @NotNull MethodVisitor method, final @NotNull BinaryExpr binary) {
+        final var op = binary.op;
+        final var lhsKind = emit(method, binary.getLhs());
+        final var rhsKind = emit(method, binary.getRhs());
+        if (lhsKind == Kind.BOOL) {
+            switch (op) {
+                case EQ -> emitCondition(method, Opcodes.IF_ICMPNE);
+                case NE -> emitCondition(method, Opcodes.IF_ICMPEQ);
+                // Short-circuiting makes no difference since operands can't have side effects
+                case AND, SC_AND -> method.visitInsn(Opcodes.IAND);
+                case OR, SC_OR -> method.visitInsn(Opcodes.IOR);
+                default -> method.visitInsn(Opcodes.IXOR);
+            }
+            return;
+        }
+        switch (op) {
+            case LSH, RSH, URSH -> rhsKind.emitConversion(method, Kind.INT); // Shift distances are always ints
+            default -> rhsKind.emitConversion(method, lhsKind);
+        }
+        switch (op) {
+            case EQ, NE, LT, LE, GT, GE -> lhsKind.emitComparison(method, op);
+            case CMP -> method.visitMethodInsn(Opcodes.INVOKESTATIC,
+                lhsKind.boxedClass,
+                "compare",
+                String.format("(%s%s)I", lhsKind.descriptor, lhsKind.descriptor),
+                false);
+            case ADD -> method.visitInsn(lhsKind.opcode(Opcodes.IADD));
+            case SUB -> method.visitInsn(lhsKind.opcode(Opcodes.ISUB));
+            case MUL -> method.visitInsn(lhsKind.opcode(Opcodes.IMUL));
+            case DIV -> method.visitInsn(lhsKind.opcode(Opcodes.IDIV));
+            case REM -> method.visitInsn(lhsKind.opcode(Opcodes.IREM));
+            case LSH -> method.visitInsn(lhsKind.opcode(Opcodes.ISHL));
+            case RSH -> method.visitInsn(lhsKind.opcode(Opcodes.ISHR));
+            case URSH -> method.visitInsn(lhsKind.opcode(Opcodes.IUSHR));
+            case AND -> method.visitInsn(lhsKind.opcode(Opcodes.IAND));
+            case OR -> method.visitInsn(lhsKind.opcode(Opcodes.IOR));
+            default -> method.visitInsn(lhsKind.opcode(Opcodes.IXOR));
+        }
+    }
+
+    // Turns a jump which is taken when the condition is false into a 0 or 1 on the stack
+    private static void emitCondition(final @NotNull MethodVisitor method, final int jumpIfFalse) {
+        final var falseLabel = new Label();
+        final var endLabel = new Label();
+        method.visitJumpInsn(jumpIfFalse, falseLabel);
+        method.visitInsn(Opcodes.ICONST_1);
+        method.visitJumpInsn(Opcodes.GOTO, endLabel);
+        method.visitLabel(falseLabel);
+        method.visitInsn(Opcodes.ICONST_0);
+        method.visitLabel(endLabel);
+    }
+
+    private enum Kind {
+        // @formatter:off
+        INT   ("I", "java/lang/Integer", "intValue",    0),
+        LONG  ("J", "java/lang/Long",    "longValue",   1),
+        FLOAT ("F", "java/lang/Float",   "floatValue",  2),
+        DOUBLE("D", "java/lang/Double",  "doubleValue", 3),
+        BOOL  ("Z", "java/lang/Boolean", "booleanValue", 0);
+        // @formatter:on
+
+        private final String descriptor;
+        private final String boxedClass;
+        private final String unboxMethod;
+        private final int opcodeOffset; // Typed instructions are laid out in I, L, F, D order
+
+        Kind(final @NotNull String descriptor,
+             final @NotNull String boxedClass,
+             final @NotNull String unboxMethod,
+             final int opcodeOffset) {
+            this.descriptor = descriptor;
+            this.boxedClass = boxedClass;
+            this.unboxMethod = unboxMethod;
+            this.opcodeOffset = opcodeOffset;
+        }
+
+        public boolean isNumber() {
+            return this != BOOL;
+        }
+
+        public boolean isValue(final @NotNull Object value) {
+            return isNumber() ? value instanceof Number : value instanceof Boolean;
+        }
+
+        public int opcode(final int intOpcode) {
+            return intOpcode + opcodeOffset;
+        }
+
+        public void emitConstant(final @NotNull MethodVisitor method, final @NotNull Object value) {
+            switch (this) {
+                case INT -> method.visitLdcInsn(((Number) value).intValue());
+                case LONG -> method.visitLdcInsn(((Number) value).longValue());
+                case FLOAT -> method.visitLdcInsn(((Number) value).floatValue());
+                case DOUBLE -> method.visitLdcInsn(((Number) value).doubleValue());
+                case BOOL -> method.visitInsn((Boolean) value ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+            }
+        }
+
+        // Arguments are converted the same way the interpreter does through Number
+        public void emitUnbox(final @NotNull MethodVisitor method) {
+            final var owner = isNumber() ? NUMBER_CLASS : BOOLEAN_CLASS;
+            method.visitTypeInsn(Opcodes.CHECKCAST, owner);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, unboxMethod, "()" + descriptor, false);
+        }
+
+        public void emitBox(final @NotNull MethodVisitor method) {
+            method.visitMethodInsn(Opcodes.INVOKESTATIC,
+                boxedClass,
+                "valueOf",
+                String.format("(%s)L%s;", descriptor, boxedClass),
+                false);
+        }
+
+        public void emitConversion(final @NotNull MethodVisitor method, final @NotNull Kind target) {
+            if (this == target) {
+                return;
+            }
+            // The conversion opcodes are laid out as I2L, I2F, I2D, L2I, L2F, L2D, F2I, F2L, F2D, D2I, D2L, D2F
+            final var targetIndex = target.opcodeOffset < opcodeOffset ? target.opcodeOffset : target.opcodeOffset - 1;
+            method.visitInsn(Opcodes.I2L + opcodeOffset * 3 + targetIndex);
+        }
+
+        public void emitComparison(final @NotNull MethodVisitor method, final @NotNull BinaryExpr.Op op) {
+            final var isFloatingPoint = this == FLOAT || this == DOUBLE;
+            if (this == INT) {
+                emitCondition(method, switch (op) {
+                    case EQ -> Opcodes.IF_ICMPNE;
+                    case NE -> Opcodes.IF_ICMPEQ;
+                    case LT -> Opcodes.IF_ICMPGE;
+                    case LE -> Opcodes.IF_ICMPGT;
+                    case GT -> Opcodes.IF_ICMPLE;
+                    default -> Opcodes.IF_ICMPLT;
+                });
+                return;
+            }
+            if (isFloatingPoint) {
+                // NaN has to compare as false, so less-than comparisons use the G variant
+                final var isLessThan = op == BinaryExpr.Op.LT || op == BinaryExpr.Op.LE;
+                final var compareOpcode = this == FLOAT ? Opcodes.FCMPL : Opcodes.DCMPL;
+                method.visitInsn(isLessThan ? compareOpcode + 1 : compareOpcode);
+            }
+            else {
+                method.visitInsn(Opcodes.LCMP);
+            }
+            emitCondition(method, switch (op) {
+                case EQ -> Opcodes.IFNE;
+                case NE -> Opcodes.IFEQ;
+                case LT -> Opcodes.IFGE;
+                case LE -> Opcodes.IFGT;
+                case GT -> Opcodes.IFLE;
+                default -> Opcodes.IFLT;
+            });
+        }
+    }
+
+    /**
+     * A macro compiled into a static method of a hidden class.
+     *
+     * @param handle         The handle of the compiled method.
+     * @param parameterNames The names of all parameters in declaration order.
+     * @param parameterTypes The type every argument was specialized for, or null if the parameter is unused.
+     * @param tokenRange     The token range of the returned expression, used for the result value.
+     */
+    record CompiledMacro(@NotNull MethodHandle handle,
+                         @NotNull List<String> parameterNames,
+                         @NotNull BuiltinType[] parameterTypes,
+                         @NotNull TokenRange tokenRange) {
+        public boolean accepts(final @NotNull List<Expr> arguments) {
+            if (arguments.size() != parameterTypes.length) {
+                return false;
+            }
+            for (var i = 0; i < parameterTypes.length; i++) {
+                final var type = parameterTypes[i];
+                if (type == null) {
+                    continue;
+                }
+                if (getConstType(arguments.get(i)) != type) {
+                    return false;
+                }
+                if (IntrinsicRegistry.getDefine(parameterNames.get(i)) != null) {
+                    return false; // An intrinsic registered after compiling now shadows the parameter
+                }
+            }
+            return true;
+        }
+
+        public @NotNull ConstExpr invoke(final @NotNull List<Expr> arguments) {
+            final var values = new Object[arguments.size()];
+            for (var i = 0; i < values.length; i++) {
+                if (parameterTypes[i] != null) {
+                    values[i] = ((ConstExpr) arguments.get(i)).getConstValue();
+                }
+            }
+            try {
+                return ConstExpr.of((Object) handle.invokeExact(values), tokenRange);
+            }
+            catch (RuntimeException | Error error) {
+                throw error;
+            }
+            catch (Throwable error) { // Generated code never throws checked exceptions
+                throw new IllegalStateException(error);
+            }
+        }
+    }
+}
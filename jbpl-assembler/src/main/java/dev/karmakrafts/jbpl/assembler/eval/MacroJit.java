@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.eval.MacroCompiler.CompiledMacro;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Tiering policy of the {@link EvaluationEngine#TIERED} engine.
+ * Macros are interpreted until they were called {@link #getCompileThreshold()} times,
+ * after which they are compiled by the {@link MacroCompiler} for the argument types of that call.
+ * Calls with different argument types, or which fail inside of compiled code, deoptimize the macro
+ * back to the interpreter, which then re-profiles it until it gives up after {@link #MAX_DEOPTIMIZATIONS}.
+ */
+public final class MacroJit {
+    public static final int DEFAULT_COMPILE_THRESHOLD = 50;
+    public static final int MAX_DEOPTIMIZATIONS = 4;
+
+    private final IdentityHashMap<MacroDecl, Profile> profiles = new IdentityHashMap<>();
+    private final int compileThreshold;
+
+    MacroJit(final int compileThreshold) {
+        this.compileThreshold = compileThreshold;
+    }
+
+    public int getCompileThreshold() {
+        return compileThreshold;
+    }
+
+    /**
+     * Invokes the compiled code of the given macro, compiling it first if it just became hot.
+     *
+     * @param macro     The macro being called.
+     * @param arguments The evaluated arguments of the call in parameter order.
+     * @return The value returned by the macro, or null if the call has to be interpreted.
+     */
+    public @Nullable ConstExpr invoke(final @NotNull MacroDecl macro, final @NotNull List<Expr> arguments) {
+        final var profile = profiles.computeIfAbsent(macro, m -> new Profile());
+        if (profile.isDisabled) {
+            return null;
+        }
+        var compiledMacro = profile.compiledMacro;
+        if (compiledMacro == null) {
+            if (++profile.invocationCount < compileThreshold) {
+                return null;
+            }
+            compiledMacro = MacroCompiler.compile(macro, arguments);
+            if (compiledMacro == null) {
+                profile.isDisabled = true; // The macro uses something we can't compile, so we stop counting
+                return null;
+            }
+            profile.compiledMacro = compiledMacro;
+        }
+        if (!compiledMacro.accepts(arguments)) {
+            deoptimize(profile);
+            return null;
+        }
+        try {
+            return compiledMacro.invoke(arguments);
+        }
+        catch (RuntimeException error) {
+            deoptimize(profile); // Let the interpreter reproduce the error with proper diagnostics
+            return null;
+        }
+    }
+
+    public boolean isCompiled(final @NotNull MacroDecl macro) {
+        final var profile = profiles.get(macro);
+        return profile != null && profile.compiledMacro != null;
+    }
+
+    public int getDeoptimizationCount(final @NotNull MacroDecl macro) {
+        final var profile = profiles.get(macro);
+        return profile != null ? profile.deoptimizationCount : 0;
+    }
+
+    private void deoptimize(final @NotNull Profile profile) {
+        profile.compiledMacro = null;
+        profile.invocationCount = 0;
+        if (++profile.deoptimizationCount >= MAX_DEOPTIMIZATIONS) {
+            profile.isDisabled = true;
+        }
+    }
+
+    private static final class Profile {
+        int invocationCount;
+        int deoptimizationCount;
+        boolean isDisabled;
+        CompiledMacro compiledMacro;
+    }
+}
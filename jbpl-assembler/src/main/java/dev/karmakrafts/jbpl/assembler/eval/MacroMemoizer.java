@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.lower.ConstantFoldingLowering;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the results of calls to pure macros as determined by the {@link MacroPurityAnalyzer}.
+ * Results are keyed by the constant values of the arguments of a call and every macro keeps
+ * at most {@link #getCapacity()} of them, evicting the least recently used one first.
+ * Calls with arguments or results which aren't immutable constants are never memoized.
+ */
+public final class MacroMemoizer {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final IdentityHashMap<MacroDecl, Memo> memos = new IdentityHashMap<>();
+    private final int capacity;
+
+    MacroMemoizer(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static @Nullable List<Object> createKey(final @NotNull List<? extends Expr> arguments) {
+        final var key = new ArrayList<>(arguments.size());
+        for (final var argument : arguments) {
+            if (!ConstantFoldingLowering.isConstant(argument)) {
+                return null;
+            }
+            key.add(((ConstExpr) argument).getConstValue());
+        }
+        return key;
+    }
+
+    private @Nullable Memo getMemo(final @NotNull MacroDecl macro) {
+        if (capacity <= 0) {
+            return null;
+        }
+        final var memo = memos.computeIfAbsent(macro, m -> new Memo(MacroPurityAnalyzer.isPure(m)));
+        return memo.isPure ? memo : null;
+    }
+
+    /**
+     * Looks up the values a previous call of the given macro with the same arguments returned.
+     *
+     * @param macro     The macro being called.
+     * @param arguments The evaluated arguments of the call in parameter order.
+     * @return Copies of the returned values, or null if the call has to be evaluated.
+     */
+    public @Nullable List<Expr> get(final @NotNull MacroDecl macro, final @NotNull List<Expr> arguments) {
+        final var memo = getMemo(macro);
+        if (memo == null) {
+            return null;
+        }
+        final var key = createKey(arguments);
+        if (key == null) {
+            return null;
+        }
+        final var values = memo.results.get(key);
+        if (values == null) {
+            return null;
+        }
+        memo.hitCount++;
+        // Callers may re-parent returned values, so every call receives its own copies
+        return values.stream().map(Expr::copy).toList();
+    }
+
+    /**
+     * Remembers the values returned by an evaluated call of the given macro if it is pure.
+     *
+     * @param macro     The macro which was called.
+     * @param arguments The evaluated arguments of the call in parameter order.
+     * @param values    The values the call pushed onto the stack of its caller.
+     */
+    public void put(final @NotNull MacroDecl macro,
+                    final @NotNull List<Expr> arguments,
+                    final @NotNull List<? extends Expr> values) {
+        final var memo = getMemo(macro);
+        if (memo == null) {
+            return;
+        }
+        final var key = createKey(arguments);
+        if (key == null) {
+            return;
+        }
+        final var results = new ArrayList<ConstExpr>(values.size());
+        for (final var value : values) {
+            if (!ConstantFoldingLowering.isConstant(value)) {
+                return;
+            }
+            results.add((ConstExpr) value.copy());
+        }
+        memo.results.put(key, results);
+    }
+
+    public boolean isPure(final @NotNull MacroDecl macro) {
+        return getMemo(macro) != null;
+    }
+
+    public int getHitCount(final @NotNull MacroDecl macro) {
+        final var memo = memos.get(macro);
+        return memo != null ? memo.hitCount : 0;
+    }
+
+    private final class Memo {
+        final boolean isPure;
+        final Map<List<Object>, List<ConstExpr>> results = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final @NotNull Map.Entry<List<Object>, List<ConstExpr>> eldest) {
+                return size() > capacity;
+            }
+        };
+        int hitCount;
+
+        Memo(final boolean isPure) {
+            this.isPure = isPure;
+        }
+    }
+}
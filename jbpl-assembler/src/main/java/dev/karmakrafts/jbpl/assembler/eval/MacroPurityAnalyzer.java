@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Comment;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr.ConditionalBranch;
+import dev.karmakrafts.jbpl.assembler.model.statement.*;
+import dev.karmakrafts.jbpl.assembler.util.Unit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Determines whether a macro is pure, meaning every call with the same arguments returns the same values
+ * without observable side effects.
+ * Pure macros may only reference their own parameters, the defines declared directly in their body
+ * and the variables of their loops, and they may not call other macros (which includes {@code info} and {@code error}),
+ * emit instructions or declare anything outside of their own frame.
+ */
+final class MacroPurityAnalyzer {
+    private MacroPurityAnalyzer() {
+    }
+
+    public static boolean isPure(final @NotNull MacroDecl macro) {
+        if (!macro.getTypeParameters().isEmpty()) {
+            return false; // Type arguments are not part of the memo key
+        }
+        final var parameters = macro.getConstParameters();
+        if (parameters == null) {
+            return false;
+        }
+        final var names = new HashSet<>(parameters.keySet());
+        for (final var element : macro.getElements()) {
+            if (!(element instanceof DefineStatement define)) {
+                continue;
+            }
+            final var name = getConstName(define.getName());
+            if (name == null) {
+                return false;
+            }
+            names.add(name);
+        }
+        return isPure(macro, names);
+    }
+
+    private static @Nullable String getConstName(final @NotNull Expr name) {
+        if (name instanceof LiteralExpr literalExpr && literalExpr.value instanceof String value) {
+            return value;
+        }
+        return null;
+    }
+
+    private static boolean isPure(final @NotNull ElementContainer container, final @NotNull Set<String> names) {
+        for (final var element : container.getElements()) {
+            if (!isPure(element, names)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPure(final @NotNull ExprContainer container, final @NotNull Set<String> names) {
+        for (final var expr : container.getExpressions()) {
+            if (!isPure(expr, names)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPure(final @NotNull Element element, final @NotNull Set<String> names) {
+        if (element instanceof Comment || element instanceof BreakStatement || element instanceof ContinueStatement
+            || element instanceof NoopStatement || element instanceof LiteralExpr || element instanceof PrimitiveValue) {
+            return true;
+        }
+        if (element instanceof ReferenceExpr referenceExpr) {
+            return isLocalReference(referenceExpr, names);
+        }
+        if (element instanceof BinaryExpr binaryExpr && binaryExpr.op.isAssignment) {
+            // Assignments may only store to values owned by the macro frame, never into arrays
+            return binaryExpr.getLhs() instanceof ReferenceExpr referenceExpr && isLocalReference(referenceExpr, names)
+                && isPure(binaryExpr.getRhs(), names);
+        }
+        if (element instanceof UnaryExpr unaryExpr && unaryExpr.op.isAssignment) {
+            return unaryExpr.getValue() instanceof ReferenceExpr referenceExpr
+                && isLocalReference(referenceExpr, names);
+        }
+        if (element instanceof ForStatement forStatement) {
+            final var variableName = getConstName(forStatement.getVariableName());
+            if (variableName == null || !isPure(forStatement.getValue(), names)) {
+                return false;
+            }
+            final var bodyNames = new HashSet<>(names);
+            bodyNames.add(variableName);
+            return isPure((ElementContainer) forStatement, bodyNames);
+        }
+        if (element instanceof IfExpr ifExpr) {
+            if (!isPure(ifExpr.getCondition(), names) || !isPure((ElementContainer) ifExpr, names)) {
+                return false;
+            }
+            for (final var branch : ifExpr.getElseIfBranches()) {
+                if (!isPure(branch.getCondition(), names) || !isPure(branch, names)) {
+                    return false;
+                }
+            }
+            final var elseBranch = ifExpr.getElseBranch();
+            return elseBranch == null || isPure(elseBranch, names);
+        }
+        if (element instanceof WhenExpr whenExpr) {
+            if (!isPure((ExprContainer) whenExpr, names)) {
+                return false;
+            }
+            for (final var branch : whenExpr.getBranches()) {
+                if (branch instanceof ConditionalBranch conditionalBranch
+                    && !isPure(conditionalBranch.getValue(), names)) {
+                    return false;
+                }
+                if (!isPure(branch, names)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (element instanceof ReturnStatement || element instanceof DefineStatement
+            || element instanceof AssertStatement || element instanceof BinaryExpr || element instanceof UnaryExpr
+            || element instanceof StringLerpExpr || element instanceof AsExpr || element instanceof IsExpr
+            || element instanceof TypeOfExpr || element instanceof SizeOfExpr || element instanceof ArrayExpr
+            || element instanceof ArrayAccessExpr || element instanceof DefaultExpr
+            || element instanceof RangeExpr) {
+            return isPure((ExprContainer) element, names);
+        }
+        return false; // Macro calls, instructions, declarations and everything reaching outside of the frame
+    }
+
+    private static boolean isLocalReference(final @NotNull ReferenceExpr referenceExpr,
+                                            final @NotNull Set<String> names) {
+        // Scope receivers are only consulted after the frame, intrinsic receivers never see the frame at all
+        final var receiver = referenceExpr.getReceiver();
+        if (!(receiver instanceof ScopeReceiverExpr)
+            && !(receiver instanceof LiteralExpr literalExpr && literalExpr.value == Unit.INSTANCE)) {
+            return false;
+        }
+        final var name = getConstName(referenceExpr.getName());
+        return name != null && names.contains(name) && IntrinsicRegistry.getDefine(name) == null;
+    }
+}
@@ -21,61 +21,246 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.statement.LocalStatement;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.Scope;
-import dev.karmakrafts.jbpl.assembler.scope.ScopeResolver;
 import dev.karmakrafts.jbpl.assembler.util.Copyable;
-import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.tree.LabelNode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.Stack;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+/**
+ * A single frame of the evaluation stack.
+ * Named values are kept in flat slot arrays and looked up through the parent link,
+ * so entering a scope doesn't copy any state of the enclosing frames.
+ * Names which were never bound by any frame of the owning {@link EvaluationContext} are rejected
+ * without walking the chain, which is the common case for references to global defines.
+ * All other frame data is only allocated once it is first written.
+ */
 public final class StackFrame implements Copyable<StackFrame> {
+    private static final String[] EMPTY_NAMES = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final int INITIAL_SLOT_COUNT = 4;
+
+    public final @Nullable StackFrame parent;
     public final Scope scope;
-    public final ScopeResolver scopeResolver;
-    public final Stack<Expr> valueStack = new Stack<>(); // Used for caller<->callee passing
-    public final HashMap<String, Expr> namedLocalValues = new HashMap<>(); // Named arguments to the current macro
-    public final HashMap<String, Type> namedLocalTypes = new HashMap<>(); // Named type arguments to the current macro
-    public final HashMap<String, IntrinsicDefine> intrinsicDefines = new HashMap<>();
-    public final HashMap<IntrinsicMacroSignature, IntrinsicMacro> intrinsicMacros = new HashMap<>();
-
-    public final HashMap<String, LocalStatement> locals = new HashMap<>();
-    private final HashMap<String, Integer> localIndices = new HashMap<>();
-    private final HashMap<String, LabelNode> labelNodes = new HashMap<>();
+    public final ArrayList<Expr> valueStack = new ArrayList<>(); // Used for caller<->callee passing
+
+    // Named arguments to the current macro and loop variables, visible to all nested frames
+    private String[] valueNames = EMPTY_NAMES;
+    private Object[] values = EMPTY_VALUES;
+    private int valueCount;
+    // Named type arguments to the current macro, only visible in the current frame
+    private String[] typeNames = EMPTY_NAMES;
+    private Object[] types = EMPTY_VALUES;
+    private int typeCount;
+    // Every value name ever bound by a frame of the owning context, shared by all of its frames
+    private final Set<String> boundValueNames;
+
+    private HashMap<String, IntrinsicDefine> intrinsicDefines;
+    private HashMap<String, IntrinsicMacro> intrinsicMacros;
+    private HashMap<String, LocalStatement> locals;
+    private HashMap<String, Integer> localIndices;
+    private HashMap<String, LabelNode> labelNodes;
     public int localFrameOffset = 0; // This may be adjusted by the patched method in the future
     private int localIndex = 0;
 
-    public StackFrame(final @NotNull Scope scope) {
+    /**
+     * @param parent          The enclosing frame, or null for the outermost frame.
+     * @param scope           The scope this frame evaluates.
+     * @param boundValueNames The set recording all names bound by the frames of the owning context.
+     */
+    public StackFrame(final @Nullable StackFrame parent,
+                      final @NotNull Scope scope,
+                      final @NotNull Set<String> boundValueNames) {
+        this.parent = parent;
         this.scope = scope;
-        scopeResolver = new ScopeResolver(scope);
+        this.boundValueNames = boundValueNames;
+    }
+
+    public StackFrame(final @Nullable StackFrame parent, final @NotNull Scope scope) {
+        this(parent, scope, parent != null ? parent.boundValueNames : new HashSet<>());
+    }
+
+    public StackFrame(final @NotNull Scope scope) {
+        this(null, scope);
+    }
+
+    private static int indexOf(final @NotNull String[] names, final int count, final @NotNull String name) {
+        for (var i = 0; i < count; i++) {
+            final var slotName = names[i];
+            if (slotName == name || slotName.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drops all data of this frame so it can be reused for another pass over the same scope,
+     * keeping the already allocated slot arrays of named values.
+     */
+    public void clear() {
+        valueStack.clear();
+        Arrays.fill(values, 0, valueCount, null);
+        valueCount = 0;
+        Arrays.fill(types, 0, typeCount, null);
+        typeCount = 0;
+        intrinsicDefines = null;
+        intrinsicMacros = null;
+        locals = null;
+        localIndices = null;
+        labelNodes = null;
+        localIndex = 0;
     }
 
     public void resetLocalDefines() {
         if (!(scope.owner() instanceof ElementContainer container)) {
             return;
         }
-        container.accept(LocalDefineResetVisitor.INSTANCE);
+        // Branch bodies are containers but not elements the visitor can dispatch on
+        LocalDefineResetVisitor.INSTANCE.visitElementContainer(container);
+    }
+
+    /**
+     * Looks up a named value in this frame, falling back to the enclosing frames.
+     *
+     * @param name The name of the value.
+     * @return The value if present in this or any enclosing frame, otherwise null.
+     */
+    public @Nullable Expr getNamedLocalValue(final @NotNull String name) {
+        if (!boundValueNames.contains(name)) {
+            return null;
+        }
+        for (var frame = this; frame != null; frame = frame.parent) {
+            final var index = indexOf(frame.valueNames, frame.valueCount, name);
+            if (index != -1) {
+                return (Expr) frame.values[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Assigns a named value in this frame, shadowing any value with the same name in enclosing frames.
+     *
+     * @param name  The name of the value.
+     * @param value The new value.
+     */
+    public void putNamedLocalValue(final @NotNull String name, final @NotNull Expr value) {
+        final var index = indexOf(valueNames, valueCount, name);
+        if (index != -1) {
+            values[index] = value;
+            return;
+        }
+        if (valueCount == valueNames.length) {
+            final var newLength = Math.max(INITIAL_SLOT_COUNT, valueCount << 1);
+            valueNames = Arrays.copyOf(valueNames, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+        valueNames[valueCount] = name;
+        values[valueCount++] = value;
+        boundValueNames.add(name);
+    }
+
+    public void putNamedLocalValues(final @NotNull Map<String, ? extends Expr> values) {
+        for (final var entry : values.entrySet()) {
+            putNamedLocalValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public @Nullable Type getNamedLocalType(final @NotNull String name) {
+        final var index = indexOf(typeNames, typeCount, name);
+        return index != -1 ? (Type) types[index] : null;
+    }
+
+    public void putNamedLocalType(final @NotNull String name, final @NotNull Type type) {
+        final var index = indexOf(typeNames, typeCount, name);
+        if (index != -1) {
+            types[index] = type;
+            return;
+        }
+        if (typeCount == typeNames.length) {
+            final var newLength = Math.max(INITIAL_SLOT_COUNT, typeCount << 1);
+            typeNames = Arrays.copyOf(typeNames, newLength);
+            types = Arrays.copyOf(types, newLength);
+        }
+        typeNames[typeCount] = name;
+        types[typeCount++] = type;
+    }
+
+    public void putNamedLocalTypes(final @NotNull Map<String, ? extends Type> types) {
+        for (final var entry : types.entrySet()) {
+            putNamedLocalType(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public @Nullable IntrinsicDefine getIntrinsicDefine(final @NotNull String name) {
+        return intrinsicDefines != null ? intrinsicDefines.get(name) : null;
+    }
+
+    public void putIntrinsicDefine(final @NotNull IntrinsicDefine define) {
+        if (intrinsicDefines == null) {
+            intrinsicDefines = new HashMap<>();
+        }
+        intrinsicDefines.put(define.name(), define);
+    }
+
+    public @Nullable IntrinsicMacro getIntrinsicMacro(final @NotNull String name) {
+        return intrinsicMacros != null ? intrinsicMacros.get(name) : null;
+    }
+
+    public void putIntrinsicMacro(final @NotNull IntrinsicMacro macro) {
+        if (intrinsicMacros == null) {
+            intrinsicMacros = new HashMap<>();
+        }
+        intrinsicMacros.put(macro.signature().name(), macro);
+    }
+
+    public @Nullable LocalStatement getLocal(final @NotNull String name) {
+        return locals != null ? locals.get(name) : null;
+    }
+
+    public void putLocal(final @NotNull String name, final @NotNull LocalStatement local) {
+        if (locals == null) {
+            locals = new HashMap<>();
+        }
+        locals.put(name, local);
     }
 
     public @NotNull LabelNode getOrCreateLabelNode(final @NotNull String name) {
+        if (labelNodes == null) {
+            labelNodes = new HashMap<>();
+        }
         return labelNodes.computeIfAbsent(name, n -> new LabelNode());
     }
 
-    public @NotNull Optional<String> getLabelName(final @NotNull LabelNode label) { // @formatter:off
+    public @NotNull Optional<String> getLabelName(final @NotNull LabelNode label) {
+        if (labelNodes == null) {
+            return Optional.empty();
+        }
+        // @formatter:off
         return labelNodes.entrySet().stream()
             .filter(entry -> entry.getValue() == label)
             .map(Entry::getKey)
             .findFirst();
-    } // @formatter:on
+        // @formatter:on
+    }
 
     public int getOrAssignLocalIndex(final @NotNull String name,
                                      final @NotNull EvaluationContext context) throws EvaluationException {
+        if (localIndices == null) {
+            localIndices = new HashMap<>();
+        }
         var index = localIndices.get(name);
         if (index == null) {
-            final var associatedLocal = locals.get(name);
+            final var associatedLocal = getLocal(name);
             if (associatedLocal != null) {
                 final var indexExpr = associatedLocal.getIndex();
                 if (indexExpr.isUnit()) {
@@ -95,18 +280,22 @@ public final class StackFrame implements Copyable<StackFrame> {
 
     @Override
     public StackFrame copy() {
-        final var frame = new StackFrame(scope);
+        final var frame = new StackFrame(parent, scope, boundValueNames);
         frame.valueStack.addAll(valueStack.stream().map(Expr::copy).toList());
-        // @formatter:off
-        frame.namedLocalValues.putAll(namedLocalValues.entrySet().stream()
-            .map(entry -> new Pair<>(entry.getKey(), entry.getValue().copy()))
-            .collect(Collectors.toMap(Pair::left, Pair::right)));
-        frame.namedLocalTypes.putAll(namedLocalTypes);
-        frame.locals.putAll(locals.entrySet().stream()
-            .map(entry -> new Pair<>(entry.getKey(), entry.getValue().copy()))
-            .collect(Collectors.toMap(Pair::left, Pair::right)));
-        // @formatter:on
-        frame.labelNodes.putAll(labelNodes);
+        for (var i = 0; i < valueCount; i++) {
+            frame.putNamedLocalValue(valueNames[i], ((Expr) values[i]).copy());
+        }
+        for (var i = 0; i < typeCount; i++) {
+            frame.putNamedLocalType(typeNames[i], (Type) types[i]);
+        }
+        if (locals != null) {
+            for (final var entry : locals.entrySet()) {
+                frame.putLocal(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        if (labelNodes != null) {
+            frame.labelNodes = new HashMap<>(labelNodes);
+        }
         return frame;
     }
 }
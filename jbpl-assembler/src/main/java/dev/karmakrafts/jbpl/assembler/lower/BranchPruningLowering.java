@@ -0,0 +1,285 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseIfBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr.Branch;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr.ConditionalBranch;
+import dev.karmakrafts.jbpl.assembler.model.instruction.Instruction;
+import dev.karmakrafts.jbpl.assembler.model.statement.*;
+import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lowering pass to remove the branches of {@link IfExpr} and {@link WhenExpr} which can never be taken
+ * since their condition is constant. If only one branch is left, its body replaces the expression
+ * in the parent container as long as evaluating it outside its own frame doesn't change its behaviour.
+ * Otherwise, the expression is reduced to that branch.
+ * Has to run after {@link ConstantFoldingLowering}.
+ */
+public final class BranchPruningLowering implements ElementVisitor {
+    public static final BranchPruningLowering INSTANCE = new BranchPruningLowering();
+
+    private BranchPruningLowering() {
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are lowered when they are parsed
+    }
+
+    private static boolean isCondition(final @NotNull Expr condition, final boolean value) {
+        return condition instanceof BoolValue boolValue && boolValue.value == value;
+    }
+
+    private static boolean isMatching(final @NotNull ConstExpr value, final @NotNull ConditionalBranch branch) {
+        final var branchValue = branch.getValue();
+        return ConstantFoldingLowering.isConstant(branchValue)
+            && ((ConstExpr) branchValue).getConstValue().equals(value.getConstValue());
+    }
+
+    private static boolean dependsOnContainer(final @NotNull Element element) {
+        // Control flow is consumed by the innermost container, bytecode state like labels and locals is kept per frame
+        if (element instanceof ReturnStatement || element instanceof BreakStatement
+            || element instanceof ContinueStatement || element instanceof Instruction
+            || element instanceof LabelStatement || element instanceof LocalStatement) {
+            return true;
+        }
+        if (element instanceof IfExpr ifExpr) {
+            for (final var branch : ifExpr.getElseIfBranches()) {
+                if (dependsOnContainer(branch)) {
+                    return true;
+                }
+            }
+            final var elseBranch = ifExpr.getElseBranch();
+            if (elseBranch != null && dependsOnContainer(elseBranch)) {
+                return true;
+            }
+        }
+        else if (element instanceof WhenExpr whenExpr) {
+            for (final var branch : whenExpr.getBranches()) {
+                if (dependsOnContainer(branch)) {
+                    return true;
+                }
+            }
+        }
+        if (element instanceof ElementContainer container) {
+            for (final var child : container.getElements()) {
+                if (dependsOnContainer(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasNamedElements(final @NotNull ElementContainer body) {
+        for (final var element : body.getElements()) {
+            if (element instanceof NamedElement) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInlinable(final @NotNull ElementContainer body) {
+        // Named elements would become visible in the scope of the parent
+        return !hasNamedElements(body) && !dependsOnContainer(body);
+    }
+
+    private static @Nullable Expr getDirectExpr(final @NotNull ElementContainer body) {
+        final var elements = body.getElements();
+        if (elements.size() == 1 && elements.get(0) instanceof Expr expr) {
+            return expr; // Bodies consisting of a single expression are evaluated directly in the current frame
+        }
+        return null;
+    }
+
+    private static @Nullable List<? extends Element> getInlinedBody(final @NotNull Element element) {
+        if (element instanceof IfExpr ifExpr) {
+            if (!ifExpr.getElseIfBranches().isEmpty() || ifExpr.getElseBranch() != null) {
+                return null;
+            }
+            final var condition = ifExpr.getCondition();
+            if (isCondition(condition, false)) {
+                return List.of(); // Nothing is ever evaluated
+            }
+            if (isCondition(condition, true) && isInlinable(ifExpr)) {
+                return List.copyOf(ifExpr.getElements());
+            }
+        }
+        else if (element instanceof WhenExpr whenExpr && ConstantFoldingLowering.isConstant(whenExpr.getValue())) {
+            final var branches = whenExpr.getBranches();
+            if (branches.isEmpty()) {
+                return List.of();
+            }
+            final var branch = branches.get(0);
+            if (branches.size() != 1 || branch instanceof ScopeOwner || !isInlinable(branch)) {
+                return null;
+            }
+            // Conditional branches which are left are only taken for sure if they aren't compared dynamically
+            if (branch instanceof ConditionalBranch conditionalBranch
+                && !ConstantFoldingLowering.isConstant(conditionalBranch.getValue())) {
+                return null;
+            }
+            return List.copyOf(branch.getElements());
+        }
+        return null;
+    }
+
+    private static @NotNull Expr pruneIf(final @NotNull IfExpr ifExpr) {
+        for (final var branch : List.copyOf(ifExpr.getElseIfBranches())) {
+            if (isCondition(branch.getCondition(), false)) {
+                ifExpr.removeElseIfBranch(branch);
+            }
+        }
+        final var condition = ifExpr.getCondition();
+        if (isCondition(condition, true)) {
+            ifExpr.clearElseIfBranches();
+            ifExpr.setElseBranch(null);
+        }
+        else if (isCondition(condition, false) && ifExpr.getElseIfBranches().isEmpty()) {
+            final var elseBranch = ifExpr.getElseBranch();
+            if (elseBranch == null || hasNamedElements(elseBranch)) {
+                return ifExpr; // Named elements stay in the scope they were declared in
+            }
+            // The else branch is evaluated just like the body, so it may take its place
+            final var elements = List.copyOf(elseBranch.getElements());
+            ifExpr.setElseBranch(null);
+            ifExpr.clearElements();
+            ifExpr.addElements(elements);
+            ifExpr.setCondition(new BoolValue(true, condition.getTokenRange()));
+        }
+        else {
+            return ifExpr;
+        }
+        final var expr = getDirectExpr(ifExpr);
+        return expr != null ? expr : ifExpr;
+    }
+
+    private static @NotNull Expr pruneWhen(final @NotNull WhenExpr whenExpr) {
+        if (!(whenExpr.getValue() instanceof ConstExpr value) || !ConstantFoldingLowering.isConstant(value)) {
+            return whenExpr;
+        }
+        final var branches = new ArrayList<Branch>();
+        for (final var branch : whenExpr.getBranches()) {
+            if (branch instanceof ConditionalBranch conditionalBranch
+                && ConstantFoldingLowering.isConstant(conditionalBranch.getValue())
+                && !isMatching(value, conditionalBranch)) {
+                continue;
+            }
+            branches.add(branch);
+        }
+        // @formatter:off
+        final var firstConditionalBranch = branches.stream()
+            .filter(ConditionalBranch.class::isInstance)
+            .map(ConditionalBranch.class::cast)
+            .findFirst();
+        // @formatter:on
+        if (firstConditionalBranch.isEmpty()) {
+            branches.subList(Math.min(1, branches.size()), branches.size()).clear(); // Only the first default is taken
+        }
+        else if (isMatching(value, firstConditionalBranch.get())) {
+            branches.clear();
+            branches.add(firstConditionalBranch.get());
+        }
+        whenExpr.clearBranches();
+        whenExpr.addBranches(branches);
+        if (branches.size() != 1 || branches.get(0) instanceof ScopeOwner) {
+            return whenExpr;
+        }
+        final var branch = branches.get(0);
+        if (branch instanceof ConditionalBranch conditionalBranch && !isMatching(value, conditionalBranch)) {
+            return whenExpr;
+        }
+        final var expr = getDirectExpr(branch);
+        return expr != null ? expr : whenExpr;
+    }
+
+    @Override
+    public @NotNull AssemblyFile visitFile(final @NotNull AssemblyFile file) {
+        return visitElementContainer(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        if (container.isLazy()) {
+            return container;
+        }
+        // Expression containers need a value in every slot, so bodies are only inlined into statement containers
+        final var isStatementContainer = !(container instanceof ExprContainer);
+        final var elements = (List<Element>) container.getElements();
+        var isChanged = false;
+        for (var i = 0; i < elements.size(); i++) {
+            final var element = elements.get(i);
+            final var result = visitElement(element);
+            final var body = isStatementContainer ? getInlinedBody(result) : null;
+            if (body != null) {
+                for (final var bodyElement : body) {
+                    bodyElement.setParent(element.getParent()); // Lifted elements retain their original parent
+                }
+                elements.remove(i);
+                elements.addAll(i, body);
+                i += body.size() - 1;
+                isChanged = true;
+                continue;
+            }
+            if (result == element) {
+                continue;
+            }
+            result.setParent(element.getParent());
+            elements.set(i, result);
+            isChanged = true;
+        }
+        if (isChanged && container instanceof DefineStatement defineStatement) {
+            defineStatement.invalidateCachedValue();
+        }
+        return container;
+    }
+
+    @Override
+    public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+        return pruneIf((IfExpr) ElementVisitor.super.visitIfExpr(ifExpr));
+    }
+
+    @Override
+    public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull Expr visitWhenExpr(final @NotNull WhenExpr whenExpr) {
+        return pruneWhen((WhenExpr) ElementVisitor.super.visitWhenExpr(whenExpr));
+    }
+}
@@ -43,6 +43,9 @@ public final class CompoundLowering implements ElementVisitor {
 
     @SuppressWarnings("all")
     private <C extends ElementContainer> @NotNull C expandCompounds(final @NotNull C container) {
+        if (container.isLazy()) {
+            return container;
+        }
         final var newElements = new ArrayList<Element>();
         for (final var element : container.getElements()) {
             if (element instanceof CompoundStatement statement) {
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseIfBranch;
+import dev.karmakrafts.jbpl.assembler.model.instruction.Instruction;
+import dev.karmakrafts.jbpl.assembler.model.instruction.Opcode;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.ArrayType;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.model.type.ClassType;
+import dev.karmakrafts.jbpl.assembler.model.type.PreproType;
+import dev.karmakrafts.jbpl.assembler.model.type.Type;
+import dev.karmakrafts.jbpl.assembler.util.XFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lowering pass to replace side effect free expressions whose operands are all constant
+ * with the value they evaluate to, so evaluation doesn't recompute them every time they are reached.
+ * References are only replaced if they are bound to a final define by {@link StaticBindingLowering}
+ * and the binding is stable, anything else depending on a name or macro call is kept.
+ * Expressions which fail to evaluate are kept as well, so the error is reported when they are reached.
+ * Has to run after {@link IncludeLowering}, {@link CompoundLowering} and {@link StaticBindingLowering}.
+ */
+public final class ConstantFoldingLowering implements ElementVisitor {
+    private final EvaluationContext context = new EvaluationContext(new AssemblyFile("<constant folding>"),
+        name -> null,
+        message -> {
+        },
+        message -> {
+        });
+    private final Set<DefineStatement> foldingDefines = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are lowered when they are parsed
+    }
+
+    private static boolean isContextFree(final @NotNull Type type) {
+        if (type instanceof ArrayType arrayType) {
+            return isContextFree(arrayType.elementType());
+        }
+        return type instanceof BuiltinType || type instanceof ClassType || type instanceof PreproType;
+    }
+
+    /**
+     * Determines whether the given element is an immutable value which evaluates identically in every context.
+     *
+     * @param element The element to check.
+     * @return True if the element is a primitive, string, opcode or context-free type literal.
+     */
+    public static boolean isConstant(final @NotNull Element element) {
+        if (element instanceof PrimitiveValue) {
+            return true;
+        }
+        if (!(element instanceof LiteralExpr literalExpr) || !literalExpr.type.isResolved()) {
+            return false; // Arrays are mutable, so they never count as constant
+        }
+        if (literalExpr.value instanceof Type type) {
+            return isContextFree(type); // Type aliases may resolve differently depending on the scope
+        }
+        return literalExpr.value instanceof String || literalExpr.value instanceof Opcode;
+    }
+
+    private static boolean isFoldable(final @NotNull Expr expr) {
+        if (expr instanceof BinaryExpr binaryExpr) {
+            return !binaryExpr.op.isAssignment;
+        }
+        else if (expr instanceof UnaryExpr unaryExpr) {
+            return !unaryExpr.op.isAssignment;
+        }
+        return expr instanceof StringLerpExpr || expr instanceof AsExpr || expr instanceof IsExpr
+            || expr instanceof TypeOfExpr;
+    }
+
+    private static boolean isInstructionLiteral(final @NotNull Expr expr) {
+        return expr instanceof LiteralExpr literalExpr && literalExpr.value instanceof Instruction;
+    }
+
+    private @Nullable ConstExpr fold(final @NotNull Expr expr) {
+        if (expr instanceof ReferenceExpr referenceExpr) {
+            return foldReference(referenceExpr);
+        }
+        if (expr instanceof OpcodeOfExpr opcodeOfExpr) {
+            // Instructions are mutable, but their opcode is fixed once they are created
+            return isInstructionLiteral(opcodeOfExpr.getValue()) ? evaluate(opcodeOfExpr::evaluateAsConst) : null;
+        }
+        if (!isFoldable(expr)) {
+            return null;
+        }
+        for (final var operand : ((ExprContainer) expr).getExpressions()) {
+            if (!isConstant(operand)) {
+                return null;
+            }
+        }
+        return evaluate(expr::evaluateAsConst);
+    }
+
+    private @Nullable ConstExpr foldReference(final @NotNull ReferenceExpr referenceExpr) {
+        final var binding = referenceExpr.getAttributes().get(StaticBinding.DEFINE);
+        if (binding == null || !binding.isStable()) {
+            return null;
+        }
+        final var define = binding.target();
+        if (!define.isFinal || !foldingDefines.add(define)) {
+            return null; // Self referencing defines are reported at runtime
+        }
+        try {
+            visitDefine(define); // The define may appear after the reference, so we fold its value on demand
+        }
+        finally {
+            foldingDefines.remove(define);
+        }
+        if (!isConstant(define.getType()) || !isConstant(define.getValue())) {
+            return null;
+        }
+        final var result = evaluate(ctx -> {
+            define.evaluate(ctx); // Casts the value to the type of the define
+            return (ConstExpr) ctx.popValue();
+        });
+        return result != null ? (ConstExpr) result.copy() : null; // Every reference gets its own copy of the value
+    }
+
+    private @Nullable ConstExpr evaluate(final @NotNull XFunction<EvaluationContext, ConstExpr, EvaluationException> evaluator) {
+        context.pushFrame(context.file);
+        try {
+            final var result = evaluator.apply(context);
+            return isConstant(result) ? result : null;
+        }
+        catch (EvaluationException | RuntimeException error) {
+            return null; // Evaluating the expression again at runtime reports the error with a proper stack trace
+        }
+        finally {
+            context.popFrame();
+        }
+    }
+
+    @Override
+    public @NotNull AssemblyFile visitFile(final @NotNull AssemblyFile file) {
+        return visitElementContainer(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        if (container.isLazy()) {
+            return container;
+        }
+        // We replace folded expressions in place to retain the original parents of lifted elements
+        final var elements = (List<Element>) container.getElements();
+        var isChanged = false;
+        for (var i = 0; i < elements.size(); i++) {
+            final var element = elements.get(i);
+            final var result = visitElement(element);
+            if (result == element) {
+                continue;
+            }
+            result.setParent(element.getParent());
+            elements.set(i, result);
+            isChanged = true;
+        }
+        if (isChanged && container instanceof DefineStatement defineStatement) {
+            defineStatement.invalidateCachedValue();
+        }
+        return container;
+    }
+
+    @Override
+    public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+        ifExpr.setCondition(visitExpr(ifExpr.getCondition()));
+        return ElementVisitor.super.visitIfExpr(ifExpr);
+    }
+
+    @Override
+    public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+        branch.setCondition(visitExpr(branch.getCondition()));
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull Expr visitFunctionSignatureExpr(final @NotNull FunctionSignatureExpr functionSignatureExpr) {
+        // Signatures are kept since some elements expect them directly, but their components may still be folded
+        return visitExprContainer(functionSignatureExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitFieldSignatureExpr(final @NotNull FieldSignatureExpr fieldSignatureExpr) {
+        return visitExprContainer(fieldSignatureExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitExpr(final @NotNull Expr expr) {
+        final var result = ElementVisitor.super.visitExpr(expr); // Operands are folded before their parent
+        final var value = fold(result);
+        return value != null ? value : result;
+    }
+}
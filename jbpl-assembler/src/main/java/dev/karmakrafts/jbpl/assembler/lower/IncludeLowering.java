@@ -35,6 +35,11 @@ public final class IncludeLowering implements ElementVisitor {
         this.assembler = assembler;
     }
 
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Include statements may only appear at the top level
+    }
+
     private boolean shouldGetIncluded(final @NotNull Element element) {
         if (element instanceof IncludeVisibilityProvider visibilityProvider) {
             return visibilityProvider.shouldGetIncluded();
@@ -48,7 +53,10 @@ public final class IncludeLowering implements ElementVisitor {
         if (alreadyIncluded.contains(includePath)) {
             return includeStatement;
         }
-        final var includedFile = ExceptionUtils.rethrowUnchecked(() -> assembler.getOrParseFile(includePath));
+        var includedFile = assembler.loadBundledLibrary(includePath); // Already lowered and validated
+        if (includedFile == null) {
+            includedFile = ExceptionUtils.rethrowUnchecked(() -> assembler.getOrParseFile(includePath));
+        }
         final var statement = new CompoundStatement();
         // @formatter:off
         statement.addElementsVerbatim(includedFile.getElements().stream()
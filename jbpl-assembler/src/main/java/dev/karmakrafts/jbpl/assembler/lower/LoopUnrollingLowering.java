@@ -0,0 +1,407 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.eval.IntrinsicRegistry;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.decl.Declaration;
+import dev.karmakrafts.jbpl.assembler.model.decl.FunctionDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseIfBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr.ConditionalBranch;
+import dev.karmakrafts.jbpl.assembler.model.instruction.JumpInstruction;
+import dev.karmakrafts.jbpl.assembler.model.instruction.StackInstruction;
+import dev.karmakrafts.jbpl.assembler.model.statement.*;
+import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
+import dev.karmakrafts.jbpl.assembler.util.Unit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Lowering pass to expand {@link ForStatement}s over constant ranges, arrays and strings into a
+ * {@link CompoundStatement} holding a copy of the body for every iteration, in which the loop variable
+ * is replaced with its value. This lets {@link ConstantFoldingLowering} and {@link BranchPruningLowering}
+ * specialize every iteration and saves the frame of every iteration at runtime.
+ * Since the copies are evaluated in the frame of the enclosing scope, loops are only unrolled if their body
+ * doesn't depend on having its own frame, and only if they expand to at most the given number of elements.
+ * Has to run after {@link IncludeLowering} and {@link CompoundLowering}.
+ */
+public final class LoopUnrollingLowering implements ElementVisitor {
+    private final EvaluationContext context = new EvaluationContext(new AssemblyFile("<loop unrolling>"),
+        name -> null,
+        message -> {
+        },
+        message -> {
+        });
+    private final int maxElementCount;
+
+    /**
+     * @param maxElementCount The maximum number of elements a single loop may expand to.
+     */
+    public LoopUnrollingLowering(final int maxElementCount) {
+        this.maxElementCount = maxElementCount;
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are lowered when they are parsed
+    }
+
+    private static @Nullable String getConstName(final @NotNull Expr name) {
+        if (name instanceof LiteralExpr literalExpr && literalExpr.value instanceof String value) {
+            return value;
+        }
+        return null;
+    }
+
+    private static boolean isUnqualified(final @NotNull Expr receiver) {
+        return receiver instanceof ScopeReceiverExpr
+            || (receiver instanceof LiteralExpr literalExpr && literalExpr.value == Unit.INSTANCE);
+    }
+
+    private static boolean isReferenceTo(final @NotNull Element element, final @NotNull String name) {
+        return element instanceof ReferenceExpr referenceExpr && isUnqualified(referenceExpr.getReceiver())
+            && name.equals(getConstName(referenceExpr.getName()));
+    }
+
+    private static boolean isConstantIterable(final @NotNull Expr value) {
+        if (value instanceof RangeExpr rangeExpr) {
+            return ConstantFoldingLowering.isConstant(rangeExpr.getStart())
+                && ConstantFoldingLowering.isConstant(rangeExpr.getEnd());
+        }
+        if (value instanceof ArrayExpr arrayExpr) {
+            final var type = arrayExpr.getType();
+            if (!type.isUnit() && !ConstantFoldingLowering.isConstant(type)) {
+                return false;
+            }
+            for (final var element : arrayExpr.getValues()) {
+                if (!ConstantFoldingLowering.isConstant(element)) {
+                    return false; // Nested arrays are mutable, so every iteration would have to share them
+                }
+            }
+            return true;
+        }
+        return value instanceof LiteralExpr literalExpr && literalExpr.value instanceof String;
+    }
+
+    private static int getElementCount(final @NotNull ElementContainer container) {
+        var count = 0;
+        for (final var element : container.getElements()) {
+            count += element instanceof CompoundStatement statement ? getElementCount(statement) : 1;
+        }
+        return count;
+    }
+
+    private static @Nullable ScopeOwner getScopeOwner(final @NotNull ElementContainer container) {
+        for (Element element = container; element != null; element = element.getParent()) {
+            if (element instanceof ScopeOwner owner) {
+                return owner;
+            }
+            if (element.getParent() == element) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private @Nullable List<ConstExpr> evaluateValues(final @NotNull ForStatement forStatement, final int maxCount) {
+        context.pushFrame(context.file);
+        try {
+            final var values = forStatement.evaluateValues(context, maxCount);
+            if (values == null) {
+                return null;
+            }
+            for (final var value : values) {
+                if (!ConstantFoldingLowering.isConstant(value)) {
+                    return null;
+                }
+            }
+            return values;
+        }
+        catch (EvaluationException | RuntimeException error) {
+            return null; // Evaluating the loop at runtime reports the error with a proper stack trace
+        }
+        finally {
+            context.popFrame();
+        }
+    }
+
+    private @Nullable CompoundStatement unroll(final @NotNull ForStatement forStatement,
+                                               final @NotNull ElementContainer container) {
+        final var name = getConstName(forStatement.getVariableName());
+        if (name == null || !isConstantIterable(forStatement.getValue())) {
+            return null;
+        }
+        final var body = List.copyOf(forStatement.getElements());
+        final var values = evaluateValues(forStatement, maxElementCount / Math.max(1, getElementCount(forStatement)));
+        if (values == null) {
+            return null;
+        }
+        final var isIntegerVariable = values.stream().allMatch(IntValue.class::isInstance);
+        final var isFunctionBody = getScopeOwner(container) instanceof FunctionDecl;
+        final var check = new UnrollCheck(name, isIntegerVariable, isFunctionBody);
+        for (final var element : body) {
+            if (!check.isUnrollable(element, true, true, true)) {
+                return null;
+            }
+        }
+        final var statement = forStatement.copyParentAndSourceTo(new CompoundStatement());
+        for (final var value : values) {
+            final var substitution = new VariableSubstitution(name, value);
+            for (final var element : body) {
+                statement.addElement(element.copy().transform(substitution));
+            }
+        }
+        return statement;
+    }
+
+    @Override
+    public @NotNull AssemblyFile visitFile(final @NotNull AssemblyFile file) {
+        return visitElementContainer(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        if (container.isLazy()) {
+            return container;
+        }
+        final var elements = (List<Element>) container.getElements();
+        for (var i = 0; i < elements.size(); i++) {
+            final var element = elements.get(i);
+            final var result = visitElement(element); // Nested loops are unrolled first
+            if (!(result instanceof ForStatement forStatement)) {
+                continue;
+            }
+            final var statement = unroll(forStatement, container);
+            if (statement == null) {
+                continue;
+            }
+            statement.setParent(element.getParent());
+            elements.set(i, statement);
+        }
+        return container;
+    }
+
+    @Override
+    public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    /**
+     * Determines whether evaluating a copy of a loop body in the frame of the enclosing scope,
+     * with the loop variable replaced by its value, behaves exactly like evaluating the loop.
+     */
+    private static final class UnrollCheck {
+        private final String name;
+        private final boolean isIntegerVariable;
+        private final boolean isFunctionBody;
+
+        private UnrollCheck(final @NotNull String name, final boolean isIntegerVariable, final boolean isFunctionBody) {
+            this.name = name;
+            this.isIntegerVariable = isIntegerVariable;
+            this.isFunctionBody = isFunctionBody;
+        }
+
+        private boolean isIntrinsicCall(final @NotNull MacroCallExpr macroCallExpr) {
+            // Other macros see the named values of their caller, which no longer contain the loop variable
+            final var name = getConstName(macroCallExpr.getName());
+            return isUnqualified(macroCallExpr.getReceiver()) && name != null
+                && IntrinsicRegistry.getMacro(name) != null;
+        }
+
+        private boolean isAssignment(final @NotNull Element element) {
+            if (element instanceof BinaryExpr binaryExpr) {
+                return binaryExpr.op.isAssignment && isReferenceTo(binaryExpr.getLhs(), name);
+            }
+            else if (element instanceof UnaryExpr unaryExpr) {
+                return unaryExpr.op.isAssignment && isReferenceTo(unaryExpr.getValue(), name);
+            }
+            return false;
+        }
+
+        private boolean isDependingOnFrame(final @NotNull Element element, final boolean isBound) {
+            // Labels, locals and named elements are kept per frame, so every iteration used to get its own
+            if (element instanceof NamedElement || element instanceof JumpInstruction) {
+                return true;
+            }
+            if (element instanceof StackInstruction stackInstruction) {
+                final var slot = stackInstruction.getSlot();
+                return !(slot instanceof IntValue) && !(isBound && isIntegerVariable && isReferenceTo(slot, name));
+            }
+            // Intrinsic defines of functions are only visible in the frame of the function itself
+            return isFunctionBody && element instanceof ReferenceExpr && !(isBound && isReferenceTo(element, name));
+        }
+
+        private boolean areUnrollable(final @NotNull List<? extends Element> elements,
+                                      final boolean isDirect,
+                                      final boolean isLoopTarget,
+                                      final boolean isBound) {
+            for (final var element : elements) {
+                if (!isUnrollable(element, isDirect, isLoopTarget, isBound)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param element      The element to check.
+         * @param isDirect     True if the element would be evaluated in the frame of the loop.
+         * @param isLoopTarget True if break and continue statements would apply to the loop.
+         * @param isBound      True if the name of the loop variable isn't shadowed by a nested loop.
+         * @return True if the element can be part of an unrolled body.
+         */
+        private boolean isUnrollable(final @NotNull Element element,
+                                     final boolean isDirect,
+                                     final boolean isLoopTarget,
+                                     final boolean isBound) {
+            if (element instanceof ReturnStatement || element instanceof Declaration
+                || element instanceof PreproClassExpr) {
+                return false;
+            }
+            if (isLoopTarget && (element instanceof BreakStatement || element instanceof ContinueStatement)) {
+                return false;
+            }
+            if (element instanceof ElementContainer container && container.isLazy()) {
+                return false;
+            }
+            if ((isDirect && isDependingOnFrame(element, isBound)) || (isBound && isAssignment(element))) {
+                return false;
+            }
+            if (element instanceof MacroCallExpr macroCallExpr && !isIntrinsicCall(macroCallExpr)) {
+                return false;
+            }
+            final var isNestedDirect = isDirect && !(element instanceof ScopeOwner);
+            if (element instanceof ForStatement forStatement) {
+                final var variableName = getConstName(forStatement.getVariableName());
+                return variableName != null && isUnrollable(forStatement.getValue(), isDirect, isLoopTarget, isBound)
+                    && areUnrollable(forStatement.getElements(), false, false, isBound && !variableName.equals(name));
+            }
+            if (element instanceof IfExpr ifExpr) {
+                if (!isUnrollable(ifExpr.getCondition(), isDirect, isLoopTarget, isBound)) {
+                    return false;
+                }
+                for (final var branch : ifExpr.getElseIfBranches()) {
+                    if (!isUnrollable(branch.getCondition(), isDirect, isLoopTarget, isBound)
+                        || !areUnrollable(branch.getElements(), false, isLoopTarget, isBound)) {
+                        return false;
+                    }
+                }
+                final var elseBranch = ifExpr.getElseBranch();
+                if (elseBranch != null && !areUnrollable(elseBranch.getElements(), false, isLoopTarget, isBound)) {
+                    return false;
+                }
+            }
+            else if (element instanceof WhenExpr whenExpr) {
+                for (final var branch : whenExpr.getBranches()) {
+                    if (branch instanceof ConditionalBranch conditionalBranch
+                        && !isUnrollable(conditionalBranch.getValue(), isDirect, isLoopTarget, isBound)) {
+                        return false;
+                    }
+                    if (!areUnrollable(branch.getElements(), false, isLoopTarget, isBound)) {
+                        return false;
+                    }
+                }
+            }
+            else if (element instanceof AbstractCallExpr callExpr) {
+                for (final var argument : callExpr.getArguments()) {
+                    final var argumentName = argument.left();
+                    if ((argumentName != null && !isUnrollable(argumentName, isDirect, isLoopTarget, isBound))
+                        || !isUnrollable(argument.right(), isDirect, isLoopTarget, isBound)) {
+                        return false;
+                    }
+                }
+            }
+            if (element instanceof ElementContainer container) {
+                return areUnrollable(container.getElements(), isNestedDirect, isLoopTarget, isBound);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Replaces all references to a loop variable with its value for a single iteration.
+     */
+    private static final class VariableSubstitution implements ElementVisitor {
+        private final String name;
+        private final ConstExpr value;
+
+        private VariableSubstitution(final @NotNull String name, final @NotNull ConstExpr value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public @NotNull Expr visitReferenceExpr(final @NotNull ReferenceExpr referenceExpr) {
+            if (isReferenceTo(referenceExpr, name)) {
+                return value.copy();
+            }
+            return ElementVisitor.super.visitReferenceExpr(referenceExpr);
+        }
+
+        @Override
+        public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+            ifExpr.setCondition(visitExpr(ifExpr.getCondition()));
+            return ElementVisitor.super.visitIfExpr(ifExpr);
+        }
+
+        @Override
+        public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+            branch.setCondition(visitExpr(branch.getCondition()));
+            return visitElementContainer(branch);
+        }
+
+        @Override
+        public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+            return visitElementContainer(branch);
+        }
+
+        @Override
+        public @NotNull Expr visitFunctionSignatureExpr(final @NotNull FunctionSignatureExpr functionSignatureExpr) {
+            return visitExprContainer(functionSignatureExpr);
+        }
+
+        @Override
+        public @NotNull Expr visitFieldSignatureExpr(final @NotNull FieldSignatureExpr fieldSignatureExpr) {
+            return visitExprContainer(fieldSignatureExpr);
+        }
+
+        @Override
+        public @NotNull Statement visitForStatement(final @NotNull ForStatement forStatement) {
+            forStatement.setValue(visitExpr(forStatement.getValue()));
+            if (name.equals(getConstName(forStatement.getVariableName()))) {
+                return forStatement; // The nested loop shadows the variable
+            }
+            return visitElementContainer(forStatement);
+        }
+    }
+}
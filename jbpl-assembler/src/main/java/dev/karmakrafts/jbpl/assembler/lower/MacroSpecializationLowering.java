@@ -0,0 +1,336 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.eval.IntrinsicRegistry;
+import dev.karmakrafts.jbpl.assembler.eval.IntrinsicsHandler;
+import dev.karmakrafts.jbpl.assembler.model.decl.Declaration;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseIfBranch;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.ForStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Lowering pass to specialize statically bound macros for call sites whose arguments are all constant.
+ * References to the parameters in a copy of the macro are replaced with the arguments of the call,
+ * so branches dispatching on a parameter can be folded and pruned for that call site.
+ * The call is bound to the specialized copy, which is shared between all calls with the same arguments.
+ * Arguments are still passed as usual, so anything resolving them dynamically behaves identically.
+ * Macros are only specialized if this leaves a branch with a constant condition.
+ * Has to run after {@link StaticBindingLowering}, {@link ConstantFoldingLowering} and {@link BranchPruningLowering}.
+ */
+public final class MacroSpecializationLowering implements ElementVisitor {
+    // Specializations by the constant value of every parameter, the macro itself if it isn't worth specializing
+    private final IdentityHashMap<MacroDecl, HashMap<List<Object>, MacroDecl>> specializations =
+        new IdentityHashMap<>();
+    private final ConstantFoldingLowering constantFolding = new ConstantFoldingLowering();
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are lowered when they are parsed
+    }
+
+    private static @Nullable Map<String, ConstExpr> mapArguments(final @NotNull MacroCallExpr call,
+                                                                 final @NotNull List<String> parameterNames) {
+        final var arguments = new HashMap<String, ConstExpr>();
+        var currentIndex = 0;
+        for (final var argument : call.getArguments()) {
+            final var name = argument.left();
+            if (name != null) {
+                if (!(name instanceof LiteralExpr literalExpr) || !(literalExpr.value instanceof String constName)) {
+                    return null;
+                }
+                currentIndex = parameterNames.indexOf(constName);
+            }
+            final var value = argument.right();
+            if (currentIndex < 0 || currentIndex >= parameterNames.size()
+                || !ConstantFoldingLowering.isConstant(value)) {
+                return null;
+            }
+            arguments.put(parameterNames.get(currentIndex++), (ConstExpr) value);
+        }
+        // Missing arguments are reported when the call is evaluated
+        return arguments.size() == parameterNames.size() ? arguments : null;
+    }
+
+    private static boolean hasConstantBranch(final @NotNull Element element) {
+        if (element instanceof IfExpr ifExpr) {
+            if (ifExpr.getCondition() instanceof BoolValue) {
+                return true;
+            }
+            for (final var branch : ifExpr.getElseIfBranches()) {
+                if (branch.getCondition() instanceof BoolValue || hasConstantBranch(branch)) {
+                    return true;
+                }
+            }
+            final var elseBranch = ifExpr.getElseBranch();
+            if (elseBranch != null && hasConstantBranch(elseBranch)) {
+                return true;
+            }
+        }
+        else if (element instanceof WhenExpr whenExpr) {
+            if (ConstantFoldingLowering.isConstant(whenExpr.getValue())) {
+                return true;
+            }
+            for (final var branch : whenExpr.getBranches()) {
+                if (hasConstantBranch(branch)) {
+                    return true;
+                }
+            }
+        }
+        if (element instanceof ElementContainer container) {
+            for (final var child : container.getElements()) {
+                if (hasConstantBranch(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSubstitutable(final @NotNull String name, final @NotNull NameCollector names) {
+        // Intrinsics and local elements of the same name take precedence over arguments
+        return !names.hasDynamicNames
+            && !names.names.contains(name)
+            && !IntrinsicsHandler.FRAME_DEFINE_NAMES.contains(name)
+            && IntrinsicRegistry.getDefine(name) == null;
+    }
+
+    private @NotNull MacroDecl specialize(final @NotNull MacroDecl macro,
+                                          final @NotNull Map<String, ConstExpr> arguments) {
+        final var names = new NameCollector();
+        names.visitElementContainer(macro);
+        final var substitutions = new HashMap<String, ConstExpr>();
+        for (final var argument : arguments.entrySet()) {
+            if (isSubstitutable(argument.getKey(), names)) {
+                substitutions.put(argument.getKey(), argument.getValue());
+            }
+        }
+        if (substitutions.isEmpty()) {
+            return macro;
+        }
+        final var specialized = macro.copy(); // Keeps the parent of the macro, so names resolve like before
+        specialized.transform(new Substitution(substitutions));
+        specialized.transform(constantFolding);
+        if (!hasConstantBranch(specialized)) {
+            return macro; // Nothing to gain from keeping a copy around
+        }
+        specialized.transform(BranchPruningLowering.INSTANCE);
+        specialized.transform(TypeInferenceLowering.INSTANCE);
+        return specialized;
+    }
+
+    @Override
+    public @NotNull Expr visitMacroCallExpr(final @NotNull MacroCallExpr macroCallExpr) {
+        final var result = ElementVisitor.super.visitMacroCallExpr(macroCallExpr);
+        final var binding = macroCallExpr.getAttributes().get(StaticBinding.MACRO);
+        if (binding == null || !macroCallExpr.getTypeArguments().isEmpty()) {
+            return result;
+        }
+        final var macro = binding.target();
+        final var name = macro.getConstName();
+        if (name == null || IntrinsicRegistry.getMacro(name) != null || macro.isLazy()
+            || !macro.getTypeParameters().isEmpty()) {
+            return result; // Intrinsic macros shadow everything else
+        }
+        final var parameters = macro.getConstParameters();
+        if (parameters == null || parameters.isEmpty()) {
+            return result;
+        }
+        final var parameterNames = List.copyOf(parameters.keySet());
+        final var arguments = mapArguments(macroCallExpr, parameterNames);
+        if (arguments == null) {
+            return result;
+        }
+        final var key = new ArrayList<>();
+        for (final var parameterName : parameterNames) {
+            key.add(arguments.get(parameterName).getConstValue());
+        }
+        // @formatter:off
+        final var specialized = specializations.computeIfAbsent(macro, m -> new HashMap<>())
+            .computeIfAbsent(key, k -> specialize(macro, arguments));
+        // @formatter:on
+        if (specialized != macro) {
+            final var specializedBinding = new StaticBinding<>(binding.file(), specialized, false);
+            macroCallExpr.getAttributes().put(StaticBinding.MACRO, specializedBinding);
+        }
+        return result;
+    }
+
+    /**
+     * Collects the names of all elements in a macro body which may shadow an argument.
+     */
+    private static final class NameCollector implements ElementVisitor {
+        private final HashSet<String> names = new HashSet<>();
+        private boolean hasDynamicNames;
+
+        @Override
+        public boolean visitsLazyBodies() {
+            return false;
+        }
+
+        private void collect(final @NotNull Expr name) {
+            if (name instanceof LiteralExpr literalExpr && literalExpr.value instanceof String constName) {
+                names.add(constName);
+                return;
+            }
+            hasDynamicNames = true;
+        }
+
+        @Override
+        public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+            if (container.isLazy()) {
+                hasDynamicNames = true;
+                return container;
+            }
+            for (final var element : container.getElements()) {
+                visitElement(element);
+            }
+            return container;
+        }
+
+        @Override
+        public @NotNull Statement visitDefine(final @NotNull DefineStatement defineStatement) {
+            collect(defineStatement.getName());
+            return ElementVisitor.super.visitDefine(defineStatement);
+        }
+
+        @Override
+        public @NotNull Declaration visitMacro(final @NotNull MacroDecl macroDecl) {
+            for (final var parameter : macroDecl.getParameters()) {
+                collect(parameter.left());
+            }
+            return ElementVisitor.super.visitMacro(macroDecl);
+        }
+
+        @Override
+        public @NotNull Statement visitForStatement(final @NotNull ForStatement forStatement) {
+            collect(forStatement.getVariableName());
+            return ElementVisitor.super.visitForStatement(forStatement);
+        }
+
+        @Override
+        public @NotNull Expr visitBinaryExpr(final @NotNull BinaryExpr binaryExpr) {
+            if (binaryExpr.op.isAssignment && binaryExpr.getLhs() instanceof ReferenceExpr referenceExpr) {
+                collect(referenceExpr.getName());
+            }
+            return ElementVisitor.super.visitBinaryExpr(binaryExpr);
+        }
+
+        @Override
+        public @NotNull Expr visitUnaryExpr(final @NotNull UnaryExpr unaryExpr) {
+            if (unaryExpr.op.isAssignment && unaryExpr.getValue() instanceof ReferenceExpr referenceExpr) {
+                collect(referenceExpr.getName());
+            }
+            return ElementVisitor.super.visitUnaryExpr(unaryExpr);
+        }
+
+        @Override
+        public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+            visitExpr(ifExpr.getCondition());
+            return ElementVisitor.super.visitIfExpr(ifExpr);
+        }
+
+        @Override
+        public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+            visitExpr(branch.getCondition());
+            return visitElementContainer(branch);
+        }
+
+        @Override
+        public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+            return visitElementContainer(branch);
+        }
+    }
+
+    /**
+     * Replaces unqualified references to the given names with a copy of their value.
+     */
+    private static final class Substitution implements ElementVisitor {
+        private final Map<String, ConstExpr> values;
+
+        public Substitution(final @NotNull Map<String, ConstExpr> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean visitsLazyBodies() {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+            // We replace references in place to retain the original parents of lifted elements
+            final var elements = (List<Element>) container.getElements();
+            for (var i = 0; i < elements.size(); i++) {
+                final var element = elements.get(i);
+                final var result = visitElement(element);
+                if (result != element) {
+                    result.setParent(element.getParent());
+                    elements.set(i, result);
+                }
+            }
+            return container;
+        }
+
+        @Override
+        public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+            ifExpr.setCondition(visitExpr(ifExpr.getCondition()));
+            return ElementVisitor.super.visitIfExpr(ifExpr);
+        }
+
+        @Override
+        public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+            branch.setCondition(visitExpr(branch.getCondition()));
+            return visitElementContainer(branch);
+        }
+
+        @Override
+        public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+            return visitElementContainer(branch);
+        }
+
+        @Override
+        public @NotNull Expr visitReferenceExpr(final @NotNull ReferenceExpr referenceExpr) {
+            final var name = referenceExpr.getName();
+            final var receiver = referenceExpr.getReceiver();
+            final var isUnqualified = receiver instanceof ScopeReceiverExpr || receiver.isUnit();
+            if (!isUnqualified || !(name instanceof LiteralExpr literalExpr)
+                || !(literalExpr.value instanceof String constName)) {
+                return ElementVisitor.super.visitReferenceExpr(referenceExpr);
+            }
+            final var value = values.get(constName);
+            if (value == null) {
+                return referenceExpr;
+            }
+            final var copy = value.copy();
+            copy.setTokenRange(referenceExpr.getTokenRange()); // Errors are still reported at the reference
+            return copy;
+        }
+    }
+}
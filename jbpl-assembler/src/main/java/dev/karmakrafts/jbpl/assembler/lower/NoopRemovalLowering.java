@@ -51,6 +51,9 @@ public final class NoopRemovalLowering implements ElementVisitor {
 
     @Override
     public @NotNull Declaration visitInjector(final @NotNull InjectorDecl injectorDecl) {
+        if (injectorDecl.isLazy()) {
+            return injectorDecl;
+        }
         final var statements = injectorDecl.getStatements();
         // @formatter:off
         final var filteredStatements = statements.stream()
@@ -64,6 +67,9 @@ public final class NoopRemovalLowering implements ElementVisitor {
 
     @Override
     public @NotNull Declaration visitFunction(final @NotNull FunctionDecl functionDecl) {
+        if (functionDecl.isLazy()) {
+            return functionDecl;
+        }
         final var statements = functionDecl.getStatements();
         // @formatter:off
         final var filteredStatements = statements.stream()
@@ -78,6 +84,9 @@ public final class NoopRemovalLowering implements ElementVisitor {
     @SuppressWarnings("unchecked")
     @Override
     public @NotNull Declaration visitMacro(final @NotNull MacroDecl macroDecl) {
+        if (macroDecl.isLazy()) {
+            return macroDecl;
+        }
         final var elements = (List<Element>) macroDecl.getElements();
         // @formatter:off
         final var filteredElements = elements.stream()
@@ -24,9 +24,13 @@ import org.jetbrains.annotations.NotNull;
  * Lowering pass to insert the correct scope receivers for things like references.
  */
 public final class ScopeReceiverLowering extends ScopeAwareElementVisitor {
-    public static final ScopeReceiverLowering INSTANCE = new ScopeReceiverLowering();
 
-    private ScopeReceiverLowering() {
+    public ScopeReceiverLowering() {
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are lowered when they are parsed
     }
 
     private @NotNull Expr visitReceiverExpr(final @NotNull Expr expr) {
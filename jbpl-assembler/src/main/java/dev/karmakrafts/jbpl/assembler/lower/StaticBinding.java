@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementAttributeKey;
+import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.TypeAliasStatement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A binding of a name to its target element created by {@link StaticBindingLowering}.
+ * Bindings are only valid while evaluating the file they were created for.
+ *
+ * @param file     The file being evaluated when this binding applies.
+ * @param target   The element the name resolves to.
+ * @param isStable True if the name can never be shadowed by macro arguments, loop variables or intrinsics
+ *                 and is never assigned, so it always evaluates to the value of the target.
+ * @param <E>      The type of the bound element.
+ */
+public record StaticBinding<E extends NamedElement>(@NotNull AssemblyFile file, @NotNull E target, boolean isStable) {
+    public static final ElementAttributeKey<StaticBinding<DefineStatement>> DEFINE = createKey("define");
+    public static final ElementAttributeKey<StaticBinding<MacroDecl>> MACRO = createKey("macro");
+    public static final ElementAttributeKey<StaticBinding<TypeAliasStatement>> TYPE_ALIAS = createKey("typeAlias");
+
+    @SuppressWarnings("unchecked")
+    private static <E extends NamedElement> @NotNull ElementAttributeKey<StaticBinding<E>> createKey(final @NotNull String name) {
+        return new ElementAttributeKey<>((Class<StaticBinding<E>>) (Object) StaticBinding.class, name);
+    }
+
+    /**
+     * Retrieves the statically bound target of the given element.
+     *
+     * @param element The element to retrieve the binding for.
+     * @param key     The attribute key of the binding.
+     * @param context The current evaluation context.
+     * @param <E>     The type of the bound element.
+     * @return The bound element, or null if the name has to be resolved dynamically.
+     */
+    public static <E extends NamedElement> @Nullable E getTarget(final @NotNull Element element,
+                                                                 final @NotNull ElementAttributeKey<StaticBinding<E>> key,
+                                                                 final @NotNull EvaluationContext context) {
+        final var binding = element.getAttributes().get(key);
+        if (binding == null) {
+            return null;
+        }
+        return binding.getTarget(context);
+    }
+
+    /**
+     * Retrieves the target of this binding if it applies to the given context.
+     *
+     * @param context The current evaluation context.
+     * @return The bound element, or null if names have to be resolved dynamically.
+     */
+    public @Nullable E getTarget(final @NotNull EvaluationContext context) {
+        return context.file == file ? target : null;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.eval.IntrinsicRegistry;
+import dev.karmakrafts.jbpl.assembler.eval.IntrinsicsHandler;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.decl.Declaration;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementAttributeKey;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseBranch;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr.ElseIfBranch;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.ForStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
+import dev.karmakrafts.jbpl.assembler.model.statement.TypeAliasStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.UnresolvedType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Lowering pass to bind unqualified references, macro calls and type names to their
+ * top level target in the lowered file, so evaluation can skip walking the scope chain.
+ * A name is only bound if no element of the same kind and name exists anywhere else the
+ * evaluation could reach, since any dynamic lookup is then guaranteed to find the same element.
+ * Receiver-qualified and computed names are always resolved dynamically.
+ * Define bindings are additionally marked stable if no macro parameter, loop variable, assignment
+ * or intrinsic uses the same name, see {@link StaticBinding#isStable()}.
+ * Has to run after {@link IncludeLowering} and {@link CompoundLowering}.
+ */
+public final class StaticBindingLowering implements ElementVisitor {
+    private final Symbols<DefineStatement> defines = new Symbols<>();
+    private final Symbols<MacroDecl> macros = new Symbols<>();
+    private final Symbols<TypeAliasStatement> typeAliases = new Symbols<>();
+    private final Set<Element> topLevelElements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Element> includedTopLevelElements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<ElementContainer> trees = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ArrayDeque<ElementContainer> pendingTrees = new ArrayDeque<>();
+    private final HashSet<String> localNames = new HashSet<>(); // Macro parameters, loop variables and assigned names
+    private boolean hasDynamicLocalNames;
+    private AssemblyFile file;
+    private boolean isBinding;
+
+    @Override
+    public @NotNull AssemblyFile visitFile(final @NotNull AssemblyFile file) {
+        if (this.file != null) { // Included files reached through scope receivers are only traversed
+            return visitElementContainer(file);
+        }
+        this.file = file;
+        topLevelElements.addAll(file.getElements());
+        trees.add(file);
+        pendingTrees.add(file);
+        // Included files may be reached by lexical scope lookups, so we collect until no new trees turn up
+        while (!pendingTrees.isEmpty()) {
+            final var tree = pendingTrees.poll();
+            if (tree != file) {
+                includedTopLevelElements.addAll(tree.getElements());
+            }
+            visitElementContainer(tree);
+        }
+        isBinding = true;
+        for (final var tree : trees) {
+            visitElementContainer(tree);
+        }
+        return file;
+    }
+
+    @Override
+    public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        if (container.isLazy()) {
+            if (!isBinding) {
+                collectLazy(container); // Bodies which weren't parsed yet are resolved dynamically
+            }
+            return container;
+        }
+        // We don't rebuild the container to retain the original parents of lifted elements
+        for (final var element : container.getElements()) {
+            visitElement(element);
+        }
+        return container;
+    }
+
+    @Override
+    public @NotNull Expr visitIfExpr(final @NotNull IfExpr ifExpr) {
+        visitExpr(ifExpr.getCondition());
+        return ElementVisitor.super.visitIfExpr(ifExpr);
+    }
+
+    @Override
+    public @NotNull ElseIfBranch visitElseIfBranch(final @NotNull ElseIfBranch branch) {
+        visitExpr(branch.getCondition());
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull ElseBranch visitElseBranch(final @NotNull ElseBranch branch) {
+        return visitElementContainer(branch);
+    }
+
+    @Override
+    public @NotNull Statement visitDefine(final @NotNull DefineStatement defineStatement) {
+        if (!isBinding) {
+            collect(defines, defineStatement);
+        }
+        return ElementVisitor.super.visitDefine(defineStatement);
+    }
+
+    @Override
+    public @NotNull Declaration visitMacro(final @NotNull MacroDecl macroDecl) {
+        if (!isBinding) {
+            collect(macros, macroDecl);
+            for (final var parameter : macroDecl.getParameters()) {
+                collectLocalName(parameter.left());
+            }
+        }
+        return ElementVisitor.super.visitMacro(macroDecl);
+    }
+
+    @Override
+    public @NotNull Statement visitTypeAliasStatement(final @NotNull TypeAliasStatement typeAliasStatement) {
+        if (!isBinding) {
+            collect(typeAliases, typeAliasStatement);
+        }
+        return ElementVisitor.super.visitTypeAliasStatement(typeAliasStatement);
+    }
+
+    @Override
+    public @NotNull Statement visitForStatement(final @NotNull ForStatement forStatement) {
+        if (!isBinding) {
+            collectLocalName(forStatement.getVariableName());
+        }
+        return ElementVisitor.super.visitForStatement(forStatement);
+    }
+
+    @Override
+    public @NotNull Expr visitBinaryExpr(final @NotNull BinaryExpr binaryExpr) {
+        if (!isBinding && binaryExpr.op.isAssignment) {
+            collectAssignment(binaryExpr.getLhs());
+        }
+        return ElementVisitor.super.visitBinaryExpr(binaryExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitUnaryExpr(final @NotNull UnaryExpr unaryExpr) {
+        if (!isBinding && unaryExpr.op.isAssignment) {
+            collectAssignment(unaryExpr.getValue());
+        }
+        return ElementVisitor.super.visitUnaryExpr(unaryExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitScopeReceiverExpr(final @NotNull ScopeReceiverExpr scopeReceiverExpr) {
+        if (isBinding) {
+            return scopeReceiverExpr;
+        }
+        var scope = scopeReceiverExpr.scope;
+        while (scope.parent() != null) {
+            scope = scope.parent();
+        }
+        if (scope.owner() instanceof ElementContainer container && trees.add(container)) {
+            pendingTrees.add(container);
+        }
+        return scopeReceiverExpr;
+    }
+
+    @Override
+    public @NotNull Expr visitReferenceExpr(final @NotNull ReferenceExpr referenceExpr) {
+        if (isBinding && isUnqualified(referenceExpr)) {
+            bind(referenceExpr, referenceExpr.getName(), defines, StaticBinding.DEFINE);
+        }
+        return ElementVisitor.super.visitReferenceExpr(referenceExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitMacroCallExpr(final @NotNull MacroCallExpr macroCallExpr) {
+        if (isBinding && isUnqualified(macroCallExpr)) {
+            bind(macroCallExpr, macroCallExpr.getName(), macros, StaticBinding.MACRO);
+        }
+        return ElementVisitor.super.visitMacroCallExpr(macroCallExpr);
+    }
+
+    @Override
+    public @NotNull Expr visitLiteralExpr(final @NotNull LiteralExpr literalExpr) {
+        if (isBinding && literalExpr.value instanceof UnresolvedType unresolvedType) {
+            final var name = unresolvedType.name();
+            bind(name, name, typeAliases, StaticBinding.TYPE_ALIAS);
+        }
+        return literalExpr;
+    }
+
+    private static boolean isUnqualified(final @NotNull AbstractReceiverExpr receiverExpr) {
+        // Conditions don't get a scope receiver, so their receiver is left empty
+        final var receiver = receiverExpr.getReceiver();
+        return receiver instanceof ScopeReceiverExpr || receiver.isUnit();
+    }
+
+    private <E extends NamedElement> void collect(final @NotNull Symbols<E> symbols, final @NotNull E element) {
+        // Top level elements of included files never own a frame, so they can't shadow anything
+        if (includedTopLevelElements.contains(element)) {
+            return;
+        }
+        symbols.add(element, topLevelElements.contains(element));
+    }
+
+    private void collectLocalName(final @NotNull Expr name) {
+        if (name instanceof LiteralExpr literalExpr && literalExpr.value instanceof String constName) {
+            localNames.add(constName);
+            return;
+        }
+        hasDynamicLocalNames = true;
+    }
+
+    private void collectAssignment(final @NotNull Expr target) {
+        if (target instanceof ReferenceExpr referenceExpr) {
+            collectLocalName(referenceExpr.getName());
+        }
+    }
+
+    private void collectLazy(final @NotNull ElementContainer container) {
+        final var names = Objects.requireNonNull(container.getLazyElements()).getDeclaredNames();
+        for (final var symbols : List.of(defines, macros, typeAliases)) {
+            symbols.addNested(names);
+        }
+        hasDynamicLocalNames = true; // Parameters and assignments in the body are unknown until it is parsed
+        // Scope receivers inside the body will be rooted in the file which declares it
+        final var file = container.getContainingFile();
+        if (trees.add(file)) {
+            pendingTrees.add(file);
+        }
+    }
+
+    private <E extends NamedElement> void bind(final @NotNull Element element,
+                                               final @NotNull Expr name,
+                                               final @NotNull Symbols<E> symbols,
+                                               final @NotNull ElementAttributeKey<StaticBinding<E>> key) {
+        if (!(name instanceof LiteralExpr literalExpr) || !(literalExpr.value instanceof String constName)) {
+            return;
+        }
+        final var target = symbols.get(constName);
+        final var isStable = target instanceof DefineStatement && isStableName(constName);
+        element.getAttributes().put(key, target != null ? new StaticBinding<>(file, target, isStable) : null);
+    }
+
+    private boolean isStableName(final @NotNull String name) {
+        if (hasDynamicLocalNames || localNames.contains(name)) {
+            return false;
+        }
+        // Intrinsic defines take precedence over any other element with the same name
+        return !IntrinsicsHandler.FRAME_DEFINE_NAMES.contains(name) && IntrinsicRegistry.getDefine(name) == null;
+    }
+
+    private static final class Symbols<E extends NamedElement> {
+        private final HashMap<String, E> topLevel = new HashMap<>();
+        private final HashSet<String> nested = new HashSet<>();
+        private boolean hasDynamicNames;
+
+        public void add(final @NotNull E element, final boolean isTopLevel) {
+            final var name = element.getConstName();
+            if (name == null) {
+                hasDynamicNames = true;
+                return;
+            }
+            if (!isTopLevel) {
+                nested.add(name);
+                return;
+            }
+            topLevel.putIfAbsent(name, element);
+        }
+
+        public void addNested(final @Nullable Set<String> names) {
+            if (names == null) {
+                hasDynamicNames = true;
+                return;
+            }
+            nested.addAll(names);
+        }
+
+        public @Nullable E get(final @NotNull String name) {
+            if (hasDynamicNames || nested.contains(name)) {
+                return null;
+            }
+            return topLevel.get(name);
+        }
+    }
+}
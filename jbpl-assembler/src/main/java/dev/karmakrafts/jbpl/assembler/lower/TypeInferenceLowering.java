@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.model.element.ElementAttributeKey;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.type.ArrayType;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.model.type.PreproType;
+import dev.karmakrafts.jbpl.assembler.model.type.Type;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lowering pass to infer the type of every expression whose type doesn't depend on the
+ * evaluation context, so {@link Expr#getType} becomes a lookup instead of walking the subtree.
+ * Names are always resolved dynamically, so anything depending on a reference or macro call stays untyped.
+ * Has to run after all lowerings which replace expressions.
+ */
+public final class TypeInferenceLowering implements ElementVisitor {
+    public static final TypeInferenceLowering INSTANCE = new TypeInferenceLowering();
+    public static final ElementAttributeKey<Type> STATIC_TYPE = new ElementAttributeKey<>(Type.class, "staticType");
+
+    private TypeInferenceLowering() {
+    }
+
+    private static @Nullable Type getTypeLiteral(final @NotNull Expr expr) {
+        if (expr instanceof LiteralExpr literalExpr && literalExpr.value instanceof Type type && type.isResolved()) {
+            return type;
+        }
+        return null; // Type aliases may resolve differently depending on the scope
+    }
+
+    private static @Nullable Type inferType(final @NotNull Expr expr) {
+        if (expr instanceof PrimitiveValue primitiveValue) {
+            return primitiveValue.getBuiltinType();
+        }
+        else if (expr instanceof LiteralExpr literalExpr) {
+            return literalExpr.type.isResolved() ? literalExpr.type : null;
+        }
+        else if (expr instanceof BinaryExpr binaryExpr) {
+            return switch (binaryExpr.op) {
+                case EQ, NE, LT, LE, GT, GE -> BuiltinType.BOOL;
+                case CMP -> BuiltinType.I32;
+                default -> binaryExpr.getLhs().getStaticType();
+            };
+        }
+        else if (expr instanceof UnaryExpr unaryExpr) {
+            return unaryExpr.getValue().getStaticType();
+        }
+        else if (expr instanceof AsExpr asExpr) {
+            return getTypeLiteral(asExpr.getType());
+        }
+        else if (expr instanceof DefaultExpr defaultExpr) {
+            return getTypeLiteral(defaultExpr.getType());
+        }
+        else if (expr instanceof ArrayExpr arrayExpr && !arrayExpr.hasInferredType()) {
+            final var elementType = getTypeLiteral(arrayExpr.getType());
+            return elementType != null ? elementType.array() : null;
+        }
+        else if (expr instanceof ArrayAccessExpr arrayAccessExpr) {
+            final var type = arrayAccessExpr.getReference().getStaticType();
+            if (type == BuiltinType.STRING) {
+                return BuiltinType.CHAR;
+            }
+            return type instanceof ArrayType arrayType ? arrayType.elementType() : null;
+        }
+        else if (expr instanceof IsExpr || expr instanceof InExpr) {
+            return BuiltinType.BOOL;
+        }
+        else if (expr instanceof StringLerpExpr) {
+            return BuiltinType.STRING;
+        }
+        else if (expr instanceof SizeOfExpr) {
+            return BuiltinType.I32;
+        }
+        else if (expr instanceof TypeOfExpr) {
+            return PreproType.TYPE;
+        }
+        return null;
+    }
+
+    @Override
+    public <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        // We only annotate expressions, so there is no need to rebuild the container
+        if (container.isLazy()) {
+            return container;
+        }
+        for (final var element : container.getElements()) {
+            visitElement(element);
+        }
+        return container;
+    }
+
+    @Override
+    public @NotNull Expr visitExpr(final @NotNull Expr expr) {
+        final var result = ElementVisitor.super.visitExpr(expr); // Operands are typed before their parent
+        final var type = inferType(result);
+        if (type != null) {
+            result.getAttributes().put(STATIC_TYPE, type);
+        }
+        return result;
+    }
+}
@@ -24,15 +24,19 @@ import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import dev.karmakrafts.jbpl.assembler.source.SourceRange;
 import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import dev.karmakrafts.jbpl.assembler.source.TokenTable;
 import org.antlr.v4.runtime.Token;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.io.Serial;
 import java.util.List;
 
 public final class AssemblyFile extends AbstractElementContainer implements ScopeOwner {
-    public final ArrayList<Token> source = new ArrayList<>();
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public TokenTable source = TokenTable.EMPTY;
     public String path;
 
     public AssemblyFile(final @NotNull String path) {
@@ -40,11 +44,16 @@ public final class AssemblyFile extends AbstractElementContainer implements Scop
         tokenRange = null; // We lazily assign the token range for the file
     }
 
+    public void setSource(final @NotNull TokenTable source) {
+        this.source = source;
+        tokenRange = null; // Re-created lazily from the new token table
+    }
+
     public @NotNull List<Token> getTokens(final @NotNull TokenRange range) {
         if (range.isUndefined() || range.isSynthetic()) {
             return List.of();
         }
-        return source.subList(range.start(), range.end() + 1); // subList toIndex is exclusive
+        return source.getTokens(range.start(), range.end());
     }
 
     public @NotNull SourceRange getSourceRange(final @NotNull TokenRange range) {
@@ -56,18 +65,16 @@ public final class AssemblyFile extends AbstractElementContainer implements Scop
         }
         final var startIndex = range.start();
         final var endIndex = range.end();
-        final var firstToken = source.get(startIndex);
         if (startIndex == endIndex) {
-            final var lineIndex = firstToken.getLine() - 1;
-            final var startColumn = firstToken.getCharPositionInLine();
-            final var endColumn = startColumn + (firstToken.getText().length() - 1);
+            final var lineIndex = source.getLine(startIndex) - 1;
+            final var startColumn = source.getColumn(startIndex);
+            final var endColumn = startColumn + (source.getTextLength(startIndex) - 1);
             return new SourceRange(lineIndex, startColumn, lineIndex, endColumn);
         }
-        final var lastToken = source.get(range.end());
-        return new SourceRange(firstToken.getLine() - 1,
-            firstToken.getCharPositionInLine(),
-            lastToken.getLine() - 1,
-            lastToken.getCharPositionInLine());
+        return new SourceRange(source.getLine(startIndex) - 1,
+            source.getColumn(startIndex),
+            source.getLine(endIndex) - 1,
+            source.getColumn(endIndex));
     }
 
     @Override
@@ -111,7 +118,7 @@ public final class AssemblyFile extends AbstractElementContainer implements Scop
     @Override
     public AssemblyFile copy() {
         final var result = new AssemblyFile(path); // Don't explicitly copy source tokens & range since it's hardcoded
-        result.source.addAll(source); // We retain the same underlying token references
+        result.source = source; // Token tables are immutable, so they can be shared
         result.addElements(getElements().stream().map(Element::copy).toList());
         return result;
     }
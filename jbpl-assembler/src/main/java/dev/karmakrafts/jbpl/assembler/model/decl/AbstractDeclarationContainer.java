@@ -19,10 +19,14 @@ package dev.karmakrafts.jbpl.assembler.model.decl;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractDeclarationContainer extends AbstractElementContainer implements DeclarationContainer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final ArrayList<Declaration> declarations = new ArrayList<>();
 
     @Override
@@ -29,12 +29,16 @@ import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.Serial;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public final class ClassDecl extends AbstractExprContainer implements Declaration {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int TYPE_INDEX = 0;
     public static final int SUPER_TYPE_INDEX = 1;
     public static final int INTERFACES_INDEX = 2;
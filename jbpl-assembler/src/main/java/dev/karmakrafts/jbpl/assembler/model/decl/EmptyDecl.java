@@ -20,7 +20,12 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElement;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class EmptyDecl extends AbstractElement implements Declaration {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private EmptyDecl() {
     }
 
@@ -30,10 +30,14 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.FieldNode;
 
+import java.io.Serial;
 import java.util.EnumSet;
 import java.util.stream.Collectors;
 
 public final class FieldDecl extends AbstractExprContainer implements Declaration {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int SIGNATURE_INDEX = 0;
     public static final int INITIALIZER_INDEX = 1;
 
@@ -22,17 +22,20 @@ import dev.karmakrafts.jbpl.assembler.model.AccessModifier;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.expr.FunctionSignatureExpr;
 import dev.karmakrafts.jbpl.assembler.model.statement.AbstractStatementContainer;
-import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
 import dev.karmakrafts.jbpl.assembler.model.type.ClassType;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.MethodNode;
 
+import java.io.Serial;
 import java.util.EnumSet;
 import java.util.stream.Collectors;
 
 public final class FunctionDecl extends AbstractStatementContainer implements Declaration, ScopeOwner {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public final EnumSet<AccessModifier> accessModifiers = EnumSet.noneOf(AccessModifier.class);
     private Expr signature;
 
@@ -83,7 +86,7 @@ public final class FunctionDecl extends AbstractStatementContainer implements De
         final var function = copyParentAndSourceTo(new FunctionDecl());
         function.setSignature(getSignature().copy());
         function.accessModifiers.addAll(accessModifiers);
-        function.addStatements(getStatements().stream().map(Statement::copy).toList());
+        copyElementsTo(function);
         return copyParentAndSourceTo(function);
     }
 
@@ -23,12 +23,16 @@ import dev.karmakrafts.jbpl.assembler.model.expr.FieldSignatureExpr;
 import dev.karmakrafts.jbpl.assembler.model.expr.FunctionSignatureExpr;
 import dev.karmakrafts.jbpl.assembler.model.expr.SignatureExpr;
 import dev.karmakrafts.jbpl.assembler.model.statement.AbstractStatementContainer;
-import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
 import dev.karmakrafts.jbpl.assembler.model.type.ClassType;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class InjectorDecl extends AbstractStatementContainer implements Declaration, ScopeOwner {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private Expr target;
     private Expr selector;
 
@@ -82,7 +86,7 @@ public final class InjectorDecl extends AbstractStatementContainer implements De
     @Override
     public @NotNull InjectorDecl copy() {
         final var injector = copyParentAndSourceTo(new InjectorDecl(getTarget().copy(), getSelector().copy()));
-        injector.addStatements(getStatements().stream().map(Statement::copy).toList());
+        copyElementsTo(injector);
         return injector;
     }
 }
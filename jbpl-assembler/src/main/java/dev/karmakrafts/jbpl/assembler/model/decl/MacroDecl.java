@@ -20,23 +20,29 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.lower.IncludeVisibilityProvider;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
-import dev.karmakrafts.jbpl.assembler.model.element.Element;
 import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.util.*;
 
 public final class MacroDecl extends AbstractElementContainer
     implements Declaration, ScopeOwner, NamedElement, IncludeVisibilityProvider {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final ArrayList<Pair<Expr, Expr>> parameters = new ArrayList<>();
     private final ArrayList<Pair<Expr, Expr>> typeParameters = new ArrayList<>();
     public boolean isPrivate;
     private Expr name;
     private Expr returnType;
+    private transient Map<String, Type> constParameters; // Cached when all parameter names and types are literals
 
     public MacroDecl(final @NotNull Expr name, final @NotNull Expr returnType, final boolean isPrivate) {
         setName(name);
@@ -54,6 +60,7 @@ public final class MacroDecl extends AbstractElementContainer
         }
         name.setParent(this);
         this.name = name;
+        invalidateParentSymbols();
     }
 
     public @NotNull Expr getReturnType() {
@@ -73,12 +80,14 @@ public final class MacroDecl extends AbstractElementContainer
             pair.right().setParent(null);
         }
         parameters.clear();
+        constParameters = null;
     }
 
     public void addParameter(final @NotNull Expr name, final @NotNull Expr type) {
         name.setParent(this);
         type.setParent(this);
         parameters.add(new Pair<>(name, type));
+        constParameters = null;
     }
 
     public void addParameters(final @NotNull Collection<Pair<Expr, Expr>> parameters) {
@@ -87,6 +96,7 @@ public final class MacroDecl extends AbstractElementContainer
             entry.right().setParent(this);
         }
         this.parameters.addAll(parameters);
+        constParameters = null;
     }
 
     public @NotNull List<Pair<Expr, Expr>> getParameters() {
@@ -119,11 +129,39 @@ public final class MacroDecl extends AbstractElementContainer
         return typeParameters;
     }
 
+    /**
+     * Retrieves the parameters of this macro if they can be determined without evaluation.
+     * The returned map stays identical as long as the parameters of this macro are not modified.
+     *
+     * @return An immutable map of all parameter names and their types if they are all literals, otherwise null.
+     */
+    public @Nullable Map<String, Type> getConstParameters() {
+        if (constParameters != null) {
+            return constParameters;
+        }
+        final var resolvedParams = new LinkedHashMap<String, Type>();
+        for (final var pair : parameters) {
+            if (!(pair.left() instanceof LiteralExpr nameExpr) || !(nameExpr.value instanceof String name)) {
+                return null;
+            }
+            if (!(pair.right() instanceof LiteralExpr typeExpr) || !(typeExpr.value instanceof Type type)) {
+                return null;
+            }
+            resolvedParams.put(name, type);
+        }
+        constParameters = Collections.unmodifiableMap(resolvedParams);
+        return constParameters;
+    }
+
     public @NotNull Map<String, Type> resolveParameters(final @NotNull EvaluationContext context) throws EvaluationException {
         final var params = getParameters();
         if (params.isEmpty()) {
             return Map.of();
         }
+        final var constParams = getConstParameters();
+        if (constParams != null) {
+            return constParams;
+        }
         final var resolvedParams = new LinkedHashMap<String, Type>(16, 0.75F, true);
         for (final var pair : params) {
             final var name = pair.left().evaluateAs(context, String.class);
@@ -177,8 +215,8 @@ public final class MacroDecl extends AbstractElementContainer
         }
         // Execute the body of the macro in the current frame
         final var frame = context.peekFrame();
-        frame.namedLocalTypes.putAll(typeArguments);
-        frame.namedLocalValues.putAll(arguments); // Make current macro args available to child elements
+        frame.putNamedLocalTypes(typeArguments);
+        frame.putNamedLocalValues(arguments); // Make current macro args available to child elements
         final var elements = getElements();
         for (final var element : elements) {
             if (!element.isEvaluatedDirectly()) {
@@ -205,7 +243,7 @@ public final class MacroDecl extends AbstractElementContainer
     public @NotNull MacroDecl copy() {
         final var macro = copyParentAndSourceTo(new MacroDecl(getName().copy(), getReturnType().copy(), isPrivate));
         macro.addParameters(getParameters().stream().map(Pair::copy).toList());
-        macro.addElements(getElements().stream().map(Element::copy).toList());
+        copyElementsTo(macro);
         return macro;
     }
 
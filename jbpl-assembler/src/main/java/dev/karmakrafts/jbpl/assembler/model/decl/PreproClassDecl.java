@@ -24,11 +24,15 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public final class PreproClassDecl extends AbstractExprContainer implements Declaration, NamedElement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = 0;
 
     public PreproClassDecl(final @NotNull Expr name) {
@@ -43,6 +47,7 @@ public final class PreproClassDecl extends AbstractExprContainer implements Decl
         getName().setParent(null);
         name.setParent(this);
         getExpressions().set(NAME_INDEX, name);
+        invalidateParentSymbols();
     }
 
     public void addFields(final @NotNull Map<Expr, Expr> fields) {
@@ -20,7 +20,12 @@ import dev.karmakrafts.jbpl.assembler.source.TokenRange;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
+
 public abstract class AbstractElement implements Element {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public final ElementAttributes attributes = new ElementAttributes();
     public ElementContainer parent;
     public TokenRange tokenRange = TokenRange.UNDEFINED;
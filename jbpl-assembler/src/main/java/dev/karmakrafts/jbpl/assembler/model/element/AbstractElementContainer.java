@@ -16,54 +16,185 @@
 
 package dev.karmakrafts.jbpl.assembler.model.element;
 
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 public abstract class AbstractElementContainer extends AbstractElement implements ElementContainer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     protected final ArrayList<Element> elements = new ArrayList<>();
+    private transient SymbolTable symbolTable; // Built lazily on first lookup
+    private transient LazyElements lazyElements; // Parsed on first access to the elements
+
+    /**
+     * Defers parsing the elements of this container until they are first accessed.
+     * Any elements which were already added to this container are discarded.
+     *
+     * @param lazyElements The unparsed body of this container.
+     */
+    public void setLazyElements(final @NotNull LazyElements lazyElements) {
+        elements.clear();
+        symbolTable = null;
+        this.lazyElements = lazyElements;
+    }
+
+    @Override
+    public @Nullable LazyElements getLazyElements() {
+        return lazyElements;
+    }
+
+    protected void ensureParsed() {
+        if (lazyElements == null) {
+            return;
+        }
+        final var body = lazyElements;
+        final var parsedElements = body.parse(this); // Syntax errors leave the body unparsed
+        lazyElements = null; // Reset before lowering, so accessing the elements while lowering them doesn't recurse
+        for (final var element : parsedElements) {
+            element.setParent(this);
+            elements.add(element);
+        }
+        body.onParsed(this);
+    }
+
+    /**
+     * Copies the elements of this container to the given container.
+     * Unparsed bodies are shared instead, so they are parsed separately by each copy on first access.
+     */
+    protected void copyElementsTo(final @NotNull AbstractElementContainer container) {
+        if (lazyElements != null) {
+            container.setLazyElements(lazyElements);
+            return;
+        }
+        container.addElements(elements.stream().map(Element::copy).toList());
+    }
 
     @Override
     public void addElementVerbatim(final @NotNull Element element) {
+        ensureParsed();
         elements.add(element);
+        if (symbolTable != null) {
+            symbolTable.add(element);
+        }
     }
 
     @Override
     public void addElement(final @NotNull Element element) {
+        ensureParsed();
         element.setParent(this);
         elements.add(element);
+        if (symbolTable != null) {
+            symbolTable.add(element);
+        }
+    }
+
+    /**
+     * Replaces all elements in the range [fromIndex, toIndex) with the given elements.
+     */
+    public void replaceElements(final int fromIndex,
+                                final int toIndex,
+                                final @NotNull List<? extends Element> replacement) {
+        ensureParsed();
+        elements.subList(fromIndex, toIndex).clear();
+        for (final var element : replacement) {
+            element.setParent(this);
+        }
+        elements.addAll(fromIndex, replacement);
+        symbolTable = null;
     }
 
     @Override
     public void removeElement(final @NotNull Element element) {
-        elements.remove(element);
+        ensureParsed();
+        if (elements.remove(element) && symbolTable != null) {
+            symbolTable.remove(element);
+        }
     }
 
     @Override
     public void clearElements() {
+        ensureParsed();
         elements.clear();
+        symbolTable = null;
+    }
+
+    @Override
+    public void invalidateSymbols() {
+        symbolTable = null;
+    }
+
+    private @NotNull SymbolTable getSymbolTable() {
+        if (symbolTable == null) {
+            ensureParsed();
+            symbolTable = SymbolTable.build(elements);
+        }
+        return symbolTable;
+    }
+
+    @Override
+    public <E extends NamedElement> @NotNull Optional<E> findNamedElement(final @NotNull Class<E> type,
+                                                                          final @NotNull String name,
+                                                                          final @NotNull EvaluationContext context,
+                                                                          final @NotNull Predicate<E> filter) {
+        if (!SymbolTable.isIndexable(type) || !getSymbolTable().isComplete()) {
+            return ElementContainer.super.findNamedElement(type, name, context, filter);
+        }
+        for (final var element : symbolTable.get(type, name)) {
+            if (filter.test(element)) {
+                return Optional.of(element);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public <E extends NamedElement> @NotNull List<E> findNamedElements(final @NotNull Class<E> type,
+                                                                       final @NotNull String name,
+                                                                       final @NotNull EvaluationContext context,
+                                                                       final @NotNull Predicate<E> filter) {
+        if (!SymbolTable.isIndexable(type) || !getSymbolTable().isComplete()) {
+            return ElementContainer.super.findNamedElements(type, name, context, filter);
+        }
+        return symbolTable.get(type, name).stream().filter(filter).toList();
     }
 
     @Override
     public @NotNull List<? extends Element> getElements() {
+        ensureParsed();
         return elements;
     }
 
     @Override
     public boolean equals(final @Nullable Object obj) {
+        ensureParsed();
         if (!(obj instanceof AbstractElementContainer abstractContainer)) {
             if (!(obj instanceof ElementContainer container)) {
                 return false;
             }
             return elements.equals(container.getElements());
         }
+        abstractContainer.ensureParsed();
         return elements.equals(abstractContainer.elements);
     }
 
     @Override
     public int hashCode() {
+        ensureParsed();
         return elements.hashCode();
     }
+
+    private void writeObject(final @NotNull ObjectOutputStream out) throws IOException {
+        ensureParsed(); // Unparsed bodies can't be serialized since they reference the token stream
+        out.defaultWriteObject();
+    }
 }
@@ -20,7 +20,12 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class Comment extends AbstractElement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
     }
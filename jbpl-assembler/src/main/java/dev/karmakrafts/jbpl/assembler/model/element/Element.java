@@ -26,12 +26,13 @@ import org.antlr.v4.runtime.Token;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Optional;
 import java.util.Stack;
 import java.util.function.Predicate;
 
-public interface Element extends SourceOwner, Evaluable, Copyable<Element> {
+public interface Element extends SourceOwner, Evaluable, Copyable<Element>, Serializable {
     @NotNull ElementAttributes getAttributes();
 
     default <E extends Element> @NotNull E copyParentAndSourceTo(final @NotNull E element) {
@@ -16,5 +16,7 @@
 
 package dev.karmakrafts.jbpl.assembler.model.element;
 
-public record ElementAttributeKey<T>(Class<T> type, String name) {
+import java.io.Serializable;
+
+public record ElementAttributeKey<T>(Class<T> type, String name) implements Serializable {
 }
@@ -19,11 +19,16 @@ package dev.karmakrafts.jbpl.assembler.model.element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
-public final class ElementAttributes implements Iterable<Entry<ElementAttributeKey<?>, Object>> {
+public final class ElementAttributes implements Iterable<Entry<ElementAttributeKey<?>, Object>>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final HashMap<ElementAttributeKey<?>, Object> values = new HashMap<>();
 
     public <T> void put(final @NotNull ElementAttributeKey<T> key, T value) {
@@ -20,7 +20,9 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
+import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -61,6 +63,21 @@ public interface ElementContainer extends Element {
 
     @NotNull List<? extends Element> getElements();
 
+    /**
+     * @return The unparsed body of this container, or null if its elements were already parsed.
+     */
+    default @Nullable LazyElements getLazyElements() {
+        return null;
+    }
+
+    /**
+     * @return True if the elements of this container haven't been parsed yet.
+     *     Accessing the elements of a lazy container parses them.
+     */
+    default boolean isLazy() {
+        return getLazyElements() != null;
+    }
+
     @SuppressWarnings("unchecked")
     default <E extends Element> @NotNull Optional<E> findElement(final @NotNull Class<E> type, final @NotNull Predicate<E> filter) { // @formatter:off
         return getElements().stream()
@@ -95,6 +112,49 @@ public interface ElementContainer extends Element {
             .toList();
     } // @formatter:on
 
+    /**
+     * Invalidates any lookup structures this container keeps for its direct children.
+     * Has to be called whenever the name of a child element changes.
+     */
+    default void invalidateSymbols() {
+    }
+
+    /**
+     * Find the first direct child of the given type with the given name.
+     *
+     * @param type    The type of element to look for.
+     * @param name    The name of the element to look for.
+     * @param context The evaluation context used to evaluate computed element names.
+     * @param filter  An additional filter applied to all elements with a matching name.
+     * @param <E>     The type of element to look for.
+     * @return The first matching element if present.
+     */
+    default <E extends NamedElement> @NotNull Optional<E> findNamedElement(final @NotNull Class<E> type,
+                                                                          final @NotNull String name,
+                                                                          final @NotNull EvaluationContext context,
+                                                                          final @NotNull Predicate<E> filter) {
+        return findElement(type,
+            filter.and(ExceptionUtils.unsafePredicate(element -> element.getName(context).equals(name))));
+    }
+
+    /**
+     * Find all direct children of the given type with the given name.
+     *
+     * @param type    The type of element to look for.
+     * @param name    The name of the element to look for.
+     * @param context The evaluation context used to evaluate computed element names.
+     * @param filter  An additional filter applied to all elements with a matching name.
+     * @param <E>     The type of element to look for.
+     * @return All matching elements in declaration order.
+     */
+    default <E extends NamedElement> @NotNull List<E> findNamedElements(final @NotNull Class<E> type,
+                                                                       final @NotNull String name,
+                                                                       final @NotNull EvaluationContext context,
+                                                                       final @NotNull Predicate<E> filter) {
+        return findElements(type,
+            filter.and(ExceptionUtils.unsafePredicate(element -> element.getName(context).equals(name))));
+    }
+
     @SuppressWarnings("unchecked")
     default <E extends Element> @NotNull Optional<E> findElementInTree(final @NotNull Class<E> type,
                                                                        final @NotNull Predicate<E> filter) {
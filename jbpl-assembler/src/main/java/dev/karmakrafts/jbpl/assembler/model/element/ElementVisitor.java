@@ -27,6 +27,16 @@ import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
 public interface ElementVisitor {
+    /**
+     * Determines whether this visitor descends into the bodies of lazy containers, which parses them.
+     * Visitors whose effect is applied by the parser when a lazy body is parsed may skip them instead.
+     *
+     * @return True if this visitor should visit lazy bodies.
+     */
+    default boolean visitsLazyBodies() {
+        return true;
+    }
+
     default @NotNull Element visitElement(final @NotNull Element element) {
         if (element instanceof AssemblyFile file) {
             return visitFile(file);
@@ -59,6 +69,9 @@ public interface ElementVisitor {
     }
 
     default <E extends ElementContainer> @NotNull E visitElementContainer(final @NotNull E container) {
+        if (container.isLazy() && !visitsLazyBodies()) {
+            return container;
+        }
         final var transformedElements = container.getElements().stream().map(this::visitElement).toList();
         container.clearElements();
         container.addElements(transformedElements);
@@ -145,6 +158,9 @@ public interface ElementVisitor {
         if (expr instanceof LiteralExpr literalExpr) {
             return visitLiteralExpr(literalExpr);
         }
+        else if (expr instanceof PrimitiveValue primitiveValue) {
+            return visitPrimitiveValue(primitiveValue);
+        }
         else if (expr instanceof SignatureExpr signatureExpr) {
             return visitSignatureExpr(signatureExpr);
         }
@@ -346,6 +362,10 @@ public interface ElementVisitor {
         return literalExpr;
     }
 
+    default @NotNull Expr visitPrimitiveValue(final @NotNull PrimitiveValue primitiveValue) {
+        return primitiveValue;
+    }
+
     default @NotNull Expr visitStringLerpExpr(final @NotNull StringLerpExpr stringLerpExpr) {
         return visitExprContainer(stringLerpExpr);
     }
@@ -492,6 +512,9 @@ public interface ElementVisitor {
         else if (instruction instanceof JumpInstruction jumpInstruction) {
             return visitJumpInstruction(jumpInstruction);
         }
+        else if (instruction instanceof TypeInstruction typeInstruction) {
+            return visitTypeInstruction(typeInstruction);
+        }
         throw new IllegalStateException("Unsupported instruction type");
     }
 
@@ -522,4 +545,8 @@ public interface ElementVisitor {
     default @NotNull Instruction visitJumpInstruction(final @NotNull JumpInstruction instruction) {
         return visitExprContainer(instruction);
     }
+
+    default @NotNull Instruction visitTypeInstruction(final @NotNull TypeInstruction instruction) {
+        return visitExprContainer(instruction);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.element;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The unparsed body of an element container, which is only turned into model
+ * elements the first time the elements of the container are accessed.
+ */
+public interface LazyElements {
+    /**
+     * Parses the body into model elements.
+     * The returned elements are added to the container before {@link #onParsed(ElementContainer)} is invoked.
+     *
+     * @param container The container which owns this body.
+     * @return The parsed elements of the body.
+     */
+    @NotNull List<? extends Element> parse(final @NotNull ElementContainer container);
+
+    /**
+     * Invoked after the parsed elements were added to the given container,
+     * so it can be lowered like it would have been if it had been parsed eagerly.
+     *
+     * @param container The container which owns this body.
+     */
+    default void onParsed(final @NotNull ElementContainer container) {
+    }
+
+    /**
+     * Determines the names of all defines, macros and type aliases declared in the body without parsing it.
+     *
+     * @return All names declared anywhere in the body, or null if some names can only be determined by evaluation.
+     */
+    @Nullable Set<String> getDeclaredNames();
+}
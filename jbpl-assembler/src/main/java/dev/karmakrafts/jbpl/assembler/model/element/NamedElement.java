@@ -18,8 +18,36 @@ package dev.karmakrafts.jbpl.assembler.model.element;
 
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public interface NamedElement extends Element {
+    @NotNull Expr getName();
+
     @NotNull String getName(final @NotNull EvaluationContext context) throws EvaluationException;
+
+    /**
+     * Retrieves the name of this element if it can be determined without evaluation.
+     *
+     * @return The name of this element if it is a plain string literal, otherwise null.
+     */
+    default @Nullable String getConstName() {
+        if (getName() instanceof LiteralExpr literalExpr && literalExpr.value instanceof String name) {
+            return name;
+        }
+        return null;
+    }
+
+    /**
+     * Notifies the parent container that the name of this element has changed,
+     * so any name based lookup structures of the parent are rebuilt.
+     */
+    default void invalidateParentSymbols() {
+        final var parent = getParent();
+        if (parent != null) {
+            parent.invalidateSymbols();
+        }
+    }
 }
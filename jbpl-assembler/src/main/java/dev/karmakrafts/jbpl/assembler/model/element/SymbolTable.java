@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.element;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Per-container index of all direct {@link NamedElement} children, keyed by
+ * their element kind and constant name.
+ * Elements with computed names cannot be indexed, they are only counted so that
+ * lookups know when they have to fall back to a linear scan.
+ */
+public final class SymbolTable {
+    private final HashMap<Key, ArrayList<NamedElement>> symbols = new HashMap<>();
+    private int dynamicSymbolCount;
+
+    public static @NotNull SymbolTable build(final @NotNull Iterable<? extends Element> elements) {
+        final var table = new SymbolTable();
+        for (final var element : elements) {
+            table.add(element);
+        }
+        return table;
+    }
+
+    /**
+     * Only final element types can be looked up directly, since buckets are keyed by the
+     * concrete element class.
+     *
+     * @param type The type of element being looked up.
+     * @return True if elements of the given type can be looked up in this table.
+     */
+    public static boolean isIndexable(final @NotNull Class<?> type) {
+        return NamedElement.class.isAssignableFrom(type) && Modifier.isFinal(type.getModifiers());
+    }
+
+    public void add(final @NotNull Element element) {
+        if (!(element instanceof NamedElement namedElement)) {
+            return;
+        }
+        final var name = namedElement.getConstName();
+        if (name == null) {
+            dynamicSymbolCount++;
+            return;
+        }
+        symbols.computeIfAbsent(new Key(element.getClass(), name), key -> new ArrayList<>()).add(namedElement);
+    }
+
+    public void remove(final @NotNull Element element) {
+        if (!(element instanceof NamedElement namedElement)) {
+            return;
+        }
+        final var name = namedElement.getConstName();
+        if (name == null) {
+            dynamicSymbolCount--;
+            return;
+        }
+        final var key = new Key(element.getClass(), name);
+        final var bucket = symbols.get(key);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(namedElement);
+        if (bucket.isEmpty()) {
+            symbols.remove(key);
+        }
+    }
+
+    /**
+     * @return True if every named element in the owning container has a constant name,
+     * meaning lookups in this table are exhaustive.
+     */
+    public boolean isComplete() {
+        return dynamicSymbolCount == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E extends NamedElement> @NotNull List<E> get(final @NotNull Class<E> type, final @NotNull String name) {
+        final var bucket = symbols.get(new Key(type, name));
+        if (bucket == null) {
+            return List.of();
+        }
+        return (List<E>) bucket;
+    }
+
+    private record Key(Class<?> type, String name) {
+    }
+}
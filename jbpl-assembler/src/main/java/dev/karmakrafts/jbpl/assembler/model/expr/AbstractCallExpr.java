@@ -20,10 +20,14 @@ import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractCallExpr extends AbstractReceiverExpr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final ArrayList<Pair<@Nullable Expr, Expr>> typeArguments = new ArrayList<>();
     private final ArrayList<Pair<@Nullable Expr, Expr>> arguments = new ArrayList<>();
 
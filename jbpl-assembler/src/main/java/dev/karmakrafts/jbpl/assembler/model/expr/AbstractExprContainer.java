@@ -19,28 +19,31 @@ package dev.karmakrafts.jbpl.assembler.model.expr;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.List;
 
 public abstract class AbstractExprContainer extends AbstractElementContainer implements ExprContainer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public void addExpressionVerbatim(final @NotNull Expr expr) {
-        elements.add(expr);
+        addElementVerbatim(expr);
     }
 
     @Override
     public void addExpression(final @NotNull Expr expr) {
-        expr.setParent(this);
-        elements.add(expr);
+        addElement(expr);
     }
 
     @Override
     public void removeExpression(final @NotNull Expr expr) {
-        elements.remove(expr);
+        removeElement(expr);
     }
 
     @Override
     public void clearExpressions() {
-        elements.clear();
+        clearElements();
     }
 
     @SuppressWarnings("unchecked")
@@ -18,7 +18,12 @@ package dev.karmakrafts.jbpl.assembler.model.expr;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public abstract class AbstractReceiverExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int RECEIVER_INDEX = 0;
 
     public AbstractReceiverExpr() {
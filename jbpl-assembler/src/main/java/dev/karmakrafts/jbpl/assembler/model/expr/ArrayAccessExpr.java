@@ -24,9 +24,13 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
 
 public final class ArrayAccessExpr extends AbstractExprContainer implements Expr, Reference {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int REFERENCE_INDEX = 0;
     public static final int INDEX_INDEX = 1;
 
@@ -94,6 +98,10 @@ public final class ArrayAccessExpr extends AbstractExprContainer implements Expr
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         final var type = getReference().getType(context).resolveIfNeeded(context);
         if (type == BuiltinType.STRING) {
             return BuiltinType.CHAR;
@@ -26,6 +26,7 @@ import dev.karmakrafts.jbpl.assembler.source.TokenRange;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.List;
@@ -33,6 +34,9 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 public final class ArrayExpr extends AbstractExprContainer implements ConstExpr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int TYPE_INDEX = 0;
     public static final int VALUES_INDEX = 1;
 
@@ -128,6 +132,10 @@ public final class ArrayExpr extends AbstractExprContainer implements ConstExpr
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         final var type = getType();
         if (type.isUnit()) { // We need to infer the array type from the element types
             // @formatter:off
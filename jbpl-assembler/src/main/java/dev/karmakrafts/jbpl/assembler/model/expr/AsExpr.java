@@ -22,7 +22,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class AsExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
     public static final int TYPE_INDEX = 1;
 
@@ -49,6 +54,10 @@ public final class AsExpr extends AbstractExprContainer implements Expr {
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         return getType().evaluateAs(context, Type.class).resolveIfNeeded(context);
     }
 
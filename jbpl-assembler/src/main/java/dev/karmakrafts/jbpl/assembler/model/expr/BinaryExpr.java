@@ -16,6 +16,8 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.type.*;
@@ -23,12 +25,16 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import dev.karmakrafts.jbpl.assembler.util.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
 public final class BinaryExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int LHS_INDEX = 0;
     public static final int RHS_INDEX = 1;
     public Op op;
@@ -57,6 +63,10 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         return switch (op) {
             // For all comparisons, we always evaluate to booleans except for spaceship
             case EQ, NE, LT, LE, GT, GE -> BuiltinType.BOOL;
@@ -67,30 +77,6 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    // Use number logic from regular arithmetic operators as pre-assignment step
-    private @NotNull ConstExpr evaluatePreAssignmentForNumber(final @NotNull Number lhsNumber,
-                                                              final @NotNull Number rhsNumber,
-                                                              final @NotNull BuiltinType type,
-                                                              final @NotNull EvaluationContext context) throws EvaluationException {
-        return switch (type) {
-            case I8 -> evaluateForByte(lhsNumber.byteValue(), rhsNumber, op.discardAssign(), context);
-            case I16 -> evaluateForShort(lhsNumber.shortValue(), rhsNumber, op.discardAssign(), context);
-            case I32 -> evaluateForInteger(lhsNumber.intValue(), rhsNumber, op.discardAssign(), context);
-            case I64 -> evaluateForLong(lhsNumber.longValue(), rhsNumber, op.discardAssign(), context);
-            case F32 -> evaluateForFloat(lhsNumber.floatValue(), rhsNumber, op.discardAssign(), context);
-            case F64 -> evaluateForDouble(lhsNumber.doubleValue(), rhsNumber, op.discardAssign(), context);
-            default -> {
-                final var message = String.format("Unsupported numeric binary expression: %s %s %s",
-                    lhsNumber,
-                    op,
-                    rhsNumber);
-                throw new EvaluationException(message,
-                    SourceDiagnostic.from(this, message),
-                    context.createStackTrace());
-            }
-        };
-    }
-
     private @NotNull ConstExpr evaluatePreAssignment(final @NotNull EvaluationContext context,
                                                      final @NotNull ConstExpr oldValue,
                                                      final @NotNull ConstExpr operand) throws EvaluationException {
@@ -100,7 +86,8 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         final var type = oldValue.getType(context);
         final var oldValueRef = oldValue.getConstValue();
         if (type instanceof ArrayType arrayType) {
-            return evaluateForArray(oldValueRef, arrayType, op.discardAssign(), context);
+            // The operand was evaluated already, so we hand it over instead of evaluating the rhs again
+            return evaluateForArray(oldValueRef, arrayType, ctx -> operand, op.discardAssign(), context);
         }
         final var operandRef = operand.getConstValue();
         if (!(type instanceof BuiltinType builtinType)) {
@@ -110,11 +97,14 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         if (builtinType == BuiltinType.STRING) {
             return evaluateForString(oldValueRef.toString(), operandRef.toString(), op.discardAssign(), context);
         }
-        if (oldValueRef instanceof Number lhsNumber && operandRef instanceof Number rhsNumber) {
-            return evaluatePreAssignmentForNumber(lhsNumber, rhsNumber, builtinType, context);
+        final var lhsNumber = NumberValue.from(oldValue);
+        final var rhsNumber = NumberValue.from(operand);
+        if (lhsNumber != null && rhsNumber != null) {
+            // Use number logic from regular arithmetic operators as pre-assignment step
+            return evaluateForNumber(lhsNumber, rhsNumber, builtinType, op.discardAssign(), context);
         }
         else if (oldValueRef instanceof Boolean lhsBool && operandRef instanceof Boolean rhsBool) {
-            return evaluateForBool(lhsBool, rhsBool, op.discardAssign(), context);
+            return evaluateForBool(lhsBool, rhsBool, getRhs()::evaluateAsConst, op.discardAssign(), context);
         }
         final var message = String.format("Cannot perform re-assignment with operator %s on type %s", op, type);
         throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
@@ -173,14 +163,14 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForChar(final @NotNull Character lhsChar,
-                                               final @NotNull Character rhsChar,
+    private @NotNull ConstExpr evaluateForChar(final char lhsChar,
+                                               final char rhsChar,
                                                final @NotNull Op op,
                                                final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Character equality
-            case EQ -> ConstExpr.of(lhsChar == rhsChar, getTokenRange());
-            case NE -> ConstExpr.of(lhsChar != rhsChar, getTokenRange());
+            case EQ -> new BoolValue(lhsChar == rhsChar, getTokenRange());
+            case NE -> new BoolValue(lhsChar != rhsChar, getTokenRange());
             default -> {
                 final var message = String.format("Unsupported char binary expression: %s %s %s", lhsChar, op, lhsChar);
                 throw new EvaluationException(message,
@@ -190,35 +180,36 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForBool(final @NotNull Boolean lhsBool,
-                                               final @NotNull Boolean rhsBool,
+    private @NotNull ConstExpr evaluateForBool(final boolean lhsBool,
+                                               final boolean rhsBool,
+                                               final @NotNull CompiledExpr rhs,
                                                final @NotNull Op op,
                                                final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Boolean equality
-            case EQ -> ConstExpr.of(lhsBool == rhsBool, getTokenRange());
-            case NE -> ConstExpr.of(lhsBool != rhsBool, getTokenRange());
+            case EQ -> new BoolValue(lhsBool == rhsBool, getTokenRange());
+            case NE -> new BoolValue(lhsBool != rhsBool, getTokenRange());
             // Boolean logic
-            case AND -> ConstExpr.of(lhsBool & rhsBool, getTokenRange());
-            case OR -> ConstExpr.of(lhsBool | rhsBool, getTokenRange());
-            case XOR -> ConstExpr.of(lhsBool ^ rhsBool, getTokenRange());
+            case AND -> new BoolValue(lhsBool & rhsBool, getTokenRange());
+            case OR -> new BoolValue(lhsBool | rhsBool, getTokenRange());
+            case XOR -> new BoolValue(lhsBool ^ rhsBool, getTokenRange());
             case SC_AND -> {
                 if (!lhsBool) {
-                    yield ConstExpr.of(false, getTokenRange());
+                    yield new BoolValue(false, getTokenRange());
                 }
-                yield ConstExpr.of(getRhs().evaluateAs(context, Boolean.class), getTokenRange());
+                yield new BoolValue(rhs.evaluateAs(context, Boolean.class), getTokenRange());
             }
             case SC_OR -> {
                 if (lhsBool) {
-                    yield ConstExpr.of(true, getTokenRange());
+                    yield new BoolValue(true, getTokenRange());
                 }
-                yield ConstExpr.of(getRhs().evaluateAs(context, Boolean.class), getTokenRange());
+                yield new BoolValue(rhs.evaluateAs(context, Boolean.class), getTokenRange());
             }
             default -> {
                 final var message = String.format("Unsupported boolean binary expression: %s %s %s",
                     lhsBool,
                     op,
-                    getRhs().evaluateAs(context, Object.class));
+                    rhs.evaluateAs(context, Object.class));
                 throw new EvaluationException(message,
                     SourceDiagnostic.from(this, message),
                     context.createStackTrace());
@@ -226,32 +217,32 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForByte(final @NotNull Byte lhsByte,
-                                               final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForByte(final byte lhsByte,
+                                               final @NotNull NumberValue rhsNumber,
                                                final @NotNull Op op,
                                                final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsByte == rhsNumber.byteValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsByte != rhsNumber.byteValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsByte < rhsNumber.byteValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsByte <= rhsNumber.byteValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsByte > rhsNumber.byteValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsByte >= rhsNumber.byteValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsByte.compareTo(rhsNumber.byteValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsByte == rhsNumber.byteValue(), getTokenRange());
+            case NE -> new BoolValue(lhsByte != rhsNumber.byteValue(), getTokenRange());
+            case LT -> new BoolValue(lhsByte < rhsNumber.byteValue(), getTokenRange());
+            case LE -> new BoolValue(lhsByte <= rhsNumber.byteValue(), getTokenRange());
+            case GT -> new BoolValue(lhsByte > rhsNumber.byteValue(), getTokenRange());
+            case GE -> new BoolValue(lhsByte >= rhsNumber.byteValue(), getTokenRange());
+            case CMP -> new IntValue(Byte.compare(lhsByte, rhsNumber.byteValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsByte + rhsNumber.byteValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsByte - rhsNumber.byteValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsByte * rhsNumber.byteValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsByte / rhsNumber.byteValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsByte % rhsNumber.byteValue(), getTokenRange());
+            case ADD -> new IntValue(lhsByte + rhsNumber.byteValue(), getTokenRange());
+            case SUB -> new IntValue(lhsByte - rhsNumber.byteValue(), getTokenRange());
+            case MUL -> new IntValue(lhsByte * rhsNumber.byteValue(), getTokenRange());
+            case DIV -> new IntValue(lhsByte / rhsNumber.byteValue(), getTokenRange());
+            case REM -> new IntValue(lhsByte % rhsNumber.byteValue(), getTokenRange());
             // Bitwise operations
-            case LSH -> ConstExpr.of(lhsByte << rhsNumber.intValue(), getTokenRange());
-            case RSH -> ConstExpr.of(lhsByte >> rhsNumber.intValue(), getTokenRange());
-            case URSH -> ConstExpr.of(lhsByte >>> rhsNumber.intValue(), getTokenRange());
-            case AND -> ConstExpr.of(lhsByte & rhsNumber.byteValue(), getTokenRange());
-            case OR -> ConstExpr.of(lhsByte | rhsNumber.byteValue(), getTokenRange());
-            case XOR -> ConstExpr.of(lhsByte ^ rhsNumber.byteValue(), getTokenRange());
+            case LSH -> new IntValue(lhsByte << rhsNumber.intValue(), getTokenRange());
+            case RSH -> new IntValue(lhsByte >> rhsNumber.intValue(), getTokenRange());
+            case URSH -> new IntValue(lhsByte >>> rhsNumber.intValue(), getTokenRange());
+            case AND -> new IntValue(lhsByte & rhsNumber.byteValue(), getTokenRange());
+            case OR -> new IntValue(lhsByte | rhsNumber.byteValue(), getTokenRange());
+            case XOR -> new IntValue(lhsByte ^ rhsNumber.byteValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsByte,
@@ -264,32 +255,32 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForShort(final @NotNull Short lhsShort,
-                                                final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForShort(final short lhsShort,
+                                                final @NotNull NumberValue rhsNumber,
                                                 final @NotNull Op op,
                                                 final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsShort == rhsNumber.shortValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsShort != rhsNumber.shortValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsShort < rhsNumber.shortValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsShort <= rhsNumber.shortValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsShort > rhsNumber.shortValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsShort >= rhsNumber.shortValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsShort.compareTo(rhsNumber.shortValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsShort == rhsNumber.shortValue(), getTokenRange());
+            case NE -> new BoolValue(lhsShort != rhsNumber.shortValue(), getTokenRange());
+            case LT -> new BoolValue(lhsShort < rhsNumber.shortValue(), getTokenRange());
+            case LE -> new BoolValue(lhsShort <= rhsNumber.shortValue(), getTokenRange());
+            case GT -> new BoolValue(lhsShort > rhsNumber.shortValue(), getTokenRange());
+            case GE -> new BoolValue(lhsShort >= rhsNumber.shortValue(), getTokenRange());
+            case CMP -> new IntValue(Short.compare(lhsShort, rhsNumber.shortValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsShort + rhsNumber.shortValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsShort - rhsNumber.shortValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsShort * rhsNumber.shortValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsShort / rhsNumber.shortValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsShort % rhsNumber.shortValue(), getTokenRange());
+            case ADD -> new IntValue(lhsShort + rhsNumber.shortValue(), getTokenRange());
+            case SUB -> new IntValue(lhsShort - rhsNumber.shortValue(), getTokenRange());
+            case MUL -> new IntValue(lhsShort * rhsNumber.shortValue(), getTokenRange());
+            case DIV -> new IntValue(lhsShort / rhsNumber.shortValue(), getTokenRange());
+            case REM -> new IntValue(lhsShort % rhsNumber.shortValue(), getTokenRange());
             // Bitwise operations
-            case LSH -> ConstExpr.of(lhsShort << rhsNumber.intValue(), getTokenRange());
-            case RSH -> ConstExpr.of(lhsShort >> rhsNumber.intValue(), getTokenRange());
-            case URSH -> ConstExpr.of(lhsShort >>> rhsNumber.intValue(), getTokenRange());
-            case AND -> ConstExpr.of(lhsShort & rhsNumber.shortValue(), getTokenRange());
-            case OR -> ConstExpr.of(lhsShort | rhsNumber.shortValue(), getTokenRange());
-            case XOR -> ConstExpr.of(lhsShort ^ rhsNumber.shortValue(), getTokenRange());
+            case LSH -> new IntValue(lhsShort << rhsNumber.intValue(), getTokenRange());
+            case RSH -> new IntValue(lhsShort >> rhsNumber.intValue(), getTokenRange());
+            case URSH -> new IntValue(lhsShort >>> rhsNumber.intValue(), getTokenRange());
+            case AND -> new IntValue(lhsShort & rhsNumber.shortValue(), getTokenRange());
+            case OR -> new IntValue(lhsShort | rhsNumber.shortValue(), getTokenRange());
+            case XOR -> new IntValue(lhsShort ^ rhsNumber.shortValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsShort,
@@ -302,32 +293,32 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForInteger(final @NotNull Integer lhsInteger,
-                                                  final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForInteger(final int lhsInteger,
+                                                  final @NotNull NumberValue rhsNumber,
                                                   final @NotNull Op op,
                                                   final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsInteger == rhsNumber.intValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsInteger != rhsNumber.intValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsInteger < rhsNumber.intValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsInteger <= rhsNumber.intValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsInteger > rhsNumber.intValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsInteger >= rhsNumber.intValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsInteger.compareTo(rhsNumber.intValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsInteger == rhsNumber.intValue(), getTokenRange());
+            case NE -> new BoolValue(lhsInteger != rhsNumber.intValue(), getTokenRange());
+            case LT -> new BoolValue(lhsInteger < rhsNumber.intValue(), getTokenRange());
+            case LE -> new BoolValue(lhsInteger <= rhsNumber.intValue(), getTokenRange());
+            case GT -> new BoolValue(lhsInteger > rhsNumber.intValue(), getTokenRange());
+            case GE -> new BoolValue(lhsInteger >= rhsNumber.intValue(), getTokenRange());
+            case CMP -> new IntValue(Integer.compare(lhsInteger, rhsNumber.intValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsInteger + rhsNumber.intValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsInteger - rhsNumber.intValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsInteger * rhsNumber.intValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsInteger / rhsNumber.intValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsInteger % rhsNumber.intValue(), getTokenRange());
+            case ADD -> new IntValue(lhsInteger + rhsNumber.intValue(), getTokenRange());
+            case SUB -> new IntValue(lhsInteger - rhsNumber.intValue(), getTokenRange());
+            case MUL -> new IntValue(lhsInteger * rhsNumber.intValue(), getTokenRange());
+            case DIV -> new IntValue(lhsInteger / rhsNumber.intValue(), getTokenRange());
+            case REM -> new IntValue(lhsInteger % rhsNumber.intValue(), getTokenRange());
             // Bitwise operations
-            case LSH -> ConstExpr.of(lhsInteger << rhsNumber.intValue(), getTokenRange());
-            case RSH -> ConstExpr.of(lhsInteger >> rhsNumber.intValue(), getTokenRange());
-            case URSH -> ConstExpr.of(lhsInteger >>> rhsNumber.intValue(), getTokenRange());
-            case AND -> ConstExpr.of(lhsInteger & rhsNumber.intValue(), getTokenRange());
-            case OR -> ConstExpr.of(lhsInteger | rhsNumber.intValue(), getTokenRange());
-            case XOR -> ConstExpr.of(lhsInteger ^ rhsNumber.intValue(), getTokenRange());
+            case LSH -> new IntValue(lhsInteger << rhsNumber.intValue(), getTokenRange());
+            case RSH -> new IntValue(lhsInteger >> rhsNumber.intValue(), getTokenRange());
+            case URSH -> new IntValue(lhsInteger >>> rhsNumber.intValue(), getTokenRange());
+            case AND -> new IntValue(lhsInteger & rhsNumber.intValue(), getTokenRange());
+            case OR -> new IntValue(lhsInteger | rhsNumber.intValue(), getTokenRange());
+            case XOR -> new IntValue(lhsInteger ^ rhsNumber.intValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsInteger,
@@ -340,32 +331,32 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForLong(final @NotNull Long lhsLong,
-                                               final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForLong(final long lhsLong,
+                                               final @NotNull NumberValue rhsNumber,
                                                final @NotNull Op op,
                                                final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsLong == rhsNumber.longValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsLong != rhsNumber.longValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsLong < rhsNumber.longValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsLong <= rhsNumber.longValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsLong > rhsNumber.longValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsLong >= rhsNumber.longValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsLong.compareTo(rhsNumber.longValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsLong == rhsNumber.longValue(), getTokenRange());
+            case NE -> new BoolValue(lhsLong != rhsNumber.longValue(), getTokenRange());
+            case LT -> new BoolValue(lhsLong < rhsNumber.longValue(), getTokenRange());
+            case LE -> new BoolValue(lhsLong <= rhsNumber.longValue(), getTokenRange());
+            case GT -> new BoolValue(lhsLong > rhsNumber.longValue(), getTokenRange());
+            case GE -> new BoolValue(lhsLong >= rhsNumber.longValue(), getTokenRange());
+            case CMP -> new IntValue(Long.compare(lhsLong, rhsNumber.longValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsLong + rhsNumber.longValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsLong - rhsNumber.longValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsLong * rhsNumber.longValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsLong / rhsNumber.longValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsLong % rhsNumber.longValue(), getTokenRange());
+            case ADD -> new LongValue(lhsLong + rhsNumber.longValue(), getTokenRange());
+            case SUB -> new LongValue(lhsLong - rhsNumber.longValue(), getTokenRange());
+            case MUL -> new LongValue(lhsLong * rhsNumber.longValue(), getTokenRange());
+            case DIV -> new LongValue(lhsLong / rhsNumber.longValue(), getTokenRange());
+            case REM -> new LongValue(lhsLong % rhsNumber.longValue(), getTokenRange());
             // Bitwise operations
-            case LSH -> ConstExpr.of(lhsLong << rhsNumber.intValue(), getTokenRange());
-            case RSH -> ConstExpr.of(lhsLong >> rhsNumber.intValue(), getTokenRange());
-            case URSH -> ConstExpr.of(lhsLong >>> rhsNumber.intValue(), getTokenRange());
-            case AND -> ConstExpr.of(lhsLong & rhsNumber.longValue(), getTokenRange());
-            case OR -> ConstExpr.of(lhsLong | rhsNumber.longValue(), getTokenRange());
-            case XOR -> ConstExpr.of(lhsLong ^ rhsNumber.longValue(), getTokenRange());
+            case LSH -> new LongValue(lhsLong << rhsNumber.intValue(), getTokenRange());
+            case RSH -> new LongValue(lhsLong >> rhsNumber.intValue(), getTokenRange());
+            case URSH -> new LongValue(lhsLong >>> rhsNumber.intValue(), getTokenRange());
+            case AND -> new LongValue(lhsLong & rhsNumber.longValue(), getTokenRange());
+            case OR -> new LongValue(lhsLong | rhsNumber.longValue(), getTokenRange());
+            case XOR -> new LongValue(lhsLong ^ rhsNumber.longValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsLong,
@@ -378,25 +369,25 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForFloat(final @NotNull Float lhsFloat,
-                                                final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForFloat(final float lhsFloat,
+                                                final @NotNull NumberValue rhsNumber,
                                                 final @NotNull Op op,
                                                 final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsFloat == rhsNumber.floatValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsFloat != rhsNumber.floatValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsFloat < rhsNumber.floatValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsFloat <= rhsNumber.floatValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsFloat > rhsNumber.floatValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsFloat >= rhsNumber.floatValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsFloat.compareTo(rhsNumber.floatValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsFloat == rhsNumber.floatValue(), getTokenRange());
+            case NE -> new BoolValue(lhsFloat != rhsNumber.floatValue(), getTokenRange());
+            case LT -> new BoolValue(lhsFloat < rhsNumber.floatValue(), getTokenRange());
+            case LE -> new BoolValue(lhsFloat <= rhsNumber.floatValue(), getTokenRange());
+            case GT -> new BoolValue(lhsFloat > rhsNumber.floatValue(), getTokenRange());
+            case GE -> new BoolValue(lhsFloat >= rhsNumber.floatValue(), getTokenRange());
+            case CMP -> new IntValue(Float.compare(lhsFloat, rhsNumber.floatValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsFloat + rhsNumber.floatValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsFloat - rhsNumber.floatValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsFloat * rhsNumber.floatValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsFloat / rhsNumber.floatValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsFloat % rhsNumber.floatValue(), getTokenRange());
+            case ADD -> new FloatValue(lhsFloat + rhsNumber.floatValue(), getTokenRange());
+            case SUB -> new FloatValue(lhsFloat - rhsNumber.floatValue(), getTokenRange());
+            case MUL -> new FloatValue(lhsFloat * rhsNumber.floatValue(), getTokenRange());
+            case DIV -> new FloatValue(lhsFloat / rhsNumber.floatValue(), getTokenRange());
+            case REM -> new FloatValue(lhsFloat % rhsNumber.floatValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsFloat,
@@ -409,25 +400,25 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForDouble(final @NotNull Double lhsDouble,
-                                                 final @NotNull Number rhsNumber,
+    private @NotNull ConstExpr evaluateForDouble(final double lhsDouble,
+                                                 final @NotNull NumberValue rhsNumber,
                                                  final @NotNull Op op,
                                                  final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             // Comparisons
-            case EQ -> ConstExpr.of(lhsDouble == rhsNumber.doubleValue(), getTokenRange());
-            case NE -> ConstExpr.of(lhsDouble != rhsNumber.doubleValue(), getTokenRange());
-            case LT -> ConstExpr.of(lhsDouble < rhsNumber.doubleValue(), getTokenRange());
-            case LE -> ConstExpr.of(lhsDouble <= rhsNumber.doubleValue(), getTokenRange());
-            case GT -> ConstExpr.of(lhsDouble > rhsNumber.doubleValue(), getTokenRange());
-            case GE -> ConstExpr.of(lhsDouble >= rhsNumber.doubleValue(), getTokenRange());
-            case CMP -> ConstExpr.of(lhsDouble.compareTo(rhsNumber.doubleValue()), getTokenRange());
+            case EQ -> new BoolValue(lhsDouble == rhsNumber.doubleValue(), getTokenRange());
+            case NE -> new BoolValue(lhsDouble != rhsNumber.doubleValue(), getTokenRange());
+            case LT -> new BoolValue(lhsDouble < rhsNumber.doubleValue(), getTokenRange());
+            case LE -> new BoolValue(lhsDouble <= rhsNumber.doubleValue(), getTokenRange());
+            case GT -> new BoolValue(lhsDouble > rhsNumber.doubleValue(), getTokenRange());
+            case GE -> new BoolValue(lhsDouble >= rhsNumber.doubleValue(), getTokenRange());
+            case CMP -> new IntValue(Double.compare(lhsDouble, rhsNumber.doubleValue()), getTokenRange());
             // Arithmetic operations
-            case ADD -> ConstExpr.of(lhsDouble + rhsNumber.doubleValue(), getTokenRange());
-            case SUB -> ConstExpr.of(lhsDouble - rhsNumber.doubleValue(), getTokenRange());
-            case MUL -> ConstExpr.of(lhsDouble * rhsNumber.doubleValue(), getTokenRange());
-            case DIV -> ConstExpr.of(lhsDouble / rhsNumber.doubleValue(), getTokenRange());
-            case REM -> ConstExpr.of(lhsDouble % rhsNumber.doubleValue(), getTokenRange());
+            case ADD -> new DoubleValue(lhsDouble + rhsNumber.doubleValue(), getTokenRange());
+            case SUB -> new DoubleValue(lhsDouble - rhsNumber.doubleValue(), getTokenRange());
+            case MUL -> new DoubleValue(lhsDouble * rhsNumber.doubleValue(), getTokenRange());
+            case DIV -> new DoubleValue(lhsDouble / rhsNumber.doubleValue(), getTokenRange());
+            case REM -> new DoubleValue(lhsDouble % rhsNumber.doubleValue(), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported numeric binary expression: %s %s %s",
                     lhsDouble,
@@ -440,14 +431,11 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateForNumber(final @NotNull Number lhsNumber,
+    private @NotNull ConstExpr evaluateForNumber(final @NotNull NumberValue lhsNumber,
+                                                 final @NotNull NumberValue rhsNumber,
                                                  final @NotNull BuiltinType type,
+                                                 final @NotNull Op op,
                                                  final @NotNull EvaluationContext context) throws EvaluationException {
-        final var rhsValue = getRhs().evaluateAs(context, Object.class);
-        if (!(rhsValue instanceof Number rhsNumber)) {
-            final var message = "Numeric binary expression must have a number on the right hand side!";
-            throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
-        }
         return switch (type) {
             case I8 -> evaluateForByte(lhsNumber.byteValue(), rhsNumber, op, context);
             case I16 -> evaluateForShort(lhsNumber.shortValue(), rhsNumber, op, context);
@@ -467,15 +455,32 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
+    private @NotNull ConstExpr evaluateForNumber(final @NotNull ConstExpr lhsValue,
+                                                 final @NotNull BuiltinType type,
+                                                 final @NotNull CompiledExpr rhs,
+                                                 final @NotNull EvaluationContext context) throws EvaluationException {
+        final var lhsNumber = NumberValue.from(lhsValue);
+        if (lhsNumber == null) {
+            final var message = "Numeric binary expression must have a number on the left hand side!";
+            throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
+        }
+        final var rhsNumber = NumberValue.from(rhs.evaluate(context));
+        if (rhsNumber == null) {
+            final var message = "Numeric binary expression must have a number on the right hand side!";
+            throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
+        }
+        return evaluateForNumber(lhsNumber, rhsNumber, type, op, context);
+    }
+
     private @NotNull ConstExpr evaluateForString(final @NotNull String lhsValue,
                                                  final @NotNull String rhsValue,
                                                  final @NotNull Op op,
                                                  final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             case ADD -> ConstExpr.of(String.format("%s%s", lhsValue, rhsValue), getTokenRange());
-            case CMP -> ConstExpr.of(lhsValue.compareTo(rhsValue), getTokenRange());
-            case EQ -> ConstExpr.of(lhsValue.equals(rhsValue), getTokenRange());
-            case NE -> ConstExpr.of(!lhsValue.equals(rhsValue), getTokenRange());
+            case CMP -> new IntValue(lhsValue.compareTo(rhsValue), getTokenRange());
+            case EQ -> new BoolValue(lhsValue.equals(rhsValue), getTokenRange());
+            case NE -> new BoolValue(!lhsValue.equals(rhsValue), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported string binary expression: %s %s %s",
                     lhsValue,
@@ -497,10 +502,12 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
     @SuppressWarnings("SuspiciousSystemArraycopy")
     private @NotNull ConstExpr evaluateForArray(final @NotNull Object lhsValue,
                                                 final @NotNull ArrayType lhsType,
+                                                final @NotNull CompiledExpr rhs,
                                                 final @NotNull Op op,
                                                 final @NotNull EvaluationContext context) throws EvaluationException {
-        final var rhsValue = getRhs().evaluateAs(context, Object.class);
-        final var rhsType = getRhs().getType(context);
+        final var rhsConst = rhs.evaluate(context);
+        final var rhsValue = rhsConst.getConstValue();
+        final var rhsType = getRhs().getEvaluatedType(rhsConst, context);
         final var rhsArrayValue = rhsType instanceof ArrayType ? rhsValue : createSingletArray(rhsValue);
         final var lhsLength = Array.getLength(lhsValue);
         final var rhsLength = Array.getLength(rhsArrayValue);
@@ -541,52 +548,61 @@ public final class BinaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    @Override
-    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
-        if (op.isAssignment) {
-            evaluateAssignment(context);
-            return;
-        }
-        final var lhsValue = getLhs().evaluateAs(context, Object.class);
+    private @NotNull ConstExpr evaluate(final @NotNull EvaluationContext context,
+                                        final @NotNull CompiledExpr lhs,
+                                        final @NotNull CompiledExpr rhs) throws EvaluationException {
+        final var lhsValue = lhs.evaluate(context);
         final var lhsType = getLhs().getType(context);
         final var lhsTypeCategory = lhsType.getCategory(context);
         // Arrays are the only thing where we care about either sides type
         if (lhsType instanceof ArrayType lhsArrayType) {
-            context.pushValue(evaluateForArray(lhsValue, lhsArrayType, op, context));
-            return;
+            return evaluateForArray(lhsValue.getConstValue(), lhsArrayType, rhs, op, context);
         }
         if (lhsType == BuiltinType.STRING) { // String concatenation with any type
-            final var rhsValue = getRhs().evaluateAs(context, Object.class).toString();
-            context.pushValue(evaluateForString((String) lhsValue, rhsValue, op, context));
-            return;
+            final var rhsValue = rhs.evaluateAs(context, Object.class).toString();
+            return evaluateForString((String) lhsValue.getConstValue(), rhsValue, op, context);
         }
         else if (lhsType == PreproType.TYPE) { // Type addition/subtraction creates intersection types
-            final var lhsTypeValue = getLhs().evaluateAs(context, Type.class);
-            final var rhsTypeValue = getRhs().evaluateAs(context, Type.class);
-            context.pushValue(evaluateForType(lhsTypeValue, rhsTypeValue, context));
-            return;
+            final var rhsTypeValue = rhs.evaluateAs(context, Type.class);
+            return evaluateForType((Type) lhsValue.getConstValue(), rhsTypeValue, context);
         }
         else if (lhsType == BuiltinType.BOOL) { // Boolean binary expressions
-            final var rhsValue = getRhs().evaluateAs(context, Boolean.class);
-            context.pushValue(evaluateForBool((Boolean) lhsValue, rhsValue, op, context));
-            return;
+            final var rhsValue = rhs.evaluateAs(context, Boolean.class);
+            return evaluateForBool((Boolean) lhsValue.getConstValue(), rhsValue, rhs, op, context);
         }
         else if (lhsType == BuiltinType.CHAR) { // Character binary expressions
-            final var rhsValue = getRhs().evaluateAs(context, Character.class);
-            context.pushValue(evaluateForChar((Character) lhsValue, rhsValue, op, context));
-            return;
+            final var rhsValue = rhs.evaluateAs(context, Character.class);
+            return evaluateForChar((Character) lhsValue.getConstValue(), rhsValue, op, context);
         }
-        else if (lhsTypeCategory.isNumber()) { // Numeric binary expressions
-            context.pushValue(evaluateForNumber((Number) lhsValue, (BuiltinType) lhsType, context));
-            return;
+        else if (lhsTypeCategory.isNumber()) { // Numeric binary expressions, evaluated without boxing
+            return evaluateForNumber(lhsValue, (BuiltinType) lhsType, rhs, context);
         }
         final var message = String.format("Unsupported binary expression operands: %s %s %s",
             lhsValue,
             op,
-            getRhs().evaluateAs(context, Object.class));
+            rhs.evaluateAs(context, Object.class));
         throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
     }
 
+    @Override
+    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+        if (op.isAssignment) {
+            evaluateAssignment(context);
+            return;
+        }
+        context.pushValue(evaluate(context, getLhs()::evaluateAsConst, getRhs()::evaluateAsConst));
+    }
+
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        if (op.isAssignment) {
+            return Expr.super.compile(compiler); // Assignments need the reference itself, so they stay interpreted
+        }
+        final var lhs = compiler.compile(getLhs());
+        final var rhs = compiler.compile(getRhs());
+        return context -> evaluate(context, lhs, rhs);
+    }
+
     @Override
     public @NotNull BinaryExpr copy() {
         return copyParentAndSourceTo(new BinaryExpr(getLhs().copy(), getRhs().copy(), op));
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.expr;
+
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+
+public final class BoolValue extends PrimitiveValue {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public final boolean value;
+
+    public BoolValue(final boolean value, final @NotNull TokenRange tokenRange) {
+        super(tokenRange);
+        this.value = value;
+    }
+
+    @Override
+    public @NotNull BuiltinType getBuiltinType() {
+        return BuiltinType.BOOL;
+    }
+
+    @Override
+    public @NotNull Boolean getConstValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object obj) {
+        return obj instanceof BoolValue other && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    public @NotNull BoolValue copy() {
+        return copyParentAndSourceTo(new BoolValue(value, getTokenRange()));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.expr;
+
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+
+public final class ByteValue extends NumberValue {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public final byte value;
+
+    public ByteValue(final byte value, final @NotNull TokenRange tokenRange) {
+        super(tokenRange);
+        this.value = value;
+    }
+
+    @Override
+    public @NotNull BuiltinType getBuiltinType() {
+        return BuiltinType.I8;
+    }
+
+    @Override
+    public @NotNull Byte getConstValue() {
+        return value;
+    }
+
+    @Override
+    public byte byteValue() {
+        return value;
+    }
+
+    @Override
+    public short shortValue() {
+        return value;
+    }
+
+    @Override
+    public int intValue() {
+        return value;
+    }
+
+    @Override
+    public long longValue() {
+        return value;
+    }
+
+    @Override
+    public float floatValue() {
+        return value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object obj) {
+        return obj instanceof ByteValue other && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Byte.hashCode(value);
+    }
+
+    @Override
+    public @NotNull ByteValue copy() {
+        return copyParentAndSourceTo(new ByteValue(value, getTokenRange()));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.expr;
+
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+
+public final class CharValue extends PrimitiveValue {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public final char value;
+
+    public CharValue(final char value, final @NotNull TokenRange tokenRange) {
+        super(tokenRange);
+        this.value = value;
+    }
+
+    @Override
+    public @NotNull BuiltinType getBuiltinType() {
+        return BuiltinType.CHAR;
+    }
+
+    @Override
+    public @NotNull Character getConstValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object obj) {
+        return obj instanceof CharValue other && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Character.hashCode(value);
+    }
+
+    @Override
+    public @NotNull CharValue copy() {
+        return copyParentAndSourceTo(new CharValue(value, getTokenRange()));
+    }
+}
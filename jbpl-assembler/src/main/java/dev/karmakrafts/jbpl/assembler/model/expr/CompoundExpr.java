@@ -24,9 +24,13 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.model.type.TypeCommonizer;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.stream.Collectors;
 
 public final class CompoundExpr extends AbstractElementContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
         return TypeCommonizer.getCommonReturnType(getElements(), context).orElseThrow().resolveIfNeeded(context);
@@ -48,6 +48,10 @@ public interface ConstExpr extends Expr {
         if (value.getClass().isArray()) {
             return ArrayExpr.fromArrayRef(value);
         }
+        final var primitiveValue = PrimitiveValue.of(value, tokenRange);
+        if (primitiveValue != null) {
+            return primitiveValue; // Primitives know their type statically, no need to map it
+        }
         final var type = TypeMapper.map(value.getClass(), true);
         final var expr = new LiteralExpr(type, value);
         expr.setTokenRange(tokenRange);
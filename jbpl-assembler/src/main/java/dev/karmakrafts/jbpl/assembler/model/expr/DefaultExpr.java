@@ -21,7 +21,12 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class DefaultExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int TYPE_INDEX = 0;
 
     public DefaultExpr(final @NotNull Expr type) {
@@ -38,6 +43,10 @@ public final class DefaultExpr extends AbstractExprContainer implements Expr {
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         return getType().evaluateAs(context, Type.class).resolveIfNeeded(context);
     }
 
@@ -16,13 +16,18 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationEngine;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.lower.TypeInferenceLowering;
 import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
 import dev.karmakrafts.jbpl.assembler.model.type.PreproType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 
@@ -32,7 +37,41 @@ public interface Expr extends Statement {
 
     @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException;
 
+    /**
+     * @return The type inferred by {@link TypeInferenceLowering}, or null if it depends on the evaluation context.
+     */
+    default @Nullable Type getStaticType() {
+        return getAttributes().get(TypeInferenceLowering.STATIC_TYPE);
+    }
+
+    /**
+     * Retrieves the type of this expression after it was evaluated to the given value,
+     * which avoids resolving it a second time when the type isn't known statically.
+     *
+     * @param value   The value this expression evaluated to.
+     * @param context The current evaluation context.
+     * @return The type of this expression.
+     */
+    default @NotNull Type getEvaluatedType(final @NotNull ConstExpr value,
+                                           final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
+        return value.getType(context).resolveIfNeeded(context);
+    }
+
     default @NotNull ConstExpr evaluateAsConst(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var compiledExpr = context.getCompiledExpr(this);
+        if (compiledExpr != null) {
+            final var result = compiledExpr.evaluate(context);
+            result.ensureLazyConstValue(context);
+            return result;
+        }
+        return interpretAsConst(context);
+    }
+
+    default @NotNull ConstExpr interpretAsConst(final @NotNull EvaluationContext context) throws EvaluationException {
         // After evaluation
         evaluate(context);
         var result = context.popValue();
@@ -58,6 +97,18 @@ public interface Expr extends Statement {
         return evaluateAs(context, Object.class);
     }
 
+    /**
+     * Creates the closure evaluating this expression for the {@link EvaluationEngine#CLOSURE} engine.
+     * Expressions without a specialized closure fall back to the interpreter,
+     * whose nested expressions still go through their own compiled closures.
+     *
+     * @param compiler The compiler to obtain the closures of nested expressions from.
+     * @return A closure which evaluates this expression directly to its value.
+     */
+    default @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        return this::interpretAsConst;
+    }
+
     default boolean isUnit() {
         return false;
     }
@@ -23,9 +23,13 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.Handle;
 
+import java.io.Serial;
 import java.util.Optional;
 
 public final class FieldSignatureExpr extends AbstractExprContainer implements SignatureExpr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int OWNER_INDEX = 0;
     public static final int NAME_INDEX = 1;
     public static final int TYPE_INDEX = 2;
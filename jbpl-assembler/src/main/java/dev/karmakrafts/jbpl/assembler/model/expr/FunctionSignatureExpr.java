@@ -24,6 +24,7 @@ import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.Handle;
 
+import java.io.Serial;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -31,6 +32,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 public final class FunctionSignatureExpr extends AbstractExprContainer implements SignatureExpr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int OWNER_INDEX = 0;
     public static final int NAME_INDEX = 1;
     public static final int RETURN_TYPE_INDEX = 2;
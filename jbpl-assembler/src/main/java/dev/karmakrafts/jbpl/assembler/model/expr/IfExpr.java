@@ -27,12 +27,16 @@ import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public final class IfExpr extends AbstractElementContainer implements Expr, ScopeOwner {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final ArrayList<ElseIfBranch> elseIfBranches = new ArrayList<>();
     private Expr condition;
     private ElseBranch elseBranch;
@@ -168,6 +172,9 @@ public final class IfExpr extends AbstractElementContainer implements Expr, Scop
     }
 
     public static final class ElseIfBranch extends AbstractElementContainer implements ScopeOwner {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         private Expr condition;
 
         public ElseIfBranch(final @NotNull Expr condition) {
@@ -229,6 +236,9 @@ public final class IfExpr extends AbstractElementContainer implements Expr, Scop
     }
 
     public static final class ElseBranch extends AbstractElementContainer implements ScopeOwner {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
             return TypeCommonizer.getCommonReturnType(getElements(), context).orElseThrow();
         }
@@ -23,11 +23,15 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
 import java.util.HashSet;
 import java.util.stream.Collectors;
 
 public final class InExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int LHS_INDEX = 0;
     public static final int RHS_INDEX = 1;
 
@@ -58,10 +62,14 @@ public final class InExpr extends AbstractExprContainer implements Expr {
 
     @Override
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
-        final var lhsValue = getLhs().evaluateAs(context, Object.class);
-        final var lhsType = getLhs().getType(context);
-        final var rhsValue = getRhs().evaluateAs(context, Object.class);
-        final var rhsType = getRhs().getType(context);
+        final var lhs = getLhs();
+        final var lhsConst = lhs.evaluateAsConst(context);
+        final var lhsValue = lhsConst.getConstValue();
+        final var lhsType = lhs.getEvaluatedType(lhsConst, context);
+        final var rhs = getRhs();
+        final var rhsConst = rhs.evaluateAsConst(context);
+        final var rhsValue = rhsConst.getConstValue();
+        final var rhsType = rhs.getEvaluatedType(rhsConst, context);
         if (rhsType == BuiltinType.STRING) {
             context.pushValue(ConstExpr.of(rhsValue.toString().contains(lhsValue.toString()), getTokenRange()));
             return;
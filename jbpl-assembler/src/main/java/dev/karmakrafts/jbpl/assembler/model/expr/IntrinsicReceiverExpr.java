@@ -23,7 +23,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.ReceiverType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class IntrinsicReceiverExpr extends AbstractElement implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
         return ReceiverType.INTRINSIC;
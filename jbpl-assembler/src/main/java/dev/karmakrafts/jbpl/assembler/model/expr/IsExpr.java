@@ -22,7 +22,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class IsExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
     public static final int TYPE_INDEX = 1;
 
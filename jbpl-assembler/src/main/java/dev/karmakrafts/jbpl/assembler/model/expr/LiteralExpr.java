@@ -16,6 +16,8 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElement;
@@ -25,9 +27,13 @@ import dev.karmakrafts.jbpl.assembler.util.Unit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.util.Objects;
 
 public final class LiteralExpr extends AbstractElement implements ConstExpr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public Type type;
     public Object value;
 
@@ -51,6 +57,11 @@ public final class LiteralExpr extends AbstractElement implements ConstExpr {
         context.pushValue(this); // Literals push themselves on the stack as ConstValue
     }
 
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        return context -> this;
+    }
+
     @Override
     public boolean isUnit() {
         return value == Unit.INSTANCE;
@@ -19,7 +19,11 @@ package dev.karmakrafts.jbpl.assembler.model.expr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.eval.IntrinsicMacroArguments;
+import dev.karmakrafts.jbpl.assembler.lower.StaticBinding;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
 import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.type.ArrayType;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeResolver;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
@@ -28,15 +32,20 @@ import dev.karmakrafts.jbpl.assembler.util.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 public final class MacroCallExpr extends AbstractCallExpr implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = RECEIVER_INDEX + 1;
+    private transient CallSiteCache callSiteCache;
 
     public MacroCallExpr(final @NotNull Expr name) {
         super();
@@ -70,6 +79,10 @@ public final class MacroCallExpr extends AbstractCallExpr implements Expr {
 
     private @NotNull MacroDecl getMacro(final @NotNull String name,
                                         final @NotNull EvaluationContext context) throws EvaluationException {
+        final var boundMacro = StaticBinding.getTarget(this, StaticBinding.MACRO, context);
+        if (boundMacro != null) {
+            return boundMacro;
+        }
         final var scope = context.getScope();
         var macro = context.resolveByName(MacroDecl.class, name);
         if (macro == null) { // Second attempt is for resolving by scope receiver
@@ -81,8 +94,7 @@ public final class MacroCallExpr extends AbstractCallExpr implements Expr {
                     context.createStackTrace());
             }
             final var resolver = new ScopeResolver(scopeReceiverExpr.scope);
-            macro = resolver.resolve(MacroDecl.class,
-                ExceptionUtils.unsafePredicate(m -> m.getName(context).equals(name)));
+            macro = resolver.resolve(MacroDecl.class, name, context, m -> true);
         }
         if (macro == null) {
             throw new EvaluationException(String.format("Could not find macro '%s' in current scope %s", name, scope),
@@ -209,6 +221,20 @@ public final class MacroCallExpr extends AbstractCallExpr implements Expr {
         return sequentialArguments;
     }
 
+    private @NotNull List<Expr> remapArguments(final @NotNull EvaluationContext context,
+                                               final @NotNull String macroName,
+                                               final @NotNull MacroDecl macro) throws EvaluationException {
+        var cache = callSiteCache;
+        if (cache == null || !cache.isValidFor(this, macro, context)) {
+            cache = CallSiteCache.create(this, macro, context);
+            callSiteCache = cache;
+        }
+        if (cache == null) { // Parameters or argument names are computed, so we have to take the slow path
+            return remapArguments(context, macroName, macro.resolveParameters(context));
+        }
+        return cache.remapArguments(this, context, macroName);
+    }
+
     private @NotNull List<Expr> remapTypeArguments(final @NotNull EvaluationContext context,
                                                    final @NotNull String macroName,
                                                    final @NotNull Map<String, Type> params) throws EvaluationException {
@@ -218,28 +244,39 @@ public final class MacroCallExpr extends AbstractCallExpr implements Expr {
     @Override
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
         final var name = getName().evaluateAs(context, String.class);
-        // @formatter:off
-        final var intrinsicMacro = context.peekFrame().intrinsicMacros.entrySet().stream()
-            .filter(entry -> entry.getKey().name().equals(name))
-            .map(Entry::getValue)
-            .findFirst();
-        // @formatter:on
-        if (intrinsicMacro.isPresent()) { // Intrinsic macros always shadow everything else
-            final var macro = intrinsicMacro.get();
-            final var typeArguments = remapTypeArguments(context, name, macro.signature().typeParameters());
-            final var arguments = remapArguments(context, name, macro.signature().parameters());
-            macro.callback().accept(context, new IntrinsicMacroArguments(typeArguments, arguments));
+        final var intrinsicMacro = context.intrinsicsHandler.getIntrinsicMacro(name);
+        if (intrinsicMacro != null) { // Intrinsic macros always shadow everything else
+            final var typeArguments = remapTypeArguments(context, name, intrinsicMacro.signature().typeParameters());
+            final var arguments = remapArguments(context, name, intrinsicMacro.signature().parameters());
+            intrinsicMacro.callback().accept(context, new IntrinsicMacroArguments(typeArguments, arguments));
             return;
         }
         final var macro = getMacro(name, context);
         final var typeArguments = remapTypeArguments(context, name, macro.resolveTypeParameters(context));
-        final var arguments = remapArguments(context, name, macro.resolveParameters(context));
+        final var arguments = remapArguments(context, name, macro);
+        final var macroMemoizer = context.macroMemoizer;
+        final var memoizedValues = macroMemoizer.get(macro, arguments);
+        if (memoizedValues != null) { // Pure macros return the same values for the same arguments
+            context.pushValues(memoizedValues);
+            return;
+        }
+        final var macroJit = context.macroJit;
+        if (macroJit != null && typeArguments.isEmpty()) {
+            final var result = macroJit.invoke(macro, arguments);
+            if (result != null) { // Compiled macros don't need a frame since they only see their arguments
+                context.pushValue(result);
+                return;
+            }
+        }
+        final var valueStack = context.peekFrame().valueStack;
+        final var valueCount = valueStack.size();
         context.pushFrame(macro); // Create new stack frame for macro body
         context.peekFrame().resetLocalDefines(); // Reset all local defines within the macro before invoking anything
         context.pushValues(typeArguments); // Push type arguments into callee stack frame
         context.pushValues(arguments); // Push arguments into callee stack frame
         macro.evaluate(context);
         context.popFrame(); // Frame data will be merged to retain result from callee frame
+        macroMemoizer.put(macro, arguments, valueStack.subList(valueCount, valueStack.size()));
     }
 
     @Override
@@ -256,4 +293,112 @@ public final class MacroCallExpr extends AbstractCallExpr implements Expr {
             .map(pair -> pair.right().toString())
             .collect(Collectors.joining(", ")));
     } // @formatter:on
+
+    /**
+     * Caches the argument to parameter mapping of a single call site for the macro it last resolved to,
+     * alongside the argument types which were already verified against their parameter.
+     */
+    private static final class CallSiteCache {
+        private final MacroDecl macro;
+        private final AssemblyFile file;
+        private final Map<String, Type> parameters;
+        private final String[] parameterNames;
+        private final Type[] parameterTypes;
+        private final int[] parameterIndices; // Parameter index for every argument
+        private final Type[] verifiedTypes; // Last verified type of every argument
+
+        private CallSiteCache(final @NotNull MacroDecl macro,
+                              final @NotNull AssemblyFile file,
+                              final @NotNull Map<String, Type> parameters,
+                              final int[] parameterIndices) {
+            this.macro = macro;
+            this.file = file;
+            this.parameters = parameters;
+            parameterNames = parameters.keySet().toArray(String[]::new);
+            parameterTypes = parameters.values().toArray(Type[]::new);
+            this.parameterIndices = parameterIndices;
+            verifiedTypes = new Type[parameterIndices.length];
+        }
+
+        public static @Nullable CallSiteCache create(final @NotNull MacroCallExpr call,
+                                                     final @NotNull MacroDecl macro,
+                                                     final @NotNull EvaluationContext context) {
+            final var parameters = macro.getConstParameters();
+            if (parameters == null) {
+                return null;
+            }
+            final var parameterNames = new ArrayList<>(parameters.keySet());
+            final var arguments = call.getArguments();
+            final var parameterIndices = new int[arguments.size()];
+            var currentIndex = 0;
+            for (var i = 0; i < parameterIndices.length; i++) {
+                final var name = arguments.get(i).left();
+                if (name != null) {
+                    if (!(name instanceof LiteralExpr literalExpr) || !(literalExpr.value instanceof String constName)) {
+                        return null;
+                    }
+                    currentIndex = parameterNames.indexOf(constName);
+                    if (currentIndex == -1) {
+                        return null; // Let the slow path report the missing parameter
+                    }
+                }
+                if (currentIndex >= parameterNames.size()) {
+                    return null;
+                }
+                parameterIndices[i] = currentIndex++;
+            }
+            return new CallSiteCache(macro, context.file, parameters, parameterIndices);
+        }
+
+        private static boolean isStaticType(final @NotNull Type type) {
+            if (type instanceof ArrayType arrayType) {
+                return isStaticType(arrayType.elementType());
+            }
+            return type instanceof BuiltinType;
+        }
+
+        public boolean isValidFor(final @NotNull MacroCallExpr call,
+                                  final @NotNull MacroDecl macro,
+                                  final @NotNull EvaluationContext context) {
+            // @formatter:off
+            return this.macro == macro
+                && file == context.file
+                && macro.getConstParameters() == parameters
+                && call.getArguments().size() == parameterIndices.length;
+            // @formatter:on
+        }
+
+        public @NotNull List<Expr> remapArguments(final @NotNull MacroCallExpr call,
+                                                  final @NotNull EvaluationContext context,
+                                                  final @NotNull String macroName) throws EvaluationException {
+            final var arguments = call.getArguments();
+            final var values = new ConstExpr[parameterIndices.length];
+            for (var i = 0; i < values.length; i++) {
+                values[i] = arguments.get(i).right().evaluateAsConst(context);
+            }
+            final var sequentialArguments = new Expr[parameterTypes.length];
+            for (var i = 0; i < values.length; i++) {
+                final var value = values[i];
+                final var valueType = value.getType(context);
+                final var parameterIndex = parameterIndices[i];
+                if (!valueType.equals(verifiedTypes[i])) {
+                    final var paramType = parameterTypes[parameterIndex];
+                    if (!paramType.isAssignableFrom(valueType, context)) {
+                        throw new EvaluationException(String.format(
+                            "Mismatched argument type %s for parameter %s: %s in call to macro %s",
+                            valueType,
+                            parameterNames[parameterIndex],
+                            paramType,
+                            macroName), SourceDiagnostic.from(call, value), context.createStackTrace());
+                    }
+                    // Only types which don't depend on the current frame may skip the check next time
+                    if (isStaticType(paramType) && isStaticType(valueType)) {
+                        verifiedTypes[i] = valueType;
+                    }
+                }
+                sequentialArguments[parameterIndex] = value;
+            }
+            return Arrays.asList(sequentialArguments);
+        }
+    }
 }
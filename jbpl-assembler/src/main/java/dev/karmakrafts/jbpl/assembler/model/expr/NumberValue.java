@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.expr;
+
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+
+/**
+ * A primitive value of any of the numeric builtin types, which can be
+ * converted to any other numeric type without boxing.
+ */
+public abstract sealed class NumberValue extends PrimitiveValue permits ByteValue, ShortValue, IntValue, LongValue, FloatValue, DoubleValue {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    protected NumberValue(final @NotNull TokenRange tokenRange) {
+        super(tokenRange);
+    }
+
+    public static @Nullable NumberValue from(final @NotNull ConstExpr value) {
+        if (value instanceof NumberValue numberValue) {
+            return numberValue;
+        }
+        // Only values which bypassed ConstExpr.of still hold a boxed number
+        if (value.getConstValue() instanceof Number number
+            && ConstExpr.of(number, value.getTokenRange()) instanceof NumberValue numberValue) {
+            return numberValue;
+        }
+        return null;
+    }
+
+    public abstract byte byteValue();
+
+    public abstract short shortValue();
+
+    public abstract int intValue();
+
+    public abstract long longValue();
+
+    public abstract float floatValue();
+
+    public abstract double doubleValue();
+
+    @Override
+    public abstract @NotNull Number getConstValue();
+}
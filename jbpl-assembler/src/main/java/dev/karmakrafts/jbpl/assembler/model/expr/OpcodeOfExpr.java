@@ -23,7 +23,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.PreproType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class OpcodeOfExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
 
     public OpcodeOfExpr(final @NotNull Expr value) {
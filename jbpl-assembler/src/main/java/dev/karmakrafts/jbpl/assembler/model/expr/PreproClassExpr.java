@@ -23,9 +23,13 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.stream.Collectors;
 
 public final class PreproClassExpr extends AbstractCallExpr implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public final PreproClassType type;
 
     public PreproClassExpr(final @NotNull PreproClassType type) {
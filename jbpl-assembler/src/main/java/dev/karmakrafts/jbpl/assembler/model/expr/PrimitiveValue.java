@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.expr;
+
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.model.element.AbstractElement;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.model.type.Type;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+
+/**
+ * A constant value of a primitive builtin type which is stored unboxed,
+ * its type is known statically so no type mapping is needed to create one.
+ */
+public abstract sealed class PrimitiveValue extends AbstractElement implements ConstExpr permits BoolValue, CharValue, NumberValue {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    protected PrimitiveValue(final @NotNull TokenRange tokenRange) {
+        setTokenRange(tokenRange);
+    }
+
+    public static @Nullable PrimitiveValue of(final @NotNull Object value, final @NotNull TokenRange tokenRange) {
+        if (value instanceof Integer intValue) {
+            return new IntValue(intValue, tokenRange);
+        }
+        else if (value instanceof Long longValue) {
+            return new LongValue(longValue, tokenRange);
+        }
+        else if (value instanceof Boolean boolValue) {
+            return new BoolValue(boolValue, tokenRange);
+        }
+        else if (value instanceof Double doubleValue) {
+            return new DoubleValue(doubleValue, tokenRange);
+        }
+        else if (value instanceof Float floatValue) {
+            return new FloatValue(floatValue, tokenRange);
+        }
+        else if (value instanceof Character charValue) {
+            return new CharValue(charValue, tokenRange);
+        }
+        else if (value instanceof Byte byteValue) {
+            return new ByteValue(byteValue, tokenRange);
+        }
+        else if (value instanceof Short shortValue) {
+            return new ShortValue(shortValue, tokenRange);
+        }
+        return null;
+    }
+
+    public abstract @NotNull BuiltinType getBuiltinType();
+
+    @Override
+    public @NotNull Type getType(final @NotNull EvaluationContext context) {
+        return getBuiltinType();
+    }
+
+    @Override
+    public void evaluate(final @NotNull EvaluationContext context) {
+        context.pushValue(this); // Values push themselves on the stack just like literals
+    }
+
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        return context -> this;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return getConstValue().toString();
+    }
+}
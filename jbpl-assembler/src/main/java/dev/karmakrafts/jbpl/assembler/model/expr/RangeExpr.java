@@ -24,10 +24,14 @@ import dev.karmakrafts.jbpl.assembler.model.type.TypeCommonizer;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
 import java.util.function.Function;
 
 public final class RangeExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int START_INDEX = 0;
     public static final int END_INDEX = 1;
 
@@ -16,17 +16,24 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.lower.StaticBinding;
 import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeResolver;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
-import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
+
 public final class ReferenceExpr extends AbstractReceiverExpr implements Reference {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = RECEIVER_INDEX + 1;
 
     public ReferenceExpr(final @NotNull Expr name) {
@@ -46,6 +53,12 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
     public @Nullable DefineStatement resolveDefine(final @NotNull String name,
                                                    final @NotNull EvaluationContext context,
                                                    final boolean resolveLocally) {
+        if (!resolveLocally) {
+            final var boundDefine = StaticBinding.getTarget(this, StaticBinding.DEFINE, context);
+            if (boundDefine != null) {
+                return boundDefine;
+            }
+        }
         // @formatter:off
         var define = resolveLocally
             ? context.resolveLocallyByName(DefineStatement.class, name)
@@ -57,8 +70,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
                 return null;
             }
             final var resolver = new ScopeResolver(scopeReceiverExpr.scope);
-            define = resolver.resolve(DefineStatement.class,
-                ExceptionUtils.unsafePredicate(d -> d.getName(context).equals(name)));
+            define = resolver.resolve(DefineStatement.class, name, context, d -> true);
         }
         return define;
     }
@@ -67,7 +79,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
     public @NotNull ConstExpr loadFromReference(final @NotNull EvaluationContext context) throws EvaluationException {
         final var name = getName().evaluateAs(context, String.class);
         final var frame = context.peekFrame();
-        final var intrinsicDefine = frame.intrinsicDefines.get(name);
+        final var intrinsicDefine = context.intrinsicsHandler.getIntrinsicDefine(name);
         if (intrinsicDefine != null) { // Special treatment for intrinsic references
             return intrinsicDefine.getter().apply(context).evaluateAsConst(context);
         }
@@ -76,7 +88,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
             define.evaluate(context);
             return (ConstExpr) context.popValue();
         }
-        final var argument = frame.namedLocalValues.get(name);
+        final var argument = frame.getNamedLocalValue(name);
         if (argument != null) {
             return argument.evaluateAsConst(context);
         }
@@ -95,7 +107,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
         final var name = getName().evaluateAs(context, String.class);
         final var receiver = getReceiver();
         final var frame = context.peekFrame();
-        final var intrinsicDefine = frame.intrinsicDefines.get(name);
+        final var intrinsicDefine = context.intrinsicsHandler.getIntrinsicDefine(name);
         if (intrinsicDefine != null) { // Special treatment for intrinsic references
             final var setter = intrinsicDefine.setter();
             if (setter == null) {
@@ -112,9 +124,9 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
             define.setValue(value);
             return;
         }
-        final var argument = frame.namedLocalValues.get(name);
+        final var argument = frame.getNamedLocalValue(name);
         if (argument != null) {
-            context.peekFrame().namedLocalValues.put(name, ConstExpr.of(value, getTokenRange()));
+            frame.putNamedLocalValue(name, ConstExpr.of(value, getTokenRange()));
             return;
         }
         define = resolveDefine(name, context, false); // Out-of-scope defines shadow arguments
@@ -131,7 +143,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
         final var frame = context.peekFrame();
         final var receiver = getReceiver();
         if (receiver instanceof IntrinsicReceiverExpr) {
-            final var value = frame.intrinsicDefines.get(name);
+            final var value = context.intrinsicsHandler.getIntrinsicDefine(name);
             if (value == null) {
                 final var message = String.format("No intrinsic value named '%s' in %s", name, receiver);
                 throw new EvaluationException(message,
@@ -144,7 +156,7 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
         if (define != null) {
             return define.getType().evaluateAs(context, Type.class).resolveIfNeeded(context);
         }
-        final var argument = frame.namedLocalValues.get(name);
+        final var argument = frame.getNamedLocalValue(name);
         if (argument != null) {
             return argument.getType(context).resolveIfNeeded(context);
         }
@@ -161,6 +173,15 @@ public final class ReferenceExpr extends AbstractReceiverExpr implements Referen
         context.pushValue(loadFromReference(context));
     }
 
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        return context -> {
+            final var value = loadFromReference(context);
+            value.ensureLazyConstValue(context);
+            return value;
+        };
+    }
+
     @Override
     public @NotNull ReferenceExpr copy() {
         final var reference = copyParentAndSourceTo(new ReferenceExpr(getName().copy()));
@@ -24,7 +24,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.scope.Scope;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class ScopeReceiverExpr extends AbstractElement implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public Scope scope;
 
     public ScopeReceiverExpr(final @NotNull Scope scope) {
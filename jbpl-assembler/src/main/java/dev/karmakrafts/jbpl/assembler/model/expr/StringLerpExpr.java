@@ -16,15 +16,21 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.stream.Collectors;
 
 public final class StringLerpExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) {
         return BuiltinType.STRING;
@@ -40,6 +46,18 @@ public final class StringLerpExpr extends AbstractExprContainer implements Expr
         context.pushValue(ConstExpr.of(buffer.toString(), getTokenRange()));
     }
 
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        final var expressions = compiler.compile(getExpressions());
+        return context -> {
+            final var buffer = new StringBuilder();
+            for (final var expr : expressions) {
+                buffer.append(expr.evaluateAs(context, Object.class));
+            }
+            return ConstExpr.of(buffer.toString(), getTokenRange());
+        };
+    }
+
     @Override
     public @NotNull StringLerpExpr copy() {
         final var result = copyParentAndSourceTo(new StringLerpExpr());
@@ -16,6 +16,8 @@
 
 package dev.karmakrafts.jbpl.assembler.model.expr;
 
+import dev.karmakrafts.jbpl.assembler.eval.ClosureCompiler;
+import dev.karmakrafts.jbpl.assembler.eval.CompiledExpr;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
@@ -23,7 +25,12 @@ import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class UnaryExpr extends AbstractExprContainer implements Expr {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
     public Op op;
 
@@ -42,14 +49,18 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
 
     @Override
     public @NotNull Type getType(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var staticType = getStaticType();
+        if (staticType != null) {
+            return staticType;
+        }
         return getValue().getType(context).resolveIfNeeded(context);
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForByte(final @NotNull Byte value,
+    private @NotNull ConstExpr evaluateAssignmentForByte(final byte value,
                                                          final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1, getTokenRange());
+            case PRE_INC, POST_INC -> new ByteValue((byte) (value + 1), getTokenRange());
+            case PRE_DEC, POST_DEC -> new ByteValue((byte) (value - 1), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type i8", op);
                 throw new EvaluationException(message,
@@ -59,11 +70,11 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForShort(final @NotNull Short value,
+    private @NotNull ConstExpr evaluateAssignmentForShort(final short value,
                                                           final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1, getTokenRange());
+            case PRE_INC, POST_INC -> new ShortValue((short) (value + 1), getTokenRange());
+            case PRE_DEC, POST_DEC -> new ShortValue((short) (value - 1), getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type i16", op);
                 throw new EvaluationException(message,
@@ -73,11 +84,11 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForInt(final @NotNull Integer value,
+    private @NotNull ConstExpr evaluateAssignmentForInt(final int value,
                                                         final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1, getTokenRange());
+            case PRE_INC, POST_INC -> new IntValue(value + 1, getTokenRange());
+            case PRE_DEC, POST_DEC -> new IntValue(value - 1, getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type i32", op);
                 throw new EvaluationException(message,
@@ -87,11 +98,11 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForLong(final @NotNull Long value,
+    private @NotNull ConstExpr evaluateAssignmentForLong(final long value,
                                                          final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1, getTokenRange());
+            case PRE_INC, POST_INC -> new LongValue(value + 1, getTokenRange());
+            case PRE_DEC, POST_DEC -> new LongValue(value - 1, getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type i64", op);
                 throw new EvaluationException(message,
@@ -101,11 +112,11 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForFloat(final @NotNull Float value,
+    private @NotNull ConstExpr evaluateAssignmentForFloat(final float value,
                                                           final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1F, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1F, getTokenRange());
+            case PRE_INC, POST_INC -> new FloatValue(value + 1F, getTokenRange());
+            case PRE_DEC, POST_DEC -> new FloatValue(value - 1F, getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type f32", op);
                 throw new EvaluationException(message,
@@ -115,11 +126,11 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForDouble(final @NotNull Double value,
+    private @NotNull ConstExpr evaluateAssignmentForDouble(final double value,
                                                            final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case PRE_INC, POST_INC -> ConstExpr.of(value + 1D, getTokenRange());
-            case PRE_DEC, POST_DEC -> ConstExpr.of(value - 1D, getTokenRange());
+            case PRE_INC, POST_INC -> new DoubleValue(value + 1D, getTokenRange());
+            case PRE_DEC, POST_DEC -> new DoubleValue(value - 1D, getTokenRange());
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type f64", op);
                 throw new EvaluationException(message,
@@ -129,16 +140,16 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    private @NotNull ConstExpr evaluateAssignmentForBuiltinType(final @NotNull Object value,
+    private @NotNull ConstExpr evaluateAssignmentForBuiltinType(final @NotNull NumberValue value,
                                                                 final @NotNull BuiltinType builtinType,
                                                                 final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (builtinType) {
-            case I8 -> evaluateAssignmentForByte((Byte) value, context);
-            case I16 -> evaluateAssignmentForShort((Short) value, context);
-            case I32 -> evaluateAssignmentForInt((Integer) value, context);
-            case I64 -> evaluateAssignmentForLong((Long) value, context);
-            case F32 -> evaluateAssignmentForFloat((Float) value, context);
-            case F64 -> evaluateAssignmentForDouble((Double) value, context);
+            case I8 -> evaluateAssignmentForByte(value.byteValue(), context);
+            case I16 -> evaluateAssignmentForShort(value.shortValue(), context);
+            case I32 -> evaluateAssignmentForInt(value.intValue(), context);
+            case I64 -> evaluateAssignmentForLong(value.longValue(), context);
+            case F32 -> evaluateAssignmentForFloat(value.floatValue(), context);
+            case F64 -> evaluateAssignmentForDouble(value.doubleValue(), context);
             default -> {
                 final var message = String.format("Unsupported unary re-assignment operator %s for type %s",
                     op,
@@ -158,53 +169,54 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         }
         final var oldValue = reference.loadFromReference(context);
         final var type = oldValue.getType(context);
-        if (!(type instanceof BuiltinType builtinType)) {
+        final var oldNumber = NumberValue.from(oldValue);
+        if (!(type instanceof BuiltinType builtinType) || oldNumber == null) {
             final var message = String.format("Cannot perform unary operation %s on type %s", op, type);
             throw new EvaluationException(message, SourceDiagnostic.from(this, message), context.createStackTrace());
         }
-        final var newValue = evaluateAssignmentForBuiltinType(oldValue.getConstValue(), builtinType, context);
+        final var newValue = evaluateAssignmentForBuiltinType(oldNumber, builtinType, context);
         reference.storeToReference(newValue, context);
         context.pushValue(op.isPostOp ? oldValue : newValue);
     }
 
-    private @NotNull ConstExpr evaluateForNumber(final @NotNull Number value,
+    private @NotNull ConstExpr evaluateForNumber(final @NotNull NumberValue value,
                                                  final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
             case MINUS, PLUS -> {
-                if (value instanceof Byte byteValue) {
-                    yield ConstExpr.of(-byteValue, getTokenRange());
+                if (value instanceof ByteValue byteValue) {
+                    yield new IntValue(-byteValue.value, getTokenRange());
                 }
-                else if (value instanceof Short shortValue) {
-                    yield ConstExpr.of(-shortValue, getTokenRange());
+                else if (value instanceof ShortValue shortValue) {
+                    yield new IntValue(-shortValue.value, getTokenRange());
                 }
-                else if (value instanceof Integer integerValue) {
-                    yield ConstExpr.of(-integerValue, getTokenRange());
+                else if (value instanceof IntValue intValue) {
+                    yield new IntValue(-intValue.value, getTokenRange());
                 }
-                else if (value instanceof Long longValue) {
-                    yield ConstExpr.of(-longValue, getTokenRange());
+                else if (value instanceof LongValue longValue) {
+                    yield new LongValue(-longValue.value, getTokenRange());
                 }
-                else if (value instanceof Float floatValue) {
-                    yield ConstExpr.of(-floatValue, getTokenRange());
+                else if (value instanceof FloatValue floatValue) {
+                    yield new FloatValue(-floatValue.value, getTokenRange());
                 }
-                else if (value instanceof Double doubleValue) {
-                    yield ConstExpr.of(-doubleValue, getTokenRange());
+                else if (value instanceof DoubleValue doubleValue) {
+                    yield new DoubleValue(-doubleValue.value, getTokenRange());
                 }
                 throw new IllegalStateException(String.format("Unsupported negation expression operand %s %s",
                     op,
                     value));
             }
             case INVERSE -> {
-                if (value instanceof Byte byteValue) {
-                    yield ConstExpr.of(~byteValue, getTokenRange());
+                if (value instanceof ByteValue byteValue) {
+                    yield new IntValue(~byteValue.value, getTokenRange());
                 }
-                else if (value instanceof Short shortValue) {
-                    yield ConstExpr.of(~shortValue, getTokenRange());
+                else if (value instanceof ShortValue shortValue) {
+                    yield new IntValue(~shortValue.value, getTokenRange());
                 }
-                else if (value instanceof Integer integerValue) {
-                    yield ConstExpr.of(~integerValue, getTokenRange());
+                else if (value instanceof IntValue intValue) {
+                    yield new IntValue(~intValue.value, getTokenRange());
                 }
-                else if (value instanceof Long longValue) {
-                    yield ConstExpr.of(~longValue, getTokenRange());
+                else if (value instanceof LongValue longValue) {
+                    yield new LongValue(~longValue.value, getTokenRange());
                 }
                 throw new IllegalStateException(String.format("Unsupported inverse expression operand %s", value));
             }
@@ -217,7 +229,7 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
     private @NotNull ConstExpr evaluateForBool(final boolean value,
                                                final @NotNull EvaluationContext context) throws EvaluationException {
         return switch (op) {
-            case NOT -> ConstExpr.of(!value, getTokenRange());
+            case NOT -> new BoolValue(!value, getTokenRange());
             default ->
                 throw new EvaluationException(String.format("Unary operator %s cannot be applied to boolean", op),
                     SourceDiagnostic.from(this),
@@ -225,28 +237,41 @@ public final class UnaryExpr extends AbstractExprContainer implements Expr {
         };
     }
 
-    @Override
-    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
-        if (op.isAssignment) {
-            evaluateAssignment(context);
-            return;
-        }
+    private @NotNull ConstExpr evaluate(final @NotNull EvaluationContext context,
+                                        final @NotNull CompiledExpr compiledValue) throws EvaluationException {
         final var value = getValue();
-        final var constValue = value.evaluateAs(context, Object.class);
+        final var constValue = compiledValue.evaluate(context);
         final var type = value.getType(context);
         if (type == BuiltinType.BOOL) {
-            context.pushValue(evaluateForBool((boolean) constValue, context));
-            return;
+            return evaluateForBool((boolean) constValue.getConstValue(), context);
         }
-        else if (constValue instanceof Number numberValue) {
-            context.pushValue(evaluateForNumber(numberValue, context));
-            return;
+        final var numberValue = NumberValue.from(constValue);
+        if (numberValue != null) {
+            return evaluateForNumber(numberValue, context);
         }
         throw new EvaluationException(String.format("Unary operator %s cannot be applied to %s", op, value),
             SourceDiagnostic.from(this),
             context.createStackTrace());
     }
 
+    @Override
+    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+        if (op.isAssignment) {
+            evaluateAssignment(context);
+            return;
+        }
+        context.pushValue(evaluate(context, getValue()::evaluateAsConst));
+    }
+
+    @Override
+    public @NotNull CompiledExpr compile(final @NotNull ClosureCompiler compiler) {
+        if (op.isAssignment) {
+            return Expr.super.compile(compiler); // Assignments need the reference itself, so they stay interpreted
+        }
+        final var value = compiler.compile(getValue());
+        return context -> evaluate(context, value);
+    }
+
     @Override
     public @NotNull UnaryExpr copy() {
         return copyParentAndSourceTo(new UnaryExpr(getValue().copy(), op));
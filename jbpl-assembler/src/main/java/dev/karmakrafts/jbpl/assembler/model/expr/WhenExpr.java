@@ -26,11 +26,15 @@ import dev.karmakrafts.jbpl.assembler.model.type.TypeCommonizer;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public final class WhenExpr extends AbstractExprContainer implements Expr, ScopeOwner {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
     private final ArrayList<Branch> branches = new ArrayList<>();
 
@@ -116,6 +120,9 @@ public final class WhenExpr extends AbstractExprContainer implements Expr, Scope
 
     public static sealed abstract class AbstractConditionalBranch extends AbstractElementContainer
         implements ConditionalBranch {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         protected Expr value;
 
         protected AbstractConditionalBranch(final @NotNull Expr value) {
@@ -135,6 +142,9 @@ public final class WhenExpr extends AbstractExprContainer implements Expr, Scope
     }
 
     public static final class ScopedBranch extends AbstractConditionalBranch implements ScopeOwner {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         public ScopedBranch(final @NotNull Expr condition) {
             super(condition);
         }
@@ -148,6 +158,9 @@ public final class WhenExpr extends AbstractExprContainer implements Expr, Scope
     }
 
     public static final class ScopelessBranch extends AbstractConditionalBranch {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         public ScopelessBranch(final @NotNull Expr condition) {
             super(condition);
         }
@@ -161,6 +174,9 @@ public final class WhenExpr extends AbstractExprContainer implements Expr, Scope
     }
 
     public static final class ScopedDefaultBranch extends AbstractElementContainer implements Branch, ScopeOwner {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         @Override
         public ScopedDefaultBranch copy() {
             final var branch = copyParentAndSourceTo(new ScopedDefaultBranch());
@@ -170,6 +186,9 @@ public final class WhenExpr extends AbstractExprContainer implements Expr, Scope
     }
 
     public static final class ScopelessDefaultBranch extends AbstractElementContainer implements Branch {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         @Override
         public ScopelessDefaultBranch copy() {
             final var branch = copyParentAndSourceTo(new ScopelessDefaultBranch());
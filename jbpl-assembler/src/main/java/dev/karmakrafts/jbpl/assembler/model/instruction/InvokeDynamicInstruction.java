@@ -33,6 +33,7 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -40,6 +41,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 public final class InvokeDynamicInstruction extends AbstractExprContainer implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int INSTANTIATED_SIGNATURE_INDEX = 0;
     public static final int SAM_SIGNATURE_INDEX = 1;
     public static final int BSM_INSTRUCTION_INDEX = 2;
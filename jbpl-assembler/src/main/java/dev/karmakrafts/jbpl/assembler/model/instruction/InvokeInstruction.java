@@ -27,7 +27,12 @@ import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 
+import java.io.Serial;
+
 public final class InvokeInstruction extends AbstractExprContainer implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int SIGNATURE_INDEX = 0;
 
     static {
@@ -26,7 +26,12 @@ import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.JumpInsnNode;
 
+import java.io.Serial;
+
 public final class JumpInstruction extends AbstractExprContainer implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int TARGET_INDEX = 0;
 
     static {
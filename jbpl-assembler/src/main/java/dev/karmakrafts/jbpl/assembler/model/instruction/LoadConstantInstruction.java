@@ -30,7 +30,12 @@ import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.IntInsnNode;
 import org.objectweb.asm.tree.LdcInsnNode;
 
+import java.io.Serial;
+
 public final class LoadConstantInstruction extends AbstractExprContainer implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
 
     static {
@@ -24,7 +24,12 @@ import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnNode;
 
+import java.io.Serial;
+
 public final class OplessInstruction extends AbstractElement implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     static {
         InstructionCodec.registerDecoder(InsnNode.class, (ctx, node) -> {
             final var opcode = Opcode.findByEncodedValue(node.getOpcode()).orElseThrow();
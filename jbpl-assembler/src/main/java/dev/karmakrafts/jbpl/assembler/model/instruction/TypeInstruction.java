@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.model.instruction;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.eval.InstructionCodec;
+import dev.karmakrafts.jbpl.assembler.model.expr.AbstractExprContainer;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.type.Type;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+import java.io.Serial;
+
+public final class TypeInstruction extends AbstractExprContainer implements Instruction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final int TYPE_INDEX = 0;
+
+    static {
+        InstructionCodec.registerDecoder(TypeInsnNode.class, (ctx, node) -> {
+            final var opcode = Opcode.findByEncodedValue(node.getOpcode()).orElseThrow();
+            final var type = Type.dematerialize(org.objectweb.asm.Type.getObjectType(node.desc)).orElseThrow();
+            return new TypeInstruction(opcode, ConstExpr.of(type));
+        });
+    }
+
+    public final Opcode opcode;
+
+    /**
+     * @param opcode One of new, checkcast, instanceof or anewarray.
+     * @param type   The class or array type the instruction operates on.
+     */
+    public TypeInstruction(final @NotNull Opcode opcode, final @NotNull Expr type) {
+        addExpression(type);
+        this.opcode = opcode;
+    }
+
+    public @NotNull Expr getType() {
+        return getExpressions().get(TYPE_INDEX);
+    }
+
+    public void setType(final @NotNull Expr type) {
+        getExpressions().set(TYPE_INDEX, type);
+    }
+
+    @Override
+    public @NotNull Opcode getOpcode(final @NotNull EvaluationContext context) {
+        return opcode;
+    }
+
+    @Override
+    public @NotNull AbstractInsnNode emit(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var type = getType().evaluateAs(context, Type.class).materialize(context);
+        return new TypeInsnNode(opcode.encodedValue, type.getInternalName());
+    }
+
+    @Override
+    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+        Instruction.super.evaluate(context);
+    }
+
+    @Override
+    public @NotNull TypeInstruction copy() {
+        return copyParentAndSourceTo(new TypeInstruction(opcode, getType().copy()));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return String.format("%s %s", opcode, getType());
+    }
+}
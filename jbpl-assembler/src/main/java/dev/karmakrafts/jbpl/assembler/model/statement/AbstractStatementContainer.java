@@ -19,33 +19,37 @@ package dev.karmakrafts.jbpl.assembler.model.statement;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.util.List;
 
 public abstract class AbstractStatementContainer extends AbstractElementContainer implements StatementContainer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public void addStatementVerbatim(final @NotNull Statement statement) {
-        elements.add(statement);
+        addElementVerbatim(statement);
     }
 
     @Override
     public void addStatement(final @NotNull Statement statement) {
-        statement.setParent(this);
-        elements.add(statement);
+        addElement(statement);
     }
 
     @Override
     public void removeStatement(@NotNull Statement statement) {
-        elements.remove(statement);
+        removeElement(statement);
     }
 
     @Override
     public void clearStatements() {
-        elements.clear();
+        clearElements();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public @NotNull List<Statement> getStatements() {
+        ensureParsed();
         return (List<Statement>) (Object) elements;
     }
 }
@@ -21,7 +21,12 @@ import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElement;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class BreakStatement extends AbstractElement implements Statement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
         context.controlFlowState.brk();
@@ -20,7 +20,12 @@ import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
 import dev.karmakrafts.jbpl.assembler.model.element.Element;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class CompoundStatement extends AbstractElementContainer implements Statement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     @Override
     public @NotNull CompoundStatement copy() {
         final var result = copyParentAndSourceTo(new CompoundStatement());
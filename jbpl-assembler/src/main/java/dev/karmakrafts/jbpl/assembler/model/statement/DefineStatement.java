@@ -19,15 +19,24 @@ package dev.karmakrafts.jbpl.assembler.model.statement;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.lower.IncludeVisibilityProvider;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
 import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
-import dev.karmakrafts.jbpl.assembler.model.expr.AbstractExprContainer;
-import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.type.ArrayType;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.model.type.ClassType;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class DefineStatement extends AbstractExprContainer
     implements Statement, NamedElement, IncludeVisibilityProvider {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = 0;
     public static final int TYPE_INDEX = 1;
     public static final int VALUE_INDEX = 2;
@@ -36,6 +45,9 @@ public final class DefineStatement extends AbstractExprContainer
     public boolean isFinal;
     public boolean isPrivate;
 
+    private transient Expr cachedValue; // Materialized value, only kept when it doesn't depend on the evaluation context
+    private transient Boolean isCacheable; // Lazily computed since the value tree only changes through setValue/setType
+
     public DefineStatement(final @NotNull Expr name,
                            final @NotNull Expr type,
                            final @NotNull Expr value,
@@ -69,6 +81,7 @@ public final class DefineStatement extends AbstractExprContainer
     public void setName(final @NotNull Expr name) {
         name.setParent(this);
         getExpressions().set(NAME_INDEX, name);
+        invalidateParentSymbols();
     }
 
     public @NotNull Expr getType() {
@@ -78,6 +91,7 @@ public final class DefineStatement extends AbstractExprContainer
     public void setType(final @NotNull Expr type) {
         type.setParent(this);
         getExpressions().set(TYPE_INDEX, type);
+        invalidateCachedValue();
     }
 
     public @NotNull Expr getValue() {
@@ -87,6 +101,45 @@ public final class DefineStatement extends AbstractExprContainer
     public void setValue(final @NotNull Expr value) {
         value.setParent(this);
         getExpressions().set(VALUE_INDEX, value);
+        invalidateCachedValue();
+    }
+
+    public void invalidateCachedValue() {
+        cachedValue = null;
+        isCacheable = null;
+    }
+
+    private boolean isCacheable() {
+        if (isCacheable == null) {
+            isCacheable = isContextFree(getType()) && isContextFree(getValue());
+        }
+        return isCacheable;
+    }
+
+    private static boolean isContextFree(final @NotNull Type type) {
+        if (type instanceof ArrayType arrayType) {
+            return isContextFree(arrayType.elementType());
+        }
+        return type instanceof BuiltinType || type instanceof ClassType;
+    }
+
+    private static boolean isContextFree(final @NotNull Element element) {
+        // Anything which resolves names or introduces a scope may yield a different value on the next read
+        if (element instanceof AbstractReceiverExpr || element instanceof IntrinsicReceiverExpr
+            || element instanceof ScopeReceiverExpr || element instanceof Statement) {
+            return false;
+        }
+        if (element instanceof LiteralExpr literalExpr && literalExpr.value instanceof Type type) {
+            return isContextFree(type);
+        }
+        if (element instanceof ElementContainer container) {
+            for (final var child : container.getElements()) {
+                if (!isContextFree(child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
@@ -101,6 +154,10 @@ public final class DefineStatement extends AbstractExprContainer
 
     @Override
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+        if (cachedValue != null) {
+            context.pushValue(cachedValue);
+            return;
+        }
         final var value = getValue();
         final var type = getType().evaluateAs(context, Type.class).resolveIfNeeded(context);
         final var valueType = value.getType(context).resolveIfNeeded(context);
@@ -109,7 +166,11 @@ public final class DefineStatement extends AbstractExprContainer
             final var diagnostic = SourceDiagnostic.from(this, value, message);
             throw new EvaluationException("Incompatible define value type", diagnostic, context.createStackTrace());
         }
-        context.pushValue(type.cast(value.evaluateAsConst(context), context));
+        final var result = type.cast(value.evaluateAsConst(context), context);
+        if (isCacheable()) {
+            cachedValue = result;
+        }
+        context.pushValue(result);
     }
 
     @Override
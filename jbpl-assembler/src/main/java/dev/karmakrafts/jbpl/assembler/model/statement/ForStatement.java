@@ -16,24 +16,32 @@
 
 package dev.karmakrafts.jbpl.assembler.model.statement;
 
-import dev.karmakrafts.jbpl.assembler.eval.ControlFlowState;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.eval.StackFrame;
 import dev.karmakrafts.jbpl.assembler.model.element.AbstractElementContainer;
 import dev.karmakrafts.jbpl.assembler.model.element.Element;
-import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
-import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.expr.*;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr.ConditionalBranch;
 import dev.karmakrafts.jbpl.assembler.model.type.ArrayType;
 import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import dev.karmakrafts.jbpl.assembler.model.type.RangeType;
 import dev.karmakrafts.jbpl.assembler.scope.ScopeOwner;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.Serial;
 import java.lang.reflect.Array;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class ForStatement extends AbstractElementContainer implements Statement, ScopeOwner {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private Expr variableName;
     private Expr value;
 
@@ -60,138 +68,255 @@ public final class ForStatement extends AbstractElementContainer implements Stat
         this.value = value;
     }
 
-    private byte performIteration(final @NotNull Expr variableValue,
-                                  final @NotNull EvaluationContext context) throws EvaluationException {
-        final var variableName = this.variableName.evaluateAs(context, String.class);
-        context.pushFrame(this);
-        final var frame = context.peekFrame();
-        frame.resetLocalDefines();
-        frame.namedLocalValues.put(variableName, variableValue);
-        for (final var element : getElements()) {
-            if (!element.isEvaluatedDirectly()) {
-                continue;
+    private static void collectDefines(final @NotNull Element element, final @NotNull List<DefineStatement> defines) {
+        if (element instanceof DefineStatement define) {
+            defines.add(define);
+        }
+        if (element instanceof IfExpr ifExpr) {
+            for (final var branch : ifExpr.getElseIfBranches()) {
+                collectDefines(branch, defines);
             }
-            element.evaluate(context);
-            final var state = context.controlFlowState;
-            final var returnMask = state.getMask();
-            if (state.clearCnt() || state.clearBrk() || state.hasRet()) {
-                context.popFrame();
-                return returnMask;
+            final var elseBranch = ifExpr.getElseBranch();
+            if (elseBranch != null) {
+                collectDefines(elseBranch, defines);
             }
         }
-        context.popFrame();
-        return ControlFlowState.MASK_NONE;
+        else if (element instanceof WhenExpr whenExpr) {
+            for (final var branch : whenExpr.getBranches()) {
+                if (branch instanceof ConditionalBranch conditionalBranch) {
+                    collectDefines(conditionalBranch.getValue(), defines);
+                }
+                collectDefines(branch, defines);
+            }
+        }
+        if (!(element instanceof ElementContainer container) || container.isLazy()) {
+            return; // Lazy bodies can only belong to declarations, which reset their own defines
+        }
+        for (final var child : container.getElements()) {
+            collectDefines(child, defines);
+        }
+    }
+
+    private static @NotNull ConstExpr getArrayElement(final @NotNull Object array,
+                                                      final int index,
+                                                      final @NotNull TokenRange tokenRange) {
+        // @formatter:off
+        if (array instanceof Object[] objects)          return ConstExpr.of(objects[index], tokenRange);
+        else if (array instanceof int[] ints)           return new IntValue(ints[index], tokenRange);
+        else if (array instanceof long[] longs)         return new LongValue(longs[index], tokenRange);
+        else if (array instanceof byte[] bytes)         return new ByteValue(bytes[index], tokenRange);
+        else if (array instanceof short[] shorts)       return new ShortValue(shorts[index], tokenRange);
+        else if (array instanceof char[] chars)         return new CharValue(chars[index], tokenRange);
+        else if (array instanceof float[] floats)       return new FloatValue(floats[index], tokenRange);
+        else if (array instanceof double[] doubles)     return new DoubleValue(doubles[index], tokenRange);
+        else if (array instanceof boolean[] booleans)   return new BoolValue(booleans[index], tokenRange);
+        // @formatter:on
+        return ConstExpr.of(Array.get(array, index), tokenRange);
+    }
+
+    private static long getIntegralBound(final @NotNull Object bound) {
+        return bound instanceof Character character ? character : ((Number) bound).longValue();
+    }
+
+    private static @NotNull ConstExpr createIntegralValue(final @NotNull BuiltinType type,
+                                                          final long value,
+                                                          final @NotNull TokenRange tokenRange) {
+        return switch (type) { // @formatter:off
+            case I8     -> new ByteValue((byte) value, tokenRange);
+            case I16    -> new ShortValue((short) value, tokenRange);
+            case I32    -> new IntValue((int) value, tokenRange);
+            case CHAR   -> new CharValue((char) value, tokenRange);
+            default     -> new LongValue(value, tokenRange);
+        }; // @formatter:on
     }
 
-    private void iterateArray(final @NotNull EvaluationContext context) throws EvaluationException {
-        final var array = value.evaluateAs(context, Object.class);
+    private void iterateArray(final @NotNull Object array,
+                              final @NotNull IterationHandler handler) throws EvaluationException {
         final var arrayLength = Array.getLength(array);
+        final var tokenRange = getTokenRange();
         for (var i = 0; i < arrayLength; i++) {
-            final var value = Array.get(array, i);
-            final var result = performIteration(ConstExpr.of(value, getTokenRange()), context);
-            if ((result & ControlFlowState.MASK_CONTINUE) != 0) {
-                continue;
-            }
-            if ((result & ControlFlowState.MASK_BREAK) != 0 || (result & ControlFlowState.MASK_RETURN) != 0) {
+            if (handler.iterate(getArrayElement(array, i, tokenRange))) {
                 break;
             }
         }
     }
 
-    private void iterateString(final @NotNull EvaluationContext context) throws EvaluationException {
-        final var value = this.value.evaluateAs(context, Object.class).toString();
+    private void iterateString(final @NotNull String value,
+                               final @NotNull IterationHandler handler) throws EvaluationException {
+        final var tokenRange = getTokenRange();
         for (var i = 0; i < value.length(); i++) {
-            final var result = performIteration(ConstExpr.of(value.charAt(i), getTokenRange()), context);
-            if ((result & ControlFlowState.MASK_CONTINUE) != 0) {
-                continue;
-            }
-            if ((result & ControlFlowState.MASK_BREAK) != 0 || (result & ControlFlowState.MASK_RETURN) != 0) {
-                break;
-            }
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private <T extends Comparable<T>> void iterateNumericRange(final @NotNull Class<T> type,
-                                                               final @NotNull Function<T, T> inc,
-                                                               final @NotNull EvaluationContext context) throws EvaluationException {
-        final var values = getValue().evaluateAs(context, (Class<T[]>) type.arrayType());
-        final var start = values[0];
-        final var end = values[1];
-        for (var value = start; value.compareTo(end) < 0; value = inc.apply(value)) {
-            final var result = performIteration(ConstExpr.of(value, getTokenRange()), context);
-            if ((result & ControlFlowState.MASK_CONTINUE) != 0) {
-                continue;
-            }
-            if ((result & ControlFlowState.MASK_BREAK) != 0 || (result & ControlFlowState.MASK_RETURN) != 0) {
+            if (handler.iterate(new CharValue(value.charAt(i), tokenRange))) {
                 break;
             }
         }
     }
 
-    private void iterateRange(final @NotNull EvaluationContext context,
-                              final @NotNull RangeType rangeType) throws EvaluationException {
-        final var valueType = rangeType.type();
-        if (valueType instanceof BuiltinType builtinType) {
-            switch (builtinType) {
-                case I8 -> {
-                    iterateNumericRange(Byte.class, x -> (byte) (x + 1), context);
-                    return;
-                }
-                case I16 -> {
-                    iterateNumericRange(Short.class, x -> (short) (x + 1), context);
-                    return;
+    private void iterateRange(final @NotNull BuiltinType type,
+                              final @NotNull Object[] bounds,
+                              final @NotNull IterationHandler handler) throws EvaluationException {
+        final var tokenRange = getTokenRange();
+        switch (type) {
+            case I8, I16, I32, I64, CHAR -> {
+                final var end = getIntegralBound(bounds[1]);
+                for (var value = getIntegralBound(bounds[0]); value < end; value++) {
+                    if (handler.iterate(createIntegralValue(type, value, tokenRange))) {
+                        break;
+                    }
                 }
-                case I32 -> {
-                    iterateNumericRange(Integer.class, x -> x + 1, context);
-                    return;
-                }
-                case I64 -> {
-                    iterateNumericRange(Long.class, x -> x + 1, context);
-                    return;
-                }
-                case F32 -> {
-                    iterateNumericRange(Float.class, x -> x + 1F, context);
-                    return;
-                }
-                case F64 -> {
-                    iterateNumericRange(Double.class, x -> x + 1D, context);
-                    return;
+            }
+            case F32 -> {
+                final var end = (float) bounds[1];
+                for (var value = (float) bounds[0]; value < end; value++) {
+                    if (handler.iterate(new FloatValue(value, tokenRange))) {
+                        break;
+                    }
                 }
-                case CHAR -> {
-                    iterateNumericRange(Character.class, x -> (char) ((int) x + 1), context);
-                    return;
+            }
+            case F64 -> {
+                final var end = (double) bounds[1];
+                for (var value = (double) bounds[0]; value < end; value++) {
+                    if (handler.iterate(new DoubleValue(value, tokenRange))) {
+                        break;
+                    }
                 }
             }
         }
-        throw new EvaluationException(String.format("Cannot iterate over range of type %s", valueType),
-            SourceDiagnostic.from(this),
-            context.createStackTrace());
     }
 
-    @Override
-    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+    private static boolean isIterable(final @NotNull BuiltinType type) {
+        return switch (type) {
+            case I8, I16, I32, I64, F32, F64, CHAR -> true;
+            default -> false;
+        };
+    }
+
+    private void forEachValue(final @NotNull EvaluationContext context,
+                              final @NotNull IterationHandler handler) throws EvaluationException {
         final var valueType = value.getType(context);
         if (valueType == BuiltinType.STRING) {
-            iterateString(context);
+            iterateString(value.evaluateAs(context, Object.class).toString(), handler);
             return;
         }
         if (valueType instanceof ArrayType) {
-            iterateArray(context);
+            iterateArray(value.evaluateAs(context, Object.class), handler);
             return;
         }
         else if (valueType instanceof RangeType rangeType) {
-            iterateRange(context, rangeType);
+            if (!(rangeType.type() instanceof BuiltinType builtinType) || !isIterable(builtinType)) {
+                throw new EvaluationException(String.format("Cannot iterate over range of type %s", rangeType.type()),
+                    SourceDiagnostic.from(this),
+                    context.createStackTrace());
+            }
+            iterateRange(builtinType, value.evaluateAs(context, Object[].class), handler);
             return;
         }
         throw new EvaluationException(String.format("Cannot use value of type %s in right hand side of for loop",
             valueType), SourceDiagnostic.from(this), context.createStackTrace());
     }
 
+    /**
+     * Evaluates the values this loop assigns to its variable without evaluating its body.
+     *
+     * @param context  The current evaluation context.
+     * @param maxCount The maximum number of values to evaluate.
+     * @return The values of all iterations in order, or null if there are more than maxCount of them.
+     * @throws EvaluationException If the value of this loop could not be evaluated or is not iterable.
+     */
+    public @Nullable List<ConstExpr> evaluateValues(final @NotNull EvaluationContext context,
+                                                    final int maxCount) throws EvaluationException {
+        final var values = new ArrayList<ConstExpr>();
+        forEachValue(context, value -> {
+            values.add(value);
+            return values.size() > maxCount;
+        });
+        return values.size() > maxCount ? null : values;
+    }
+
+    @Override
+    public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
+        final var loop = new Loop(context);
+        try {
+            forEachValue(context, loop::iterate);
+        }
+        finally {
+            loop.exit();
+        }
+    }
+
     @Override
     public @NotNull ForStatement copy() {
         final var forStatement = copyParentAndSourceTo(new ForStatement(getVariableName().copy(), getValue().copy()));
         forStatement.addElements(getElements().stream().map(Element::copy).toList());
         return forStatement;
     }
+
+    @FunctionalInterface
+    private interface IterationHandler {
+        /**
+         * @param value The value of the loop variable for this iteration.
+         * @return True if the loop should not continue with the next value.
+         * @throws EvaluationException If the iteration could not be evaluated.
+         */
+        boolean iterate(final @NotNull ConstExpr value) throws EvaluationException;
+    }
+
+    /**
+     * A single evaluation of a loop, which reuses one frame for all of its iterations.
+     * The frame is only pushed once the first value was evaluated, since the value of the loop
+     * is evaluated in the enclosing scope.
+     * The loop variable is updated in place and only the defines declared in the body are reset.
+     */
+    private final class Loop {
+        private final EvaluationContext context;
+        private final String variableName;
+        private final ArrayList<DefineStatement> defines = new ArrayList<>();
+        private StackFrame frame;
+
+        private Loop(final @NotNull EvaluationContext context) throws EvaluationException {
+            this.context = context;
+            variableName = getVariableName().evaluateAs(context, String.class);
+            for (final var element : getElements()) {
+                collectDefines(element, defines);
+            }
+        }
+
+        /**
+         * Evaluates the loop body once.
+         *
+         * @param variableValue The value of the loop variable for this iteration.
+         * @return True if the loop was exited by a break or return.
+         * @throws EvaluationException If the body could not be evaluated.
+         */
+        private boolean iterate(final @NotNull ConstExpr variableValue) throws EvaluationException {
+            if (frame == null) {
+                context.pushFrame(ForStatement.this);
+                frame = context.peekFrame();
+            }
+            frame.clear();
+            for (final var define : defines) {
+                define.resetValue();
+            }
+            frame.putNamedLocalValue(variableName, variableValue);
+            final var state = context.controlFlowState;
+            for (final var element : getElements()) {
+                if (!element.isEvaluatedDirectly()) {
+                    continue;
+                }
+                element.evaluate(context);
+                if (state.clearCnt()) {
+                    return false;
+                }
+                if (state.clearBrk() || state.hasRet()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void exit() {
+            if (frame != null) {
+                context.popFrame();
+            }
+        }
+    }
 }
@@ -23,7 +23,12 @@ import dev.karmakrafts.jbpl.assembler.model.expr.AbstractExprContainer;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class LabelStatement extends AbstractExprContainer implements Statement, NamedElement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = 0;
 
     public LabelStatement(final @NotNull Expr name) {
@@ -48,6 +53,7 @@ public final class LabelStatement extends AbstractExprContainer implements State
 
     public void setName(final @NotNull Expr name) {
         getExpressions().set(NAME_INDEX, name);
+        invalidateParentSymbols();
     }
 
     @Override
@@ -23,7 +23,12 @@ import dev.karmakrafts.jbpl.assembler.model.expr.AbstractExprContainer;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class LocalStatement extends AbstractExprContainer implements Statement, NamedElement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = 0;
     public static final int INDEX_INDEX = 1;
 
@@ -40,6 +45,7 @@ public final class LocalStatement extends AbstractExprContainer implements State
         getName().setParent(null);
         name.setParent(this);
         getExpressions().set(NAME_INDEX, name);
+        invalidateParentSymbols();
     }
 
     public @NotNull Expr getIndex() {
@@ -61,7 +67,7 @@ public final class LocalStatement extends AbstractExprContainer implements State
     public void evaluate(final @NotNull EvaluationContext context) throws EvaluationException {
         // Make this local available in the current frame during further evaluation, no forward refs
         final var name = getName().evaluateAs(context, String.class);
-        context.peekFrame().locals.put(name, this);
+        context.peekFrame().putLocal(name, this);
     }
 
     @Override
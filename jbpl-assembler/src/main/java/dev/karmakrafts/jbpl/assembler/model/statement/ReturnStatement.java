@@ -23,7 +23,12 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class ReturnStatement extends AbstractExprContainer implements Statement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VALUE_INDEX = 0;
 
     public ReturnStatement(final @NotNull Expr value) {
@@ -25,8 +25,13 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.type.Type;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class TypeAliasStatement extends AbstractExprContainer
     implements Statement, NamedElement, IncludeVisibilityProvider {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int NAME_INDEX = 0;
     public static final int TYPE_INDEX = 1;
 
@@ -45,6 +50,7 @@ public final class TypeAliasStatement extends AbstractExprContainer
     public void setName(final @NotNull Expr name) {
         name.setParent(this);
         getExpressions().set(NAME_INDEX, name);
+        invalidateParentSymbols();
     }
 
     public @NotNull Expr getType() {
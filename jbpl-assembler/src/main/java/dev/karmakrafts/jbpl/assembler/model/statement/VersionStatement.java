@@ -22,7 +22,12 @@ import dev.karmakrafts.jbpl.assembler.model.expr.AbstractExprContainer;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class VersionStatement extends AbstractExprContainer implements Statement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int VERSION_INDEX = 0;
 
     public VersionStatement(final @NotNull Expr version) {
@@ -25,7 +25,12 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
+
 public final class YeetStatement extends AbstractExprContainer implements Statement {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final int TARGET_INDEX = 0;
 
     public YeetStatement(final @NotNull Expr target) {
@@ -22,9 +22,10 @@ import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serializable;
 import java.util.Optional;
 
-public sealed interface Type
+public sealed interface Type extends Serializable
     permits ArrayType, BuiltinType, ClassType, IntersectionType, PreproClassType, PreproType, RangeType, UnresolvedType, ReceiverType {
     static @NotNull Optional<Type> tryParse(final @Nullable String value) {
         if (value == null) {
@@ -18,6 +18,7 @@ package dev.karmakrafts.jbpl.assembler.model.type;
 
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.lower.StaticBinding;
 import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
 import dev.karmakrafts.jbpl.assembler.model.statement.TypeAliasStatement;
 import org.jetbrains.annotations.NotNull;
@@ -41,12 +42,15 @@ public record UnresolvedType(Expr name) implements Type {
             return typeAlias.resolve(context);
         }
         // Type parameters shadow global type aliases
-        final var typeArgument = context.peekFrame().namedLocalTypes.get(name);
+        final var typeArgument = context.peekFrame().getNamedLocalType(name);
         if (typeArgument != null) {
             return typeArgument;
         }
         // Global type aliases shadow prepro classes
-        typeAlias = context.resolveByName(TypeAliasStatement.class, name);
+        typeAlias = StaticBinding.getTarget(this.name, StaticBinding.TYPE_ALIAS, context);
+        if (typeAlias == null) {
+            typeAlias = context.resolveByName(TypeAliasStatement.class, name);
+        }
         if (typeAlias != null) {
             return typeAlias.resolve(context);
         }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link CharStream} reading directly from a {@link ByteBuffer} containing only ASCII characters.
+ * Combined with {@link #map(FileChannel)} this allows lexing memory-mapped sources
+ * without copying them into intermediate buffers first.
+ */
+public final class ByteBufferCharStream implements CharStream {
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String sourceName;
+    private int position;
+
+    private ByteBufferCharStream(final @NotNull ByteBuffer buffer, final @NotNull String sourceName) {
+        this.buffer = buffer;
+        this.sourceName = sourceName;
+        size = buffer.remaining();
+    }
+
+    public static @NotNull ByteBuffer map(final @NotNull FileChannel channel) throws IOException {
+        return channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * Creates a char stream over the given UTF-8 encoded buffer.
+     * Pure ASCII input is read in-place, everything else is decoded into a code point buffer once.
+     */
+    public static @NotNull CharStream fromBuffer(final @NotNull ByteBuffer buffer,
+                                                 final @NotNull String sourceName) throws CharacterCodingException {
+        final var source = buffer.slice();
+        if (isAscii(source)) {
+            return new ByteBufferCharStream(source, sourceName);
+        }
+        // @formatter:off
+        final var chars = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .decode(source);
+        // @formatter:on
+        final var builder = CodePointBuffer.builder(chars.remaining());
+        builder.append(chars);
+        return CodePointCharStream.fromBuffer(builder.build(), sourceName);
+    }
+
+    private static boolean isAscii(final @NotNull ByteBuffer buffer) {
+        final var limit = buffer.limit();
+        var index = 0;
+        for (; index + Long.BYTES <= limit; index += Long.BYTES) { // Check 8 bytes at a time
+            if ((buffer.getLong(index) & NON_ASCII_MASK) != 0) {
+                return false;
+            }
+        }
+        for (; index < limit; index++) {
+            if (buffer.get(index) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public @NotNull String getText(final @NotNull Interval interval) {
+        final var start = Math.min(interval.a, size);
+        final var length = Math.min(interval.b - interval.a + 1, size - start);
+        if (length <= 0) {
+            return "";
+        }
+        final var bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(final int i) {
+        if (i == 0) {
+            return 0; // Undefined
+        }
+        final var offset = i < 0 ? position + i : position + i - 1;
+        if (offset < 0 || offset >= size) {
+            return IntStream.EOF;
+        }
+        return buffer.get(offset);
+    }
+
+    @Override
+    public int mark() {
+        return -1; // The whole input is always available
+    }
+
+    @Override
+    public void release(final int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(final int index) {
+        position = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public @NotNull String getSourceName() {
+        if (sourceName.isEmpty()) {
+            return IntStream.UNKNOWN_SOURCE_NAME;
+        }
+        return sourceName;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
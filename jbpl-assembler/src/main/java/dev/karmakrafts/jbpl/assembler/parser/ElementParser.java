@@ -18,6 +18,7 @@ package dev.karmakrafts.jbpl.assembler.parser;
 
 import dev.karmakrafts.jbpl.assembler.model.element.Comment;
 import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
 import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
 import dev.karmakrafts.jbpl.frontend.JBPLParser.CommentContext;
 import dev.karmakrafts.jbpl.frontend.JBPLParser.DeclarationContext;
@@ -43,7 +44,9 @@ public final class ElementParser extends JBPLParserBaseVisitor<List<? extends El
 
     @Override
     public @NotNull List<? extends Element> visitComment(final @NotNull CommentContext ctx) {
-        return List.of(new Comment());
+        final var comment = new Comment();
+        comment.setTokenRange(TokenRange.fromContext(ctx));
+        return List.of(comment);
     }
 
     @Override
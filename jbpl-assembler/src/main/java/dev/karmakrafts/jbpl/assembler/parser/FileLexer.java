@@ -0,0 +1,605 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.IntegerList;
+import org.antlr.v4.runtime.misc.IntegerStack;
+import org.antlr.v4.runtime.misc.Pair;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A hand-written scanner producing exactly the same tokens as the generated {@link JBPLLexer},
+ * including its string interpolation modes and its quirks around unterminated comments.
+ * Instead of simulating the lexer ATN for every character, tokens are recognized by
+ * switching on their first character, and keywords are looked up in a trie while
+ * scanning the identifier they were matched as.
+ */
+public final class FileLexer implements TokenSource {
+    private static final int MODE_DEFAULT = 0;
+    private static final int MODE_STRING = 1;
+
+    // States of a block comment being matched, see scanBlockComment
+    private static final int COMMENT_CLOSE = 0;
+    private static final int COMMENT_CLOSE_STAR = 1;
+    private static final int COMMENT_OPEN = 2;
+    private static final int COMMENT_OPEN_SLASH = 3;
+    private static final int COMMENT_ANY = 4;
+    private static final int COMMENT_STATES = 5;
+
+    private static final KeywordNode KEYWORDS = createKeywords();
+
+    private final CharStream input;
+    private final Pair<TokenSource, CharStream> sourcePair;
+    private final IntegerStack modeStack = new IntegerStack();
+    private TokenFactory<?> tokenFactory = CommonTokenFactory.DEFAULT;
+    private int mode = MODE_DEFAULT;
+    private int line = 1;
+    private int charPositionInLine;
+
+    public FileLexer(final @NotNull CharStream input) {
+        this.input = input;
+        sourcePair = new Pair<>(this, input);
+    }
+
+    private static @NotNull KeywordNode createKeywords() {
+        final var root = new KeywordNode();
+        final var vocabulary = JBPLLexer.VOCABULARY;
+        for (var type = 1; type <= vocabulary.getMaxTokenType(); type++) {
+            final var literal = vocabulary.getLiteralName(type);
+            if (literal != null && isIdentifierStart(literal.charAt(1))) {
+                root.insert(literal.substring(1, literal.length() - 1), type);
+            }
+        }
+        // Instructions which are matched by a pattern in the grammar
+        final var stackTypes = new String[]{"i", "l", "f", "d", "a"};
+        final var primitiveTypes = new String[]{"i", "l", "f", "d"};
+        final var intTypes = new String[]{"i", "l"};
+        final var conditions = new String[]{"eq", "ne", "lt", "ge", "gt", "le"};
+        root.insert(stackTypes, "load", JBPLLexer.INSN_LOAD);
+        root.insert(stackTypes, "store", JBPLLexer.INSN_STORE);
+        root.insert(stackTypes, "aload", JBPLLexer.INSN_ARRAY_LOAD);
+        root.insert(stackTypes, "astore", JBPLLexer.INSN_ARRAY_STORE);
+        root.insert(new String[]{"b", "s"}, "ipush", JBPLLexer.INSN_IPUSH);
+        root.insert(new String[]{"iconst_"}, new String[]{"m1", "0", "1", "2", "3", "4", "5"}, JBPLLexer.INSN_ICONST);
+        root.insert(new String[]{"lconst_"}, new String[]{"0", "1"}, JBPLLexer.INSN_LCONST);
+        root.insert(new String[]{"fconst_"}, new String[]{"0", "1", "2"}, JBPLLexer.INSN_FCONST);
+        root.insert(new String[]{"dconst_"}, new String[]{"0", "1"}, JBPLLexer.INSN_DCONST);
+        root.insert(new String[]{"put"}, new String[]{"field", "static"}, JBPLLexer.INSN_PUT);
+        root.insert(new String[]{"get"}, new String[]{"field", "static"}, JBPLLexer.INSN_GET);
+        root.insert(new String[]{"invoke"},
+            new String[]{"interface", "special", "static", "virtual"},
+            JBPLLexer.INSN_INVOKE);
+        root.insert(new String[]{"i", "l", "f", "d", "b", "s", "c", "z"}, "newarray", JBPLLexer.INSN_NEWARRAY);
+        root.insert(new String[]{"if_acmp"}, new String[]{"eq", "ne"}, JBPLLexer.INSN_IF_ACMP);
+        root.insert(new String[]{"if_icmp"}, conditions, JBPLLexer.INSN_IF_ICMP);
+        root.insert(new String[]{"", "i", "l", "f", "d", "a"}, "return", JBPLLexer.INSN_RETURN);
+        root.insert(new String[]{"if"}, conditions, JBPLLexer.INSN_IF);
+        root.insert(new String[]{"pop"}, new String[]{"", "2"}, JBPLLexer.INSN_POP);
+        root.insert(new String[]{"dup", "dup2"}, new String[]{"", "_x1", "_x2"}, JBPLLexer.INSN_DUP);
+        root.insert(primitiveTypes, "add", JBPLLexer.INSN_ADD);
+        root.insert(primitiveTypes, "sub", JBPLLexer.INSN_SUB);
+        root.insert(primitiveTypes, "mul", JBPLLexer.INSN_MUL);
+        root.insert(primitiveTypes, "div", JBPLLexer.INSN_DIV);
+        root.insert(primitiveTypes, "rem", JBPLLexer.INSN_REM);
+        root.insert(primitiveTypes, "neg", JBPLLexer.INSN_NEG);
+        root.insert(intTypes, "ushr", JBPLLexer.INSN_USHR);
+        root.insert(intTypes, "shl", JBPLLexer.INSN_SHL);
+        root.insert(intTypes, "shr", JBPLLexer.INSN_SHR);
+        root.insert(intTypes, "and", JBPLLexer.INSN_AND);
+        root.insert(intTypes, "xor", JBPLLexer.INSN_XOR);
+        root.insert(intTypes, "or", JBPLLexer.INSN_OR);
+        root.insert(new String[]{"l2"}, new String[]{"d", "f", "i"}, JBPLLexer.INSN_L2);
+        root.insert(new String[]{"d2"}, new String[]{"f", "i", "l"}, JBPLLexer.INSN_D2);
+        root.insert(new String[]{"f2"}, new String[]{"d", "i", "l"}, JBPLLexer.INSN_F2);
+        root.insert(new String[]{"i2"}, new String[]{"b", "c", "d", "f", "l", "s"}, JBPLLexer.INSN_I2);
+        return root;
+    }
+
+    private static boolean isIdentifierStart(final int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(final int c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+    private static boolean isDigit(final int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDigit(final int c, final int radix) {
+        return switch (radix) {
+            case 2 -> c == '0' || c == '1';
+            case 8 -> c >= '0' && c <= '7';
+            case 16 -> isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            default -> isDigit(c);
+        };
+    }
+
+    private static int getRadix(final int c) {
+        return switch (c) {
+            case 'b', 'B' -> 2;
+            case 'o', 'O' -> 8;
+            case 'x', 'X' -> 16;
+            default -> 10;
+        };
+    }
+
+    @Override
+    public @NotNull Token nextToken() {
+        final var start = input.index();
+        final var startLine = line;
+        final var startCharPositionInLine = charPositionInLine;
+        final var c = input.LA(1);
+        if (c == IntStream.EOF) {
+            return tokenFactory.create(sourcePair,
+                Token.EOF,
+                null,
+                Token.DEFAULT_CHANNEL,
+                start,
+                start - 1,
+                line,
+                charPositionInLine);
+        }
+        final var type = mode == MODE_STRING ? scanStringToken(c) : scanToken(c);
+        final var channel = type == JBPLLexer.WS ? Token.HIDDEN_CHANNEL : Token.DEFAULT_CHANNEL;
+        return tokenFactory.create(sourcePair,
+            type,
+            null,
+            channel,
+            start,
+            input.index() - 1,
+            startLine,
+            startCharPositionInLine);
+    }
+
+    private void consume(final int count) {
+        for (var i = 0; i < count; i++) {
+            if (input.LA(1) == '\n') {
+                line++;
+                charPositionInLine = 0;
+            }
+            else {
+                charPositionInLine++;
+            }
+            input.consume();
+        }
+    }
+
+    private int accept(final int length, final int type) {
+        input.seek(input.index() + length); // Only tokens which may span multiple lines have to be consumed
+        charPositionInLine += length;
+        return type;
+    }
+
+    private int acceptLines(final int length, final int type) {
+        consume(length);
+        return type;
+    }
+
+    private void pushMode(final int newMode) {
+        modeStack.push(mode);
+        mode = newMode;
+    }
+
+    private void popModeIfPresent() {
+        if (!modeStack.isEmpty()) {
+            mode = modeStack.pop();
+        }
+    }
+
+    private int scanStringToken(final int c) {
+        if (c == '"') {
+            consume(1);
+            mode = modeStack.pop();
+            return JBPLLexer.QUOTE;
+        }
+        if (c == '$') {
+            if (input.LA(2) == '{') {
+                consume(2);
+                pushMode(MODE_DEFAULT);
+                return JBPLLexer.M_CONST_STR_LERP_BEGIN;
+            }
+            return accept(1, JBPLLexer.ERROR);
+        }
+        var length = 1;
+        for (var next = input.LA(2); next != IntStream.EOF && next != '"' && next != '$'; next = input.LA(++length + 1)) {
+        }
+        return acceptLines(length, JBPLLexer.M_CONST_STR_TEXT);
+    }
+
+    private int scanToken(final int c) {
+        if (isIdentifierStart(c)) {
+            return scanWord(c);
+        }
+        if (isDigit(c)) {
+            return scanNumber(c);
+        }
+        final var next = input.LA(2);
+        switch (c) {
+            case ' ', '\t', '\f':
+                return accept(1, JBPLLexer.WS);
+            case '\n':
+                return acceptLines(1, JBPLLexer.NL);
+            case '\r':
+                return acceptLines(next == '\n' ? 2 : 1, JBPLLexer.NL);
+            case '"':
+                consume(1);
+                pushMode(MODE_STRING);
+                return JBPLLexer.QUOTE;
+            case '\'':
+                return scanChar(next);
+            case '/':
+                if (next == '*') {
+                    return scanBlockComment();
+                }
+                if (next == '/') {
+                    var length = 2;
+                    for (var current = input.LA(3); current != IntStream.EOF && current != '\r' && current != '\n'; current = input.LA(++length + 1)) {
+                    }
+                    return accept(length, JBPLLexer.LINE_COMMENT);
+                }
+                return next == '=' ? accept(2, JBPLLexer.DIV_ASSIGN) : accept(1, JBPLLexer.SLASH);
+            case '^':
+                if (matches(2, "return")) {
+                    return accept(7, JBPLLexer.KW_PREPRO_RETURN);
+                }
+                if (matches(2, "class")) {
+                    return accept(6, JBPLLexer.KW_PREPRO_CLASS);
+                }
+                return next == '=' ? accept(2, JBPLLexer.XOR_ASSIGN) : accept(1, JBPLLexer.CARET);
+            case '!':
+                return next == '=' ? accept(2, JBPLLexer.NEQ) : accept(1, JBPLLexer.EXCL);
+            case '+':
+                return switch (next) {
+                    case '=' -> accept(2, JBPLLexer.PLUS_ASSIGN);
+                    case '+' -> accept(2, JBPLLexer.INC);
+                    default -> accept(1, JBPLLexer.PLUS);
+                };
+            case '-':
+                return switch (next) {
+                    case '=' -> accept(2, JBPLLexer.MINUS_ASSIGN);
+                    case '-' -> accept(2, JBPLLexer.DEC);
+                    case '>' -> accept(2, JBPLLexer.ARROW);
+                    default -> accept(1, JBPLLexer.MINUS);
+                };
+            case '*':
+                return next == '=' ? accept(2, JBPLLexer.TIMES_ASSIGN) : accept(1, JBPLLexer.ASTERISK);
+            case '%':
+                return next == '=' ? accept(2, JBPLLexer.REM_ASSIGN) : accept(1, JBPLLexer.REM);
+            case '&':
+                return switch (next) {
+                    case '=' -> accept(2, JBPLLexer.AND_ASSIGN);
+                    case '&' -> accept(2, JBPLLexer.AMPAMP);
+                    default -> accept(1, JBPLLexer.AMP);
+                };
+            case '|':
+                return switch (next) {
+                    case '=' -> accept(2, JBPLLexer.OR_ASSIGN);
+                    case '|' -> accept(2, JBPLLexer.PIPEPIPE);
+                    default -> accept(1, JBPLLexer.PIPE);
+                };
+            case '=':
+                return next == '=' ? accept(2, JBPLLexer.EQEQ) : accept(1, JBPLLexer.EQ);
+            case '<':
+                if (next == '<') {
+                    return input.LA(3) == '=' ? accept(3, JBPLLexer.LSH_ASSIGN) : accept(2, JBPLLexer.LSH);
+                }
+                if (next == '=') {
+                    return input.LA(3) == '>' ? accept(3, JBPLLexer.SPACESHIP) : accept(2, JBPLLexer.LEQ);
+                }
+                return accept(1, JBPLLexer.L_ABRACKET);
+            case '>':
+                if (next == '>') {
+                    final var third = input.LA(3);
+                    if (third == '>') {
+                        return input.LA(4) == '=' ? accept(4, JBPLLexer.URSH_ASSIGN) : accept(3, JBPLLexer.URSH);
+                    }
+                    return third == '=' ? accept(3, JBPLLexer.RSH_ASSIGN) : accept(2, JBPLLexer.RSH);
+                }
+                return next == '=' ? accept(2, JBPLLexer.GEQ) : accept(1, JBPLLexer.R_ABRACKET);
+            case '.':
+                if (next == '.') {
+                    return input.LA(3) == '<' ? accept(3, JBPLLexer.EXCL_RANGE) : accept(2, JBPLLexer.DOTDOT);
+                }
+                return accept(1, JBPLLexer.DOT);
+            case '(':
+                pushMode(MODE_DEFAULT);
+                return accept(1, JBPLLexer.L_PAREN);
+            case '[':
+                pushMode(MODE_DEFAULT);
+                return accept(1, JBPLLexer.L_SQBRACKET);
+            case '{':
+                pushMode(MODE_DEFAULT);
+                return accept(1, JBPLLexer.L_BRACE);
+            case ')':
+                popModeIfPresent();
+                return accept(1, JBPLLexer.R_PAREN);
+            case ']':
+                popModeIfPresent();
+                return accept(1, JBPLLexer.R_SQBRACKET);
+            case '}':
+                popModeIfPresent();
+                return accept(1, JBPLLexer.R_BRACE);
+            case '~':
+                return accept(1, JBPLLexer.TILDE);
+            case '$':
+                return accept(1, JBPLLexer.DOLLAR);
+            case ';':
+                return accept(1, JBPLLexer.SEMICOLON);
+            case ':':
+                return accept(1, JBPLLexer.COLON);
+            case ',':
+                return accept(1, JBPLLexer.COMMA);
+            case '@':
+                return accept(1, JBPLLexer.AT);
+            default:
+                return accept(1, JBPLLexer.ERROR);
+        }
+    }
+
+    private boolean matches(final int offset, final @NotNull String text) {
+        for (var i = 0; i < text.length(); i++) {
+            if (input.LA(offset + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int scanWord(final int c) {
+        var node = KEYWORDS.getChild(c);
+        var length = 1;
+        for (var next = input.LA(2); isIdentifierPart(next); next = input.LA(++length + 1)) {
+            if (node != null) {
+                node = node.getChild(next);
+            }
+        }
+        // Keywords are only matched when the identifier doesn't continue past them
+        return accept(length, node != null ? node.type : JBPLLexer.IDENT);
+    }
+
+    private int scanDigits(final int offset, final int radix) {
+        var length = offset;
+        while (isDigit(input.LA(length + 1), radix) || input.LA(length + 1) == '_') {
+            length++;
+        }
+        return length;
+    }
+
+    private int scanNumber(final int c) {
+        if (c == '0') {
+            final var radix = getRadix(input.LA(2));
+            if (radix != 10 && isDigit(input.LA(3), radix)) {
+                return accept(scanDigits(3, radix), JBPLLexer.LITERAL_INT);
+            }
+        }
+        var length = scanDigits(1, 10);
+        var type = JBPLLexer.LITERAL_INT;
+        if (input.LA(length + 1) == '.' && isDigit(input.LA(length + 2))) {
+            length = scanDigits(length + 2, 10);
+            type = JBPLLexer.LITERAL_FLOAT_LIKE;
+        }
+        final var exponent = input.LA(length + 1);
+        if ((exponent == 'e' || exponent == 'E') && isDigit(input.LA(length + 2))) {
+            length = scanDigits(length + 2, 10);
+            type = JBPLLexer.LITERAL_FLOAT_LIKE;
+        }
+        return accept(length, type);
+    }
+
+    private int scanChar(final int next) {
+        final var third = input.LA(3);
+        if (next == '\\' && input.LA(4) == '\'') {
+            switch (third) {
+                case 'n', 'r', 'b', 't', '0':
+                    return accept(4, JBPLLexer.LITERAL_CHAR);
+            }
+        }
+        if (next != IntStream.EOF && next != '\'' && third == '\'') {
+            return acceptLines(3, JBPLLexer.LITERAL_CHAR);
+        }
+        return accept(1, JBPLLexer.SINGLE_QUOTE);
+    }
+
+    /**
+     * Block comments are matched like the generated lexer does, which lets nested comments
+     * and the end of the outermost comment compete in order of their priority:
+     * an alternative closing the outermost comment discards all lower priority alternatives,
+     * while higher priority ones may still close it later.
+     * All alternatives are tracked as ordered comment states per nesting depth.
+     * When the comment is never closed, only its opening characters are matched.
+     */
+    private int scanBlockComment() {
+        for (var length = 2; ; length++) { // Comments without nested openings simply end at their first closing
+            final var c = input.LA(length + 1);
+            if (c == IntStream.EOF) {
+                return accept(2, JBPLLexer.UNCLOSED_BLOCK_COMMENT);
+            }
+            final var next = input.LA(length + 2);
+            if (c == '*' && next == '/') {
+                return acceptLines(length + 2, JBPLLexer.BLOCK_COMMENT);
+            }
+            if (c == '/' && next == '*') {
+                return scanNestedBlockComment();
+            }
+        }
+    }
+
+    private int scanNestedBlockComment() {
+        var states = new IntegerList();
+        var nextStates = new IntegerList();
+        var seenStates = new boolean[COMMENT_STATES * 4];
+        addLoopStates(states, seenStates, 1);
+        var length = 2;
+        var acceptedLength = -1;
+        while (!states.isEmpty()) {
+            final var c = input.LA(length + 1);
+            if (c == IntStream.EOF) {
+                break;
+            }
+            Arrays.fill(seenStates, false);
+            nextStates.clear();
+            for (var i = 0; i < states.size(); i++) {
+                final var state = states.get(i);
+                final var depth = state / COMMENT_STATES;
+                switch (state % COMMENT_STATES) {
+                    case COMMENT_CLOSE -> {
+                        if (c == '*') {
+                            seenStates = addState(nextStates, seenStates, depth, COMMENT_CLOSE_STAR);
+                        }
+                    }
+                    case COMMENT_CLOSE_STAR -> {
+                        if (c == '/') {
+                            if (depth == 1) {
+                                acceptedLength = length + 1;
+                                i = states.size(); // Discard all lower priority alternatives
+                            }
+                            else {
+                                seenStates = addLoopStates(nextStates, seenStates, depth - 1);
+                            }
+                        }
+                    }
+                    case COMMENT_OPEN -> {
+                        if (c == '/') {
+                            seenStates = addState(nextStates, seenStates, depth, COMMENT_OPEN_SLASH);
+                        }
+                    }
+                    case COMMENT_OPEN_SLASH -> {
+                        if (c == '*') {
+                            seenStates = addLoopStates(nextStates, seenStates, depth + 1);
+                        }
+                    }
+                    default -> seenStates = addLoopStates(nextStates, seenStates, depth);
+                }
+            }
+            final var previousStates = states;
+            states = nextStates;
+            nextStates = previousStates;
+            length++;
+        }
+        if (acceptedLength == -1) {
+            return accept(2, JBPLLexer.UNCLOSED_BLOCK_COMMENT);
+        }
+        return acceptLines(acceptedLength, JBPLLexer.BLOCK_COMMENT);
+    }
+
+    private static boolean @NotNull [] addLoopStates(final @NotNull IntegerList states,
+                                                     boolean @NotNull [] seenStates,
+                                                     final int depth) {
+        seenStates = addState(states, seenStates, depth, COMMENT_CLOSE);
+        seenStates = addState(states, seenStates, depth, COMMENT_OPEN);
+        return addState(states, seenStates, depth, COMMENT_ANY);
+    }
+
+    private static boolean @NotNull [] addState(final @NotNull IntegerList states,
+                                                boolean @NotNull [] seenStates,
+                                                final int depth,
+                                                final int kind) {
+        final var state = depth * COMMENT_STATES + kind;
+        if (state >= seenStates.length) {
+            seenStates = Arrays.copyOf(seenStates, Math.max(state + 1, seenStates.length << 1));
+        }
+        if (!seenStates[state]) { // Like the lexer ATN, only the first occurrence of a state is kept
+            seenStates[state] = true;
+            states.add(state);
+        }
+        return seenStates;
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    @Override
+    public @NotNull CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public @NotNull String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(final @NotNull TokenFactory<?> factory) {
+        tokenFactory = factory;
+    }
+
+    @Override
+    public @NotNull TokenFactory<?> getTokenFactory() {
+        return tokenFactory;
+    }
+
+    private static final class KeywordNode {
+        private char[] childKeys = new char[0];
+        private KeywordNode[] children = new KeywordNode[0];
+        private int type = JBPLLexer.IDENT;
+
+        public KeywordNode getChild(final int c) {
+            for (var i = 0; i < childKeys.length; i++) {
+                if (childKeys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        public void insert(final @NotNull String @NotNull [] prefixes,
+                           final @NotNull String @NotNull [] suffixes,
+                           final int type) {
+            for (final var prefix : prefixes) {
+                for (final var suffix : suffixes) {
+                    insert(prefix + suffix, type);
+                }
+            }
+        }
+
+        public void insert(final @NotNull String @NotNull [] prefixes, final @NotNull String suffix, final int type) {
+            insert(prefixes, new String[]{suffix}, type);
+        }
+
+        public void insert(final @NotNull String word, final int type) {
+            var node = this;
+            for (var i = 0; i < word.length(); i++) {
+                final var c = word.charAt(i);
+                var child = node.getChild(c);
+                if (child == null) {
+                    child = new KeywordNode();
+                    node.childKeys = Arrays.copyOf(node.childKeys, node.childKeys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.childKeys[node.childKeys.length - 1] = c;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            if (node.type == JBPLLexer.IDENT) { // Like the lexer, the first rule matching a word wins
+                node.type = type;
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.frontend.JBPLParser;
+import dev.karmakrafts.jbpl.frontend.JBPLParser.BodyElementContext;
+import dev.karmakrafts.jbpl.frontend.JBPLParser.FileContext;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the generated parser in two stages.
+ * The first stage uses SLL prediction and bails out on the first error,
+ * which is enough for virtually all valid input and considerably faster.
+ * Only when SLL fails is the input re-parsed using full LL prediction with
+ * the given error listener, so real syntax errors are still reported with
+ * the same diagnostics as before.
+ */
+public final class FileParser {
+    private FileParser() {
+    }
+
+    /**
+     * Creates a filled token stream over a region of already lexed tokens.
+     * The tokens retain the index they have in the whole file, so token ranges
+     * of elements parsed from the region are valid within the whole file.
+     *
+     * @param tokens     The tokens of the region, excluding any EOF token.
+     * @param firstIndex The index of the first token of the region within the whole file.
+     * @param sourceName The name of the file the tokens belong to.
+     * @return A filled token stream which is terminated by a synthetic EOF token.
+     */
+    public static @NotNull CommonTokenStream createRegionStream(final @NotNull List<? extends Token> tokens,
+                                                                final int firstIndex,
+                                                                final @NotNull String sourceName) {
+        final var regionTokens = new ArrayList<Token>(tokens);
+        final var tokenStream = new CommonTokenStream(new ListTokenSource(regionTokens, sourceName));
+        tokenStream.fill();
+        for (var index = 0; index < regionTokens.size(); index++) {
+            // The stream re-numbers tokens from 0, restore their index in the whole file
+            ((WritableToken) regionTokens.get(index)).setTokenIndex(firstIndex + index);
+        }
+        return tokenStream;
+    }
+
+    private static @NotNull JBPLParser createParser(final @NotNull CommonTokenStream tokenStream) {
+        final var parser = new JBPLParser(tokenStream);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        return parser;
+    }
+
+    private static @NotNull FileContext parse(final @NotNull JBPLParser parser,
+                                              final @Nullable ANTLRErrorListener errorListener,
+                                              final @NotNull Runnable onRetry) {
+        try {
+            return parser.file();
+        }
+        catch (ParseCancellationException error) {
+            parser.reset();
+            onRetry.run();
+            if (errorListener != null) {
+                parser.addErrorListener(errorListener);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+            }
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.file();
+        }
+    }
+
+    /**
+     * Parses the given tokens into a parse tree using both stages, only used to compare against {@link #parseLL}.
+     */
+    static @NotNull FileContext parse(final @NotNull CommonTokenStream tokenStream,
+                                      final @NotNull ANTLRErrorListener errorListener) {
+        return parse(createParser(tokenStream), errorListener, () -> {
+        });
+    }
+
+    /**
+     * Parses the given tokens directly into model elements.
+     * Every top level element is converted as soon as the parser moved past it, after which its
+     * parse tree is detached from the file, so no more than two top level parse trees are retained at a time.
+     *
+     * @param tokenStream   The tokens to parse.
+     * @param errorListener The error listener to report syntax errors to,
+     *                      or null to bail out on the first syntax error by throwing
+     *                      a {@link ParseCancellationException}.
+     * @return The top level elements in declaration order.
+     * @throws ParserException If a parsed element could not be converted.
+     */
+    public static @NotNull List<Element> parseElements(final @NotNull CommonTokenStream tokenStream,
+                                                       final @Nullable ANTLRErrorListener errorListener) throws ParserException {
+        final var parser = createParser(tokenStream);
+        final var builder = new ElementBuilder(parser);
+        parser.addParseListener(builder);
+        try {
+            parse(parser, errorListener, builder::reset);
+        }
+        catch (ConversionError error) {
+            throw error.error;
+        }
+        builder.flush();
+        return builder.elements;
+    }
+
+    /**
+     * Parses the given tokens into a parse tree using full LL prediction only, the baseline for {@link #parse}.
+     */
+    static @NotNull FileContext parseLL(final @NotNull CommonTokenStream tokenStream,
+                                        final @NotNull ANTLRErrorListener errorListener) {
+        final var parser = new JBPLParser(tokenStream);
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return parser.file();
+    }
+
+    private static final class ElementBuilder implements ParseTreeListener {
+        private final ArrayList<Element> elements = new ArrayList<>();
+        private final Parser parser;
+        private BodyElementContext pendingElement;
+
+        public ElementBuilder(final @NotNull Parser parser) {
+            this.parser = parser;
+        }
+
+        private static boolean isTopLevel(final @NotNull ParserRuleContext ctx) {
+            return ctx instanceof BodyElementContext && ctx.parent instanceof FileContext;
+        }
+
+        public void reset() {
+            elements.clear();
+            pendingElement = null;
+        }
+
+        /**
+         * Converts the last finished top level element and detaches its parse tree from the file.
+         * Rules are also exited while an exception unwinds the parser, so elements are only
+         * converted once the parser moved past them successfully.
+         */
+        public void flush() throws ParserException {
+            if (pendingElement == null) {
+                return;
+            }
+            final var element = pendingElement;
+            pendingElement = null;
+            if (parser.getNumberOfSyntaxErrors() == 0) { // Trees with syntax errors can't be converted
+                elements.add(ElementParser.parse(element));
+            }
+            final var children = ((ParserRuleContext) element.parent).children;
+            for (var index = children.size() - 1; index >= 0; index--) {
+                if (children.get(index) == element) {
+                    children.remove(index);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void enterEveryRule(final @NotNull ParserRuleContext ctx) {
+            if (!isTopLevel(ctx)) {
+                return;
+            }
+            try {
+                flush();
+            }
+            catch (ParserException error) {
+                throw new ConversionError(error);
+            }
+        }
+
+        @Override
+        public void exitEveryRule(final @NotNull ParserRuleContext ctx) {
+            if (isTopLevel(ctx)) {
+                pendingElement = (BodyElementContext) ctx;
+            }
+        }
+
+        @Override
+        public void visitTerminal(final @NotNull TerminalNode node) {
+            if (node.getParent() instanceof FileContext file) {
+                file.removeLastChild(); // Line breaks between top level elements are never needed
+            }
+        }
+
+        @Override
+        public void visitErrorNode(final @NotNull ErrorNode node) {
+        }
+    }
+
+    private static final class ConversionError extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public final ParserException error;
+
+        public ConversionError(final @NotNull ParserException error) {
+            super(error);
+            this.error = error;
+        }
+    }
+}
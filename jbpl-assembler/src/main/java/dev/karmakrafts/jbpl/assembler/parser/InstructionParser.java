@@ -24,8 +24,10 @@ import dev.karmakrafts.jbpl.assembler.util.ParserUtils;
 import dev.karmakrafts.jbpl.frontend.JBPLParser.*;
 import dev.karmakrafts.jbpl.frontend.JBPLParserBaseVisitor;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public final class InstructionParser extends JBPLParserBaseVisitor<List<Instruction>> {
@@ -38,12 +40,24 @@ public final class InstructionParser extends JBPLParserBaseVisitor<List<Instruct
         // @formatter:off
         final var instruction = ctx.accept(INSTANCE).stream()
             .findFirst()
-            .orElseThrow(() -> new ParserException("Could not parse instruction", null));
+            .orElseThrow(() -> new ParserException(String.format("Could not parse instruction '%s'", ctx.getText()), null));
         // @formatter:on
         instruction.setTokenRange(TokenRange.fromContext(ctx));
         return instruction;
     }
 
+    @Override
+    protected @NotNull List<Instruction> defaultResult() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    protected @NotNull List<Instruction> aggregateResult(final @NotNull List<Instruction> aggregate,
+                                                         final @NotNull List<Instruction> nextResult) {
+        aggregate.addAll(nextResult);
+        return aggregate;
+    }
+
     @Override
     public @NotNull List<Instruction> visitOplessInstruction(final @NotNull OplessInstructionContext ctx) {
         return ExceptionUtils.rethrowUnchecked(() -> {
@@ -58,7 +72,8 @@ public final class InstructionParser extends JBPLParserBaseVisitor<List<Instruct
     @Override
     public List<Instruction> visitStackInstruction(final @NotNull StackInstructionContext ctx) {
         return ExceptionUtils.rethrowUnchecked(() -> {
-            final var opcode = ParserUtils.parseOpcode(ctx.INSN_LOAD());
+            final var loadNode = ctx.INSN_LOAD();
+            final var opcode = ParserUtils.parseOpcode(loadNode != null ? loadNode : ctx.INSN_STORE());
             final var wrappedExpr = ctx.wrappedExpr();
             if (wrappedExpr != null) {
                 return List.of(new StackInstruction(opcode, ExprParser.parse(wrappedExpr)));
@@ -112,6 +127,19 @@ public final class InstructionParser extends JBPLParserBaseVisitor<List<Instruct
         });
     }
 
+    @Override
+    public List<Instruction> visitTypeInstruction(final @NotNull TypeInstructionContext ctx) {
+        return ExceptionUtils.rethrowUnchecked(() -> {
+            final var opcode = ParserUtils.parseOpcode((TerminalNode) ctx.getChild(0));
+            final var classType = ctx.classType();
+            if (classType != null) {
+                final var type = ConstExpr.of(TypeParser.parse(classType), TokenRange.fromContext(classType));
+                return List.of(new TypeInstruction(opcode, type));
+            }
+            return List.of(new TypeInstruction(opcode, ExprParser.parse(ctx.wrappedExpr())));
+        });
+    }
+
     @Override
     public List<Instruction> visitInvokedynamic(final @NotNull InvokedynamicContext ctx) {
         return ExceptionUtils.rethrowUnchecked(() -> {
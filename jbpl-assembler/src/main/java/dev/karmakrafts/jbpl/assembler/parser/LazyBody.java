@@ -0,0 +1,246 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.LazyElements;
+import dev.karmakrafts.jbpl.assembler.model.statement.Statement;
+import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
+import dev.karmakrafts.jbpl.assembler.source.TokenRange;
+import dev.karmakrafts.jbpl.assembler.source.TokenTable;
+import dev.karmakrafts.jbpl.assembler.util.ExceptionUtils;
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.WritableToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The body of a top level macro, function or injector which is kept as a range of tokens
+ * until it is first accessed.
+ * Bodies are hidden from the parser by moving their tokens to the hidden channel before
+ * the file is parsed, so the parser only ever sees an empty body.
+ */
+public final class LazyBody implements LazyElements {
+    private final TokenTable source;
+    private final String sourceName;
+    private final TokenRange braces;
+    private final boolean isStatementBody;
+    private final ANTLRErrorListener errorListener;
+    private final Consumer<ElementContainer> lowering;
+    private Set<String> declaredNames;
+    private boolean hasScannedNames;
+
+    /**
+     * @param source          The tokens of the file the body belongs to.
+     * @param sourceName      The name of the file the body belongs to.
+     * @param braces          The token indices of the opening and closing brace of the body.
+     * @param isStatementBody True if the body may only contain statements, like the body of a function.
+     * @param errorListener   The error listener which reports syntax errors in the body.
+     * @param lowering        Lowers the container after its body was parsed.
+     */
+    public LazyBody(final @NotNull TokenTable source,
+                    final @NotNull String sourceName,
+                    final @NotNull TokenRange braces,
+                    final boolean isStatementBody,
+                    final @NotNull ANTLRErrorListener errorListener,
+                    final @NotNull Consumer<ElementContainer> lowering) {
+        this.source = source;
+        this.sourceName = sourceName;
+        this.braces = braces;
+        this.isStatementBody = isStatementBody;
+        this.errorListener = errorListener;
+        this.lowering = lowering;
+    }
+
+    private static boolean isOpening(final int type) {
+        return type == JBPLLexer.L_BRACE
+            || type == JBPLLexer.L_PAREN
+            || type == JBPLLexer.L_SQBRACKET
+            || type == JBPLLexer.M_CONST_STR_LERP_BEGIN;
+    }
+
+    private static boolean isClosing(final int type) {
+        return type == JBPLLexer.R_BRACE || type == JBPLLexer.R_PAREN || type == JBPLLexer.R_SQBRACKET;
+    }
+
+    private static boolean isDeclarationWithBody(final int type) {
+        return type == JBPLLexer.KW_MACRO || type == JBPLLexer.KW_FUN || type == JBPLLexer.KW_INJECT;
+    }
+
+    private static boolean isNameToken(final int type) {
+        return switch (type) {
+            case JBPLLexer.IDENT, JBPLLexer.KW_TYPE, JBPLLexer.KW_OPCODE, JBPLLexer.KW_VERSION, JBPLLexer.KW_LOCAL,
+                 JBPLLexer.KW_SIGNATURE -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isNameSegment(final int type) {
+        return isNameToken(type) || type == JBPLLexer.DOT || type == JBPLLexer.DOLLAR || type == JBPLLexer.LITERAL_INT;
+    }
+
+    /**
+     * Finds the bodies of all top level macros, functions and injectors and moves
+     * their tokens to the hidden channel, so the parser skips them.
+     * This only matches braces, so the caller has to make sure every returned range
+     * actually turned out to be the body of a declaration after parsing.
+     *
+     * @param tokens All tokens of a file.
+     * @return The token indices of the opening and closing brace of every hidden body.
+     */
+    public static @NotNull List<TokenRange> hideBodies(final @NotNull List<? extends Token> tokens) {
+        final var bodies = new ArrayList<TokenRange>();
+        var depth = 0;
+        var isDeclaration = false;
+        var openingBrace = -1;
+        var previousType = Token.INVALID_TYPE;
+        for (final var token : tokens) {
+            if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            final var type = token.getType();
+            final var isWrappedExpr = previousType == JBPLLexer.DOLLAR; // Computed names like ${...} aren't bodies
+            previousType = type;
+            if (depth == 0 && isDeclarationWithBody(type)) {
+                isDeclaration = true;
+            }
+            else if (isOpening(type)) {
+                if (depth == 0 && isDeclaration && type == JBPLLexer.L_BRACE && !isWrappedExpr) {
+                    openingBrace = token.getTokenIndex();
+                    isDeclaration = false;
+                }
+                depth++;
+            }
+            else if (isClosing(type)) {
+                if (--depth < 0) {
+                    break; // Unbalanced input is left to the parser to report
+                }
+                if (depth == 0 && openingBrace != -1) {
+                    if (token.getTokenIndex() - openingBrace > 1) {
+                        bodies.add(new TokenRange(openingBrace, token.getTokenIndex()));
+                    }
+                    openingBrace = -1;
+                }
+            }
+        }
+        for (final var body : bodies) {
+            for (var index = body.start() + 1; index < body.end(); index++) {
+                ((WritableToken) tokens.get(index)).setChannel(Token.HIDDEN_CHANNEL);
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * Reverts {@link #hideBodies(List)} by restoring the original channel of every token.
+     *
+     * @param tokens All tokens of a file.
+     * @param source The token table which was created before the bodies were hidden.
+     */
+    public static void restoreBodies(final @NotNull List<? extends Token> tokens, final @NotNull TokenTable source) {
+        for (var index = 0; index < tokens.size(); index++) {
+            ((WritableToken) tokens.get(index)).setChannel(source.getChannel(index));
+        }
+    }
+
+    public @NotNull TokenRange getBraces() {
+        return braces;
+    }
+
+    @Override
+    public @NotNull List<? extends Element> parse(final @NotNull ElementContainer container) {
+        final var start = braces.start() + 1;
+        final var tokenStream = FileParser.createRegionStream(source.getTokens(start, braces.end() - 1),
+            start,
+            sourceName);
+        final var elements = ExceptionUtils.rethrowUnchecked(() -> FileParser.parseElements(tokenStream, errorListener));
+        if (isStatementBody) {
+            for (final var element : elements) {
+                if (element instanceof Statement) {
+                    continue;
+                }
+                element.setParent(container);
+                final var message = "Expected statement";
+                throw new RuntimeException(new ParserException(message, SourceDiagnostic.from(element, message)));
+            }
+        }
+        return elements;
+    }
+
+    @Override
+    public void onParsed(final @NotNull ElementContainer container) {
+        lowering.accept(container);
+    }
+
+    @Override
+    public @Nullable Set<String> getDeclaredNames() {
+        if (!hasScannedNames) {
+            declaredNames = scanDeclaredNames();
+            hasScannedNames = true;
+        }
+        return declaredNames;
+    }
+
+    private int nextTokenIndex(int index) {
+        final var end = braces.end();
+        while (++index < end) {
+            if (source.getChannel(index) == Token.DEFAULT_CHANNEL && source.getType(index) != JBPLLexer.NL) {
+                break;
+            }
+        }
+        return index;
+    }
+
+    private @Nullable Set<String> scanDeclaredNames() {
+        final var names = new HashSet<String>();
+        final var end = braces.end();
+        for (var index = nextTokenIndex(braces.start()); index < end; index = nextTokenIndex(index)) {
+            final var type = source.getType(index);
+            if (type != JBPLLexer.KW_DEFINE && type != JBPLLexer.KW_MACRO && type != JBPLLexer.KW_TYPE) {
+                continue;
+            }
+            final var nameIndex = nextTokenIndex(index);
+            final var followingIndex = nextTokenIndex(nameIndex);
+            final var nameType = nameIndex < end ? source.getType(nameIndex) : Token.EOF;
+            final var followingType = followingIndex < end ? source.getType(followingIndex) : Token.EOF;
+            if (type == JBPLLexer.KW_TYPE) {
+                // The keyword also denotes types and type literals, which are never followed by an assignment
+                if (isNameToken(nameType) && followingType == JBPLLexer.EQ) {
+                    names.add(source.getText(nameIndex));
+                }
+                else if (nameType == JBPLLexer.L_PAREN || (isNameToken(nameType) && isNameSegment(followingType))) {
+                    return null; // Could be an alias with a computed or compound name
+                }
+                continue;
+            }
+            final var isName = followingType == JBPLLexer.COLON
+                || followingType == JBPLLexer.L_PAREN
+                || followingType == JBPLLexer.L_SQBRACKET;
+            if (!isNameToken(nameType) || !isName) {
+                return null; // Computed or compound names can't be determined without evaluating them
+            }
+            names.add(source.getText(nameIndex));
+        }
+        return names;
+    }
+}
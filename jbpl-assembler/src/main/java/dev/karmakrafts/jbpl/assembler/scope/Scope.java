@@ -19,6 +19,7 @@ package dev.karmakrafts.jbpl.assembler.scope;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
@@ -27,7 +28,7 @@ import java.util.function.Function;
 public record Scope( // @formatter:off
     @Nullable Scope parent,
     @NotNull ScopeOwner owner
-) { // @formatter:on
+) implements Serializable { // @formatter:on
     /**
      * Perform a depth-first search in the current scope going outwards,
      * traversing the parent hierarchy of all scopes until the top level scope is reached.
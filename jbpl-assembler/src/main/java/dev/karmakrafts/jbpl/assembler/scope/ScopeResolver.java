@@ -16,8 +16,10 @@
 
 package dev.karmakrafts.jbpl.assembler.scope;
 
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
 import dev.karmakrafts.jbpl.assembler.model.element.Element;
 import dev.karmakrafts.jbpl.assembler.model.element.ElementContainer;
+import dev.karmakrafts.jbpl.assembler.model.element.NamedElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -73,6 +75,56 @@ public final class ScopeResolver {
         });
     }
 
+    public static <E extends NamedElement> @NotNull List<E> resolveAllLocally(final @NotNull Scope scope,
+                                                                              final @NotNull Class<E> type,
+                                                                              final @NotNull String name,
+                                                                              final @NotNull EvaluationContext context,
+                                                                              final @NotNull Predicate<E> filter) {
+        if (!(scope.owner() instanceof ElementContainer elementContainer)) {
+            return List.of();
+        }
+        return elementContainer.findNamedElements(type, name, context, filter);
+    }
+
+    public static <E extends NamedElement> @NotNull List<E> resolveAll(final @NotNull Scope scope,
+                                                                       final @NotNull Class<E> type,
+                                                                       final @NotNull String name,
+                                                                       final @NotNull EvaluationContext context,
+                                                                       final @NotNull Predicate<E> filter) {
+        return scope.findAll(currentScope -> {
+            final var owner = currentScope.owner();
+            if (!(owner instanceof ElementContainer ownerElement)) {
+                return null;
+            }
+            return ownerElement.findNamedElement(type, name, context, filter).orElse(null);
+        });
+    }
+
+    public static <E extends NamedElement> @Nullable E resolveLocally(final @NotNull Scope scope,
+                                                                      final @NotNull Class<E> type,
+                                                                      final @NotNull String name,
+                                                                      final @NotNull EvaluationContext context,
+                                                                      final @NotNull Predicate<E> filter) {
+        if (!(scope.owner() instanceof ElementContainer elementContainer)) {
+            return null;
+        }
+        return elementContainer.findNamedElement(type, name, context, filter).orElse(null);
+    }
+
+    public static <E extends NamedElement> @Nullable E resolve(final @NotNull Scope scope,
+                                                               final @NotNull Class<E> type,
+                                                               final @NotNull String name,
+                                                               final @NotNull EvaluationContext context,
+                                                               final @NotNull Predicate<E> filter) {
+        return scope.find(currentScope -> {
+            final var owner = currentScope.owner();
+            if (!(owner instanceof ElementContainer ownerElement)) {
+                return null;
+            }
+            return ownerElement.findNamedElement(type, name, context, filter).orElse(null);
+        });
+    }
+
     public <E extends Element> @Nullable E resolveLocally(final @NotNull Class<E> type,
                                                           final @NotNull Predicate<E> filter) {
         return resolveLocally(scope, type, filter);
@@ -91,4 +143,32 @@ public final class ScopeResolver {
                                                            final @NotNull Predicate<E> filter) {
         return resolveAll(scope, type, filter);
     }
+
+    public <E extends NamedElement> @Nullable E resolveLocally(final @NotNull Class<E> type,
+                                                               final @NotNull String name,
+                                                               final @NotNull EvaluationContext context,
+                                                               final @NotNull Predicate<E> filter) {
+        return resolveLocally(scope, type, name, context, filter);
+    }
+
+    public <E extends NamedElement> @Nullable E resolve(final @NotNull Class<E> type,
+                                                        final @NotNull String name,
+                                                        final @NotNull EvaluationContext context,
+                                                        final @NotNull Predicate<E> filter) {
+        return resolve(scope, type, name, context, filter);
+    }
+
+    public <E extends NamedElement> @NotNull List<E> resolveAllLocally(final @NotNull Class<E> type,
+                                                                       final @NotNull String name,
+                                                                       final @NotNull EvaluationContext context,
+                                                                       final @NotNull Predicate<E> filter) {
+        return resolveAllLocally(scope, type, name, context, filter);
+    }
+
+    public <E extends NamedElement> @NotNull List<E> resolveAll(final @NotNull Class<E> type,
+                                                                final @NotNull String name,
+                                                                final @NotNull EvaluationContext context,
+                                                                final @NotNull Predicate<E> filter) {
+        return resolveAll(scope, type, name, context, filter);
+    }
 }
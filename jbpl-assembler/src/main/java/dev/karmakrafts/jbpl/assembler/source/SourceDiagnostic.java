@@ -56,19 +56,7 @@ public final class SourceDiagnostic {
                                                  final @NotNull Token token,
                                                  final @Nullable String message) {
         final var tokenRange = TokenRange.fromToken(token);
-        final var line = token.getLine();
-        // @formatter:off
-        final var lineTokenIndices = file.getTokens().stream()
-            .filter(t -> t.getLine() == line)
-            .toList();
-        final var lineStartToken = lineTokenIndices.isEmpty()
-            ? token
-            : lineTokenIndices.get(0);
-        final var lineEndToken = lineTokenIndices.isEmpty()
-            ? token
-            : lineTokenIndices.get(lineTokenIndices.size() - 1);
-        // @formatter:on
-        final var lineTokenRange = TokenRange.fromTokens(lineStartToken, lineEndToken);
+        final var lineTokenRange = Objects.requireNonNullElse(file.source.getLineRange(token.getLine()), tokenRange);
         final var highlight = new Highlight(file.getSourceRange(tokenRange), message);
         return new SourceDiagnostic(file, lineTokenRange, List.of(highlight));
     }
@@ -165,7 +153,8 @@ public final class SourceDiagnostic {
                 builder.append('\n');
                 builder.append(" ".repeat(connOffset));
                 builder.append(CORNER_CHAR);
-                builder.append(H_BORDER_CHAR.repeat(lineLength - (start + highlightLength + 1) - 1));
+                // Highlights ending at the end of the line leave no room for a border
+                builder.append(H_BORDER_CHAR.repeat(Math.max(0, lineLength - (start + highlightLength + 1) - 1)));
                 builder.append(' ');
                 builder.append(message);
                 return;
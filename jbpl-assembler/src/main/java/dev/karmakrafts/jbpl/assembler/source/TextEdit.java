@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.source;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * A single text edit, replacing {@code removedLength} characters at {@code offset} with {@code insertedText}.
+ * Offsets are in UTF-16 code units, like the indices of a {@link String}.
+ */
+public record TextEdit(int offset, int removedLength, @NotNull String insertedText) {
+    public static @NotNull TextEdit insert(final int offset, final @NotNull String text) {
+        return new TextEdit(offset, 0, text);
+    }
+
+    public static @NotNull TextEdit remove(final int offset, final int length) {
+        return new TextEdit(offset, length, "");
+    }
+
+    public int end() {
+        return offset + removedLength;
+    }
+
+    public int getLengthDelta() {
+        return insertedText.length() - removedLength;
+    }
+
+    public @NotNull String apply(final @NotNull String source) {
+        Objects.checkFromIndexSize(offset, removedLength, source.length());
+        return source.substring(0, offset) + insertedText + source.substring(end());
+    }
+}
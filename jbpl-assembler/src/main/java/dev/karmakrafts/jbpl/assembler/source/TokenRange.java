@@ -21,9 +21,10 @@ import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serializable;
 import java.util.List;
 
-public record TokenRange(int start, int end) {
+public record TokenRange(int start, int end) implements Serializable {
     public static final int UNDEFINED_INDEX = -1;
     public static final int SYNTHETIC_INDEX = -2;
     public static final TokenRange UNDEFINED = new TokenRange(UNDEFINED_INDEX, UNDEFINED_INDEX);
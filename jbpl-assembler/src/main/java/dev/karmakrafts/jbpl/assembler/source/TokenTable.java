@@ -0,0 +1,275 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.source;
+
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.Token;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Columnar storage for the tokens of a source file.
+ * Instead of keeping one {@link Token} object per token alive, every property is stored
+ * in a parallel int array and all token texts share a single string.
+ * {@link Token} instances are only materialized on demand, which is limited to diagnostics.
+ */
+public final class TokenTable {
+    public static final TokenTable EMPTY = new TokenTable(0,
+        new int[0],
+        new int[0],
+        new int[0],
+        new int[0],
+        new int[0],
+        new int[0],
+        new int[]{0},
+        "");
+
+    private final int size;
+    private final int[] types;
+    private final int[] channels;
+    private final int[] startIndices;
+    private final int[] stopIndices;
+    private final int[] lines;
+    private final int[] columns;
+    private final int[] textOffsets; // Has size + 1 entries, the text of token i ends where the text of i + 1 begins
+    private final String text;
+
+    private TokenTable(final int size,
+                       final int[] types,
+                       final int[] channels,
+                       final int[] startIndices,
+                       final int[] stopIndices,
+                       final int[] lines,
+                       final int[] columns,
+                       final int[] textOffsets,
+                       final @NotNull String text) {
+        this.size = size;
+        this.types = types;
+        this.channels = channels;
+        this.startIndices = startIndices;
+        this.stopIndices = stopIndices;
+        this.lines = lines;
+        this.columns = columns;
+        this.textOffsets = textOffsets;
+        this.text = text;
+    }
+
+    public static @NotNull TokenTable of(final @NotNull List<? extends Token> tokens) {
+        final var size = tokens.size();
+        final var types = new int[size];
+        final var channels = new int[size];
+        final var startIndices = new int[size];
+        final var stopIndices = new int[size];
+        final var lines = new int[size];
+        final var columns = new int[size];
+        final var textOffsets = new int[size + 1];
+        final var text = new StringBuilder();
+        for (var index = 0; index < size; index++) {
+            final var token = tokens.get(index);
+            types[index] = token.getType();
+            channels[index] = token.getChannel();
+            startIndices[index] = token.getStartIndex();
+            stopIndices[index] = token.getStopIndex();
+            lines[index] = token.getLine();
+            columns[index] = token.getCharPositionInLine();
+            textOffsets[index] = text.length();
+            final var tokenText = token.getText();
+            if (tokenText != null) {
+                text.append(tokenText);
+            }
+        }
+        textOffsets[size] = text.length();
+        return new TokenTable(size, types, channels, startIndices, stopIndices, lines, columns, textOffsets, text.toString());
+    }
+
+    public static @NotNull TokenTable read(final @NotNull DataInput in) throws IOException {
+        final var size = in.readInt();
+        final var types = readInts(in, size);
+        final var channels = readInts(in, size);
+        final var startIndices = readInts(in, size);
+        final var stopIndices = readInts(in, size);
+        final var lines = readInts(in, size);
+        final var columns = readInts(in, size);
+        final var textOffsets = readInts(in, size + 1);
+        final var text = new char[in.readInt()];
+        for (var index = 0; index < text.length; index++) {
+            text[index] = in.readChar();
+        }
+        return new TokenTable(size,
+            types,
+            channels,
+            startIndices,
+            stopIndices,
+            lines,
+            columns,
+            textOffsets,
+            new String(text));
+    }
+
+    private static int[] readInts(final @NotNull DataInput in, final int count) throws IOException {
+        final var values = new int[count];
+        for (var index = 0; index < count; index++) {
+            values[index] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeInts(final @NotNull DataOutput out, final int[] values) throws IOException {
+        for (final var value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public void write(final @NotNull DataOutput out) throws IOException {
+        out.writeInt(size);
+        writeInts(out, types);
+        writeInts(out, channels);
+        writeInts(out, startIndices);
+        writeInts(out, stopIndices);
+        writeInts(out, lines);
+        writeInts(out, columns);
+        writeInts(out, textOffsets);
+        out.writeInt(text.length());
+        out.writeChars(text);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getType(final int index) {
+        return types[index];
+    }
+
+    public int getChannel(final int index) {
+        return channels[index];
+    }
+
+    public int getStartIndex(final int index) {
+        return startIndices[index];
+    }
+
+    public int getStopIndex(final int index) {
+        return stopIndices[index];
+    }
+
+    public int getLine(final int index) {
+        return lines[index];
+    }
+
+    public int getColumn(final int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param index The index of the token.
+     * @return The offset of the first character of the given token in the source text.
+     */
+    public int getOffset(final int index) {
+        return textOffsets[index];
+    }
+
+    /**
+     * @param index The index of the token.
+     * @return The offset right after the last character of the given token in the source text.
+     */
+    public int getEndOffset(final int index) {
+        return textOffsets[index + 1];
+    }
+
+    /**
+     * Reconstructs the source text from the table.
+     * This is lossless since the lexer doesn't skip any input, whitespace is put on the hidden channel instead.
+     */
+    public @NotNull String getSourceText() {
+        if (size > 0 && types[size - 1] == Token.EOF) {
+            return text.substring(0, textOffsets[size - 1]);
+        }
+        return text;
+    }
+
+    public int getTextLength(final int index) {
+        return textOffsets[index + 1] - textOffsets[index];
+    }
+
+    public @NotNull String getText(final int index) {
+        return text.substring(textOffsets[index], textOffsets[index + 1]);
+    }
+
+    /**
+     * @param line The 1-based line number to look up.
+     * @return The range of all tokens on the given line, or null if there are none.
+     */
+    public @Nullable TokenRange getLineRange(final int line) {
+        final var start = Arrays.binarySearch(lines, 0, size, line); // Lines are in ascending order
+        if (start < 0) {
+            return null;
+        }
+        var first = start;
+        while (first > 0 && lines[first - 1] == line) {
+            first--;
+        }
+        var last = start;
+        while (last < size - 1 && lines[last + 1] == line) {
+            last++;
+        }
+        return new TokenRange(first, last);
+    }
+
+    public @NotNull Token get(final int index) {
+        final var token = new CommonToken(types[index], getText(index));
+        token.setChannel(channels[index]);
+        token.setStartIndex(startIndices[index]);
+        token.setStopIndex(stopIndices[index]);
+        token.setLine(lines[index]);
+        token.setCharPositionInLine(columns[index]);
+        token.setTokenIndex(index);
+        return token;
+    }
+
+    /**
+     * @param start The index of the first token in the returned list.
+     * @param end The index of the last token in the returned list (inclusive).
+     * @return A list view which materializes tokens as they are accessed.
+     */
+    public @NotNull List<Token> getTokens(final int start, final int end) {
+        return new AbstractList<>() {
+            @Override
+            public Token get(final int index) {
+                Objects.checkIndex(index, size());
+                return TokenTable.this.get(start + index);
+            }
+
+            @Override
+            public int size() {
+                return end - start + 1;
+            }
+        };
+    }
+}
@@ -16,7 +16,9 @@
 
 package dev.karmakrafts.jbpl.assembler.util;
 
-public record Pair<L, R>(L left, R right) implements Copyable<Pair<L, R>> {
+import java.io.Serializable;
+
+public record Pair<L, R>(L left, R right) implements Copyable<Pair<L, R>>, Serializable {
     @Override
     public Pair<L, R> copy() {
         return new Pair<>(Copyable.copyIfPossible(left), Copyable.copyIfPossible(right));
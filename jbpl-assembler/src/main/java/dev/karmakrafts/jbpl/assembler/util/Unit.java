@@ -16,9 +16,19 @@
 
 package dev.karmakrafts.jbpl.assembler.util;
 
-public final class Unit {
+import java.io.Serial;
+import java.io.Serializable;
+
+public final class Unit implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public static final Unit INSTANCE = new Unit();
 
     private Unit() {
     }
+
+    private Object readResolve() {
+        return INSTANCE; // Keep identity comparisons working for deserialized models
+    }
 }
@@ -24,7 +24,10 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
 public final class IncludeValidationVisitor extends ScopeAwareElementVisitor {
-    public static final IncludeValidationVisitor INSTANCE = new IncludeValidationVisitor();
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are validated when they are parsed
+    }
 
     @Override
     public @NotNull Statement visitInclude(final @NotNull IncludeStatement includeStatement) {
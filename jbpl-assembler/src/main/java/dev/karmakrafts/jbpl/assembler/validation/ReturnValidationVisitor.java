@@ -25,16 +25,25 @@ import dev.karmakrafts.jbpl.assembler.scope.ScopeAwareElementVisitor;
 import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 public final class ReturnValidationVisitor extends ScopeAwareElementVisitor {
-    public static final ReturnValidationVisitor INSTANCE = new ReturnValidationVisitor();
 
-    private ReturnValidationVisitor() {
+    public ReturnValidationVisitor() {
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are validated when they are parsed
     }
 
     @Override
     public @NotNull Declaration visitMacro(final @NotNull MacroDecl macroDecl) {
+        if (macroDecl.isLazy()) {
+            return super.visitMacro(macroDecl);
+        }
         final var checker = new Checker();
         checker.restoreFrom(scopeStack);
         macroDecl.acceptChildren(checker);
@@ -42,7 +51,8 @@ public final class ReturnValidationVisitor extends ScopeAwareElementVisitor {
     }
 
     private static final class Checker extends ScopeAwareElementVisitor {
-        private final HashSet<Scope> scopes = new HashSet<>();
+        // Scopes are compared by identity, hashing them would hash the entire tree of their owners
+        private final Set<Scope> scopes = Collections.newSetFromMap(new IdentityHashMap<>());
 
         @Override
         public @NotNull Statement visitStatement(final @NotNull Statement statement) {
@@ -23,10 +23,14 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
 public final class VersionValidationVisitor implements ElementVisitor {
-    public static final VersionValidationVisitor INSTANCE = new VersionValidationVisitor();
     private boolean isVersionSet = false;
 
-    private VersionValidationVisitor() {
+    public VersionValidationVisitor() {
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are validated when they are parsed
     }
 
     @Override
@@ -27,9 +27,13 @@ import dev.karmakrafts.jbpl.assembler.source.SourceDiagnostic;
 import org.jetbrains.annotations.NotNull;
 
 public final class VisibilityValidationVisitor extends ScopeAwareElementVisitor {
-    public static final VisibilityValidationVisitor INSTANCE = new VisibilityValidationVisitor();
 
-    private VisibilityValidationVisitor() {
+    public VisibilityValidationVisitor() {
+    }
+
+    @Override
+    public boolean visitsLazyBodies() {
+        return false; // Lazy bodies are validated when they are parsed
     }
 
     @Override
@@ -23,6 +23,7 @@ module dev.karmakrafts.jbpl.assembler {
     requires org.fusesource.jansi;
 
     exports dev.karmakrafts.jbpl.assembler;
+    exports dev.karmakrafts.jbpl.assembler.cache;
     exports dev.karmakrafts.jbpl.assembler.parser;
     exports dev.karmakrafts.jbpl.assembler.util;
     exports dev.karmakrafts.jbpl.assembler.lower;
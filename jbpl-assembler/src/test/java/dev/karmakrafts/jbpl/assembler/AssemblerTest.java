@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler;
+
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class AssemblerTest {
+    private final ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private @NotNull Assembler createAssembler() {
+        return new Assembler(path -> {
+            requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            final var stream = AssemblerTest.class.getResourceAsStream(String.format("/box/%s", path));
+            return Channels.newChannel(stream);
+        }, info -> {
+        }, error -> {
+        });
+    }
+
+    @Test
+    public void prefetchIncludeGraph() throws ParserException, ValidationException {
+        final var assembler = createAssembler();
+        assembler.lowerAndCreateContext("include_recursive.jbpl", name -> new ClassNode());
+        Assertions.assertEquals(Set.of("include_recursive.jbpl",
+            "include_global.jbpl",
+            "intrinsics_global.jbpl",
+            "macro_call_global.jbpl",
+            "macro_call_local.jbpl",
+            "reference_argument.jbpl",
+            "reference_global.jbpl",
+            "reference_intrinsic.jbpl",
+            "reference_local.jbpl"), requests.keySet());
+        for (final Map.Entry<String, AtomicInteger> entry : requests.entrySet()) {
+            Assertions.assertEquals(1, entry.getValue().get(), entry.getKey());
+        }
+    }
+
+    @Test
+    public void concurrentRequestsParseOnce() throws InterruptedException, ExecutionException {
+        final var assembler = createAssembler();
+        final var threadCount = 8;
+        final var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final var start = new CountDownLatch(1);
+            final var futures = new ArrayList<Future<AssemblyFile>>();
+            for (var i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return assembler.getOrParseFile("casting.jbpl");
+                }));
+            }
+            start.countDown();
+            final var file = futures.get(0).get();
+            for (final var future : futures) {
+                Assertions.assertSame(file, future.get());
+            }
+            Assertions.assertEquals(1, requests.get("casting.jbpl").get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
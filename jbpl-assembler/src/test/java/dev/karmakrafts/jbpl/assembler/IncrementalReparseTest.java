@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.source.TextEdit;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+public final class IncrementalReparseTest {
+    private static final String SOURCE = """
+        // Values
+        define x: i32 = 1
+        define y: i32 = x + 2
+
+        macro add(a: i32, b: i32): i32 {
+            return a + b
+        }
+
+        // Checks */
+        assert (y == 3)
+        assert (add(x, y) == 4)
+        """;
+
+    private final HashMap<String, String> sources = new HashMap<>();
+
+    private @NotNull Assembler createAssembler() {
+        return new Assembler(path -> {
+            final var source = sources.get(path);
+            return Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        }, info -> {
+        }, error -> {
+        });
+    }
+
+    private @NotNull AssemblyFile parseFresh(final @NotNull String source) throws ParserException {
+        sources.put("fresh.jbpl", source);
+        return createAssembler().getOrParseFile("fresh.jbpl");
+    }
+
+    private static void assertSameElements(final @NotNull AssemblyFile expected, final @NotNull AssemblyFile actual) {
+        Assertions.assertEquals(expected.source.getSourceText(), actual.source.getSourceText());
+        Assertions.assertEquals(expected.getTokenRange(), actual.getTokenRange());
+        final var expectedElements = expected.getElements();
+        final var actualElements = actual.getElements();
+        Assertions.assertEquals(expectedElements.size(), actualElements.size());
+        for (var i = 0; i < expectedElements.size(); i++) {
+            assertSameElement(expectedElements.get(i), actualElements.get(i));
+            Assertions.assertSame(actual, actualElements.get(i).getParent());
+        }
+    }
+
+    private static void assertSameElement(final @NotNull Element expected, final @NotNull Element actual) {
+        Assertions.assertEquals(expected.getClass(), actual.getClass());
+        Assertions.assertEquals(expected.getTokenRange(), actual.getTokenRange(), expected.toString());
+        Assertions.assertEquals(expected.getSourceRange(), actual.getSourceRange(), expected.toString());
+        if (expected instanceof DefineStatement expectedDefine && actual instanceof DefineStatement actualDefine) {
+            assertSameElement(expectedDefine.getValue(), actualDefine.getValue());
+        }
+    }
+
+    private @NotNull AssemblyFile reparse(final @NotNull TextEdit edit) throws ParserException {
+        sources.put("test.jbpl", SOURCE);
+        final var assembler = createAssembler();
+        final var file = assembler.getOrParseFile("test.jbpl");
+        final var elements = file.getElements();
+        final var firstElement = elements.get(0);
+        final var lastElement = elements.get(elements.size() - 1);
+        final var result = assembler.reparseFile(file, edit);
+        Assertions.assertSame(file, result); // All edits in this test can be handled incrementally
+        Assertions.assertSame(result, assembler.getOrParseFile("test.jbpl"));
+        assertSameElements(parseFresh(edit.apply(SOURCE)), result);
+        if (edit.offset() > SOURCE.indexOf("define x")) {
+            Assertions.assertSame(firstElement, result.getElements().get(0));
+        }
+        if (edit.end() < SOURCE.indexOf("assert (add")) {
+            Assertions.assertSame(lastElement, result.getElements().get(result.getElements().size() - 1));
+        }
+        return result;
+    }
+
+    @Test
+    public void sourceTextIsLossless() throws ParserException {
+        Assertions.assertEquals(SOURCE, parseFresh(SOURCE).source.getSourceText());
+    }
+
+    @Test
+    public void editElement() throws ParserException {
+        final var offset = SOURCE.indexOf("x + 2") + 4;
+        reparse(new TextEdit(offset, 1, "20"));
+    }
+
+    @Test
+    public void insertElement() throws ParserException {
+        final var offset = SOURCE.indexOf("define y");
+        final var file = reparse(TextEdit.insert(offset, "define z: i32 = 5\n"));
+        Assertions.assertEquals(parseFresh(SOURCE).getElements().size() + 1, file.getElements().size());
+    }
+
+    @Test
+    public void removeElement() throws ParserException {
+        final var offset = SOURCE.indexOf("macro add");
+        final var length = SOURCE.indexOf("assert (y") - offset;
+        reparse(TextEdit.remove(offset, length));
+    }
+
+    @Test
+    public void editMacroBody() throws ParserException {
+        final var offset = SOURCE.indexOf("a + b") + 2;
+        reparse(new TextEdit(offset, 1, "*"));
+    }
+
+    @Test
+    public void syntaxErrorIsReported() throws ParserException {
+        sources.put("test.jbpl", SOURCE);
+        final var assembler = createAssembler();
+        final var file = assembler.getOrParseFile("test.jbpl");
+        Assertions.assertThrows(ParserException.class,
+            () -> assembler.reparseFile(file, TextEdit.insert(SOURCE.indexOf("x + 2") + 5, " +")));
+    }
+
+    @Test
+    public void fallBackToFullReparse() throws ParserException {
+        sources.put("test.jbpl", SOURCE);
+        final var assembler = createAssembler();
+        final var file = assembler.getOrParseFile("test.jbpl");
+        // Opening a block comment turns everything up to the next */ into a comment
+        final var edit = TextEdit.insert(SOURCE.indexOf("define y"), "/*");
+        final var result = assembler.reparseFile(file, edit);
+        Assertions.assertNotSame(file, result);
+        assertSameElements(parseFresh(edit.apply(SOURCE)), result);
+    }
+
+    @Test
+    public void evaluateEditedFile() throws ParserException, ValidationException, EvaluationException {
+        sources.put("test.jbpl", SOURCE);
+        final var assembler = createAssembler();
+        final var file = assembler.getOrParseFile("test.jbpl");
+        final var offset = SOURCE.indexOf("= 1") + 2;
+        assembler.reparseFile(file, new TextEdit(offset, 1, "2"));
+        final var assertOffset = file.source.getSourceText().indexOf("y == 3") + 5;
+        assembler.reparseFile(file, new TextEdit(assertOffset, 1, "4"));
+        final var assertAddOffset = file.source.getSourceText().indexOf("y) == 4") + 6;
+        assembler.reparseFile(file, new TextEdit(assertAddOffset, 1, "6"));
+        final var context = assembler.lowerAndCreateContext("test.jbpl", name -> new ClassNode());
+        context.file.evaluate(context);
+    }
+}
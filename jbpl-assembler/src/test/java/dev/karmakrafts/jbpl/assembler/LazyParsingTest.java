@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler;
+
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.assembler.model.element.ElementVisitor;
+import dev.karmakrafts.jbpl.assembler.model.expr.Expr;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+public final class LazyParsingTest {
+    private static final List<String> BOX_FILES = List.of("arithmetic.jbpl",
+        "casting.jbpl",
+        "define_values.jbpl",
+        "for_loops.jbpl",
+        "macro_call_arguments.jbpl",
+        "macro_call_global.jbpl",
+        "macro_jit.jbpl",
+        "reference_intrinsic.jbpl",
+        "static_binding.jbpl",
+        "strings.jbpl");
+
+    private final HashMap<String, String> sources = new HashMap<>();
+
+    private static @NotNull String readBoxFile(final @NotNull String name) throws IOException {
+        try (final InputStream stream = LazyParsingTest.class.getResourceAsStream(String.format("/box/%s", name))) {
+            Assertions.assertNotNull(stream, name);
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private @NotNull Assembler createAssembler(final boolean isLazyParsing) {
+        final var assembler = new Assembler(path -> {
+            final var source = sources.get(path);
+            return Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        }, info -> {
+        }, error -> {
+        });
+        assembler.setLazyParsing(isLazyParsing);
+        return assembler;
+    }
+
+    private static @NotNull MacroDecl findMacro(final @NotNull AssemblyFile file, final @NotNull String name) {
+        return file.findElement(MacroDecl.class, macro -> name.equals(macro.getConstName())).orElseThrow();
+    }
+
+    private static @NotNull List<String> describeTree(final @NotNull AssemblyFile file) {
+        final var description = new ArrayList<String>();
+        file.accept(new ElementVisitor() {
+            @Override
+            public @NotNull Element visitElement(final @NotNull Element element) {
+                description.add(describe(element));
+                return ElementVisitor.super.visitElement(element);
+            }
+
+            @Override
+            public @NotNull Expr visitExpr(final @NotNull Expr expr) {
+                description.add(describe(expr));
+                return ElementVisitor.super.visitExpr(expr);
+            }
+        });
+        return description;
+    }
+
+    private static @NotNull String describe(final @NotNull Element element) {
+        final var range = element.getTokenRange();
+        return String.format("%s[%d, %d]", element.getClass().getSimpleName(), range.start(), range.end());
+    }
+
+    @Test
+    public void lazyTreeMatchesEagerTree() throws IOException, ParserException {
+        for (final var name : BOX_FILES) {
+            sources.put(name, readBoxFile(name));
+            final var eagerFile = createAssembler(false).getOrParseFile(name);
+            final var lazyFile = createAssembler(true).getOrParseFile(name);
+            Assertions.assertEquals(describeTree(eagerFile), describeTree(lazyFile), name);
+        }
+    }
+
+    @Test
+    public void unusedBodiesAreNotParsed() throws ParserException, ValidationException, EvaluationException {
+        sources.put("test.jbpl", """
+            private macro used(): i32 {
+                ^return 1
+            }
+
+            private macro unused(): i32 {
+                ^return 2
+            }
+
+            assert used() == 1
+            """);
+        final var assembler = createAssembler(true);
+        final var file = assembler.getOrParseFile("test.jbpl");
+        Assertions.assertTrue(findMacro(file, "used").isLazy());
+        Assertions.assertTrue(findMacro(file, "unused").isLazy());
+        final var context = assembler.lowerAndCreateContext("test.jbpl", className -> new ClassNode());
+        context.file.evaluate(context);
+        Assertions.assertFalse(findMacro(context.file, "used").isLazy());
+        Assertions.assertTrue(findMacro(context.file, "unused").isLazy());
+    }
+
+    @Test
+    public void syntaxErrorsAreReportedOnFirstUse() throws ParserException, ValidationException, EvaluationException {
+        final var source = """
+            private macro broken() {
+                define =
+            }
+            """;
+        sources.put("test.jbpl", source);
+        Assertions.assertThrows(ParserException.class, () -> createAssembler(false).getOrParseFile("test.jbpl"));
+
+        sources.put("test.jbpl", source);
+        final var assembler = createAssembler(true);
+        final var context = assembler.lowerAndCreateContext("test.jbpl", className -> new ClassNode());
+        context.file.evaluate(context); // Never called, so the body is never parsed
+        final var error = Assertions.assertThrows(RuntimeException.class,
+            () -> findMacro(context.file, "broken").getElements());
+        Assertions.assertInstanceOf(ParserException.class, error.getCause());
+    }
+
+    @Test
+    public void onlyDeclarationBodiesAreDeferred() throws ParserException {
+        sources.put("test.jbpl", """
+            define count: i32 = 0
+            for(i in 0..<3) {
+                assert i < 3
+            }
+            private macro ${"name_${count}"}(value: i32) {
+                assert value == 0
+            }
+            """);
+        final var lazyFile = createAssembler(true).getOrParseFile("test.jbpl");
+        final var eagerFile = createAssembler(false).getOrParseFile("test.jbpl");
+        // @formatter:off
+        final var lazyMacros = lazyFile.getElements().stream()
+            .filter(element -> element instanceof MacroDecl macro && macro.isLazy())
+            .count();
+        // @formatter:on
+        Assertions.assertEquals(1, lazyMacros);
+        Assertions.assertEquals(describeTree(eagerFile), describeTree(lazyFile));
+    }
+
+    @Test
+    public void declaredNamesAreScannedWithoutParsing() throws ParserException {
+        sources.put("test.jbpl", """
+            private macro constant() {
+                define a: i32 = 1
+                type b = i32
+                macro c(value: type): type {
+                    ^return value
+                }
+            }
+
+            private macro computed() {
+                define (\"d\"): i32 = 1
+            }
+            """);
+        final var file = createAssembler(true).getOrParseFile("test.jbpl");
+        final var constant = findMacro(file, "constant");
+        final var computed = findMacro(file, "computed");
+        Assertions.assertEquals(Set.of("a", "b", "c"), constant.getLazyElements().getDeclaredNames());
+        Assertions.assertNull(computed.getLazyElements().getDeclaredNames());
+        Assertions.assertTrue(constant.isLazy());
+    }
+}
@@ -17,13 +17,21 @@
 package dev.karmakrafts.jbpl.assembler.box;
 
 import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.cache.ModelCache;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationEngine;
 import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
 import dev.karmakrafts.jbpl.assembler.parser.ParserException;
 import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 public abstract class AssemblerBoxTest {
@@ -37,19 +45,95 @@ public abstract class AssemblerBoxTest {
 
     @Test
     public void invoke() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.INTERPRETER));
+    }
+
+    @Test
+    public void invokeCompiled() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.CLOSURE));
+    }
+
+    @Test
+    public void invokeTiered() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.TIERED));
+    }
+
+    @Test
+    public void invokeCached(final @TempDir Path cacheDirectory) throws ParserException, ValidationException, EvaluationException, IOException {
+        final var options = Options.of(EvaluationEngine.INTERPRETER).withCache(new ModelCache(cacheDirectory));
+        invoke(options); // Populate the cache
+        try (final var entries = Files.list(cacheDirectory)) {
+            Assertions.assertTrue(entries.findAny().isPresent());
+        }
+        invoke(options); // Load all files from the cache
+    }
+
+    @Test
+    public void invokeLazy() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.INTERPRETER).withLazyParsing(true));
+    }
+
+    @Test
+    public void invokeUnfolded() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.INTERPRETER).withConstantFolding(false));
+    }
+
+    @Test
+    public void invokeUnrolled() throws ParserException, ValidationException, EvaluationException {
+        invoke(Options.of(EvaluationEngine.INTERPRETER).withLoopUnrollLimit(1024));
+    }
+
+    private void invoke(final @NotNull Options options) throws ParserException, ValidationException, EvaluationException {
+        infoBuffer.clear();
+        errorBuffer.clear();
         final var assembler = Assembler.createFromResources("box/", message -> {
             infoBuffer.add(message);
             System.out.println(message);
         }, message -> {
             errorBuffer.add(message);
             System.err.println(message);
-        });
+        }, options.cache);
+        assembler.setLazyParsing(options.isLazyParsing);
+        assembler.setConstantFolding(options.isConstantFolding);
+        assembler.setLoopUnrollLimit(options.loopUnrollLimit);
         final var context = assembler.lowerAndCreateContext(getFileName(), className -> {
             final var node = new ClassNode();
             node.name = className;
             return node;
-        });
+        }, options.engine);
         context.file.evaluate(context);
         checkOutput();
     }
+
+    /**
+     * The assembler settings a single invocation of the box test runs with.
+     * Every variant starts from the defaults of the assembler and names the setting it changes.
+     */
+    private record Options( // @formatter:off
+        @NotNull EvaluationEngine engine,
+        @Nullable ModelCache cache,
+        boolean isLazyParsing,
+        boolean isConstantFolding,
+        int loopUnrollLimit
+    ) { // @formatter:on
+        public static @NotNull Options of(final @NotNull EvaluationEngine engine) {
+            return new Options(engine, null, false, true, 0);
+        }
+
+        public @NotNull Options withCache(final @NotNull ModelCache cache) {
+            return new Options(engine, cache, isLazyParsing, isConstantFolding, loopUnrollLimit);
+        }
+
+        public @NotNull Options withLazyParsing(final boolean isLazyParsing) {
+            return new Options(engine, cache, isLazyParsing, isConstantFolding, loopUnrollLimit);
+        }
+
+        public @NotNull Options withConstantFolding(final boolean isConstantFolding) {
+            return new Options(engine, cache, isLazyParsing, isConstantFolding, loopUnrollLimit);
+        }
+
+        public @NotNull Options withLoopUnrollLimit(final int loopUnrollLimit) {
+            return new Options(engine, cache, isLazyParsing, isConstantFolding, loopUnrollLimit);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.karmakrafts.jbpl.assembler.box;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import java.util.List;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class BranchPruningTest extends AssemblerBoxTest {
+    @Override
+    protected @NotNull String getFileName() {
+        return "branch_pruning.jbpl";
+    }
+
+    @Override
+    protected void checkOutput() {
+        Assertions.assertEquals(List.of("Taken", "Also taken", "Else", "Four", "Not long", "One", "One", "One"),
+            infoBuffer);
+    }
+}
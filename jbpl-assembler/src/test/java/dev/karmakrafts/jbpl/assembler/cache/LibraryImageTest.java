@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.cache;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.statement.IncludeStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class LibraryImageTest {
+    private static final String SOURCE = """
+        include "jbpl/math.jbpl"
+
+        define limit: i32 = 10
+        assert limit == 10
+        """;
+
+    private static final String LIBRARY_SOURCE = """
+        macro clamp(value: i32): i32 {
+            ^return value
+        }
+        """;
+
+    private final ArrayList<String> requestedPaths = new ArrayList<>();
+
+    private @NotNull Assembler createAssembler() {
+        return new Assembler(path -> {
+            requestedPaths.add(path);
+            final var source = path.equals("main.jbpl") ? SOURCE : LIBRARY_SOURCE;
+            return Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        }, info -> {
+        }, error -> {
+        });
+    }
+
+    @Test
+    public void bundledImageContainsLibraries() {
+        final var image = LibraryImage.getBundled();
+        Assertions.assertNotNull(image);
+        Assertions.assertTrue(image.getPaths().contains("jbpl/math.jbpl"));
+        Assertions.assertTrue(image.getPaths().contains("jbpl/number.jbpl"));
+        Assertions.assertTrue(image.getPaths().contains("jbpl/builtin.jbpl"));
+        final var builtin = image.load("jbpl/builtin.jbpl");
+        Assertions.assertNotNull(builtin);
+        Assertions.assertTrue(builtin.findElement(MacroDecl.class, macro -> "instantiate".equals(macro.getConstName()))
+            .isPresent());
+        final var file = image.load("jbpl/math.jbpl");
+        Assertions.assertNotNull(file);
+        Assertions.assertEquals("jbpl/math.jbpl", file.path);
+        Assertions.assertNotSame(file, image.load("jbpl/math.jbpl"));
+        // Includes between bundled libraries are resolved from the image as well
+        final var include = file.findElement(IncludeStatement.class, statement -> true).orElseThrow();
+        Assertions.assertEquals("jbpl/number.jbpl", include.path);
+        Assertions.assertNull(image.load("math.jbpl"));
+    }
+
+    @Test
+    public void includeBundledLibrary() throws ParserException, ValidationException, EvaluationException {
+        final var assembler = createAssembler();
+        assembler.setUsingLibraryImage(true);
+        final var context = assembler.lowerAndCreateContext("main.jbpl", name -> new ClassNode());
+        context.file.evaluate(context);
+        // Only the main file is read through the resource provider, the libraries come from the image
+        Assertions.assertEquals(List.of("main.jbpl"), requestedPaths);
+        Assertions.assertTrue(context.file.findElement(MacroDecl.class, macro -> "clamp".equals(macro.getConstName()))
+            .isPresent());
+    }
+
+    @Test
+    public void includeFromResourceProviderByDefault() throws ParserException, ValidationException, EvaluationException {
+        final var assembler = createAssembler();
+        final var context = assembler.lowerAndCreateContext("main.jbpl", name -> new ClassNode());
+        context.file.evaluate(context);
+        // The image must not shadow files of the project using the assembler
+        Assertions.assertEquals(List.of("main.jbpl", "jbpl/math.jbpl"), requestedPaths);
+    }
+
+    @Test
+    public void writeAndRead() throws IOException, ParserException, URISyntaxException {
+        final var url = LibraryImageTest.class.getResource("/jbpl/number.jbpl");
+        Assertions.assertNotNull(url);
+        final var out = new ByteArrayOutputStream();
+        LibraryImage.write(Path.of(url.toURI()).getParent(), out);
+        final var image = LibraryImage.read(new ByteArrayInputStream(out.toByteArray()));
+        final var bundledImage = LibraryImage.getBundled();
+        Assertions.assertNotNull(bundledImage);
+        Assertions.assertEquals(bundledImage.getPaths(), image.getPaths());
+        for (final var path : image.getPaths()) {
+            final var file = image.load(path);
+            final var bundledFile = bundledImage.load(path);
+            Assertions.assertNotNull(file);
+            Assertions.assertNotNull(bundledFile);
+            Assertions.assertEquals(bundledFile.source.size(), file.source.size(), path);
+            Assertions.assertEquals(bundledFile.getElements().size(), file.getElements().size(), path);
+        }
+    }
+}
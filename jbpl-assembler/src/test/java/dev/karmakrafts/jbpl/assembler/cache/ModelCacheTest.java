@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.cache;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public final class ModelCacheTest {
+    private static @NotNull ByteBuffer readBoxFile(final @NotNull String name) throws IOException {
+        try (final InputStream stream = ModelCacheTest.class.getResourceAsStream(String.format("/box/%s", name))) {
+            Assertions.assertNotNull(stream, name);
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
+
+    private static @NotNull AssemblyFile parse(final @NotNull ModelCache cache,
+                                               final @NotNull String name) throws ParserException {
+        return Assembler.createFromResources("box/", info -> {
+        }, error -> {
+        }, cache).getOrParseFile(name);
+    }
+
+    @Test
+    public void roundTrip(final @TempDir Path directory) throws IOException, ParserException {
+        final var cache = new ModelCache(directory);
+        final var source = readBoxFile("arithmetic.jbpl");
+        Assertions.assertNull(cache.load("arithmetic.jbpl", source));
+        final var file = parse(cache, "arithmetic.jbpl");
+        Assertions.assertTrue(Files.isRegularFile(cache.getEntryPath(source)));
+
+        final var cachedFile = cache.load("arithmetic.jbpl", source);
+        Assertions.assertNotNull(cachedFile);
+        Assertions.assertEquals("arithmetic.jbpl", cachedFile.path);
+        Assertions.assertEquals(file.source.size(), cachedFile.source.size());
+        for (var i = 0; i < file.source.size(); i++) {
+            Assertions.assertEquals(file.source.getType(i), cachedFile.source.getType(i));
+            Assertions.assertEquals(file.source.getText(i), cachedFile.source.getText(i));
+            Assertions.assertEquals(file.source.getLine(i), cachedFile.source.getLine(i));
+            Assertions.assertEquals(file.source.getColumn(i), cachedFile.source.getColumn(i));
+        }
+        final var elements = file.getElements();
+        final var cachedElements = cachedFile.getElements();
+        Assertions.assertEquals(elements.size(), cachedElements.size());
+        for (var i = 0; i < elements.size(); i++) {
+            final var element = elements.get(i);
+            final var cachedElement = cachedElements.get(i);
+            Assertions.assertSame(cachedFile, cachedElement.getParent());
+            Assertions.assertEquals(element.getClass(), cachedElement.getClass());
+            Assertions.assertEquals(element.getTokenRange(), cachedElement.getTokenRange());
+            Assertions.assertEquals(element.getSourceRange(), cachedElement.getSourceRange());
+        }
+    }
+
+    @Test
+    public void discardCorruptEntry(final @TempDir Path directory) throws IOException, ParserException {
+        final var cache = new ModelCache(directory);
+        final var source = readBoxFile("casting.jbpl");
+        final var entryPath = cache.getEntryPath(source);
+        Files.write(entryPath, new byte[]{1, 2, 3, 4});
+        Assertions.assertNull(cache.load("casting.jbpl", source));
+        Assertions.assertFalse(Files.exists(entryPath));
+        Assertions.assertFalse(parse(cache, "casting.jbpl").getElements().isEmpty());
+        Assertions.assertNotNull(cache.load("casting.jbpl", source));
+    }
+
+    @Test
+    public void discardEntryOfOtherBuild(final @TempDir Path directory) throws IOException, ParserException {
+        final var source = readBoxFile("strings.jbpl");
+        final var otherFingerprint = new byte[32];
+        Arrays.fill(otherFingerprint, (byte) 1);
+        final var otherCache = new ModelCache(directory, otherFingerprint);
+        parse(otherCache, "strings.jbpl");
+        Assertions.assertNotNull(otherCache.load("strings.jbpl", source));
+
+        final var cache = new ModelCache(directory);
+        Assertions.assertNull(cache.load("strings.jbpl", source));
+        Assertions.assertFalse(Files.exists(cache.getEntryPath(source)));
+    }
+}
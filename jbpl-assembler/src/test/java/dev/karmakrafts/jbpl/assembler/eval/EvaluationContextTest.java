@@ -30,6 +30,7 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnNode;
 
 import java.util.List;
+import java.util.Map;
 
 @TestInstance(Lifecycle.PER_METHOD)
 public final class EvaluationContextTest {
@@ -93,4 +94,65 @@ public final class EvaluationContextTest {
         Assertions.assertEquals(ConstExpr.of(1), context.popValue());
         Assertions.assertEquals(ConstExpr.of(0), context.popValue());
     }
+
+    @Test
+    public void resolveRegisteredIntrinsicInEveryFrame() {
+        final var registered = IntrinsicRegistry.registerDefine("registeredIntrinsic", ctx -> ConstExpr.of(42));
+        try {
+            final var dummyMacro = new MacroDecl(ConstExpr.of("test"), ConstExpr.of(BuiltinType.VOID), false);
+            final var context = createContext();
+            context.pushFrame(context.file);
+            Assertions.assertNotNull(context.intrinsicsHandler.getIntrinsicDefine("registeredIntrinsic"));
+            context.pushFrame(dummyMacro);
+            Assertions.assertNotNull(context.intrinsicsHandler.getIntrinsicDefine("registeredIntrinsic"));
+            Assertions.assertNotNull(context.intrinsicsHandler.getIntrinsicMacro("info"));
+        }
+        finally {
+            IntrinsicRegistry.unregisterDefine(registered);
+        }
+    }
+
+    @Test
+    public void frameIntrinsicsShadowRegisteredIntrinsics() {
+        final var registered = IntrinsicRegistry.registerDefine("shadowedIntrinsic", ctx -> ConstExpr.of(0));
+        try {
+            final var dummyMacro = new MacroDecl(ConstExpr.of("test"), ConstExpr.of(BuiltinType.VOID), false);
+            final var context = createContext();
+            context.pushFrame(context.file);
+            final var local = context.intrinsicsHandler.addIntrinsicDefine("shadowedIntrinsic", ConstExpr.of(1));
+            Assertions.assertSame(local, context.intrinsicsHandler.getIntrinsicDefine("shadowedIntrinsic"));
+            context.pushFrame(dummyMacro); // Frame intrinsics are not propagated into nested frames
+            Assertions.assertSame(registered, context.intrinsicsHandler.getIntrinsicDefine("shadowedIntrinsic"));
+        }
+        finally {
+            IntrinsicRegistry.unregisterDefine(registered);
+        }
+    }
+
+    @Test
+    public void unregisterRegisteredIntrinsics() {
+        final var define = IntrinsicRegistry.registerDefine("unregisteredIntrinsic", ctx -> ConstExpr.of(0));
+        final var macro = IntrinsicRegistry.registerMacro(new IntrinsicMacroSignature("unregisteredIntrinsic",
+            BuiltinType.VOID,
+            Map.of()), (ctx, args) -> ctx.infoConsumer.accept("unregisteredIntrinsic"));
+        Assertions.assertTrue(IntrinsicRegistry.unregisterDefine(define));
+        Assertions.assertTrue(IntrinsicRegistry.unregisterMacro(macro));
+        Assertions.assertNull(IntrinsicRegistry.getDefine("unregisteredIntrinsic"));
+        Assertions.assertNull(IntrinsicRegistry.getMacro("unregisteredIntrinsic"));
+        Assertions.assertFalse(IntrinsicRegistry.unregisterDefine(define));
+        Assertions.assertNotNull(IntrinsicRegistry.getMacro("info"));
+    }
+
+    @Test
+    public void keepReplacedIntrinsicOnUnregister() {
+        final var replaced = IntrinsicRegistry.registerDefine("replacedIntrinsic", ctx -> ConstExpr.of(0));
+        final var replacement = IntrinsicRegistry.registerDefine("replacedIntrinsic", ctx -> ConstExpr.of(1));
+        try {
+            Assertions.assertFalse(IntrinsicRegistry.unregisterDefine(replaced));
+            Assertions.assertSame(replacement, IntrinsicRegistry.getDefine("replacedIntrinsic"));
+        }
+        finally {
+            IntrinsicRegistry.unregisterDefine(replacement);
+        }
+    }
 }
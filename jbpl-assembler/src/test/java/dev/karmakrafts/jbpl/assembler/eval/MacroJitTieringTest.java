@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.objectweb.asm.tree.ClassNode;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class MacroJitTieringTest {
+    private @NotNull EvaluationContext evaluate(final int compileThreshold)
+        throws ParserException, ValidationException, EvaluationException {
+        final var assembler = Assembler.createFromResources("box/");
+        assembler.setMacroCompileThreshold(compileThreshold);
+        final var context = assembler.lowerAndCreateContext("macro_jit.jbpl",
+            name -> new ClassNode(),
+            EvaluationEngine.TIERED);
+        context.eval();
+        return context;
+    }
+
+    private @NotNull MacroDecl getMacro(final @NotNull EvaluationContext context, final @NotNull String name) {
+        // @formatter:off
+        return context.file.getElements().stream()
+            .filter(MacroDecl.class::isInstance)
+            .map(MacroDecl.class::cast)
+            .filter(macro -> macro.getName() instanceof LiteralExpr literal && literal.value.equals(name))
+            .findFirst()
+            .orElseThrow();
+        // @formatter:on
+    }
+
+    private @NotNull EvaluationContext evaluate() throws ParserException, ValidationException, EvaluationException {
+        return evaluate(MacroJit.DEFAULT_COMPILE_THRESHOLD);
+    }
+
+    @Test
+    public void compileHotMacros() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate();
+        final var macroJit = context.macroJit;
+        Assertions.assertNotNull(macroJit);
+        Assertions.assertTrue(macroJit.isCompiled(getMacro(context, "add")));
+        Assertions.assertTrue(macroJit.isCompiled(getMacro(context, "is_between")));
+        Assertions.assertTrue(macroJit.isCompiled(getMacro(context, "mix")));
+        Assertions.assertTrue(macroJit.isCompiled(getMacro(context, "compare")));
+        Assertions.assertTrue(macroJit.isCompiled(getMacro(context, "divide")));
+    }
+
+    @Test
+    public void deoptimizeOnMismatchedArgumentTypes() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate();
+        final var macroJit = context.macroJit;
+        Assertions.assertNotNull(macroJit);
+        final var macro = getMacro(context, "twice");
+        Assertions.assertFalse(macroJit.isCompiled(macro));
+        Assertions.assertEquals(1, macroJit.getDeoptimizationCount(macro));
+    }
+
+    @Test
+    public void keepMacrosBelowThresholdInterpreted() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate(Integer.MAX_VALUE);
+        final var macroJit = context.macroJit;
+        Assertions.assertNotNull(macroJit);
+        Assertions.assertEquals(Integer.MAX_VALUE, macroJit.getCompileThreshold());
+        Assertions.assertFalse(macroJit.isCompiled(getMacro(context, "add")));
+        Assertions.assertFalse(macroJit.isCompiled(getMacro(context, "mix")));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.objectweb.asm.tree.ClassNode;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class MacroMemoizerTest {
+    private @NotNull EvaluationContext evaluate(final int capacity)
+        throws ParserException, ValidationException, EvaluationException {
+        final var assembler = Assembler.createFromResources("box/");
+        assembler.setConstantFolding(false); // Calls with constant arguments would be bound to specialized copies
+        assembler.setMacroMemoCapacity(capacity);
+        final var context = assembler.lowerAndCreateContext("macro_memo.jbpl",
+            name -> new ClassNode(),
+            EvaluationEngine.INTERPRETER);
+        context.eval();
+        return context;
+    }
+
+    private @NotNull MacroDecl getMacro(final @NotNull EvaluationContext context, final @NotNull String name) {
+        // @formatter:off
+        return context.file.getElements().stream()
+            .filter(MacroDecl.class::isInstance)
+            .map(MacroDecl.class::cast)
+            .filter(macro -> macro.getName() instanceof LiteralExpr literal && literal.value.equals(name))
+            .findFirst()
+            .orElseThrow();
+        // @formatter:on
+    }
+
+    @Test
+    public void memoizePureMacros() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate(MacroMemoizer.DEFAULT_CAPACITY);
+        final var macroMemoizer = context.macroMemoizer;
+        Assertions.assertEquals(9, macroMemoizer.getHitCount(getMacro(context, "special_name")));
+        Assertions.assertEquals(5, macroMemoizer.getHitCount(getMacro(context, "triangle")));
+        Assertions.assertEquals(27, macroMemoizer.getHitCount(getMacro(context, "describe_type")));
+    }
+
+    @Test
+    public void skipMacrosWithSideEffects() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate(MacroMemoizer.DEFAULT_CAPACITY);
+        final var macroMemoizer = context.macroMemoizer;
+        Assertions.assertFalse(macroMemoizer.isPure(getMacro(context, "count")));
+        Assertions.assertFalse(macroMemoizer.isPure(getMacro(context, "echo")));
+        Assertions.assertEquals(0, macroMemoizer.getHitCount(getMacro(context, "count")));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedResults() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate(1);
+        // Alternating arguments always evict the result of the previous call
+        Assertions.assertEquals(0, context.macroMemoizer.getHitCount(getMacro(context, "triangle")));
+    }
+
+    @Test
+    public void disableWithoutCapacity() throws ParserException, ValidationException, EvaluationException {
+        final var context = evaluate(0);
+        Assertions.assertEquals(0, context.macroMemoizer.getCapacity());
+        Assertions.assertEquals(0, context.macroMemoizer.getHitCount(getMacro(context, "special_name")));
+    }
+}
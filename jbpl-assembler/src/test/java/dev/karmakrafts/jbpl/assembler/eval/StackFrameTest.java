@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.eval;
+
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.statement.LocalStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.scope.Scope;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class StackFrameTest {
+    private final AssemblyFile file = new AssemblyFile("test/test.jbpl");
+
+    private @NotNull StackFrame createFrame(final StackFrame parent) {
+        return new StackFrame(parent, new Scope(null, file));
+    }
+
+    private void populate(final @NotNull StackFrame frame) {
+        frame.valueStack.add(ConstExpr.of(1));
+        frame.putNamedLocalValue("value", ConstExpr.of(2));
+        frame.putNamedLocalType("type", BuiltinType.I32);
+        frame.putIntrinsicDefine(new IntrinsicDefine("define", ctx -> ConstExpr.of(3), null));
+        frame.putIntrinsicMacro(new IntrinsicMacro(new IntrinsicMacroSignature("macro", BuiltinType.VOID, Map.of()),
+            (ctx, args) -> ctx.infoConsumer.accept("macro")));
+        frame.putLocal("local", new LocalStatement(ConstExpr.of("local"), ConstExpr.of(0)));
+    }
+
+    @Test
+    public void clearDropsValueStack() {
+        final var frame = createFrame(null);
+        populate(frame);
+        frame.clear();
+        Assertions.assertTrue(frame.valueStack.isEmpty());
+    }
+
+    @Test
+    public void clearDropsNamedValuesAndTypes() {
+        final var frame = createFrame(null);
+        populate(frame);
+        frame.clear();
+        Assertions.assertNull(frame.getNamedLocalValue("value"));
+        Assertions.assertNull(frame.getNamedLocalType("type"));
+    }
+
+    @Test
+    public void clearDropsIntrinsics() {
+        final var frame = createFrame(null);
+        populate(frame);
+        frame.clear();
+        Assertions.assertNull(frame.getIntrinsicDefine("define"));
+        Assertions.assertNull(frame.getIntrinsicMacro("macro"));
+    }
+
+    @Test
+    public void clearDropsLocals() throws EvaluationException {
+        final var frame = createFrame(null);
+        populate(frame);
+        final var context = new EvaluationContext(file, name -> null, System.out::println, System.err::println);
+        final var index = frame.getOrAssignLocalIndex("other", context);
+        frame.clear();
+        Assertions.assertNull(frame.getLocal("local"));
+        Assertions.assertEquals(index, frame.getOrAssignLocalIndex("next", context));
+    }
+
+    @Test
+    public void clearDropsLabels() {
+        final var frame = createFrame(null);
+        final var label = frame.getOrCreateLabelNode("label");
+        Assertions.assertEquals(Optional.of("label"), frame.getLabelName(label));
+        frame.clear();
+        Assertions.assertEquals(Optional.empty(), frame.getLabelName(label));
+        Assertions.assertNotSame(label, frame.getOrCreateLabelNode("label"));
+    }
+
+    @Test
+    public void clearKeepsParentValues() {
+        final var parent = createFrame(null);
+        parent.putNamedLocalValue("outer", ConstExpr.of(4));
+        final var frame = createFrame(parent);
+        populate(frame);
+        frame.clear();
+        Assertions.assertEquals(ConstExpr.of(4), frame.getNamedLocalValue("outer"));
+        Assertions.assertNull(frame.getNamedLocalValue("value"));
+    }
+
+    @Test
+    public void reuseAfterClear() {
+        final var frame = createFrame(null);
+        populate(frame);
+        frame.clear();
+        frame.putNamedLocalValue("value", ConstExpr.of(5));
+        Assertions.assertEquals(ConstExpr.of(5), frame.getNamedLocalValue("value"));
+    }
+
+    @Test
+    public void lookupUnboundName() {
+        final var parent = createFrame(null);
+        parent.putNamedLocalValue("outer", ConstExpr.of(6));
+        final var frame = createFrame(parent);
+        Assertions.assertNull(frame.getNamedLocalValue("global"));
+        Assertions.assertNull(parent.getNamedLocalValue("global"));
+    }
+
+    @Test
+    public void lookupNameBoundAfterMiss() {
+        final var parent = createFrame(null);
+        final var frame = createFrame(parent);
+        Assertions.assertNull(frame.getNamedLocalValue("value"));
+        parent.putNamedLocalValue("value", ConstExpr.of(7));
+        Assertions.assertEquals(ConstExpr.of(7), frame.getNamedLocalValue("value"));
+        frame.putNamedLocalValue("value", ConstExpr.of(8));
+        Assertions.assertEquals(ConstExpr.of(8), frame.getNamedLocalValue("value"));
+        Assertions.assertEquals(ConstExpr.of(7), parent.getNamedLocalValue("value"));
+    }
+
+    @Test
+    public void lookupNameBoundInUnrelatedFrame() {
+        final var boundValueNames = new HashSet<String>();
+        final var frame = new StackFrame(null, new Scope(null, file), boundValueNames);
+        final var sibling = new StackFrame(null, new Scope(null, file), boundValueNames);
+        sibling.putNamedLocalValue("value", ConstExpr.of(9));
+        Assertions.assertTrue(boundValueNames.contains("value"));
+        Assertions.assertNull(frame.getNamedLocalValue("value"));
+    }
+}
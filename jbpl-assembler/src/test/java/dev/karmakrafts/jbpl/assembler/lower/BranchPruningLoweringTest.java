@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.IntValue;
+import dev.karmakrafts.jbpl.assembler.model.expr.MacroCallExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.List;
+
+public final class BranchPruningLoweringTest {
+    private static @NotNull AssemblyFile lower(final boolean isConstantFolding) throws ParserException, ValidationException {
+        final var assembler = Assembler.createFromResources("box/");
+        assembler.setConstantFolding(isConstantFolding);
+        return assembler.lowerAndCreateContext("branch_pruning.jbpl", name -> new ClassNode()).file;
+    }
+
+    private static <E> @NotNull List<E> getElements(final @NotNull AssemblyFile file, final @NotNull Class<E> type) {
+        return file.getElements().stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
+    private static @NotNull DefineStatement findDefine(final @NotNull AssemblyFile file, final @NotNull String name) {
+        return file.findElement(DefineStatement.class, define -> name.equals(define.getConstName())).orElseThrow();
+    }
+
+    @Test
+    public void pruneConstantBranches() throws ParserException, ValidationException {
+        final var file = lower(true);
+        Assertions.assertEquals(1, Assertions.assertInstanceOf(IntValue.class,
+            findDefine(file, "taken").getValue()).value);
+        Assertions.assertEquals(3, Assertions.assertInstanceOf(IntValue.class,
+            findDefine(file, "not_taken").getValue()).value);
+        // Taken bodies are inlined into the file, so only the dynamic conditions are left
+        Assertions.assertEquals(6, getElements(file, MacroCallExpr.class).size());
+        final var ifExpr = getElements(file, IfExpr.class).get(0);
+        Assertions.assertTrue(ifExpr.getElseIfBranches().isEmpty());
+        Assertions.assertNotNull(ifExpr.getElseBranch());
+        final var whenExprs = getElements(file, WhenExpr.class);
+        Assertions.assertEquals(1, whenExprs.size());
+        Assertions.assertEquals(3, whenExprs.get(0).getBranches().size());
+    }
+
+    @Test
+    public void keepBranchesWhenDisabled() throws ParserException, ValidationException {
+        final var file = lower(false);
+        Assertions.assertEquals(5, getElements(file, IfExpr.class).size());
+        Assertions.assertEquals(3, getElements(file, WhenExpr.class).size());
+        Assertions.assertEquals(1, getElements(file, MacroCallExpr.class).size());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.BinaryExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.BoolValue;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.IntValue;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.LongValue;
+import dev.karmakrafts.jbpl.assembler.model.expr.ReferenceExpr;
+import dev.karmakrafts.jbpl.assembler.model.instruction.Opcode;
+import dev.karmakrafts.jbpl.assembler.model.statement.AssertStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.ReturnStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ConstantFoldingLoweringTest {
+    private static final String SOURCE = """
+        define shifted: i32 = 1 << 4
+        define greeting: string = "Hello, ${1 + 2}!"
+        define negated: i64 = -(3i64 * 4i64)
+        define broken: i32 = 7 / 0
+        define type: type = typeof(1 + 2)
+        assert (7 + 5) == 12
+        assert (7 + 5) is i32
+        assert (shifted + 1) == 17
+        info(greeting)
+        final define base: i32 = 1 << 2
+        define scaled: i32 = base * 3
+        define later: i64 = limit + 1i64
+        final define limit: i64 = 5
+        define opcode: opcode = opcodeof(instruction(iadd))
+        final define index: i32 = 10
+        macro advance(index: i32): i32 {
+            ^return index + 1
+        }
+        define advanced: i32 = advance(1)
+        final define counter: i32 = 0
+        counter += 1
+        define counted: i32 = counter
+        """;
+
+    private final ArrayList<String> infoBuffer = new ArrayList<>();
+
+    private @NotNull EvaluationContext lower(final boolean isConstantFolding) throws ParserException, ValidationException {
+        final var assembler = new Assembler(path -> Channels.newChannel(new ByteArrayInputStream(SOURCE.getBytes(
+            StandardCharsets.UTF_8))), infoBuffer::add, error -> {
+        });
+        assembler.setConstantFolding(isConstantFolding);
+        return assembler.lowerAndCreateContext("test.jbpl", name -> new ClassNode());
+    }
+
+    private static @NotNull DefineStatement findDefine(final @NotNull EvaluationContext context,
+                                                       final @NotNull String name) {
+        // @formatter:off
+        return context.file.findElement(DefineStatement.class, define -> name.equals(define.getConstName()))
+            .orElseThrow();
+        // @formatter:on
+    }
+
+    private static @NotNull Object evaluateDefine(final @NotNull EvaluationContext context,
+                                                  final @NotNull String name) throws EvaluationException {
+        context.pushFrame(context.file);
+        try {
+            findDefine(context, name).evaluate(context);
+            return ((ConstExpr) context.popValue()).getConstValue();
+        }
+        finally {
+            context.popFrame();
+        }
+    }
+
+    private static @NotNull List<AssertStatement> getAsserts(final @NotNull EvaluationContext context) {
+        // @formatter:off
+        return context.file.getElements().stream()
+            .filter(AssertStatement.class::isInstance)
+            .map(AssertStatement.class::cast)
+            .toList();
+        // @formatter:on
+    }
+
+    @Test
+    public void foldConstantExpressions() throws ParserException, ValidationException {
+        final var context = lower(true);
+        final var shifted = Assertions.assertInstanceOf(IntValue.class, findDefine(context, "shifted").getValue());
+        Assertions.assertEquals(16, shifted.value);
+        Assertions.assertEquals(BuiltinType.I32, shifted.getStaticType());
+        final var greeting = Assertions.assertInstanceOf(LiteralExpr.class, findDefine(context, "greeting").getValue());
+        Assertions.assertEquals("Hello, 3!", greeting.value);
+        final var type = Assertions.assertInstanceOf(LiteralExpr.class, findDefine(context, "type").getValue());
+        Assertions.assertEquals(BuiltinType.I32, type.value);
+        final var asserts = getAsserts(context);
+        Assertions.assertTrue(Assertions.assertInstanceOf(BoolValue.class, asserts.get(0).getValue()).value);
+        Assertions.assertTrue(Assertions.assertInstanceOf(BoolValue.class, asserts.get(1).getValue()).value);
+    }
+
+    @Test
+    public void keepReferencesAndErrors() throws ParserException, ValidationException {
+        final var context = lower(true);
+        // Division by zero has to fail when the define is evaluated, not while lowering
+        Assertions.assertInstanceOf(BinaryExpr.class, findDefine(context, "broken").getValue());
+        final var comparison = (BinaryExpr) getAsserts(context).get(2).getValue();
+        final var addition = Assertions.assertInstanceOf(BinaryExpr.class, comparison.getLhs());
+        Assertions.assertInstanceOf(ReferenceExpr.class, addition.getLhs());
+        Assertions.assertInstanceOf(IntValue.class, comparison.getRhs());
+    }
+
+    @Test
+    public void foldFinalDefineReferences() throws ParserException, ValidationException {
+        final var context = lower(true);
+        final var scaled = Assertions.assertInstanceOf(IntValue.class, findDefine(context, "scaled").getValue());
+        Assertions.assertEquals(12, scaled.value);
+        // Defines are folded on demand, so references may appear before the define
+        final var later = Assertions.assertInstanceOf(LongValue.class, findDefine(context, "later").getValue());
+        Assertions.assertEquals(6L, later.value);
+        final var opcode = Assertions.assertInstanceOf(LiteralExpr.class, findDefine(context, "opcode").getValue());
+        Assertions.assertEquals(Opcode.IADD, opcode.value);
+    }
+
+    @Test
+    public void keepShadowedAndAssignedReferences() throws ParserException, ValidationException {
+        final var context = lower(true);
+        // Macro arguments take precedence over the define with the same name
+        // @formatter:off
+        final var macro = context.file.findElement(MacroDecl.class, m -> "advance".equals(m.getConstName()))
+            .orElseThrow();
+        // @formatter:on
+        final var returnStatement = (ReturnStatement) macro.getElements().get(0);
+        final var addition = Assertions.assertInstanceOf(BinaryExpr.class, returnStatement.getValue());
+        Assertions.assertInstanceOf(ReferenceExpr.class, addition.getLhs());
+        // Final defines are not enforced at runtime, so assigned defines may change
+        Assertions.assertInstanceOf(ReferenceExpr.class, findDefine(context, "counted").getValue());
+    }
+
+    @Test
+    public void keepExpressionsWhenDisabled() throws ParserException, ValidationException {
+        final var context = lower(false);
+        Assertions.assertInstanceOf(BinaryExpr.class, findDefine(context, "shifted").getValue());
+        Assertions.assertInstanceOf(BinaryExpr.class, getAsserts(context).get(0).getValue());
+    }
+
+    @Test
+    public void evaluateIdentically() throws ParserException, ValidationException, EvaluationException {
+        final var foldedContext = lower(true);
+        foldedContext.eval();
+        final var foldedOutput = List.copyOf(infoBuffer);
+        infoBuffer.clear();
+        final var context = lower(false);
+        context.eval();
+        Assertions.assertEquals(List.of("Hello, 3!"), foldedOutput);
+        Assertions.assertEquals(infoBuffer, foldedOutput);
+        for (final var name : List.of("shifted",
+            "greeting",
+            "negated",
+            "type",
+            "scaled",
+            "later",
+            "opcode",
+            "advanced",
+            "counted")) {
+            Assertions.assertEquals(evaluateDefine(context, name), evaluateDefine(foldedContext, name), name);
+        }
+    }
+}
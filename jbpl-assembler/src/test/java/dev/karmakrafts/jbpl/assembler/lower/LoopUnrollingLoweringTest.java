@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.AssemblyFile;
+import dev.karmakrafts.jbpl.assembler.model.expr.IfExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.MacroCallExpr;
+import dev.karmakrafts.jbpl.assembler.model.statement.CompoundStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.ForStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.List;
+
+public final class LoopUnrollingLoweringTest {
+    private static @NotNull AssemblyFile lower(final int loopUnrollLimit) throws ParserException, ValidationException {
+        final var assembler = Assembler.createFromResources("box/");
+        assembler.setLoopUnrollLimit(loopUnrollLimit);
+        return assembler.lowerAndCreateContext("loop_unrolling.jbpl", name -> new ClassNode()).file;
+    }
+
+    private static <E> @NotNull List<E> getElements(final @NotNull AssemblyFile file, final @NotNull Class<E> type) {
+        return file.getElements().stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
+    @Test
+    public void unrollConstantLoops() throws ParserException, ValidationException {
+        final var file = lower(1024);
+        // Loops defining names and loops exceeding the limit are kept
+        Assertions.assertEquals(2, getElements(file, ForStatement.class).size());
+        final var statements = getElements(file, CompoundStatement.class);
+        Assertions.assertEquals(5, statements.size());
+        Assertions.assertEquals(4, statements.get(0).getElements().size());
+        // Every copy of the body is pruned down to the taken branch
+        final var branches = statements.get(1).getElements();
+        Assertions.assertEquals(3, branches.size());
+        Assertions.assertTrue(branches.stream().noneMatch(IfExpr.class::isInstance));
+        Assertions.assertTrue(branches.stream().allMatch(MacroCallExpr.class::isInstance));
+        // Nested loops are unrolled from the inside out
+        final var nested = statements.get(4).getElements();
+        Assertions.assertEquals(3, nested.size());
+        Assertions.assertTrue(nested.stream().allMatch(CompoundStatement.class::isInstance));
+    }
+
+    @Test
+    public void keepLoopsWhenDisabled() throws ParserException, ValidationException {
+        final var file = lower(0);
+        Assertions.assertEquals(7, getElements(file, ForStatement.class).size());
+        Assertions.assertTrue(getElements(file, CompoundStatement.class).isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationContext;
+import dev.karmakrafts.jbpl.assembler.eval.EvaluationException;
+import dev.karmakrafts.jbpl.assembler.model.decl.MacroDecl;
+import dev.karmakrafts.jbpl.assembler.model.expr.ConstExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.LiteralExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.MacroCallExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.WhenExpr;
+import dev.karmakrafts.jbpl.assembler.model.instruction.Instruction;
+import dev.karmakrafts.jbpl.assembler.model.statement.DefineStatement;
+import dev.karmakrafts.jbpl.assembler.model.statement.ReturnStatement;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public final class MacroSpecializationLoweringTest {
+    private static final String SOURCE = """
+        macro describe(number: i32): string {
+            ^return when(number) {
+                0 -> "Zero"
+                1 -> "One"
+                else -> "Other"}
+        }
+        macro shadowed(number: i32): string {
+            define number: i32 = 0
+            ^return if (number == 0) "Zero" else "Other"
+        }
+        macro sign(number: i32): i32 {
+            ^return if (number < 0) -1 else 1
+        }
+        define value: i32 = 1
+        define one: string = describe(1)
+        define also_one: string = describe(1)
+        define other: string = describe(5)
+        define dynamic: string = describe(value)
+        define zero: string = shadowed(1)
+        define negative: i32 = sign(-4)
+        """;
+    private static final String BUILTIN_SOURCE = """
+        include "jbpl/builtin.jbpl"
+        load(type i64, 1)
+        """;
+
+    private static @NotNull EvaluationContext lower(final @NotNull String source, final boolean isConstantFolding)
+        throws ParserException, ValidationException {
+        final var assembler = new Assembler(path -> {
+            if (!path.equals("test.jbpl")) {
+                return Channels.newChannel(Assembler.class.getResourceAsStream(String.format("/%s", path)));
+            }
+            return Channels.newChannel(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        }, message -> {
+        }, error -> {
+        });
+        assembler.setConstantFolding(isConstantFolding);
+        return assembler.lowerAndCreateContext("test.jbpl", name -> new ClassNode());
+    }
+
+    private static @NotNull EvaluationContext lower(final boolean isConstantFolding)
+        throws ParserException, ValidationException {
+        return lower(SOURCE, isConstantFolding);
+    }
+
+    private static @NotNull DefineStatement findDefine(final @NotNull EvaluationContext context,
+                                                       final @NotNull String name) {
+        // @formatter:off
+        return context.file.findElement(DefineStatement.class, define -> name.equals(define.getConstName()))
+            .orElseThrow();
+        // @formatter:on
+    }
+
+    private static @NotNull MacroDecl findMacro(final @NotNull EvaluationContext context, final @NotNull String name) {
+        return context.file.findElement(MacroDecl.class, macro -> name.equals(macro.getConstName())).orElseThrow();
+    }
+
+    private static @NotNull MacroDecl getBoundMacro(final @NotNull EvaluationContext context,
+                                                    final @NotNull String defineName) {
+        final var call = Assertions.assertInstanceOf(MacroCallExpr.class, findDefine(context, defineName).getValue());
+        final var binding = call.getAttributes().get(StaticBinding.MACRO);
+        Assertions.assertNotNull(binding);
+        return binding.target();
+    }
+
+    private static @NotNull Object evaluateDefine(final @NotNull EvaluationContext context,
+                                                  final @NotNull String name) throws EvaluationException {
+        context.pushFrame(context.file);
+        try {
+            findDefine(context, name).evaluate(context);
+            return ((ConstExpr) context.popValue()).getConstValue();
+        }
+        finally {
+            context.popFrame();
+        }
+    }
+
+    @Test
+    public void specializeConstantCalls() throws ParserException, ValidationException {
+        final var context = lower(true);
+        final var macro = findMacro(context, "describe");
+        final var specialized = getBoundMacro(context, "one");
+        Assertions.assertNotSame(macro, specialized);
+        // Calls with the same arguments share their specialization
+        Assertions.assertSame(specialized, getBoundMacro(context, "also_one"));
+        Assertions.assertNotSame(specialized, getBoundMacro(context, "other"));
+        final var returnStatement = (ReturnStatement) specialized.getElements().get(0);
+        final var value = Assertions.assertInstanceOf(LiteralExpr.class, returnStatement.getValue());
+        Assertions.assertEquals("One", value.value);
+        Assertions.assertNotSame(findMacro(context, "sign"), getBoundMacro(context, "negative"));
+    }
+
+    @Test
+    public void pruneBuiltinDispatch() throws ParserException, ValidationException {
+        final var context = lower(BUILTIN_SOURCE, true);
+        final var call = context.file.findElement(MacroCallExpr.class, c -> true).orElseThrow();
+        final var binding = call.getAttributes().get(StaticBinding.MACRO);
+        Assertions.assertNotNull(binding);
+        final var specialized = binding.target();
+        Assertions.assertNotSame(findMacro(context, "load"), specialized);
+        // Instructions depend on the frame they are emitted in, so only the branch for the given type is left
+        final var whenExpr = Assertions.assertInstanceOf(WhenExpr.class, specialized.getElements().get(0));
+        Assertions.assertEquals(1, whenExpr.getBranches().size());
+        Assertions.assertInstanceOf(Instruction.class, whenExpr.getBranches().get(0).getElements().get(0));
+    }
+
+    @Test
+    public void keepDynamicAndShadowedCalls() throws ParserException, ValidationException {
+        final var context = lower(true);
+        Assertions.assertSame(findMacro(context, "describe"), getBoundMacro(context, "dynamic"));
+        // Local defines take precedence over arguments
+        Assertions.assertSame(findMacro(context, "shadowed"), getBoundMacro(context, "zero"));
+    }
+
+    @Test
+    public void evaluateIdentically() throws ParserException, ValidationException, EvaluationException {
+        final var specializedContext = lower(true);
+        final var context = lower(false);
+        for (final var name : List.of("one", "also_one", "other", "dynamic", "zero", "negative")) {
+            Assertions.assertEquals(evaluateDefine(context, name), evaluateDefine(specializedContext, name), name);
+        }
+        Assertions.assertEquals("One", evaluateDefine(specializedContext, "one"));
+        Assertions.assertEquals("Other", evaluateDefine(specializedContext, "other"));
+        Assertions.assertEquals("Zero", evaluateDefine(specializedContext, "zero"));
+        Assertions.assertEquals(-1, evaluateDefine(specializedContext, "negative"));
+    }
+}
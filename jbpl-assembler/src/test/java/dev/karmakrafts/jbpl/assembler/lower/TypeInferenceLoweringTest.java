@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.lower;
+
+import dev.karmakrafts.jbpl.assembler.Assembler;
+import dev.karmakrafts.jbpl.assembler.model.expr.BinaryExpr;
+import dev.karmakrafts.jbpl.assembler.model.expr.ReferenceExpr;
+import dev.karmakrafts.jbpl.assembler.model.statement.AssertStatement;
+import dev.karmakrafts.jbpl.assembler.model.type.BuiltinType;
+import dev.karmakrafts.jbpl.assembler.parser.ParserException;
+import dev.karmakrafts.jbpl.assembler.validation.ValidationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.List;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class TypeInferenceLoweringTest {
+    private @NotNull List<AssertStatement> getAsserts() throws ParserException, ValidationException {
+        final var assembler = Assembler.createFromResources("box/");
+        assembler.setConstantFolding(false); // Keep the operators around so their types can be checked
+        final var context = assembler.lowerAndCreateContext("arithmetic.jbpl", name -> new ClassNode());
+        // @formatter:off
+        return context.file.getElements().stream()
+            .filter(AssertStatement.class::isInstance)
+            .map(AssertStatement.class::cast)
+            .toList();
+        // @formatter:on
+    }
+
+    @Test
+    public void inferConstantExpressions() throws ParserException, ValidationException {
+        final var asserts = getAsserts();
+        Assertions.assertFalse(asserts.isEmpty());
+        for (final var statement : asserts) {
+            Assertions.assertEquals(BuiltinType.BOOL, statement.getValue().getStaticType(), statement.toString());
+        }
+        final var addition = (BinaryExpr) ((BinaryExpr) asserts.get(0).getValue()).getLhs();
+        Assertions.assertEquals(BuiltinType.I32, addition.getStaticType());
+        final var longShift = (BinaryExpr) ((BinaryExpr) asserts.get(13).getValue()).getLhs();
+        Assertions.assertEquals(BuiltinType.I64, longShift.getStaticType());
+    }
+
+    @Test
+    public void skipReferences() throws ParserException, ValidationException {
+        // @formatter:off
+        final var references = getAsserts().stream()
+            .map(AssertStatement::getValue)
+            .filter(BinaryExpr.class::isInstance)
+            .map(expr -> ((BinaryExpr) expr).getLhs())
+            .filter(ReferenceExpr.class::isInstance)
+            .toList();
+        // @formatter:on
+        Assertions.assertFalse(references.isEmpty());
+        for (final var reference : references) {
+            Assertions.assertNull(reference.getStaticType());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.antlr.v4.runtime.Token;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public final class ByteBufferCharStreamTest {
+    private static @NotNull String readBoxFile(final @NotNull String name) throws IOException {
+        try (final InputStream stream = ByteBufferCharStreamTest.class.getResourceAsStream(String.format("/box/%s", name))) {
+            Assertions.assertNotNull(stream, name);
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static @NotNull List<? extends Token> tokenize(final @NotNull CharStream charStream) {
+        final var lexer = new JBPLLexer(charStream);
+        lexer.removeErrorListeners();
+        return lexer.getAllTokens();
+    }
+
+    private static void assertSameTokens(final @NotNull String source, final @NotNull CharStream charStream) {
+        final var expected = tokenize(CharStreams.fromString(source));
+        final var actual = tokenize(charStream);
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); i++) {
+            final var expectedToken = expected.get(i);
+            final var actualToken = actual.get(i);
+            Assertions.assertEquals(expectedToken.getType(), actualToken.getType());
+            Assertions.assertEquals(expectedToken.getText(), actualToken.getText());
+            Assertions.assertEquals(expectedToken.getLine(), actualToken.getLine());
+            Assertions.assertEquals(expectedToken.getCharPositionInLine(), actualToken.getCharPositionInLine());
+        }
+    }
+
+    @Test
+    public void readAsciiInPlace() throws IOException {
+        final var source = readBoxFile("arithmetic.jbpl");
+        final var charStream = ByteBufferCharStream.fromBuffer(ByteBuffer.wrap(source.getBytes(StandardCharsets.US_ASCII)),
+            "arithmetic.jbpl");
+        Assertions.assertInstanceOf(ByteBufferCharStream.class, charStream);
+        Assertions.assertEquals("arithmetic.jbpl", charStream.getSourceName());
+        assertSameTokens(source, charStream);
+    }
+
+    @Test
+    public void decodeNonAscii() throws IOException {
+        final var source = "define text: string = \"Grüße, 世界 😀\"\n";
+        final var charStream = ByteBufferCharStream.fromBuffer(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)),
+            "test");
+        Assertions.assertInstanceOf(CodePointCharStream.class, charStream);
+        assertSameTokens(source, charStream);
+    }
+
+    @Test
+    public void readMappedFile(final @TempDir Path directory) throws IOException {
+        final var source = readBoxFile("strings.jbpl");
+        final var path = directory.resolve("strings.jbpl");
+        Files.writeString(path, source);
+        try (final var channel = FileChannel.open(path)) {
+            assertSameTokens(source, ByteBufferCharStream.fromBuffer(ByteBufferCharStream.map(channel), path.toString()));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+public final class FileLexerTest {
+    private static final List<String> EDGE_CASES = List.of("/* a /* b */ c */ x",
+        "/* a /* b */ x",
+        "/* a",
+        "/* a */ */",
+        "/**/ /*/ /*/*/ /*/**/*/",
+        "// comment\r\n// another\rx",
+        "1.x 0b102 0x1F_g 0o17 0b 1e5e 1__.2_e_3 1.5e3_4 1..5 1..<5 00x1",
+        "'a' '\\n' '\\'' 'ab' '\n' ''",
+        "\"a$b${c}d\" \"${\"x${1}\"}\" \"$\" \"${(})}\"",
+        "^return ^returnX ^class ^cl ^= ^",
+        "iconst_m1 iconst_6 pop2 pop2x dup2_x1 dup_x3 l2d i2z aload aaload baload return areturn ifeq if_icmpgt",
+        "macro macros fun funny in inject injector i8 i16 i32 i64 f32 f64",
+        "+= -= *= /= %= <<= >>>= >>= &= |= ^= ++ -- <=> == != <= >= && & || | ~ -> @ ; : , ! ? # `",
+        "x) ) } ] ( [ { \"",
+        "\t\f ä世 😀 \\",
+        "\"unterminated");
+
+    private static @NotNull List<? extends Token> tokenize(final @NotNull TokenSource source) {
+        final var tokenStream = new CommonTokenStream(source);
+        tokenStream.fill();
+        return tokenStream.getTokens();
+    }
+
+    private static void assertSameTokens(final @NotNull String name, final @NotNull String source) {
+        final var lexer = new JBPLLexer(CharStreams.fromString(source, name));
+        lexer.removeErrorListeners();
+        final var expected = tokenize(lexer);
+        final var actual = tokenize(new FileLexer(CharStreams.fromString(source, name)));
+        final Function<Token, String> describe = token -> String.format("%s %s@%d:%d [%d..%d] on %d",
+            JBPLLexer.VOCABULARY.getSymbolicName(token.getType()),
+            token.getText(),
+            token.getLine(),
+            token.getCharPositionInLine(),
+            token.getStartIndex(),
+            token.getStopIndex(),
+            token.getChannel());
+        final var count = Math.min(expected.size(), actual.size());
+        for (var index = 0; index < count; index++) {
+            Assertions.assertEquals(describe.apply(expected.get(index)),
+                describe.apply(actual.get(index)),
+                String.format("Token %d in %s", index, name));
+        }
+        Assertions.assertEquals(expected.size(), actual.size(), name);
+    }
+
+    private static void assertSameTokensInDirectory(final @NotNull String directory) throws IOException, URISyntaxException {
+        final var url = FileLexerTest.class.getResource(directory);
+        Assertions.assertNotNull(url, directory);
+        try (final var files = Files.list(Path.of(url.toURI()))) {
+            final var paths = files.filter(path -> path.toString().endsWith(".jbpl")).toList();
+            Assertions.assertFalse(paths.isEmpty(), directory);
+            for (final var path : paths) {
+                assertSameTokens(path.getFileName().toString(), Files.readString(path));
+            }
+        }
+    }
+
+    @Test
+    public void conformsOnBoxFiles() throws IOException, URISyntaxException {
+        assertSameTokensInDirectory("/box");
+    }
+
+    @Test
+    public void conformsOnLibraries() throws IOException, URISyntaxException {
+        assertSameTokensInDirectory("/jbpl");
+    }
+
+    @Test
+    public void conformsOnEdgeCases() {
+        for (var index = 0; index < EDGE_CASES.size(); index++) {
+            assertSameTokens(String.format("edge case %d", index), EDGE_CASES.get(index));
+        }
+    }
+
+    @Test
+    public void conformsOnRandomInput() {
+        final var fragments = new String[]{"/", "*", "/*", "*/", "\"", "${", "$", "}", "{", "(", ")", "'", "\\",
+            "\n", "\r", " ", "0", "1", "_", ".", "e", "x", "b", "if", "eq", "i", "load", "<", ">", "="};
+        final var random = new Random(0x4A42504CL);
+        for (var iteration = 0; iteration < 2000; iteration++) {
+            final var builder = new StringBuilder();
+            final var length = random.nextInt(24);
+            for (var i = 0; i < length; i++) {
+                builder.append(fragments[random.nextInt(fragments.length)]);
+            }
+            assertSameTokens(builder.toString(), builder.toString());
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jbpl.benchmark", matches = "true")
+    public void benchmarkThroughput() throws IOException, URISyntaxException {
+        final var builder = new StringBuilder();
+        try (final var files = Files.list(Path.of(FileLexerTest.class.getResource("/box").toURI()))) {
+            for (final var path : files.toList()) {
+                builder.append(Files.readString(path)).append('\n');
+            }
+        }
+        final var source = builder.toString().repeat(50);
+        final Function<String, TokenSource> antlrLexer = text -> {
+            final var lexer = new JBPLLexer(CharStreams.fromString(text));
+            lexer.removeErrorListeners();
+            return lexer;
+        };
+        final Function<String, TokenSource> fileLexer = text -> new FileLexer(CharStreams.fromString(text));
+        for (var i = 0; i < 5; i++) { // Warm up both lexers and the shared DFA cache
+            tokenize(antlrLexer.apply(source));
+            tokenize(fileLexer.apply(source));
+        }
+        final var iterations = 10;
+        final var antlrTime = measure(source, iterations, antlrLexer);
+        final var fileLexerTime = measure(source, iterations, fileLexer);
+        System.out.printf("Lexed %d characters: ANTLR %.2fms (%.1fMiB/s), hand-written %.2fms (%.1fMiB/s, %.2fx)%n",
+            source.length(),
+            antlrTime / 1e6,
+            source.length() / (antlrTime / 1e9) / (1 << 20),
+            fileLexerTime / 1e6,
+            source.length() / (fileLexerTime / 1e9) / (1 << 20),
+            (double) antlrTime / fileLexerTime);
+    }
+
+    private static long measure(final @NotNull String source,
+                                final int iterations,
+                                final @NotNull Function<String, TokenSource> lexer) {
+        var total = 0L;
+        for (var i = 0; i < iterations; i++) {
+            final var tokenSource = lexer.apply(source);
+            var tokenCount = 0;
+            final var start = System.nanoTime();
+            while (tokenSource.nextToken().getType() != Token.EOF) {
+                tokenCount++;
+            }
+            total += System.nanoTime() - start;
+            Assertions.assertNotEquals(0, tokenCount);
+        }
+        return total / iterations;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.parser;
+
+import dev.karmakrafts.jbpl.assembler.model.element.Element;
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import dev.karmakrafts.jbpl.frontend.JBPLParser.FileContext;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+public final class FileParserTest {
+    private static final List<String> BOX_FILES = List.of("arithmetic.jbpl",
+        "casting.jbpl",
+        "define_values.jbpl",
+        "for_loops.jbpl",
+        "macro_call_arguments.jbpl",
+        "macro_call_global.jbpl",
+        "macro_jit.jbpl",
+        "static_binding.jbpl",
+        "strings.jbpl");
+
+    private static @NotNull String readBoxFile(final @NotNull String name) throws IOException {
+        try (final InputStream stream = FileParserTest.class.getResourceAsStream(String.format("/box/%s", name))) {
+            Assertions.assertNotNull(stream, name);
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static @NotNull CommonTokenStream tokenize(final @NotNull String source) {
+        final var lexer = new JBPLLexer(CharStreams.fromString(source, "test"));
+        lexer.removeErrorListeners();
+        final var tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream;
+    }
+
+    private static @NotNull String createLargeInput(final int copies) throws IOException {
+        final var builder = new StringBuilder();
+        for (final var name : BOX_FILES) {
+            builder.append(readBoxFile(name)).append('\n');
+        }
+        return builder.toString().repeat(copies);
+    }
+
+    private static @NotNull List<Element> walkTree(final @NotNull FileContext file) throws ParserException {
+        final var elements = new ArrayList<Element>();
+        for (final var bodyElement : file.bodyElement()) {
+            elements.add(ElementParser.parse(bodyElement));
+        }
+        return elements;
+    }
+
+    private static @NotNull List<String> describe(final @NotNull List<Element> elements) {
+        // @formatter:off
+        return elements.stream()
+            .map(element -> String.format("%s%s", element.getClass().getSimpleName(), element.getTokenRange()))
+            .toList();
+        // @formatter:on
+    }
+
+    private static long measure(final @NotNull String source,
+                                final int iterations,
+                                final @NotNull BiFunction<CommonTokenStream, ANTLRErrorListener, FileContext> parser) {
+        final var errorListener = new RecordingErrorListener();
+        final var start = System.nanoTime();
+        for (var i = 0; i < iterations; i++) {
+            parser.apply(tokenize(source), errorListener);
+        }
+        Assertions.assertTrue(errorListener.errors.isEmpty());
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    @Test
+    public void sllMatchesLL() throws IOException {
+        for (final var name : BOX_FILES) {
+            final var source = readBoxFile(name);
+            final var errorListener = new RecordingErrorListener();
+            final var sllTree = FileParser.parse(tokenize(source), errorListener);
+            final var llTree = FileParser.parseLL(tokenize(source), errorListener);
+            Assertions.assertTrue(errorListener.errors.isEmpty(), name);
+            Assertions.assertEquals(llTree.toStringTree(), sllTree.toStringTree(), name);
+        }
+    }
+
+    @Test
+    public void syntaxErrorsAreReportedByLL() {
+        final var errorListener = new RecordingErrorListener();
+        FileParser.parse(tokenize("define x: i32 = (1 +\n"), errorListener);
+        Assertions.assertFalse(errorListener.errors.isEmpty());
+    }
+
+    @Test
+    public void parseElementsMatchesTreeWalk() throws IOException, ParserException {
+        for (final var name : BOX_FILES) {
+            final var source = readBoxFile(name);
+            final var errorListener = new RecordingErrorListener();
+            final var expected = walkTree(FileParser.parse(tokenize(source), errorListener));
+            final var actual = FileParser.parseElements(tokenize(source), errorListener);
+            Assertions.assertTrue(errorListener.errors.isEmpty(), name);
+            Assertions.assertEquals(describe(expected), describe(actual), name);
+        }
+    }
+
+    @Test
+    public void parseElementsReportsSyntaxErrors() throws ParserException {
+        final var errorListener = new RecordingErrorListener();
+        FileParser.parseElements(tokenize("define x: i32 = 1\ndefine y: i32 = (1 +\n"), errorListener);
+        Assertions.assertFalse(errorListener.errors.isEmpty());
+        Assertions.assertThrows(ParseCancellationException.class,
+            () -> FileParser.parseElements(tokenize("define y: i32 = (1 +\n"), null));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jbpl.benchmark", matches = "true")
+    public void benchmarkDirectModelConstruction() throws IOException, ParserException {
+        final var source = createLargeInput(50);
+        final var errorListener = new RecordingErrorListener();
+        for (var i = 0; i < 3; i++) { // Warm up both code paths and the shared DFA cache
+            walkTree(FileParser.parse(tokenize(source), errorListener));
+            FileParser.parseElements(tokenize(source), errorListener);
+        }
+        final var runtime = Runtime.getRuntime();
+        final var tokenStream = tokenize(source);
+        System.gc();
+        final var baseline = runtime.totalMemory() - runtime.freeMemory();
+        var start = System.nanoTime();
+        final var tree = FileParser.parse(tokenStream, errorListener);
+        final var treeElements = walkTree(tree);
+        final var treeWalkTime = System.nanoTime() - start;
+        System.gc();
+        final var treeWalkMemory = runtime.totalMemory() - runtime.freeMemory() - baseline;
+        Assertions.assertFalse(tree.bodyElement().isEmpty() || treeElements.isEmpty());
+
+        final var directTokenStream = tokenize(source);
+        System.gc();
+        final var directBaseline = runtime.totalMemory() - runtime.freeMemory();
+        start = System.nanoTime();
+        final var directElements = FileParser.parseElements(directTokenStream, errorListener);
+        final var directTime = System.nanoTime() - start;
+        System.gc();
+        final var directMemory = runtime.totalMemory() - runtime.freeMemory() - directBaseline;
+        Assertions.assertEquals(treeElements.size(), directElements.size());
+        System.out.printf("Parsed %d characters: tree walk %.2fms/%dKiB, direct %.2fms/%dKiB%n",
+            source.length(),
+            treeWalkTime / 1e6,
+            treeWalkMemory >> 10,
+            directTime / 1e6,
+            directMemory >> 10);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jbpl.benchmark", matches = "true")
+    public void benchmarkLargeInput() throws IOException {
+        final var source = createLargeInput(50);
+        final var iterations = 10;
+        for (var i = 0; i < 3; i++) { // Warm up both code paths and the shared DFA cache
+            measure(source, 1, FileParser::parse);
+            measure(source, 1, FileParser::parseLL);
+        }
+        final var llTime = measure(source, iterations, FileParser::parseLL);
+        final var sllTime = measure(source, iterations, FileParser::parse);
+        System.out.printf("Parsed %d characters: LL %.2fms, SLL/LL %.2fms (%.2fx)%n",
+            source.length(),
+            llTime / 1e6,
+            sllTime / 1e6,
+            (double) llTime / sllTime);
+    }
+
+    private static final class RecordingErrorListener extends BaseErrorListener {
+        public final ArrayList<String> errors = new ArrayList<>();
+
+        @Override
+        public void syntaxError(final @NotNull Recognizer<?, ?> recognizer,
+                                final @Nullable Object offendingSymbol,
+                                final int line,
+                                final int charPositionInLine,
+                                final @NotNull String msg,
+                                final @Nullable RecognitionException e) {
+            errors.add(msg);
+        }
+    }
+}
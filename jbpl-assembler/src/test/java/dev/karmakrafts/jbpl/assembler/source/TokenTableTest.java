@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 Karma Krafts & associates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.karmakrafts.jbpl.assembler.source;
+
+import dev.karmakrafts.jbpl.frontend.JBPLLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import java.io.*;
+import java.util.List;
+
+@TestInstance(Lifecycle.PER_METHOD)
+public final class TokenTableTest {
+    private static final String SOURCE = """
+        define x: i32 = 1 + 2
+        // Comment
+        assert (x == 3)
+        define s: string = "text"
+        """;
+
+    private static @NotNull List<Token> tokenize(final @NotNull String source) {
+        final var lexer = new JBPLLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        final var tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream.getTokens();
+    }
+
+    private static void assertSameTokens(final @NotNull List<Token> tokens, final @NotNull TokenTable table) {
+        Assertions.assertEquals(tokens.size(), table.size());
+        for (var i = 0; i < tokens.size(); i++) {
+            final var token = tokens.get(i);
+            Assertions.assertEquals(token.getType(), table.getType(i));
+            Assertions.assertEquals(token.getChannel(), table.getChannel(i));
+            Assertions.assertEquals(token.getStartIndex(), table.getStartIndex(i));
+            Assertions.assertEquals(token.getStopIndex(), table.getStopIndex(i));
+            Assertions.assertEquals(token.getLine(), table.getLine(i));
+            Assertions.assertEquals(token.getCharPositionInLine(), table.getColumn(i));
+            Assertions.assertEquals(token.getText(), table.getText(i));
+            Assertions.assertEquals(token.getText().length(), table.getTextLength(i));
+            final var materialized = table.get(i);
+            Assertions.assertEquals(token.getText(), materialized.getText());
+            Assertions.assertEquals(token.getTokenIndex(), materialized.getTokenIndex());
+        }
+    }
+
+    @Test
+    public void fromTokens() {
+        final var tokens = tokenize(SOURCE);
+        assertSameTokens(tokens, TokenTable.of(tokens));
+    }
+
+    @Test
+    public void getTokens() {
+        final var tokens = tokenize(SOURCE);
+        final var view = TokenTable.of(tokens).getTokens(2, 5);
+        Assertions.assertEquals(4, view.size());
+        for (var i = 0; i < view.size(); i++) {
+            Assertions.assertEquals(tokens.get(i + 2).getText(), view.get(i).getText());
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.get(4));
+    }
+
+    @Test
+    public void getLineRange() {
+        final var tokens = tokenize(SOURCE);
+        final var table = TokenTable.of(tokens);
+        final var range = table.getLineRange(3);
+        Assertions.assertNotNull(range);
+        for (var i = 0; i < tokens.size(); i++) {
+            Assertions.assertEquals(tokens.get(i).getLine() == 3, i >= range.start() && i <= range.end());
+        }
+        Assertions.assertNull(table.getLineRange(100));
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        final var tokens = tokenize(SOURCE);
+        final var bytes = new ByteArrayOutputStream();
+        try (final var out = new DataOutputStream(bytes)) {
+            TokenTable.of(tokens).write(out);
+        }
+        try (final var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSameTokens(tokens, TokenTable.read(in));
+        }
+    }
+}
@@ -382,6 +382,7 @@ whenExpr:
     (whenBranch
     | NL)*?
     defaultWhenBranch?
+    NL*
     R_BRACE
     ;
 